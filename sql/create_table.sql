@@ -26,6 +26,11 @@ create table if not exists picture
     category      varchar(64)                        null comment '分类',
     tags          varchar(512)                       null comment '标签（JSON 数组）',
     picColor      varchar(16)                        null comment '图片主色调',
+    picPalette    varchar(256)                       null comment '图片主色调色板（JSON 数组）',
+    contentHash   char(64)                           null comment '原图内容 SHA-256（对应 picture_object，为空表示不参与去重）',
+    picHash       bigint                             null comment '感知哈希（64 位，用于相似图片检索）',
+    sourcePictureId bigint                           null comment '来源图片 id（扩图等 AI 编辑结果，为空表示用户上传）',
+    sourceTaskId  varchar(64)                        null comment '来源 AI 任务 id（保存任务结果时去重）',
     picSize       bigint                             null comment '图片体积',
     picWidth      int                                null comment '图片宽度',
     picHeight     int                                null comment '图片高度',
@@ -47,9 +52,54 @@ create table if not exists picture
     INDEX idx_tags (tags),                 -- 提升基于标签的查询性能
     INDEX idx_userId (userId),             -- 提升基于用户 ID 的查询性能
     INDEX idx_reviewStatus (reviewStatus), -- 创建基于 reviewStatus 列的索引
-    INDEX idx_spaceId (spaceId)            -- 创建基于 spaceId 列的索引
+    INDEX idx_spaceId (spaceId),           -- 创建基于 spaceId 列的索引
+    INDEX idx_spaceId_reviewStatus_id (spaceId, reviewStatus, id), -- 游标分页按 id 定位下一页
+    INDEX idx_updateTime (updateTime),     -- 搜索索引增量同步
+    UNIQUE KEY uk_sourceTaskId (sourceTaskId) -- 同一任务的结果只保存一次
 ) comment '图片' collate = utf8mb4_unicode_ci;
 
+-- 存量数据库补充图片表新增的列和索引（新建的表已包含，已存在时跳过）
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND COLUMN_NAME = 'picPalette') = 0,
+            'ALTER TABLE picture ADD COLUMN picPalette varchar(256) null comment ''图片主色调色板（JSON 数组）'' after picColor', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND COLUMN_NAME = 'contentHash') = 0,
+            'ALTER TABLE picture ADD COLUMN contentHash char(64) null comment ''原图内容 SHA-256（对应 picture_object，为空表示不参与去重）'' after picPalette', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND COLUMN_NAME = 'picHash') = 0,
+            'ALTER TABLE picture ADD COLUMN picHash bigint null comment ''感知哈希（64 位，用于相似图片检索）'' after contentHash', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND COLUMN_NAME = 'sourcePictureId') = 0,
+            'ALTER TABLE picture ADD COLUMN sourcePictureId bigint null comment ''来源图片 id（扩图等 AI 编辑结果，为空表示用户上传）'' after picHash', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND COLUMN_NAME = 'sourceTaskId') = 0,
+            'ALTER TABLE picture ADD COLUMN sourceTaskId varchar(64) null comment ''来源 AI 任务 id（保存任务结果时去重）'' after sourcePictureId', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND INDEX_NAME = 'idx_spaceId_reviewStatus_id') = 0,
+            'ALTER TABLE picture ADD INDEX idx_spaceId_reviewStatus_id (spaceId, reviewStatus, id)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND INDEX_NAME = 'idx_updateTime') = 0,
+            'ALTER TABLE picture ADD INDEX idx_updateTime (updateTime)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'picture' AND INDEX_NAME = 'uk_sourceTaskId') = 0,
+            'ALTER TABLE picture ADD UNIQUE KEY uk_sourceTaskId (sourceTaskId)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 -- 空间表
 create table space
 (
@@ -87,3 +137,105 @@ create table if not exists space_user
     INDEX idx_spaceId (spaceId),                    -- 提升按空间查询的性能
     INDEX idx_userId (userId)                       -- 提升按用户查询的性能
 ) comment '空间用户关联' collate = utf8mb4_unicode_ci;
+
+-- 标签表
+create table if not exists tag
+(
+    id         bigint auto_increment comment 'id' primary key,
+    name       varchar(64)                        not null comment '标签名称',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    UNIQUE KEY uk_name (name)                     -- 标签名称唯一
+) comment '标签' collate = utf8mb4_unicode_ci;
+
+-- 图片标签关联表
+create table if not exists picture_tag
+(
+    id         bigint auto_increment comment 'id' primary key,
+    pictureId  bigint                             not null comment '图片 id',
+    tagId      bigint                             not null comment '标签 id',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    UNIQUE KEY uk_pictureId_tagId (pictureId, tagId), -- 一张图片同一标签只关联一次
+    INDEX idx_tagId_pictureId (tagId, pictureId)      -- 按标签查图片
+) comment '图片标签关联' collate = utf8mb4_unicode_ci;
+
+-- 存量标签迁移（由 picture.tags JSON 数组生成，需要 MySQL 8.0）
+INSERT IGNORE INTO tag (name)
+SELECT DISTINCT jt.name
+FROM picture p,
+     JSON_TABLE(p.tags, '$[*]' COLUMNS (name varchar(64) PATH '$')) jt
+WHERE p.isDelete = 0
+  AND JSON_VALID(p.tags)
+  AND jt.name IS NOT NULL
+  AND jt.name != '';
+
+INSERT IGNORE INTO picture_tag (pictureId, tagId)
+SELECT p.id, t.id
+FROM picture p,
+     JSON_TABLE(p.tags, '$[*]' COLUMNS (name varchar(64) PATH '$')) jt
+         JOIN tag t ON t.name = jt.name
+WHERE p.isDelete = 0
+  AND JSON_VALID(p.tags);
+
+-- 图片存储对象表（按原图内容去重，引用计数归零后才删除存储中的文件）
+create table if not exists picture_object
+(
+    id           bigint auto_increment comment 'id' primary key,
+    contentHash  char(64)                           not null comment '原图内容 SHA-256',
+    url          varchar(512)                       not null comment '图片 url',
+    thumbnailUrl varchar(512)                       null comment '缩略图 url',
+    picSize      bigint                             null comment '图片体积',
+    picWidth     int                                null comment '图片宽度',
+    picHeight    int                                null comment '图片高度',
+    picScale     double                             null comment '图片宽高比例',
+    picFormat    varchar(32)                        null comment '图片格式',
+    picColor     varchar(16)                        null comment '图片主色调',
+    picPalette   varchar(256)                       null comment '图片主色调色板（JSON 数组）',
+    picHash      bigint                             null comment '感知哈希（64 位）',
+    refCount     int      default 1                 not null comment '引用该对象的图片数',
+    createTime   datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime   datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    UNIQUE KEY uk_contentHash (contentHash) -- 相同内容只保存一份
+) comment '图片存储对象' collate = utf8mb4_unicode_ci;
+
+-- 空间统计表（按空间累计的图片数量、体积和体积分段，随图片增删改在同一事务内增量更新；spaceId 为 0 表示公共图库）
+create table if not exists space_stat
+(
+    spaceId     bigint                             not null comment '空间 id（0 表示公共图库）' primary key,
+    totalCount  bigint   default 0                 not null comment '图片数量',
+    totalSize   bigint   default 0                 not null comment '图片总大小',
+    smallCount  bigint   default 0                 not null comment '小于 100KB 的图片数量',
+    mediumCount bigint   default 0                 not null comment '100KB-500KB 的图片数量',
+    largeCount  bigint   default 0                 not null comment '500KB-1MB 的图片数量',
+    hugeCount   bigint   default 0                 not null comment '大于等于 1MB 的图片数量',
+    updateTime  datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间'
+) comment '空间统计' collate = utf8mb4_unicode_ci;
+
+-- 空间分类统计表（category 为空字符串表示未分类）
+create table if not exists space_category_stat
+(
+    spaceId    bigint                             not null comment '空间 id（0 表示公共图库）',
+    category   varchar(64)                        not null comment '分类',
+    totalCount bigint   default 0                 not null comment '图片数量',
+    totalSize  bigint   default 0                 not null comment '图片总大小',
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    PRIMARY KEY (spaceId, category)
+) comment '空间分类统计' collate = utf8mb4_unicode_ci;
+
+-- 存量统计迁移（由 picture 表汇总生成）
+INSERT IGNORE INTO space_stat (spaceId, totalCount, totalSize, smallCount, mediumCount, largeCount, hugeCount)
+SELECT IFNULL(spaceId, 0),
+       COUNT(*),
+       IFNULL(SUM(picSize), 0),
+       SUM(IFNULL(picSize, 0) < 100 * 1024),
+       SUM(IFNULL(picSize, 0) >= 100 * 1024 AND picSize < 500 * 1024),
+       SUM(IFNULL(picSize, 0) >= 500 * 1024 AND picSize < 1024 * 1024),
+       SUM(IFNULL(picSize, 0) >= 1024 * 1024)
+FROM picture
+WHERE isDelete = 0
+GROUP BY IFNULL(spaceId, 0);
+
+INSERT IGNORE INTO space_category_stat (spaceId, category, totalCount, totalSize)
+SELECT IFNULL(spaceId, 0), IFNULL(category, ''), COUNT(*), IFNULL(SUM(picSize), 0)
+FROM picture
+WHERE isDelete = 0
+GROUP BY IFNULL(spaceId, 0), IFNULL(category, '');
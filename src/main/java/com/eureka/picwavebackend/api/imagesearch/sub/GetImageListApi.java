@@ -24,7 +24,7 @@ public class GetImageListApi {
      * @return 图片列表
      */
     public static List<ImageSearchResult> getImageList(String url) {
-        try (HttpResponse response = HttpUtil.createGet(url).execute()) {
+        try (HttpResponse response = HttpUtil.createGet(url).timeout(5000).execute()) {
             // 获取响应状态码和响应体
             int statusCode = response.getStatus();
             String body = response.body();
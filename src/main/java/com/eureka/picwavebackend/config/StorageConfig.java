@@ -0,0 +1,93 @@
+package com.eureka.picwavebackend.config;
+
+import com.eureka.picwavebackend.manager.CosManager;
+import com.eureka.picwavebackend.manager.image.CosImageProcessor;
+import com.eureka.picwavebackend.manager.image.ImageProcessor;
+import com.eureka.picwavebackend.manager.image.LocalImageProcessor;
+import com.eureka.picwavebackend.manager.storage.CosObjectStorage;
+import com.eureka.picwavebackend.manager.storage.LocalObjectStorage;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
+import com.eureka.picwavebackend.model.enums.ImageProcessorTypeEnum;
+import com.eureka.picwavebackend.model.enums.StorageTypeEnum;
+import com.qcloud.cos.COSClient;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Paths;
+
+/**
+ * 对象存储配置
+ */
+@Configuration
+@Data
+@ConfigurationProperties(prefix = "storage")
+public class StorageConfig implements WebMvcConfigurer {
+
+    /**
+     * 存储类型：cos / local
+     */
+    private String type = StorageTypeEnum.COS.getValue();
+
+    /**
+     * 图片处理方式：cos（数据万象）/ local（本地处理），本地存储时固定为本地处理
+     */
+    private String processor = ImageProcessorTypeEnum.COS.getValue();
+
+    /**
+     * 本地磁盘存储配置
+     */
+    private Local local = new Local();
+
+    @Bean
+    public ObjectStorage objectStorage(COSClient cosClient, CosClientConfig cosClientConfig) {
+        if (isLocal()) {
+            return new LocalObjectStorage(Paths.get(local.getRootPath()), local.getHost());
+        }
+        return new CosObjectStorage(cosClient, cosClientConfig);
+    }
+
+    @Bean
+    public ImageProcessor imageProcessor(CosManager cosManager, ObjectStorage objectStorage) {
+        if (isLocal() || ImageProcessorTypeEnum.LOCAL.equals(ImageProcessorTypeEnum.getEnumByValue(processor))) {
+            return new LocalImageProcessor(objectStorage);
+        }
+        return new CosImageProcessor(cosManager, objectStorage);
+    }
+
+    /**
+     * 本地存储时由应用自身提供图片访问
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        if (!isLocal()) {
+            return;
+        }
+        String location = Paths.get(local.getRootPath()).toAbsolutePath().normalize().toUri().toString();
+        registry.addResourceHandler("/storage/**").addResourceLocations(location);
+    }
+
+    /**
+     * 是否使用本地磁盘存储（不支持 COS 数据万象图片处理）
+     */
+    public boolean isLocal() {
+        return StorageTypeEnum.LOCAL.equals(StorageTypeEnum.getEnumByValue(type));
+    }
+
+    @Data
+    public static class Local {
+
+        /**
+         * 存储根目录
+         */
+        private String rootPath = "./storage";
+
+        /**
+         * 访问域名（对应 /storage/** 资源映射）
+         */
+        private String host = "http://localhost:8123/api/storage";
+    }
+}
@@ -1,23 +1,21 @@
 package com.eureka.picwavebackend.controller;
 
+import cn.hutool.core.io.IoUtil;
 import com.eureka.picwavebackend.annotation.AuthCheck;
 import com.eureka.picwavebackend.common.BaseResponse;
 import com.eureka.picwavebackend.common.ResultUtils;
 import com.eureka.picwavebackend.constant.UserConstant;
 import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
-import com.eureka.picwavebackend.manager.CosManager;
-import com.qcloud.cos.model.COSObject;
-import com.qcloud.cos.model.COSObjectInputStream;
-import com.qcloud.cos.utils.IOUtils;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 @Slf4j
 @RestController
@@ -25,7 +23,7 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class FileController {
 
-    private final CosManager cosManager;
+    private final ObjectStorage objectStorage;
 
     /**
      * 测试文件上传
@@ -39,25 +37,14 @@ public class FileController {
         // 文件目录
         String filename = multipartFile.getOriginalFilename();
         String filepath = String.format("/test/%s", filename);
-        File file = null;
-        try {
-            // 上传文件
-            file = File.createTempFile(filepath, null);
-            multipartFile.transferTo(file);
-            cosManager.putObject(filepath, file);
+        // 直接上传输入流，不落地临时文件
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            objectStorage.putObject(filepath, inputStream, multipartFile.getSize());
             // 返回可访问地址
             return ResultUtils.success(filepath);
         } catch (IOException e) {
             log.error("file upload error, filepath = {}", filepath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
-        } finally {
-            if (file != null) {
-                // 删除临时文件
-                boolean delete = file.delete();
-                if (!delete) {
-                    log.error("file delete error, filepath = {}", filepath);
-                }
-            }
         }
     }
 
@@ -69,27 +56,18 @@ public class FileController {
      */
     @PostMapping("/test/download")
     @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
-    public void testDownloadFile(String filepath, HttpServletResponse response) throws IOException {
-        COSObjectInputStream cosObjectInputStream = null;
-        try {
-            // 获取输入流
-            COSObject cosObject = cosManager.getObject(filepath);
-            cosObjectInputStream = cosObject.getObjectContent();
-            // 输入流转字节数组
-            byte[] byteArray = IOUtils.toByteArray(cosObjectInputStream);
+    public void testDownloadFile(String filepath, HttpServletResponse response) {
+        // 获取输入流，边读边写入响应
+        try (InputStream inputStream = objectStorage.getObject(filepath)) {
             // 设置响应头
             response.setContentType("application/octet-stream; charset=utf-8");
             response.setHeader("Content-Disposition", "attachment; filename=" + filepath);
             // 写入响应
-            response.getOutputStream().write(byteArray);
+            IoUtil.copy(inputStream, response.getOutputStream());
             response.getOutputStream().flush();
         } catch (IOException e) {
             log.error("file download error, filepath = {}", filepath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "下载失败");
-        } finally {
-            if (cosObjectInputStream != null) {
-                cosObjectInputStream.close();
-            }
         }
     }
 
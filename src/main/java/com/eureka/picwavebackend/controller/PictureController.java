@@ -1,16 +1,13 @@
 package com.eureka.picwavebackend.controller;
 
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.eureka.picwavebackend.annotation.AuthCheck;
-import com.eureka.picwavebackend.api.aliyunai.AliYunAiApi;
 import com.eureka.picwavebackend.api.aliyunai.model.CreateOutPaintingTaskResponse;
 import com.eureka.picwavebackend.api.aliyunai.model.GetOutPaintingTaskResponse;
-import com.eureka.picwavebackend.api.imagesearch.ImageSearchApiFacade;
 import com.eureka.picwavebackend.api.imagesearch.model.ImageSearchResult;
 import com.eureka.picwavebackend.common.BaseResponse;
+import com.eureka.picwavebackend.common.CursorPage;
 import com.eureka.picwavebackend.common.DeleteRequest;
 import com.eureka.picwavebackend.common.ResultUtils;
 import com.eureka.picwavebackend.constant.UserConstant;
@@ -19,33 +16,37 @@ import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.exception.ThrowUtils;
 import com.eureka.picwavebackend.manager.auth.SpaceUserAuthManager;
 import com.eureka.picwavebackend.manager.auth.StpKit;
+import com.eureka.picwavebackend.manager.cache.PictureListCacheManager;
+import com.eureka.picwavebackend.manager.crawler.PictureCrawlJobManager;
+import com.eureka.picwavebackend.manager.outpainting.OutPaintingTaskManager;
+import com.eureka.picwavebackend.manager.search.PictureImageSearchManager;
 import com.eureka.picwavebackend.manager.auth.annotation.SaSpaceCheckPermission;
 import com.eureka.picwavebackend.manager.auth.model.SpaceUserPermissionConstant;
+import com.eureka.picwavebackend.manager.upload.ByteArrayMultipartFile;
+import com.eureka.picwavebackend.manager.upload.PictureUploadTaskManager;
 import com.eureka.picwavebackend.model.dto.picture.*;
 import com.eureka.picwavebackend.model.entity.Picture;
 import com.eureka.picwavebackend.model.entity.PictureTagCategory;
 import com.eureka.picwavebackend.model.entity.Space;
 import com.eureka.picwavebackend.model.entity.User;
 import com.eureka.picwavebackend.model.enums.PictureReviewStatusEnum;
+import com.eureka.picwavebackend.model.vo.PictureCrawlJobVO;
+import com.eureka.picwavebackend.model.vo.PictureUploadTaskVO;
 import com.eureka.picwavebackend.model.vo.PictureVO;
 import com.eureka.picwavebackend.service.PictureService;
 import com.eureka.picwavebackend.service.SpaceService;
 import com.eureka.picwavebackend.service.UserService;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
-import java.time.Duration;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -55,10 +56,13 @@ public class PictureController {
 
     private final UserService userService;
     private final PictureService pictureService;
-    private final StringRedisTemplate stringRedisTemplate;
-    private final AliYunAiApi aliYunAiApi;
     private final SpaceUserAuthManager spaceUserAuthManager;
     private final SpaceService spaceService;
+    private final PictureListCacheManager pictureListCacheManager;
+    private final PictureUploadTaskManager pictureUploadTaskManager;
+    private final PictureCrawlJobManager pictureCrawlJobManager;
+    private final PictureImageSearchManager pictureImageSearchManager;
+    private final OutPaintingTaskManager outPaintingTaskManager;
 
     /**
      * 上传图片
@@ -97,6 +101,67 @@ public class PictureController {
         return ResultUtils.success(pictureVO);
     }
 
+    /**
+     * 异步上传图片：接收文件后立即返回任务 id，通过任务 id 查询上传结果
+     *
+     * @param multipartFile        文件
+     * @param pictureUploadRequest 图片上传请求
+     * @param request              请求
+     * @return 任务 id
+     */
+    @PostMapping("/upload/async")
+    @SaSpaceCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<String> uploadPictureAsync(
+            @RequestPart("file") MultipartFile multipartFile,
+            PictureUploadRequest pictureUploadRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        ThrowUtils.throwIf(multipartFile.getSize() > 2 * 1024 * 1024L, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+        // 请求结束后临时文件会被删除，先把内容读到内存
+        MultipartFile pictureFile;
+        try {
+            pictureFile = new ByteArrayMultipartFile(multipartFile, multipartFile.getBytes());
+        } catch (IOException e) {
+            log.error("读取上传文件失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取上传文件失败");
+        }
+        String taskId = pictureUploadTaskManager.submit(pictureFile, pictureUploadRequest, loginUser);
+        return ResultUtils.success(taskId);
+    }
+
+    /**
+     * 通过 URL 异步上传图片
+     *
+     * @param pictureUploadRequest 图片上传请求
+     * @param request              请求
+     * @return 任务 id
+     */
+    @PostMapping("/upload/url/async")
+    @SaSpaceCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<String> uploadPictureByUrlAsync(
+            @RequestBody PictureUploadRequest pictureUploadRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        String fileUrl = pictureUploadRequest.getFileUrl();
+        ThrowUtils.throwIf(StrUtil.isBlank(fileUrl), ErrorCode.PARAMS_ERROR, "文件地址不能为空");
+        String taskId = pictureUploadTaskManager.submit(fileUrl, pictureUploadRequest, loginUser);
+        return ResultUtils.success(taskId);
+    }
+
+    /**
+     * 查询异步上传任务
+     *
+     * @param taskId  任务 id
+     * @param request 请求
+     * @return 任务状态
+     */
+    @GetMapping("/upload/task/get")
+    public BaseResponse<PictureUploadTaskVO> getPictureUploadTask(String taskId, HttpServletRequest request) {
+        ThrowUtils.throwIf(StrUtil.isBlank(taskId), ErrorCode.PARAMS_ERROR, "任务 id 不能为空");
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureUploadTaskManager.getTask(taskId, loginUser));
+    }
+
     /**
      * 批量抓取和创建图片（仅管理员可用）
      *
@@ -110,10 +175,41 @@ public class PictureController {
                                              HttpServletRequest request) {
         ThrowUtils.throwIf(pictureUploadByBatchRequest == null, ErrorCode.PARAMS_ERROR);
         User loginUser = userService.getLoginUser(request);
-        Integer uploadCount = pictureService.uploadPictureByBatch(pictureUploadByBatchRequest, loginUser);
+        Integer uploadCount = pictureCrawlJobManager.crawl(pictureUploadByBatchRequest, loginUser);
         return ResultUtils.success(uploadCount);
     }
 
+    /**
+     * 提交批量抓取任务（仅管理员可用）
+     *
+     * @param pictureUploadByBatchRequest 图片上传批量请求
+     * @param request                     请求
+     * @return 任务 id
+     */
+    @PostMapping("/upload/batch/async")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> uploadBatchAsync(@RequestBody PictureUploadByBatchRequest pictureUploadByBatchRequest,
+                                                 HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureUploadByBatchRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureCrawlJobManager.submit(pictureUploadByBatchRequest, loginUser));
+    }
+
+    /**
+     * 查询批量抓取任务进度（仅管理员可用）
+     *
+     * @param jobId   任务 id
+     * @param request 请求
+     * @return 任务进度
+     */
+    @GetMapping("/upload/batch/job/get")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<PictureCrawlJobVO> getPictureCrawlJob(String jobId, HttpServletRequest request) {
+        ThrowUtils.throwIf(StrUtil.isBlank(jobId), ErrorCode.PARAMS_ERROR, "任务 id 不能为空");
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureCrawlJobManager.getJob(jobId, loginUser));
+    }
+
     /**
      * 删除图片
      *
@@ -144,22 +240,9 @@ public class PictureController {
         if (pictureUpdateRequest == null || pictureUpdateRequest.getId() <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
-        // 2、校验图片
-        Long id = pictureUpdateRequest.getId();
-        Picture oldPicture = pictureService.getById(id);
-        ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR);
-        Picture picture = new Picture();
-        BeanUtils.copyProperties(pictureUpdateRequest, picture);
-        picture.setTags(JSONUtil.toJsonStr(pictureUpdateRequest.getTags()));
-        pictureService.validPicture(picture);
-
-        // 3、补充审核参数
+        // 2、更新
         User loginUser = userService.getLoginUser(request);
-        pictureService.fillReviewParams(picture, loginUser);
-
-        // 4、更新
-        boolean result = pictureService.updateById(picture);
-        ThrowUtils.throwIf(result, ErrorCode.OPERATION_ERROR);
+        pictureService.updatePicture(pictureUpdateRequest, loginUser);
         return ResultUtils.success(true);
     }
 
@@ -215,22 +298,40 @@ public class PictureController {
         User loginUser = userService.getLoginUser(request);
         CreateOutPaintingTaskResponse response = pictureService
                 .createPictureOutPaintingTask(createPictureOutPaintingTaskRequest, loginUser);
+        // 登记任务，由服务端统一轮询
+        outPaintingTaskManager.register(response, createPictureOutPaintingTaskRequest, loginUser);
         return ResultUtils.success(response);
     }
 
     /**
-     * 查询扩图任务
+     * 查询扩图任务（返回服务端缓存的最新状态）
      *
-     * @param taskId 任务 id
+     * @param taskId  任务 id
+     * @param request 请求
      * @return 获取扩图任务响应
      */
     @GetMapping("/out_painting/get_task")
-    public BaseResponse<GetOutPaintingTaskResponse> getPictureOutPaintingTask(String taskId) {
+    public BaseResponse<GetOutPaintingTaskResponse> getPictureOutPaintingTask(String taskId, HttpServletRequest request) {
         ThrowUtils.throwIf(StrUtil.isBlank(taskId), ErrorCode.PARAMS_ERROR);
-        GetOutPaintingTaskResponse response = aliYunAiApi.getOutPaintingTask(taskId);
+        User loginUser = userService.getLoginUser(request);
+        GetOutPaintingTaskResponse response = outPaintingTaskManager.getTask(taskId, loginUser);
         return ResultUtils.success(response);
     }
 
+    /**
+     * 订阅扩图任务状态（SSE，状态变化时推送 status 事件，任务结束后关闭）
+     *
+     * @param taskId  任务 id
+     * @param request 请求
+     * @return SSE 连接
+     */
+    @GetMapping(value = "/out_painting/subscribe_task", produces = "text/event-stream")
+    public SseEmitter subscribePictureOutPaintingTask(String taskId, HttpServletRequest request) {
+        ThrowUtils.throwIf(StrUtil.isBlank(taskId), ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return outPaintingTaskManager.subscribe(taskId, loginUser);
+    }
+
     /**
      * 审核图片（仅管理员可用）
      *
@@ -306,10 +407,7 @@ public class PictureController {
     @PostMapping("/list/page")
     @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
     public BaseResponse<Page<Picture>> getPictureListByPage(@RequestBody PictureQueryRequest pictureQueryRequest) {
-        int current = pictureQueryRequest.getCurrent();
-        int pageSize = pictureQueryRequest.getPageSize();
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, pageSize),
-                pictureService.getQueryWrapper(pictureQueryRequest));
+        Page<Picture> picturePage = pictureService.pagePicture(pictureQueryRequest);
         return ResultUtils.success(picturePage);
     }
 
@@ -321,7 +419,6 @@ public class PictureController {
      */
     @PostMapping("/list/page/vo")
     public BaseResponse<Page<PictureVO>> getPictureVOListByPage(@RequestBody PictureQueryRequest pictureQueryRequest) {
-        int current = pictureQueryRequest.getCurrent();
         int pageSize = pictureQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(pageSize > 20, ErrorCode.PARAMS_ERROR);
@@ -337,19 +434,36 @@ public class PictureController {
             boolean hasPermission = StpKit.SPACE.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
             ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR);
         }
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, pageSize),
-                pictureService.getQueryWrapper(pictureQueryRequest));
+        Page<Picture> picturePage = pictureService.pagePicture(pictureQueryRequest);
         return ResultUtils.success(pictureService.getPictureVOPage(picturePage));
     }
 
     /**
-     * 初始化本地缓存
+     * 游标分页获取图片列表（封装类，适用于无限滚动）
+     *
+     * @param pictureQueryRequest 图片查询请求（首页 cursor 为空，后续传入上一页的 nextCursor）
+     * @return 游标分页对象
      */
-    private final Cache<String, String> LOCAL_CACHE = Caffeine.newBuilder()
-            .initialCapacity(1024)
-            .maximumSize(10000L)
-            .expireAfterWrite(Duration.ofMinutes(5))
-            .build();
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<PictureVO>> getPictureVOListByCursor(@RequestBody PictureQueryRequest pictureQueryRequest) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        int pageSize = pictureQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(pageSize > 20, ErrorCode.PARAMS_ERROR);
+        // 校验空间权限
+        Long spaceId = pictureQueryRequest.getSpaceId();
+        if (spaceId == null) {
+            // 查询公共图库
+            pictureQueryRequest.setNullSpaceId(true);
+            // 查询过审
+            pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        } else {
+            // 校验空间权限，编程式鉴权
+            boolean hasPermission = StpKit.SPACE.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
+            ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR);
+        }
+        return ResultUtils.success(pictureService.listPictureVOByCursor(pictureQueryRequest));
+    }
 
     /**
      * 分页获取图品列表（封装类，多级缓存）
@@ -359,40 +473,28 @@ public class PictureController {
      */
     @PostMapping("/list/page/vo/cache")
     public BaseResponse<Page<PictureVO>> getPictureVOListByPageWithCache(@RequestBody PictureQueryRequest pictureQueryRequest) {
-        int current = pictureQueryRequest.getCurrent();
         int pageSize = pictureQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(pageSize > 20, ErrorCode.PARAMS_ERROR);
+        // 校验空间权限
+        Long spaceId = pictureQueryRequest.getSpaceId();
+        if (spaceId == null) {
+            // 查询公共图库
+            pictureQueryRequest.setNullSpaceId(true);
+        } else {
+            // 校验空间权限，编程式鉴权
+            boolean hasPermission = StpKit.SPACE.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
+            ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR);
+        }
         // 查询过审
         pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
-        // 构建缓存键
-        String jsonStr = JSONUtil.toJsonStr(pictureQueryRequest);
-        String encryptKey = DigestUtils.md5DigestAsHex(jsonStr.getBytes());
-        String caffeineKey = "getPictureVOListByPage:" + encryptKey;
-        String redisKey = "picwave:getPictureVOListByPageWithCache:" + encryptKey;
-        // 查询本地缓存
-        String caffeineValue = LOCAL_CACHE.getIfPresent(caffeineKey);
-        if (caffeineValue != null) {
-            // 命中，直接返回
-            Page<PictureVO> cachePage = JSONUtil.toBean(caffeineValue, Page.class);
-            return ResultUtils.success(cachePage);
-        }
-        // 未命中，查询 Redis 缓存
-        String redisValue = stringRedisTemplate.opsForValue().get(redisKey);
-        if (redisValue != null) {
-            // 命中，直接返回
-            Page<PictureVO> cachePage = JSONUtil.toBean(redisValue, Page.class);
-            return ResultUtils.success(cachePage);
-        }
-        // 未命中，查询数据库
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, pageSize),
-                pictureService.getQueryWrapper(pictureQueryRequest));
-        // 获取脱敏分页对象
-        Page<PictureVO> pictureVOPage = pictureService.getPictureVOPage(picturePage);
-        // 写入本地缓存
-        LOCAL_CACHE.put(caffeineKey, JSONUtil.toJsonStr(pictureVOPage));
-        // 写入 Redis 缓存
-        stringRedisTemplate.opsForValue().set(redisKey, JSONUtil.toJsonStr(pictureVOPage), RandomUtil.randomInt(5, 10), TimeUnit.MINUTES);
+        // 查询多级缓存，未命中时查询数据库
+        Page<PictureVO> pictureVOPage = pictureListCacheManager.getPictureVOPage(pictureQueryRequest, () -> {
+            Page<Picture> picturePage = pictureService.pagePicture(pictureQueryRequest);
+            return pictureService.getPictureVOPage(picturePage);
+        });
+        // 作者信息不缓存，每次从用户缓存填充
+        pictureService.fillPictureVOUser(pictureVOPage.getRecords());
         return ResultUtils.success(pictureVOPage);
     }
 
@@ -431,13 +533,41 @@ public class PictureController {
     }
 
     /**
-     * 以图识图
+     * 按色板搜索同时包含多种颜色的图片
+     *
+     * @param searchPictureByPaletteRequest 按色板搜索图片请求（spaceId 为空时搜索公共图库）
+     * @return pictureVOList
+     */
+    @PostMapping("/search/palette")
+    @SaSpaceCheckPermission(value = SpaceUserPermissionConstant.PICTURE_VIEW)
+    public BaseResponse<List<PictureVO>> searchPictureByPalette(@RequestBody SearchPictureByPaletteRequest searchPictureByPaletteRequest) {
+        ThrowUtils.throwIf(searchPictureByPaletteRequest == null, ErrorCode.PARAMS_ERROR);
+        List<PictureVO> pictureVOList = pictureService.searchPictureByPalette(searchPictureByPaletteRequest.getSpaceId(),
+                searchPictureByPaletteRequest.getColorList());
+        return ResultUtils.success(pictureVOList);
+    }
+
+    /**
+     * 搜索相似图片（站内，按感知哈希）
+     *
+     * @param searchSimilarPictureRequest 搜索相似图片请求
+     * @return pictureVOList
+     */
+    @PostMapping("/search/similar")
+    @SaSpaceCheckPermission(value = SpaceUserPermissionConstant.PICTURE_VIEW)
+    public BaseResponse<List<PictureVO>> searchSimilarPicture(@RequestBody SearchSimilarPictureRequest searchSimilarPictureRequest) {
+        ThrowUtils.throwIf(searchSimilarPictureRequest == null, ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(pictureService.searchSimilarPicture(searchSimilarPictureRequest));
+    }
+
+    /**
+     * 以图识图（结果有缓存，识图在后台线程执行，不占用请求线程）
      *
      * @param searchPictureByPictureRequest 以图搜图请求
      * @return imageSearchResultList
      */
     @PostMapping("/search/picture")
-    public BaseResponse<List<ImageSearchResult>> searchPictureByPicture(@RequestBody SearchPictureByPictureRequest searchPictureByPictureRequest) {
+    public DeferredResult<BaseResponse<List<ImageSearchResult>>> searchPictureByPicture(@RequestBody SearchPictureByPictureRequest searchPictureByPictureRequest) {
         ThrowUtils.throwIf(searchPictureByPictureRequest == null, ErrorCode.PARAMS_ERROR);
         Long pictureId = searchPictureByPictureRequest.getPictureId();
         ThrowUtils.throwIf(pictureId == null, ErrorCode.PARAMS_ERROR);
@@ -445,7 +575,15 @@ public class PictureController {
         ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR);
         // 将 webp 格式不能搜索问题（调用 cos 方法转为 png 格式）
         String url = oldPicture.getUrl() + "?imageMogr2/format/png";
-        List<ImageSearchResult> resultList = ImageSearchApiFacade.searchImage(url);
-        return ResultUtils.success(resultList);
+        DeferredResult<BaseResponse<List<ImageSearchResult>>> deferredResult = new DeferredResult<>();
+        pictureImageSearchManager.search(url).whenComplete((resultList, e) -> {
+            if (e == null) {
+                deferredResult.setResult(ResultUtils.success(resultList));
+            } else {
+                // 交给全局异常处理器
+                deferredResult.setErrorResult(e);
+            }
+        });
+        return deferredResult;
     }
 }
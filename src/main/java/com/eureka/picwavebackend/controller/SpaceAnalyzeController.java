@@ -74,6 +74,21 @@ public class SpaceAnalyzeController {
         return ResultUtils.success(resultList);
     }
 
+    /**
+     * 获取空间热门标签（标签云）
+     *
+     * @param spaceTopTagAnalyzeRequest 空间热门标签分析请求
+     * @param request                   http 请求
+     * @return 使用次数最多的前 N 个标签
+     */
+    @PostMapping("/tag/top")
+    public BaseResponse<List<SpaceTagAnalyzeResponse>> getSpaceTopTagAnalyze(@RequestBody SpaceTopTagAnalyzeRequest spaceTopTagAnalyzeRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(spaceTopTagAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        List<SpaceTagAnalyzeResponse> resultList = spaceAnalyzeService.getSpaceTopTagAnalyze(spaceTopTagAnalyzeRequest, loginUser);
+        return ResultUtils.success(resultList);
+    }
+
     /**
      * 获取空间大小分析
      *
@@ -0,0 +1,24 @@
+package com.eureka.picwavebackend.job;
+
+import com.eureka.picwavebackend.manager.cache.IdBloomFilterManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdBloomFilterRebuildTask {
+
+    private final IdBloomFilterManager idBloomFilterManager;
+
+    /**
+     * 每天凌晨 4 点（图片清理之后）重建布隆过滤器，清理已删除的 id
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void rebuild() {
+        log.info("开始重建 id 布隆过滤器...");
+        idBloomFilterManager.rebuild();
+    }
+}
@@ -1,10 +1,11 @@
 package com.eureka.picwavebackend.job;
 
 import cn.hutool.core.util.StrUtil;
-import com.eureka.picwavebackend.manager.CosManager;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
 import com.eureka.picwavebackend.mapper.PictureMapper;
+import com.eureka.picwavebackend.mapper.PictureTagMapper;
 import com.eureka.picwavebackend.model.entity.Picture;
-import com.eureka.picwavebackend.config.CosClientConfig;
+import com.eureka.picwavebackend.service.PictureObjectService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -19,8 +21,9 @@ import java.util.List;
 public class PictureCleanupTask {
 
     private final PictureMapper pictureMapper;
-    private final CosManager cosManager;
-    private final CosClientConfig cosClientConfig;
+    private final PictureTagMapper pictureTagMapper;
+    private final ObjectStorage objectStorage;
+    private final PictureObjectService pictureObjectService;
 
     /**
      * 每天凌晨 0 点执行清理任务
@@ -36,30 +39,40 @@ public class PictureCleanupTask {
         }
         List<String> keysToDelete = new ArrayList<>();
         for (Picture picture : deletedPictures) {
-            // 删除 COS 上的图片
+            // 释放存储对象的引用，仍被其他图片引用时保留文件
+            if (!pictureObjectService.release(picture.getContentHash())) {
+                log.info("图片文件仍被引用，跳过删除, id = {}", picture.getId());
+                continue;
+            }
+            // 删除存储中的图片
             String url = picture.getUrl();
             String thumbnailUrl = picture.getThumbnailUrl();
             if (StrUtil.isNotBlank(url)) {
-                String key = url.replace(cosClientConfig.getHost() + "/", "");
+                String key = objectStorage.getKey(url);
                 keysToDelete.add(key);
-                log.info("准备删除 COS 上的图片, key = {}", key);
+                log.info("准备删除存储中的图片, key = {}", key);
             }
             if (StrUtil.isNotBlank(thumbnailUrl)) {
-                String thumbnailKey = thumbnailUrl.replace(cosClientConfig.getHost() + "/", "");
+                String thumbnailKey = objectStorage.getKey(thumbnailUrl);
                 keysToDelete.add(thumbnailKey);
-                log.info("准备删除 COS 上的缩略图, thumbnailKey = {}", thumbnailKey);
+                log.info("准备删除存储中的缩略图, thumbnailKey = {}", thumbnailKey);
             }
         }
         if (!keysToDelete.isEmpty()) {
+            // 引用已经释放，删除文件失败时也要继续删除记录，避免下次重复释放
             try {
-                cosManager.deleteObjects(keysToDelete);
+                objectStorage.deleteObjects(keysToDelete);
+                log.info("删除存储中的图片成功, 数量 = {}", keysToDelete.size());
             } catch (Exception e) {
-                throw new RuntimeException(e);
+                log.error("删除存储中的图片失败, 数量 = {}", keysToDelete.size(), e);
             }
-            log.info("删除 COS 上的图片成功, 数量 = {}", keysToDelete.size());
         }
-        // 物理删除数据库中的记录
-        int deletedCount = pictureMapper.deleteDeleted();
+        // 物理删除数据库中的记录（先删除标签关联）
+        int deletedTagCount = pictureTagMapper.deleteOfDeletedPicture();
+        log.info("删除图片标签关联成功, 数量 = {}", deletedTagCount);
+        // 只删除本次已释放引用的记录，查询之后才删除的图片留到下次处理
+        List<Long> pictureIdList = deletedPictures.stream().map(Picture::getId).collect(Collectors.toList());
+        int deletedCount = pictureMapper.deleteDeletedByIds(pictureIdList);
         log.info("物理删除数据库中的图片记录成功, 数量 = {}", deletedCount);
     }
 }
@@ -0,0 +1,148 @@
+package com.eureka.picwavebackend.job;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.HttpResponse;
+import cn.hutool.http.HttpUtil;
+import com.eureka.picwavebackend.config.StorageConfig;
+import com.eureka.picwavebackend.manager.color.PictureColorExtractor;
+import com.eureka.picwavebackend.manager.color.PictureColors;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
+import com.eureka.picwavebackend.manager.event.PictureChangeEvent;
+import com.eureka.picwavebackend.mapper.PictureMapper;
+import com.eureka.picwavebackend.mapper.PictureObjectMapper;
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.enums.PictureChangeTypeEnum;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 感知哈希补算任务
+ * 存量图片和上传时无法本地解码（如 webp）的图片没有感知哈希，按缩略图补算；
+ * 更新后同步补写存储对象的感知哈希，并发布变更事件清理实体缓存、刷新索引
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureHashBackfillTask {
+
+    private final PictureMapper pictureMapper;
+    private final PictureObjectMapper pictureObjectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ObjectStorage objectStorage;
+    private final StorageConfig storageConfig;
+    private final PictureColorExtractor pictureColorExtractor;
+
+    /**
+     * 每批条数
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 下载图片超时（毫秒）
+     */
+    private static final int DOWNLOAD_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 补算失败的图片 id，本进程内不再重试
+     */
+    private final Set<Long> failedIdSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 应用启动后异步补算一次
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        backfill();
+    }
+
+    /**
+     * 每天凌晨 4 点补算
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public synchronized void backfill() {
+        long start = System.currentTimeMillis();
+        int successCount = 0;
+        int failedCount = 0;
+        long lastId = 0;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectWithoutPicHashAfterId(lastId, BATCH_SIZE);
+            if (pictureList.isEmpty()) {
+                break;
+            }
+            Map<Long, List<Long>> updatedIdMap = new HashMap<>();
+            for (Picture picture : pictureList) {
+                if (failedIdSet.contains(picture.getId())) {
+                    continue;
+                }
+                Long picHash = computePicHash(picture);
+                if (picHash == null) {
+                    failedIdSet.add(picture.getId());
+                    failedCount++;
+                    continue;
+                }
+                pictureMapper.updatePicHash(picture.getId(), picHash);
+                if (StrUtil.isNotBlank(picture.getContentHash())) {
+                    pictureObjectMapper.updatePicHash(picture.getContentHash(), picHash);
+                }
+                updatedIdMap.computeIfAbsent(picture.getSpaceId(), key -> new ArrayList<>()).add(picture.getId());
+                successCount++;
+            }
+            // 发布变更事件，清理实体缓存并刷新索引
+            updatedIdMap.forEach((spaceId, idList) -> applicationEventPublisher.publishEvent(
+                    new PictureChangeEvent(this, PictureChangeTypeEnum.UPDATE, spaceId, idList)));
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+        }
+        if (successCount > 0 || failedCount > 0) {
+            log.info("感知哈希补算完成, 成功 = {}, 失败 = {}, 耗时 = {} ms", successCount, failedCount,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 下载缩略图（没有缩略图时下载原图）并计算感知哈希
+     *
+     * @return 感知哈希，失败时返回 null
+     */
+    private Long computePicHash(Picture picture) {
+        String url = StrUtil.isNotBlank(picture.getThumbnailUrl()) ? picture.getThumbnailUrl() : picture.getUrl();
+        if (StrUtil.isBlank(url)) {
+            return null;
+        }
+        try {
+            byte[] bytes;
+            if (storageConfig.isLocal()) {
+                try (InputStream inputStream = objectStorage.getObject(objectStorage.getKey(url))) {
+                    bytes = IoUtil.readBytes(inputStream);
+                }
+            } else {
+                // ImageIO 无法解码 webp，由数据万象转为 png
+                try (HttpResponse response = HttpUtil.createGet(url + "?imageMogr2/format/png")
+                        .timeout(DOWNLOAD_TIMEOUT_MILLIS)
+                        .execute()) {
+                    if (!response.isOk()) {
+                        log.warn("下载图片失败, id = {}, status = {}", picture.getId(), response.getStatus());
+                        return null;
+                    }
+                    bytes = response.bodyBytes();
+                }
+            }
+            PictureColors pictureColors = pictureColorExtractor.extract(bytes);
+            return pictureColors != null ? pictureColors.getPerceptualHash() : null;
+        } catch (Exception e) {
+            log.warn("感知哈希补算失败, id = {}, url = {}", picture.getId(), url, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.eureka.picwavebackend.job;
+
+import com.eureka.picwavebackend.manager.index.PictureIndexSyncManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureIndexSyncTask {
+
+    private final PictureIndexSyncManager pictureIndexSyncManager;
+
+    /**
+     * 每 30 秒增量同步一次内存索引
+     */
+    @Scheduled(fixedDelay = 30 * 1000L, initialDelay = 30 * 1000L)
+    public void syncIncrementally() {
+        try {
+            pictureIndexSyncManager.syncIncrementally();
+        } catch (Exception e) {
+            log.error("图片内存索引增量同步失败", e);
+        }
+    }
+
+    /**
+     * 每天凌晨 3 点全量重建内存索引，修正累计误差
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void rebuild() {
+        log.info("开始重建图片内存索引...");
+        pictureIndexSyncManager.rebuild();
+    }
+}
@@ -0,0 +1,24 @@
+package com.eureka.picwavebackend.job;
+
+import com.eureka.picwavebackend.manager.tag.TagStatManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TagStatRebuildTask {
+
+    private final TagStatManager tagStatManager;
+
+    /**
+     * 每天凌晨 4 点 30 分全量重建标签统计，修正累计误差
+     */
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void rebuild() {
+        log.info("开始重建标签统计...");
+        tagStatManager.rebuild();
+    }
+}
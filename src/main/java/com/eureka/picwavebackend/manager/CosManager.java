@@ -10,11 +10,12 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * 操作图片接口
+ * 腾讯云 COS 图片处理（数据万象），通用的对象读写使用 {@link com.eureka.picwavebackend.manager.storage.ObjectStorage}
  */
 @Slf4j
 @Component
@@ -27,37 +28,42 @@ public class CosManager {
     private COSClient cosClient;
 
     /**
-     * 上传文件
+     * 上传文件（附带图片信息）
      *
      * @param key  唯一值
      * @param file 文件
      * @return PutObjectResult
      */
-    public PutObjectResult putObject(String key, File file) {
+    public PutObjectResult putPictureObject(String key, File file) {
         PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, file);
+        putObjectRequest.setPicOperations(buildPicOperations(key, file.length()));
         return cosClient.putObject(putObjectRequest);
     }
 
     /**
-     * 下载对象
+     * 流式上传文件（附带图片信息），不经过本地临时文件
      *
-     * @param key 唯一值
-     * @return COSObject
+     * @param key           唯一值
+     * @param inputStream   输入流
+     * @param contentLength 内容长度
+     * @return PutObjectResult
      */
-    public COSObject getObject(String key) {
-        GetObjectRequest getObjectRequest = new GetObjectRequest(cosClientConfig.getBucket(), key);
-        return cosClient.getObject(getObjectRequest);
+    public PutObjectResult putPictureObject(String key, InputStream inputStream, long contentLength) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream, objectMetadata);
+        putObjectRequest.setPicOperations(buildPicOperations(key, contentLength));
+        return cosClient.putObject(putObjectRequest);
     }
 
     /**
-     * 上传文件（附带图片信息）
+     * 构造图片处理规则
      *
-     * @param key  唯一值
-     * @param file 文件
-     * @return PutObjectResult
+     * @param key      唯一值
+     * @param fileSize 原图大小
+     * @return PicOperations
      */
-    public PutObjectResult putPictureObject(String key, File file) {
-        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, file);
+    private PicOperations buildPicOperations(String key, long fileSize) {
         // 解析图片（获取基本信息）
         PicOperations picOperations = new PicOperations();
         // 返回原图
@@ -70,8 +76,7 @@ public class CosManager {
         compressRule.setFileId(FileUtil.mainName(key) + ".webp");
         rules.add(compressRule);
         // 缩略图处理，仅对大于 2kb 的图片生成缩略图
-        if (file.length() > 2 * 1024) {
-
+        if (fileSize > 2 * 1024) {
             PicOperations.Rule thumbnailRule = new PicOperations.Rule();
             // 缩放规则 /thumbnail/<Width>x<Height>>（如果大于原图宽高，则不处理）
             thumbnailRule.setRule(String.format("imageMogr2/thumbnail/%sx%s>", 256, 256));
@@ -82,30 +87,6 @@ public class CosManager {
         }
         // 构造请求参数
         picOperations.setRules(rules);
-        putObjectRequest.setPicOperations(picOperations);
-        return cosClient.putObject(putObjectRequest);
-    }
-
-    /**
-     * 删除原图
-     * @param key 唯一值
-     */
-    public void deleteObject(String key) {
-        DeleteObjectRequest deleteObjectRequest = new DeleteObjectRequest(cosClientConfig.getBucket(), key);
-        cosClient.deleteObject(deleteObjectRequest);
-    }
-
-    /**
-     * 批量删除原图
-     * @param keys 唯一值
-     */
-    public void deleteObjects(List<String> keys) {
-        DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(cosClientConfig.getBucket());
-        ArrayList<DeleteObjectsRequest.KeyVersion> keyList = new ArrayList<>();
-        for (String key : keys) {
-            keyList.add(new DeleteObjectsRequest.KeyVersion(key));
-        }
-        deleteObjectsRequest.setKeys(keyList);
-        cosClient.deleteObjects(deleteObjectsRequest);
+        return picOperations;
     }
 }
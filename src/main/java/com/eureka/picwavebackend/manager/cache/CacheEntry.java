@@ -0,0 +1,34 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 缓存条目（带逻辑过期时间）
+ * 物理过期时间晚于逻辑过期时间，逻辑过期后仍可返回旧值，同时后台刷新；
+ * 条目在多个请求之间共享，取出后只读，不要修改 value
+ */
+@Getter
+@AllArgsConstructor
+public class CacheEntry<T> {
+
+    /**
+     * 缓存值
+     */
+    private final T value;
+
+    /**
+     * 逻辑过期时间（毫秒时间戳）
+     */
+    private final long expireTime;
+
+    /**
+     * 加载耗时（毫秒），用于概率提前刷新
+     */
+    private final long loadCost;
+
+    /**
+     * 序列化后的字节数，用于本地缓存按容量淘汰
+     */
+    private final int weight;
+}
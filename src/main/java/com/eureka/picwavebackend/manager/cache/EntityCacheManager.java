@@ -0,0 +1,322 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.manager.event.PictureChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 实体多级缓存管理器（Caffeine + Redis）
+ * 按 id 缓存图片、空间、用户、空间成员等实体，供 Service 的 getById / listByIds 读穿透使用
+ * <p>
+ * 写操作后删除缓存：立即删除一次，事务提交后再删除一次（避免并发读在提交前把旧值回填），
+ * 并通过 Redis 发布订阅通知所有实例清理本地缓存；本地缓存过期时间较短，兜底消息丢失
+ * <p>
+ * 缓存中的对象不直接返回给调用方（调用方经常修改后再 updateById），每次返回浅拷贝
+ * <p>
+ * 数据库中不存在的 id 缓存空值（本地为占位对象，Redis 为空串），过期时间较短，避免反复查库
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntityCacheManager implements MessageListener {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 实体类型
+     */
+    public static final String PICTURE = "picture";
+    public static final String SPACE = "space";
+    public static final String USER = "user";
+    public static final String SPACE_USER = "spaceUser";
+
+    /**
+     * 缓存键前缀
+     */
+    private static final String CACHE_KEY_PREFIX = "picwave:entity:";
+
+    /**
+     * 缓存失效广播频道
+     */
+    private static final String INVALIDATE_CHANNEL = "picwave:entity:invalidate";
+
+    /**
+     * Redis 缓存过期时间（分钟），实际取 [30, 35) 随机值，避免同时过期
+     */
+    private static final int REDIS_TTL_MINUTES = 30;
+
+    /**
+     * 空值在 Redis 中的过期时间（秒）
+     */
+    private static final int NULL_TTL_SECONDS = 60;
+
+    /**
+     * 本地缓存中的空值占位对象
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * 本地缓存：类型:id -> 实体
+     */
+    private final Cache<String, Object> LOCAL_CACHE = Caffeine.newBuilder()
+            .initialCapacity(1024)
+            .maximumSize(10000L)
+            .expireAfterWrite(Duration.ofSeconds(60))
+            .build();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 按 id 获取实体（未命中时调用 loader 查询并写入缓存）
+     *
+     * @param type   实体类型
+     * @param id     实体 id
+     * @param clazz  实体类
+     * @param loader 数据库查询
+     * @return 实体，不存在时返回 null
+     */
+    public <T> T get(String type, Serializable id, Class<T> clazz, Function<Serializable, T> loader) {
+        if (id == null) {
+            return null;
+        }
+        String cacheKey = buildCacheKey(type, id);
+        // 1、查询本地缓存
+        Object localValue = LOCAL_CACHE.getIfPresent(cacheKey);
+        if (localValue != null) {
+            return localValue == NULL_VALUE ? null : BeanUtil.copyProperties(localValue, clazz);
+        }
+        // 2、查询 Redis 缓存
+        String redisValue = getFromRedis(cacheKey);
+        if (redisValue != null) {
+            if (redisValue.isEmpty()) {
+                LOCAL_CACHE.put(cacheKey, NULL_VALUE);
+                return null;
+            }
+            T entity = JSONUtil.toBean(redisValue, clazz);
+            LOCAL_CACHE.put(cacheKey, entity);
+            return BeanUtil.copyProperties(entity, clazz);
+        }
+        // 3、查库并回填（不存在时缓存空值）
+        T entity = loader.apply(id);
+        if (entity == null) {
+            putNull(cacheKey);
+            return null;
+        }
+        put(cacheKey, entity);
+        return BeanUtil.copyProperties(entity, clazz);
+    }
+
+    /**
+     * 按 id 批量获取实体（未命中的 id 调用 loader 一次性查询并写入缓存）
+     *
+     * @param type     实体类型
+     * @param idList   实体 id 列表
+     * @param clazz    实体类
+     * @param loader   数据库批量查询
+     * @param idGetter 获取实体 id
+     * @return 实体列表（按传入 id 的顺序，不存在的 id 不包含在内）
+     */
+    public <T> List<T> listByIds(String type, Collection<? extends Serializable> idList, Class<T> clazz,
+                                 Function<Collection<? extends Serializable>, List<T>> loader,
+                                 Function<T, Serializable> idGetter) {
+        if (CollUtil.isEmpty(idList)) {
+            return new ArrayList<>();
+        }
+        // 1、查询本地缓存
+        Map<String, T> entityMap = new HashMap<>();
+        List<String> missKeyList = new ArrayList<>();
+        Map<String, Serializable> keyIdMap = new LinkedHashMap<>();
+        for (Serializable id : idList) {
+            String cacheKey = buildCacheKey(type, id);
+            if (keyIdMap.put(cacheKey, id) != null) {
+                continue;
+            }
+            Object localValue = LOCAL_CACHE.getIfPresent(cacheKey);
+            if (localValue == null) {
+                missKeyList.add(cacheKey);
+            } else if (localValue != NULL_VALUE) {
+                entityMap.put(cacheKey, clazz.cast(localValue));
+            }
+        }
+        // 2、批量查询 Redis 缓存
+        if (!missKeyList.isEmpty()) {
+            List<String> redisValueList = null;
+            try {
+                redisValueList = stringRedisTemplate.opsForValue().multiGet(missKeyList);
+            } catch (Exception e) {
+                log.warn("批量获取实体缓存失败, type = {}", type, e);
+            }
+            List<String> dbMissKeyList = new ArrayList<>();
+            for (int i = 0; i < missKeyList.size(); i++) {
+                String redisValue = redisValueList == null ? null : redisValueList.get(i);
+                String cacheKey = missKeyList.get(i);
+                if (redisValue == null) {
+                    dbMissKeyList.add(cacheKey);
+                } else if (redisValue.isEmpty()) {
+                    LOCAL_CACHE.put(cacheKey, NULL_VALUE);
+                } else {
+                    T entity = JSONUtil.toBean(redisValue, clazz);
+                    LOCAL_CACHE.put(cacheKey, entity);
+                    entityMap.put(cacheKey, entity);
+                }
+            }
+            missKeyList = dbMissKeyList;
+        }
+        // 3、一次查库并回填
+        if (!missKeyList.isEmpty()) {
+            List<Serializable> missIdList = new ArrayList<>(missKeyList.size());
+            for (String cacheKey : missKeyList) {
+                missIdList.add(keyIdMap.get(cacheKey));
+            }
+            for (T entity : loader.apply(missIdList)) {
+                String cacheKey = buildCacheKey(type, idGetter.apply(entity));
+                put(cacheKey, entity);
+                entityMap.put(cacheKey, entity);
+            }
+            for (String cacheKey : missKeyList) {
+                if (!entityMap.containsKey(cacheKey)) {
+                    putNull(cacheKey);
+                }
+            }
+        }
+        // 4、按传入顺序返回拷贝
+        List<T> entityList = new ArrayList<>(entityMap.size());
+        for (String cacheKey : keyIdMap.keySet()) {
+            T entity = entityMap.get(cacheKey);
+            if (entity != null) {
+                entityList.add(BeanUtil.copyProperties(entity, clazz));
+            }
+        }
+        return entityList;
+    }
+
+    /**
+     * 删除实体缓存（在事务中调用时，事务提交后会再删除一次）
+     *
+     * @param type 实体类型
+     * @param id   实体 id
+     */
+    public void evict(String type, Serializable id) {
+        if (id != null) {
+            evict(type, Collections.singletonList(id));
+        }
+    }
+
+    /**
+     * 批量删除实体缓存（在事务中调用时，事务提交后会再删除一次）
+     *
+     * @param type   实体类型
+     * @param idList 实体 id 列表
+     */
+    public void evict(String type, Collection<? extends Serializable> idList) {
+        if (CollUtil.isEmpty(idList)) {
+            return;
+        }
+        List<String> cacheKeyList = new ArrayList<>(idList.size());
+        for (Serializable id : idList) {
+            cacheKeyList.add(buildCacheKey(type, id));
+        }
+        evictKeys(cacheKeyList);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictKeys(cacheKeyList);
+                }
+            });
+        }
+    }
+
+    /**
+     * 图片变更后删除图片缓存（事务提交后执行）
+     *
+     * @param event 图片变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureChange(PictureChangeEvent event) {
+        evict(PICTURE, event.getPictureIdList());
+    }
+
+    /**
+     * 收到其他实例的失效广播，清理本地缓存
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        LOCAL_CACHE.invalidateAll(StrUtil.split(body, ','));
+    }
+
+    private void put(String cacheKey, Object entity) {
+        LOCAL_CACHE.put(cacheKey, entity);
+        try {
+            int ttlMinutes = REDIS_TTL_MINUTES + RandomUtil.randomInt(0, 5);
+            stringRedisTemplate.opsForValue().set(cacheKey, JSONUtil.toJsonStr(entity), ttlMinutes, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("写入实体缓存失败, cacheKey = {}", cacheKey, e);
+        }
+    }
+
+    private void putNull(String cacheKey) {
+        LOCAL_CACHE.put(cacheKey, NULL_VALUE);
+        try {
+            stringRedisTemplate.opsForValue().set(cacheKey, "", NULL_TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入实体空值缓存失败, cacheKey = {}", cacheKey, e);
+        }
+    }
+
+    /**
+     * @return 缓存值，未命中或 Redis 不可用时返回 null，空值返回空串
+     */
+    private String getFromRedis(String cacheKey) {
+        try {
+            return stringRedisTemplate.opsForValue().get(cacheKey);
+        } catch (Exception e) {
+            // Redis 不可用时直接查库
+            log.warn("获取实体缓存失败, cacheKey = {}", cacheKey, e);
+            return null;
+        }
+    }
+
+    private void evictKeys(List<String> cacheKeyList) {
+        LOCAL_CACHE.invalidateAll(cacheKeyList);
+        try {
+            stringRedisTemplate.delete(cacheKeyList);
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.join(",", cacheKeyList));
+        } catch (Exception e) {
+            log.error("删除实体缓存失败, cacheKeyList = {}", cacheKeyList, e);
+        }
+    }
+
+    private static String buildCacheKey(String type, Serializable id) {
+        return CACHE_KEY_PREFIX + type + ":" + id;
+    }
+}
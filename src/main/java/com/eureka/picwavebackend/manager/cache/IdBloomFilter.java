@@ -0,0 +1,96 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * id 布隆过滤器
+ * 判断不存在时一定不存在，判断存在时有一定误判率；不支持删除，删除的 id 由定期重建清理
+ * 位数组使用 AtomicLongArray，多线程并发写入、查询无需加锁
+ */
+public class IdBloomFilter {
+
+    /**
+     * 位数组
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * 位数
+     */
+    private final long bitSize;
+
+    /**
+     * 哈希函数个数
+     */
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预计元素个数
+     * @param fpp                期望误判率
+     */
+    public IdBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(expectedInsertions, 1);
+        // m = -n * ln(p) / (ln2)^2，k = m / n * ln2
+        long m = (long) (-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min((m + 63) >>> 6, Integer.MAX_VALUE);
+        this.bits = new AtomicLongArray(Math.max(wordCount, 1));
+        this.bitSize = (long) bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    /**
+     * 添加 id
+     *
+     * @param id id
+     */
+    public void add(long id) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+            int wordIndex = (int) (bitIndex >>> 6);
+            long mask = 1L << bitIndex;
+            long word = bits.get(wordIndex);
+            while ((word & mask) == 0 && !bits.compareAndSet(wordIndex, word, word | mask)) {
+                word = bits.get(wordIndex);
+            }
+        }
+    }
+
+    /**
+     * 判断 id 是否可能存在
+     *
+     * @param id id
+     * @return false 表示一定不存在
+     */
+    public boolean mightContain(long id) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+            if ((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 位数组占用字节数
+     */
+    public long byteSize() {
+        return bitSize >>> 3;
+    }
+
+    /**
+     * MurmurHash3 的 64 位混淆函数，雪花 id 低位变化集中，需要打散
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
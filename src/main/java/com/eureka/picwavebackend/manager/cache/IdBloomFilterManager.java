@@ -0,0 +1,284 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.eureka.picwavebackend.manager.event.PictureChangeEvent;
+import com.eureka.picwavebackend.mapper.PictureMapper;
+import com.eureka.picwavebackend.mapper.SpaceMapper;
+import com.eureka.picwavebackend.model.enums.PictureChangeTypeEnum;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * id 布隆过滤器管理器
+ * 为图片、空间各维护一个本地布隆过滤器，getById 前先判断，不存在的 id 不再查缓存和数据库（防缓存穿透）
+ * <p>
+ * 启动时按 id 分批扫描全量构建，每天定时重建以清理已删除的 id；新增数据时写入本实例并通过 Redis 发布订阅通知其他实例。
+ * 构建完成前一律视为可能存在；发布订阅不保证送达，过滤器未命中但 id（雪花算法）生成于最近一次构建开始之后的，
+ * 仍视为可能存在，交由实体缓存查库判断（不存在时缓存空值）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdBloomFilterManager implements MessageListener {
+
+    private final PictureMapper pictureMapper;
+    private final SpaceMapper spaceMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 新增 id 广播频道
+     */
+    private static final String ADD_CHANNEL = "picwave:bloom:add";
+
+    /**
+     * 全量构建每批条数
+     */
+    private static final int BATCH_SIZE = 5000;
+
+    /**
+     * 最小预计元素个数，数据量小时也留出增长空间
+     */
+    private static final long MIN_EXPECTED_INSERTIONS = 1000000L;
+
+    /**
+     * 期望误判率
+     */
+    private static final double FPP = 0.01;
+
+    /**
+     * 雪花算法 id 的起始时间戳（与 MyBatis-Plus 默认 id 生成器一致）
+     */
+    private static final long SNOWFLAKE_EPOCH = 1288834974657L;
+
+    /**
+     * 雪花算法 id 中时间戳的位移
+     */
+    private static final int SNOWFLAKE_TIMESTAMP_SHIFT = 22;
+
+    /**
+     * 构建开始前多久生成的 id 仍视为可能未扫描到（未提交的事务），与最近新增 id 的保留时间一致
+     */
+    private static final long RECENT_ID_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    /**
+     * 允许的机器时钟偏差，生成时间晚于当前时间太多的 id 视为伪造
+     */
+    private static final long CLOCK_SKEW_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    /**
+     * 实体类型 -> 过滤器
+     */
+    private final Map<String, FilterHolder<?>> filterHolderMap = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        filterHolderMap.put(EntityCacheManager.PICTURE, new FilterHolder<>(pictureMapper));
+        filterHolderMap.put(EntityCacheManager.SPACE, new FilterHolder<>(spaceMapper));
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(ADD_CHANNEL));
+    }
+
+    /**
+     * 判断 id 是否可能存在
+     *
+     * @param type 实体类型
+     * @param id   实体 id
+     * @return false 表示一定不存在
+     */
+    public boolean mightContain(String type, Serializable id) {
+        FilterHolder<?> filterHolder = filterHolderMap.get(type);
+        IdBloomFilter filter = filterHolder == null ? null : filterHolder.filter;
+        if (filter == null || id == null) {
+            return true;
+        }
+        Long longId = toLong(id);
+        if (longId == null) {
+            return false;
+        }
+        // 其他实例新增的 id 可能因广播丢失未写入本实例过滤器，构建之后生成的 id 不能直接判定为不存在
+        return filter.mightContain(longId) || isNewerThanBuild(longId, filterHolder.buildStartTime);
+    }
+
+    /**
+     * 判断 id 是否生成于过滤器构建开始之后
+     *
+     * @param id             雪花算法 id
+     * @param buildStartTime 构建开始时间
+     * @return 是否可能在构建时未扫描到
+     */
+    static boolean isNewerThanBuild(long id, long buildStartTime) {
+        if (id <= 0) {
+            return false;
+        }
+        long createTime = (id >> SNOWFLAKE_TIMESTAMP_SHIFT) + SNOWFLAKE_EPOCH;
+        return createTime >= buildStartTime - RECENT_ID_MILLIS
+                && createTime <= System.currentTimeMillis() + CLOCK_SKEW_MILLIS;
+    }
+
+    /**
+     * 新增数据后写入过滤器，并通知其他实例
+     *
+     * @param type 实体类型
+     * @param id   实体 id
+     */
+    public void add(String type, Long id) {
+        if (id == null || !addLocal(type, id)) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(ADD_CHANNEL, type + ":" + id);
+        } catch (Exception e) {
+            // 其他实例在下次重建时补上
+            log.error("广播布隆过滤器新增 id 失败, type = {}, id = {}", type, id, e);
+        }
+    }
+
+    /**
+     * 新增图片后写入过滤器（在事务内同步执行，保证提交后立即可查）
+     *
+     * @param event 图片变更事件
+     */
+    @EventListener
+    public void onPictureChange(PictureChangeEvent event) {
+        if (event.getChangeType() == PictureChangeTypeEnum.ADD && event.getPictureIdList() != null) {
+            event.getPictureIdList().forEach(pictureId -> add(EntityCacheManager.PICTURE, pictureId));
+        }
+    }
+
+    /**
+     * 收到其他实例新增的 id
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<String> partList = StrUtil.split(body, ':');
+        if (partList.size() == 2 && NumberUtil.isLong(partList.get(1))) {
+            addLocal(partList.get(0), Long.parseLong(partList.get(1)));
+        }
+    }
+
+    /**
+     * 应用启动后异步构建过滤器
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 全量重建所有过滤器，构建完成后整体替换
+     */
+    public synchronized void rebuild() {
+        filterHolderMap.forEach((type, filterHolder) -> {
+            long start = System.currentTimeMillis();
+            try {
+                IdBloomFilter newFilter = filterHolder.build();
+                filterHolder.buildStartTime = start;
+                filterHolder.filter = newFilter;
+                // 替换之后再补上最近新增的 id，保证构建期间的新增不会丢失
+                filterHolder.recentIdCache.asMap().keySet().forEach(newFilter::add);
+                log.info("布隆过滤器构建完成, type = {}, 占用 = {} KB, 耗时 = {} ms",
+                        type, newFilter.byteSize() / 1024, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("布隆过滤器构建失败, type = {}", type, e);
+            }
+        });
+    }
+
+    private boolean addLocal(String type, long id) {
+        FilterHolder<?> filterHolder = filterHolderMap.get(type);
+        if (filterHolder == null) {
+            return false;
+        }
+        filterHolder.recentIdCache.put(id, Boolean.TRUE);
+        IdBloomFilter filter = filterHolder.filter;
+        if (filter != null) {
+            filter.add(id);
+        }
+        return true;
+    }
+
+    private static Long toLong(Serializable id) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        String idStr = String.valueOf(id);
+        return NumberUtil.isLong(idStr) ? Long.parseLong(idStr) : null;
+    }
+
+    /**
+     * 单个实体类型的过滤器
+     */
+    private static class FilterHolder<T> {
+
+        private final BaseMapper<T> mapper;
+
+        /**
+         * 当前过滤器，为空表示尚未构建完成
+         */
+        private volatile IdBloomFilter filter;
+
+        /**
+         * 当前过滤器的构建开始时间
+         */
+        private volatile long buildStartTime;
+
+        /**
+         * 最近新增的 id：扫描时可能读不到尚未提交的数据，替换过滤器后补上
+         */
+        private final Cache<Long, Boolean> recentIdCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+
+        FilterHolder(BaseMapper<T> mapper) {
+            this.mapper = mapper;
+        }
+
+        /**
+         * 按 id 分批扫描构建新过滤器（逻辑删除的数据不会扫描到）
+         */
+        IdBloomFilter build() {
+            long count = mapper.selectCount(null);
+            IdBloomFilter newFilter = new IdBloomFilter(Math.max(count * 2, MIN_EXPECTED_INSERTIONS), FPP);
+            long lastId = 0;
+            while (true) {
+                List<Object> idList = mapper.selectObjs(new QueryWrapper<T>()
+                        .select("id")
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("LIMIT " + BATCH_SIZE));
+                if (idList.isEmpty()) {
+                    break;
+                }
+                for (Object id : idList) {
+                    newFilter.add(((Number) id).longValue());
+                }
+                lastId = ((Number) idList.get(idList.size() - 1)).longValue();
+            }
+            return newFilter;
+        }
+    }
+}
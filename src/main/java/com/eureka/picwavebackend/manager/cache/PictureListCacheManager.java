@@ -0,0 +1,450 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.eureka.picwavebackend.manager.event.PictureChangeEvent;
+import com.eureka.picwavebackend.model.dto.picture.PictureQueryRequest;
+import com.eureka.picwavebackend.model.vo.PictureVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 图片列表多级缓存管理器（Caffeine + Redis）
+ * 按命名空间（公共图库、每个空间）维护版本号，缓存键带版本号；图片变更后递增版本号，
+ * 并通过 Redis 发布订阅通知所有实例清理本地缓存，旧版本的 Redis 缓存自然过期
+ * <p>
+ * 防击穿：同一键在本实例内只加载一次（其余请求等待结果），跨实例通过 Redis 租约只允许一个实例查库；
+ * 缓存条目带逻辑过期时间，临近过期时按概率提前刷新（XFetch），过期后先返回旧值再后台刷新
+ * <p>
+ * 本地缓存直接保存反序列化后的对象（记录列表不可修改，多个请求共享），按字节数淘汰；Redis 保存二进制编码，见 {@link PictureVOPageCodec}
+ * <p>
+ * 缓存不保存作者信息（用户修改昵称、头像不会递增版本号），每次返回缓存值的副本，由调用方重新填充
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureListCacheManager implements MessageListener {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 缓存键前缀
+     */
+    private static final String CACHE_KEY_PREFIX = "picwave:picture:list:";
+
+    /**
+     * 版本号键前缀
+     */
+    private static final String VERSION_KEY_PREFIX = "picwave:picture:list:version:";
+
+    /**
+     * 租约键后缀
+     */
+    private static final String LEASE_KEY_SUFFIX = ":lease";
+
+    /**
+     * 缓存失效广播频道
+     */
+    private static final String INVALIDATE_CHANNEL = "picwave:picture:list:invalidate";
+
+    /**
+     * 公共图库命名空间
+     */
+    private static final String PUBLIC_NAMESPACE = "public";
+
+    /**
+     * 逻辑过期时间（分钟），实际取 [30, 35) 随机值，避免同时过期
+     */
+    private static final int LOGICAL_TTL_MINUTES = 30;
+
+    /**
+     * 逻辑过期后旧值的保留时间（分钟）
+     */
+    private static final int STALE_TTL_MINUTES = 30;
+
+    /**
+     * 租约时长（毫秒），应大于一次查库耗时
+     */
+    private static final long LEASE_MILLIS = 5000L;
+
+    /**
+     * 未拿到租约时等待其他实例回填的次数和间隔
+     */
+    private static final int LEASE_WAIT_TIMES = 20;
+    private static final long LEASE_WAIT_INTERVAL_MILLIS = 50L;
+
+    /**
+     * XFetch 提前刷新系数，越大越早刷新
+     */
+    private static final double EARLY_REFRESH_BETA = 1.0;
+
+    /**
+     * 释放租约（仅持有者可以释放）
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 本地缓存容量（按编码后字节数计算）
+     */
+    private static final long LOCAL_CACHE_MAX_BYTES = 64 * 1024 * 1024L;
+
+    /**
+     * 本地缓存：缓存键 -> 缓存条目
+     */
+    private final Cache<String, CacheEntry<Page<PictureVO>>> LOCAL_CACHE = Caffeine.newBuilder()
+            .initialCapacity(1024)
+            .maximumWeight(LOCAL_CACHE_MAX_BYTES)
+            .<String, CacheEntry<Page<PictureVO>>>weigher((key, cacheEntry) -> cacheEntry.getWeight())
+            .expireAfterWrite(Duration.ofMinutes(LOGICAL_TTL_MINUTES + STALE_TTL_MINUTES))
+            .build();
+
+    /**
+     * 本地版本号缓存：命名空间 -> 版本号
+     * 正常情况下由广播消息即时清理，短过期时间兜底消息丢失
+     */
+    private final Cache<String, Long> LOCAL_VERSION_CACHE = Caffeine.newBuilder()
+            .maximumSize(10000L)
+            .expireAfterWrite(Duration.ofSeconds(10))
+            .build();
+
+    /**
+     * 正在加载的缓存键 -> 加载结果（同一键并发请求共享一次加载）
+     */
+    private final Map<String, CompletableFuture<CacheEntry<Page<PictureVO>>>> loadingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 正在后台刷新的缓存键
+     */
+    private final Set<String> refreshingKeySet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 后台刷新线程池，队列满时放弃刷新，继续返回旧值
+     */
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(2, 4, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-list-cache-refresh-").build(),
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * 获取图片分页（未命中时调用 loader 查询并写入缓存）
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @param loader              数据库查询
+     * @return 分页对象（缓存值的副本，不含作者信息）
+     */
+    public Page<PictureVO> getPictureVOPage(PictureQueryRequest pictureQueryRequest, Supplier<Page<PictureVO>> loader) {
+        // 1、构建缓存键（命名空间 + 版本号 + 查询条件摘要）
+        String namespace = getNamespace(pictureQueryRequest.getSpaceId());
+        Long version;
+        try {
+            version = getVersion(namespace);
+        } catch (Exception e) {
+            // Redis 不可用时直接查库
+            log.warn("获取图片列表缓存版本号失败, namespace = {}", namespace, e);
+            return toCacheValue(loader.get());
+        }
+        String digest = DigestUtils.md5DigestAsHex(JSONUtil.toJsonStr(pictureQueryRequest).getBytes(StandardCharsets.UTF_8));
+        String cacheKey = CACHE_KEY_PREFIX + namespace + ":v" + version + ":" + digest;
+        // 2、查询本地缓存和 Redis 缓存
+        CacheEntry<Page<PictureVO>> cacheEntry = LOCAL_CACHE.getIfPresent(cacheKey);
+        if (cacheEntry == null) {
+            cacheEntry = getFromRedis(cacheKey);
+            if (cacheEntry != null) {
+                LOCAL_CACHE.put(cacheKey, cacheEntry);
+            }
+        }
+        // 3、命中：临近或已经逻辑过期时后台刷新，先返回当前值
+        if (cacheEntry != null) {
+            if (shouldRefresh(cacheEntry)) {
+                refreshAsync(namespace, version, cacheKey, loader);
+            }
+            return copyOf(cacheEntry.getValue());
+        }
+        // 4、未命中：同一键只加载一次
+        CompletableFuture<CacheEntry<Page<PictureVO>>> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry<Page<PictureVO>>> loadingFuture = loadingMap.putIfAbsent(cacheKey, future);
+        if (loadingFuture != null) {
+            return copyOf(join(loadingFuture).getValue());
+        }
+        try {
+            CacheEntry<Page<PictureVO>> loadedEntry = load(namespace, version, cacheKey, loader, true);
+            future.complete(loadedEntry);
+            return copyOf(loadedEntry.getValue());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingMap.remove(cacheKey, future);
+        }
+    }
+
+    /**
+     * 图片变更后递增所在命名空间的版本号并广播（事务提交后执行）
+     * 空间图片变更不影响公共图库，反之亦然
+     *
+     * @param event 图片变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureChange(PictureChangeEvent event) {
+        String namespace = getNamespace(event.getSpaceId());
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + namespace);
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, namespace);
+        } catch (Exception e) {
+            log.error("图片列表缓存失效失败, namespace = {}", namespace, e);
+        }
+    }
+
+    /**
+     * 收到失效广播，清理本地缓存
+     *
+     * @param message 消息（命名空间）
+     * @param pattern 频道
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String namespace = new String(message.getBody(), StandardCharsets.UTF_8);
+        LOCAL_VERSION_CACHE.invalidate(namespace);
+        String keyPrefix = CACHE_KEY_PREFIX + namespace + ":";
+        LOCAL_CACHE.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    /**
+     * 加载数据并写入缓存
+     * 先抢 Redis 租约，抢到的实例查库；没抢到时，同步加载会等待其他实例回填，等不到再自己查库，后台刷新则直接放弃
+     *
+     * @param wait 是否等待其他实例回填
+     * @return 缓存条目，后台刷新放弃时返回 null
+     */
+    private CacheEntry<Page<PictureVO>> load(String namespace, Long version, String cacheKey,
+                            Supplier<Page<PictureVO>> loader, boolean wait) {
+        String leaseKey = cacheKey + LEASE_KEY_SUFFIX;
+        String token = IdUtil.fastSimpleUUID();
+        boolean leased = tryAcquireLease(leaseKey, token);
+        if (!leased) {
+            if (!wait) {
+                return null;
+            }
+            for (int i = 0; i < LEASE_WAIT_TIMES; i++) {
+                try {
+                    Thread.sleep(LEASE_WAIT_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                CacheEntry<Page<PictureVO>> cacheEntry = getFromRedis(cacheKey);
+                if (cacheEntry != null) {
+                    LOCAL_CACHE.put(cacheKey, cacheEntry);
+                    return cacheEntry;
+                }
+            }
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Page<PictureVO> pictureVOPage = toCacheValue(loader.get());
+            long now = System.currentTimeMillis();
+            long expireTime = now + TimeUnit.MINUTES.toMillis(LOGICAL_TTL_MINUTES + RandomUtil.randomInt(0, 5));
+            byte[] bytes = PictureVOPageCodec.encode(pictureVOPage, expireTime, now - start);
+            CacheEntry<Page<PictureVO>> cacheEntry = new CacheEntry<>(pictureVOPage, expireTime, now - start, bytes.length);
+            // 版本号已更新时不再写入，避免旧数据覆盖
+            try {
+                if (version.equals(getVersion(namespace))) {
+                    LOCAL_CACHE.put(cacheKey, cacheEntry);
+                    long ttlMillis = expireTime - now + TimeUnit.MINUTES.toMillis(STALE_TTL_MINUTES);
+                    stringRedisTemplate.execute((RedisCallback<Boolean>) connection -> connection.set(
+                            cacheKey.getBytes(StandardCharsets.UTF_8), bytes,
+                            Expiration.milliseconds(ttlMillis), RedisStringCommands.SetOption.upsert()));
+                }
+            } catch (Exception e) {
+                log.warn("写入图片列表缓存失败, cacheKey = {}", cacheKey, e);
+            }
+            return cacheEntry;
+        } finally {
+            if (leased) {
+                releaseLease(leaseKey, token);
+            }
+        }
+    }
+
+    /**
+     * 后台刷新（同一键同时只有一个刷新任务）
+     */
+    private void refreshAsync(String namespace, Long version, String cacheKey, Supplier<Page<PictureVO>> loader) {
+        if (!refreshingKeySet.add(cacheKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(namespace, version, cacheKey, loader, false);
+                } catch (Exception e) {
+                    // 刷新失败继续使用旧值
+                    log.warn("后台刷新图片列表缓存失败, cacheKey = {}", cacheKey, e);
+                } finally {
+                    refreshingKeySet.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeySet.remove(cacheKey);
+        }
+    }
+
+    /**
+     * 是否需要刷新（XFetch）：now - loadCost * beta * ln(random) >= expireTime
+     * 越接近逻辑过期、加载越慢，越可能提前刷新；已经逻辑过期则一定刷新
+     */
+    private static boolean shouldRefresh(CacheEntry<?> cacheEntry) {
+        double random = 1 - ThreadLocalRandom.current().nextDouble();
+        double gap = -cacheEntry.getLoadCost() * EARLY_REFRESH_BETA * Math.log(random);
+        return System.currentTimeMillis() + gap >= cacheEntry.getExpireTime();
+    }
+
+    private CacheEntry<Page<PictureVO>> getFromRedis(String cacheKey) {
+        try {
+            byte[] bytes = stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.get(cacheKey.getBytes(StandardCharsets.UTF_8)));
+            CacheEntry<Page<PictureVO>> cacheEntry = bytes == null ? null : PictureVOPageCodec.decode(bytes);
+            if (cacheEntry == null) {
+                return null;
+            }
+            return new CacheEntry<>(toCacheValue(cacheEntry.getValue()), cacheEntry.getExpireTime(),
+                    cacheEntry.getLoadCost(), cacheEntry.getWeight());
+        } catch (Exception e) {
+            log.warn("读取 Redis 缓存失败, cacheKey = {}", cacheKey, e);
+            return null;
+        }
+    }
+
+    private boolean tryAcquireLease(String leaseKey, String token) {
+        try {
+            Boolean result = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(leaseKey, token, LEASE_MILLIS, TimeUnit.MILLISECONDS);
+            return Boolean.TRUE.equals(result);
+        } catch (Exception e) {
+            // Redis 不可用时视为拿到租约，直接查库
+            log.warn("获取缓存租约失败, leaseKey = {}", leaseKey, e);
+            return true;
+        }
+    }
+
+    private void releaseLease(String leaseKey, String token) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, Collections.singletonList(leaseKey), token);
+        } catch (Exception e) {
+            log.warn("释放缓存租约失败, leaseKey = {}", leaseKey, e);
+        }
+    }
+
+    private Long getVersion(String namespace) {
+        return LOCAL_VERSION_CACHE.get(namespace, key -> {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + key);
+            return StrUtil.isBlank(version) ? 0L : Long.parseLong(version);
+        });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 转为缓存值：复制图片对象并去掉作者信息，记录列表和列表字段均不可修改
+     * 缓存值在多个请求之间共享，只通过 {@link #copyOf} 交给调用方
+     *
+     * @param pictureVOPage 查询结果
+     * @return 缓存值
+     */
+    static Page<PictureVO> toCacheValue(Page<PictureVO> pictureVOPage) {
+        Page<PictureVO> cacheValue = new Page<>(pictureVOPage.getCurrent(), pictureVOPage.getSize(), pictureVOPage.getTotal());
+        List<PictureVO> recordList = new ArrayList<>(pictureVOPage.getRecords().size());
+        for (PictureVO pictureVO : pictureVOPage.getRecords()) {
+            PictureVO pictureVOCopy = new PictureVO();
+            BeanUtils.copyProperties(pictureVO, pictureVOCopy);
+            pictureVOCopy.setUser(null);
+            pictureVOCopy.setTags(unmodifiableCopy(pictureVO.getTags()));
+            pictureVOCopy.setPermissionList(unmodifiableCopy(pictureVO.getPermissionList()));
+            recordList.add(pictureVOCopy);
+        }
+        cacheValue.setRecords(Collections.unmodifiableList(recordList));
+        return cacheValue;
+    }
+
+    /**
+     * 复制缓存值，调用方可以任意修改副本（如填充作者信息），不影响缓存和其他请求
+     *
+     * @param pictureVOPage 缓存值
+     * @return 副本
+     */
+    static Page<PictureVO> copyOf(Page<PictureVO> pictureVOPage) {
+        Page<PictureVO> copy = new Page<>(pictureVOPage.getCurrent(), pictureVOPage.getSize(), pictureVOPage.getTotal());
+        List<PictureVO> recordList = new ArrayList<>(pictureVOPage.getRecords().size());
+        for (PictureVO pictureVO : pictureVOPage.getRecords()) {
+            PictureVO pictureVOCopy = new PictureVO();
+            BeanUtils.copyProperties(pictureVO, pictureVOCopy);
+            pictureVOCopy.setTags(pictureVO.getTags() == null ? null : new ArrayList<>(pictureVO.getTags()));
+            pictureVOCopy.setPermissionList(pictureVO.getPermissionList() == null ? null
+                    : new ArrayList<>(pictureVO.getPermissionList()));
+            recordList.add(pictureVOCopy);
+        }
+        copy.setRecords(recordList);
+        return copy;
+    }
+
+    private static List<String> unmodifiableCopy(List<String> list) {
+        return list == null ? null : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    private static String getNamespace(Long spaceId) {
+        return spaceId == null ? PUBLIC_NAMESPACE : "space:" + spaceId;
+    }
+}
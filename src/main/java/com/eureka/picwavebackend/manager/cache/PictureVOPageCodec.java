@@ -0,0 +1,291 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.eureka.picwavebackend.model.vo.PictureVO;
+import com.eureka.picwavebackend.model.vo.UserVO;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 图片分页缓存条目的二进制编解码
+ * 格式：格式版本(1) + 逻辑过期时间(8) + 加载耗时(8) + 分页信息 + 图片列表；
+ * 每个对象先写一个 int 位掩码标记非空字段，字符串为变长长度 + UTF-8 字节
+ * 修改字段时需要递增 FORMAT_VERSION，旧格式的数据解码时视为未命中
+ */
+public class PictureVOPageCodec {
+
+    /**
+     * 格式版本
+     */
+    private static final byte FORMAT_VERSION = 2;
+
+    private PictureVOPageCodec() {
+    }
+
+    /**
+     * 编码
+     *
+     * @param pictureVOPage 图片分页
+     * @param expireTime    逻辑过期时间
+     * @param loadCost      加载耗时
+     * @return 字节数组
+     */
+    public static byte[] encode(Page<PictureVO> pictureVOPage, long expireTime, long loadCost) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(expireTime);
+            out.writeLong(loadCost);
+            out.writeLong(pictureVOPage.getCurrent());
+            out.writeLong(pictureVOPage.getSize());
+            out.writeLong(pictureVOPage.getTotal());
+            List<PictureVO> pictureVOList = pictureVOPage.getRecords();
+            writeVarInt(out, pictureVOList.size());
+            for (PictureVO pictureVO : pictureVOList) {
+                writePictureVO(out, pictureVO);
+            }
+        } catch (IOException e) {
+            // 内存流不会抛出 IO 异常
+            throw new UncheckedIOException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * 解码
+     *
+     * @param bytes 字节数组
+     * @return 缓存条目，格式版本不一致时返回 null
+     */
+    public static CacheEntry<Page<PictureVO>> decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                return null;
+            }
+            long expireTime = in.readLong();
+            long loadCost = in.readLong();
+            Page<PictureVO> pictureVOPage = new Page<>(in.readLong(), in.readLong(), in.readLong());
+            int count = readVarInt(in);
+            List<PictureVO> pictureVOList = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                pictureVOList.add(readPictureVO(in));
+            }
+            pictureVOPage.setRecords(pictureVOList);
+            return new CacheEntry<>(pictureVOPage, expireTime, loadCost, bytes.length);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writePictureVO(DataOutputStream out, PictureVO pictureVO) throws IOException {
+        Object[] fields = {pictureVO.getId(), pictureVO.getSpaceId(), pictureVO.getPermissionList(),
+                pictureVO.getUrl(), pictureVO.getThumbnailUrl(), pictureVO.getName(), pictureVO.getIntroduction(),
+                pictureVO.getTags(), pictureVO.getCategory(), pictureVO.getPicSize(), pictureVO.getPicWidth(),
+                pictureVO.getPicHeight(), pictureVO.getPicScale(), pictureVO.getPicFormat(), pictureVO.getUserId(),
+                pictureVO.getCreateTime(), pictureVO.getEditTime(), pictureVO.getUpdateTime(), pictureVO.getUser(),
+                pictureVO.getPicColor(), pictureVO.getSourcePictureId()};
+        out.writeInt(nonNullMask(fields));
+        for (Object field : fields) {
+            if (field != null) {
+                writeField(out, field);
+            }
+        }
+    }
+
+    private static PictureVO readPictureVO(DataInputStream in) throws IOException {
+        int mask = in.readInt();
+        PictureVO pictureVO = new PictureVO();
+        int i = 0;
+        if (has(mask, i++)) {
+            pictureVO.setId(in.readLong());
+        }
+        if (has(mask, i++)) {
+            pictureVO.setSpaceId(in.readLong());
+        }
+        if (has(mask, i++)) {
+            pictureVO.setPermissionList(readStringList(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setUrl(readString(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setThumbnailUrl(readString(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setName(readString(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setIntroduction(readString(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setTags(readStringList(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setCategory(readString(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setPicSize(in.readLong());
+        }
+        if (has(mask, i++)) {
+            pictureVO.setPicWidth(in.readInt());
+        }
+        if (has(mask, i++)) {
+            pictureVO.setPicHeight(in.readInt());
+        }
+        if (has(mask, i++)) {
+            pictureVO.setPicScale(in.readDouble());
+        }
+        if (has(mask, i++)) {
+            pictureVO.setPicFormat(readString(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setUserId(in.readLong());
+        }
+        if (has(mask, i++)) {
+            pictureVO.setCreateTime(new Date(in.readLong()));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setEditTime(new Date(in.readLong()));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setUpdateTime(new Date(in.readLong()));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setUser(readUserVO(in));
+        }
+        if (has(mask, i++)) {
+            pictureVO.setPicColor(readString(in));
+        }
+        if (has(mask, i)) {
+            pictureVO.setSourcePictureId(in.readLong());
+        }
+        return pictureVO;
+    }
+
+    private static void writeUserVO(DataOutputStream out, UserVO userVO) throws IOException {
+        Object[] fields = {userVO.getId(), userVO.getUserAccount(), userVO.getUserName(), userVO.getUserAvatar(),
+                userVO.getUserProfile(), userVO.getUserRole(), userVO.getCreateTime()};
+        out.writeInt(nonNullMask(fields));
+        for (Object field : fields) {
+            if (field != null) {
+                writeField(out, field);
+            }
+        }
+    }
+
+    private static UserVO readUserVO(DataInputStream in) throws IOException {
+        int mask = in.readInt();
+        UserVO userVO = new UserVO();
+        int i = 0;
+        if (has(mask, i++)) {
+            userVO.setId(in.readLong());
+        }
+        if (has(mask, i++)) {
+            userVO.setUserAccount(readString(in));
+        }
+        if (has(mask, i++)) {
+            userVO.setUserName(readString(in));
+        }
+        if (has(mask, i++)) {
+            userVO.setUserAvatar(readString(in));
+        }
+        if (has(mask, i++)) {
+            userVO.setUserProfile(readString(in));
+        }
+        if (has(mask, i++)) {
+            userVO.setUserRole(readString(in));
+        }
+        if (has(mask, i)) {
+            userVO.setCreateTime(new Date(in.readLong()));
+        }
+        return userVO;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeField(DataOutputStream out, Object field) throws IOException {
+        if (field instanceof Long) {
+            out.writeLong((Long) field);
+        } else if (field instanceof Integer) {
+            out.writeInt((Integer) field);
+        } else if (field instanceof Double) {
+            out.writeDouble((Double) field);
+        } else if (field instanceof String) {
+            writeString(out, (String) field);
+        } else if (field instanceof Date) {
+            out.writeLong(((Date) field).getTime());
+        } else if (field instanceof List) {
+            writeStringList(out, (List<String>) field);
+        } else if (field instanceof UserVO) {
+            writeUserVO(out, (UserVO) field);
+        } else {
+            throw new IllegalArgumentException("不支持的字段类型: " + field.getClass());
+        }
+    }
+
+    private static int nonNullMask(Object[] fields) {
+        int mask = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    private static boolean has(int mask, int index) {
+        return (mask & (1 << index)) != 0;
+    }
+
+    private static void writeStringList(DataOutputStream out, List<String> list) throws IOException {
+        writeVarInt(out, list.size());
+        for (String item : list) {
+            // 列表元素为空时写入空串
+            writeString(out, item == null ? "" : item);
+        }
+    }
+
+    private static List<String> readStringList(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readString(in));
+        }
+        return list;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数格式错误");
+    }
+}
@@ -0,0 +1,61 @@
+package com.eureka.picwavebackend.manager.color;
+
+/**
+ * CIELAB 颜色工具
+ * sRGB（D65 白点）转 Lab，Lab 空间的欧氏距离（CIE76 ΔE）与人眼感知的色差基本一致：
+ * ΔE 小于 2 几乎看不出差别，大于 25 可视为不同的颜色
+ */
+public final class LabColor {
+
+    /**
+     * sRGB 通道值（0 ~ 255）-> 线性光强
+     */
+    private static final float[] LINEAR_TABLE = new float[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double value = i / 255.0;
+            LINEAR_TABLE[i] = (float) (value <= 0.04045 ? value / 12.92 : Math.pow((value + 0.055) / 1.055, 2.4));
+        }
+    }
+
+    private LabColor() {
+    }
+
+    /**
+     * 把 0xRRGGBB 转为 Lab，写入 out[offset]、out[offset + 1]、out[offset + 2]
+     *
+     * @param rgb    颜色
+     * @param out    输出数组
+     * @param offset 输出起始下标
+     */
+    public static void toLab(int rgb, float[] out, int offset) {
+        float red = LINEAR_TABLE[(rgb >> 16) & 0xFF];
+        float green = LINEAR_TABLE[(rgb >> 8) & 0xFF];
+        float blue = LINEAR_TABLE[rgb & 0xFF];
+        // 线性 RGB -> XYZ，再按 D65 白点归一化
+        double x = (0.4124564 * red + 0.3575761 * green + 0.1804375 * blue) / 0.95047;
+        double y = 0.2126729 * red + 0.7151522 * green + 0.0721750 * blue;
+        double z = (0.0193339 * red + 0.1191920 * green + 0.9503041 * blue) / 1.08883;
+        double fx = labF(x);
+        double fy = labF(y);
+        double fz = labF(z);
+        out[offset] = (float) (116 * fy - 16);
+        out[offset + 1] = (float) (500 * (fx - fy));
+        out[offset + 2] = (float) (200 * (fy - fz));
+    }
+
+    /**
+     * 两个 Lab 颜色的色差（CIE76 ΔE）
+     */
+    public static float deltaE(float[] lab1, int offset1, float[] lab2, int offset2) {
+        float dl = lab1[offset1] - lab2[offset2];
+        float da = lab1[offset1 + 1] - lab2[offset2 + 1];
+        float db = lab1[offset1 + 2] - lab2[offset2 + 2];
+        return (float) Math.sqrt(dl * dl + da * da + db * db);
+    }
+
+    private static double labF(double t) {
+        return t > 216.0 / 24389 ? Math.cbrt(t) : (24389.0 / 27 * t + 16) / 116;
+    }
+}
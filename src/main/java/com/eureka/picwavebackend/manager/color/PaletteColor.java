@@ -0,0 +1,24 @@
+package com.eureka.picwavebackend.manager.color;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 色板中的一种颜色
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaletteColor {
+
+    /**
+     * 颜色（0xRRGGBB）
+     */
+    private String color;
+
+    /**
+     * 占比（0 到 1）
+     */
+    private Double ratio;
+}
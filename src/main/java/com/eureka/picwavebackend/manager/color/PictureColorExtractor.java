@@ -0,0 +1,205 @@
+package com.eureka.picwavebackend.manager.color;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.NumberUtil;
+import com.eureka.picwavebackend.manager.image.ImageOrientation;
+import com.eureka.picwavebackend.manager.image.PerceptualHash;
+import com.eureka.picwavebackend.manager.upload.ImageHeaderParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 图片颜色提取器
+ * 在本地对图片降采样解码（长边约 64 像素），计算平均色，并按 RGB 各 3 位量化成 512 个桶统计直方图，
+ * 取占比最高且彼此色差（Lab ΔE）足够大的几个桶作为主色调色板；顺带用同一张降采样图计算感知哈希
+ * <p>
+ * ImageIO 默认不支持 webp 等格式，无法解码时返回 null，由调用方降级
+ */
+@Slf4j
+@Component
+public class PictureColorExtractor {
+
+    /**
+     * 降采样后长边的目标像素数
+     */
+    private static final int SAMPLE_SIZE = 64;
+
+    /**
+     * 色板最多颜色数
+     */
+    private static final int PALETTE_SIZE = 5;
+
+    /**
+     * 色板中两种颜色的最小色差（ΔE），更接近的桶合并到已选颜色
+     */
+    private static final float MIN_PALETTE_DELTA_E = 20f;
+
+    /**
+     * 每个通道保留的位数
+     */
+    private static final int QUANTIZE_BITS = 3;
+
+    /**
+     * 提取线程池，队列满时由调用线程执行
+     */
+    private final ThreadPoolExecutor extractExecutor = new ThreadPoolExecutor(2, 4, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-color-extract-").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @PreDestroy
+    public void destroy() {
+        extractExecutor.shutdown();
+    }
+
+    /**
+     * 异步提取颜色
+     *
+     * @param bytes 图片内容
+     * @return 提取结果，无法解码时结果为 null
+     */
+    public CompletableFuture<PictureColors> extractAsync(byte[] bytes) {
+        return CompletableFuture.supplyAsync(() -> extract(bytes), extractExecutor);
+    }
+
+    /**
+     * 提取颜色
+     *
+     * @param bytes 图片内容
+     * @return 提取结果，无法解码时返回 null
+     */
+    public PictureColors extract(byte[] bytes) {
+        BufferedImage image;
+        try {
+            image = decodeSampled(bytes);
+        } catch (Exception e) {
+            log.warn("图片解码失败，无法本地提取颜色", e);
+            return null;
+        }
+        if (image == null) {
+            return null;
+        }
+        // 按 EXIF 方向摆正，与本地处理保存的摆正图片、补算时使用的缩略图得到相同的感知哈希
+        ImageHeaderParser.ImageHeader imageHeader = ImageHeaderParser.parse(bytes, bytes.length);
+        if (imageHeader != null) {
+            image = ImageOrientation.orient(image, imageHeader.getOrientation());
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        // 1、统计平均色和直方图（跳过透明像素）
+        int bucketCount = 1 << (QUANTIZE_BITS * 3);
+        long[] bucketRed = new long[bucketCount];
+        long[] bucketGreen = new long[bucketCount];
+        long[] bucketBlue = new long[bucketCount];
+        int[] bucketPixels = new int[bucketCount];
+        long sumRed = 0;
+        long sumGreen = 0;
+        long sumBlue = 0;
+        int total = 0;
+        int shift = 8 - QUANTIZE_BITS;
+        for (int argb : pixels) {
+            if (hasAlpha && (argb >>> 24) < 128) {
+                continue;
+            }
+            int red = (argb >> 16) & 0xFF;
+            int green = (argb >> 8) & 0xFF;
+            int blue = argb & 0xFF;
+            int bucket = ((red >> shift) << (QUANTIZE_BITS * 2)) | ((green >> shift) << QUANTIZE_BITS) | (blue >> shift);
+            bucketRed[bucket] += red;
+            bucketGreen[bucket] += green;
+            bucketBlue[bucket] += blue;
+            bucketPixels[bucket]++;
+            sumRed += red;
+            sumGreen += green;
+            sumBlue += blue;
+            total++;
+        }
+        if (total == 0) {
+            return null;
+        }
+        PictureColors pictureColors = new PictureColors();
+        pictureColors.setAverageColor(toHex((int) (sumRed / total), (int) (sumGreen / total), (int) (sumBlue / total)));
+        // 2、按像素数从多到少选取色板，和已选颜色太接近的桶合并进去
+        Integer[] bucketOrder = new Integer[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            bucketOrder[i] = i;
+        }
+        Arrays.sort(bucketOrder, (a, b) -> Integer.compare(bucketPixels[b], bucketPixels[a]));
+        List<int[]> selectedList = new ArrayList<>();
+        float[] selectedLabs = new float[PALETTE_SIZE * 3];
+        float[] lab = new float[3];
+        for (int bucket : bucketOrder) {
+            int count = bucketPixels[bucket];
+            if (count == 0) {
+                break;
+            }
+            int red = (int) (bucketRed[bucket] / count);
+            int green = (int) (bucketGreen[bucket] / count);
+            int blue = (int) (bucketBlue[bucket] / count);
+            LabColor.toLab((red << 16) | (green << 8) | blue, lab, 0);
+            int[] nearest = null;
+            float nearestDeltaE = Float.MAX_VALUE;
+            for (int i = 0; i < selectedList.size(); i++) {
+                float deltaE = LabColor.deltaE(selectedLabs, i * 3, lab, 0);
+                if (deltaE < nearestDeltaE) {
+                    nearest = selectedList.get(i);
+                    nearestDeltaE = deltaE;
+                }
+            }
+            if (nearest != null && nearestDeltaE < MIN_PALETTE_DELTA_E) {
+                nearest[3] += count;
+            } else if (selectedList.size() < PALETTE_SIZE) {
+                System.arraycopy(lab, 0, selectedLabs, selectedList.size() * 3, 3);
+                selectedList.add(new int[]{red, green, blue, count});
+            }
+        }
+        selectedList.sort((a, b) -> Integer.compare(b[3], a[3]));
+        List<PaletteColor> palette = new ArrayList<>(selectedList.size());
+        for (int[] selected : selectedList) {
+            double ratio = NumberUtil.round(selected[3] * 1.0 / total, 4).doubleValue();
+            palette.add(new PaletteColor(toHex(selected[0], selected[1], selected[2]), ratio));
+        }
+        pictureColors.setPalette(palette);
+        // 3、计算感知哈希
+        pictureColors.setPerceptualHash(PerceptualHash.compute(image));
+        return pictureColors;
+    }
+
+    /**
+     * 按步长跳行跳列解码，只读取约 SAMPLE_SIZE x SAMPLE_SIZE 个像素
+     */
+    private BufferedImage decodeSampled(byte[] bytes) throws Exception {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readerIterator = ImageIO.getImageReaders(imageInputStream);
+            if (!readerIterator.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readerIterator.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / SAMPLE_SIZE);
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                readParam.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, readParam);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String toHex(int red, int green, int blue) {
+        return String.format("0x%02x%02x%02x", red, green, blue);
+    }
+}
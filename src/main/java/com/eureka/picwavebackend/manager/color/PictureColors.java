@@ -0,0 +1,27 @@
+package com.eureka.picwavebackend.manager.color;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 图片颜色提取结果
+ */
+@Data
+public class PictureColors {
+
+    /**
+     * 平均色（0xRRGGBB，与 COS imageAve 含义一致）
+     */
+    private String averageColor;
+
+    /**
+     * 主色调色板，按占比降序
+     */
+    private List<PaletteColor> palette;
+
+    /**
+     * 感知哈希（与颜色在同一次降采样解码中计算，用于相似图片检索）
+     */
+    private Long perceptualHash;
+}
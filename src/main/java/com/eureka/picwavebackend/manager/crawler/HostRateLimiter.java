@@ -0,0 +1,83 @@
+package com.eureka.picwavebackend.manager.crawler;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按域名限流：同一域名的两次请求至少间隔固定时间，不同域名互不影响
+ * 每次请求先预约下一个可用时间点再等待，并发请求会依次排开而不是同时醒来；
+ * 长时间没有访问的域名会被淘汰，避免长时间爬取时域名表无限增长
+ */
+public class HostRateLimiter {
+
+    /**
+     * 域名空闲多久后淘汰（分钟），需远大于请求间隔，淘汰时该域名不会还有排队中的请求
+     */
+    private static final long IDLE_EXPIRE_MINUTES = 10;
+
+    private final long intervalNanos;
+
+    /**
+     * 时钟（纳秒），测试时可替换
+     */
+    private final Ticker ticker;
+
+    /**
+     * 等待方式，测试时可替换
+     */
+    private final Sleeper sleeper;
+
+    /**
+     * 域名 -> 下一个可用时间点（ticker 读数）
+     */
+    private final Cache<String, AtomicLong> nextTimeCache;
+
+    public HostRateLimiter(long intervalMillis) {
+        this(intervalMillis, Ticker.systemTicker(), TimeUnit.NANOSECONDS::sleep);
+    }
+
+    HostRateLimiter(long intervalMillis, Ticker ticker, Sleeper sleeper) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.ticker = ticker;
+        this.sleeper = sleeper;
+        this.nextTimeCache = Caffeine.newBuilder()
+                .expireAfterAccess(IDLE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * 等待直到允许请求该域名
+     *
+     * @param host 域名
+     */
+    public void acquire(String host) throws InterruptedException {
+        AtomicLong nextTime = nextTimeCache.get(host, key -> new AtomicLong(ticker.read()));
+        long now;
+        long slot;
+        while (true) {
+            long prev = nextTime.get();
+            now = ticker.read();
+            slot = Math.max(prev, now);
+            if (nextTime.compareAndSet(prev, slot + intervalNanos)) {
+                break;
+            }
+        }
+        if (slot > now) {
+            sleeper.sleep(slot - now);
+        }
+    }
+
+    /**
+     * 等待指定时长
+     */
+    @FunctionalInterface
+    interface Sleeper {
+
+        void sleep(long nanos) throws InterruptedException;
+    }
+}
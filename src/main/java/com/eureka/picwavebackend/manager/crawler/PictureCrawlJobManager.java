@@ -0,0 +1,451 @@
+package com.eureka.picwavebackend.manager.crawler;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.exception.BusinessException;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.model.dto.file.UploadPictureResult;
+import com.eureka.picwavebackend.model.dto.picture.PictureUploadByBatchRequest;
+import com.eureka.picwavebackend.model.dto.picture.PictureUploadRequest;
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.entity.User;
+import com.eureka.picwavebackend.model.enums.PictureCrawlJobStatusEnum;
+import com.eureka.picwavebackend.model.vo.PictureCrawlJobVO;
+import com.eureka.picwavebackend.service.PictureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片批量抓取任务管理器
+ * 按 Bing 分页偏移量翻页抓取图片地址并去重，图片下载上传在共享的有界线程池中并发执行（每个任务限制并发数，每个域名限制请求频率），
+ * 上传结果攒够一批后批量入库；任务进度保存在 Redis，任意实例都能查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureCrawlJobManager {
+
+    /**
+     * 任务进度键前缀
+     */
+    private static final String JOB_KEY_PREFIX = "picwave:picture:crawl:job:";
+
+    /**
+     * 任务进度保留时间（分钟）
+     */
+    private static final long JOB_EXPIRE_MINUTES = 24 * 60;
+
+    /**
+     * 同步抓取的最大数量
+     */
+    private static final int MAX_SYNC_COUNT = 30;
+
+    /**
+     * 异步抓取任务的最大数量
+     */
+    private static final int MAX_JOB_COUNT = 5000;
+
+    /**
+     * 每页抓取的图片数量
+     */
+    private static final int PAGE_SIZE = 35;
+
+    /**
+     * 连续多少页没有新图片时停止翻页
+     */
+    private static final int MAX_EMPTY_PAGE_COUNT = 3;
+
+    /**
+     * 单个任务同时上传的图片数量
+     */
+    private static final int JOB_CONCURRENCY = 8;
+
+    /**
+     * 每批入库的图片数量
+     */
+    private static final int SAVE_BATCH_SIZE = 50;
+
+    /**
+     * 同一域名两次请求的最小间隔（毫秒）
+     */
+    private static final long HOST_INTERVAL_MILLIS = 200;
+
+    /**
+     * 抓取页面超时（毫秒）
+     */
+    private static final int PAGE_TIMEOUT_MILLIS = 10000;
+
+    private final PictureService pictureService;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final HostRateLimiter hostRateLimiter = new HostRateLimiter(HOST_INTERVAL_MILLIS);
+
+    /**
+     * 任务线程池（负责翻页、分发上传、等待收尾）
+     */
+    private final ThreadPoolExecutor jobExecutor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(8),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-crawl-job-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 上传线程池（各任务共享，每个任务的在途上传数由信号量限制）
+     */
+    private final ThreadPoolExecutor fetchExecutor = new ThreadPoolExecutor(16, 16, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-crawl-fetch-").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+        fetchExecutor.shutdown();
+    }
+
+    /**
+     * 同步抓取图片（数量较少时使用）
+     *
+     * @param pictureUploadByBatchRequest 图片上传批量请求
+     * @param loginUser                   登录用户
+     * @return 入库成功的图片数量
+     */
+    public int crawl(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser) {
+        CrawlContext context = createContext(pictureUploadByBatchRequest, loginUser, MAX_SYNC_COUNT);
+        runJob(context);
+        return context.savedCount.get();
+    }
+
+    /**
+     * 提交抓取任务
+     *
+     * @param pictureUploadByBatchRequest 图片上传批量请求
+     * @param loginUser                   登录用户
+     * @return 任务 id
+     */
+    public String submit(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser) {
+        CrawlContext context = createContext(pictureUploadByBatchRequest, loginUser, MAX_JOB_COUNT);
+        String jobId = context.job.getJobId();
+        try {
+            jobExecutor.execute(() -> runJob(context));
+        } catch (RejectedExecutionException e) {
+            stringRedisTemplate.delete(JOB_KEY_PREFIX + jobId);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "抓取任务过多，请稍后重试");
+        }
+        return jobId;
+    }
+
+    /**
+     * 查询抓取任务
+     *
+     * @param jobId     任务 id
+     * @param loginUser 登录用户
+     * @return 任务进度
+     */
+    public PictureCrawlJobVO getJob(String jobId, User loginUser) {
+        String json = stringRedisTemplate.opsForValue().get(JOB_KEY_PREFIX + jobId);
+        ThrowUtils.throwIf(json == null, ErrorCode.NOT_FOUND_ERROR, "任务不存在或已过期");
+        PictureCrawlJobVO job = JSONUtil.toBean(json, PictureCrawlJobVO.class);
+        ThrowUtils.throwIf(!loginUser.getId().equals(job.getUserId()), ErrorCode.NO_AUTH_ERROR);
+        return job;
+    }
+
+    private CrawlContext createContext(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser,
+                                       int maxCount) {
+        String searchText = pictureUploadByBatchRequest.getSearchText();
+        Integer count = pictureUploadByBatchRequest.getCount();
+        ThrowUtils.throwIf(StrUtil.isBlank(searchText), ErrorCode.PARAMS_ERROR, "搜索词不能为空");
+        ThrowUtils.throwIf(count == null || count <= 0, ErrorCode.PARAMS_ERROR, "抓取数量不合法");
+        ThrowUtils.throwIf(count > maxCount, ErrorCode.PARAMS_ERROR, "最多 " + maxCount + " 条");
+        String namePrefix = pictureUploadByBatchRequest.getNamePrefix();
+        if (StrUtil.isBlank(namePrefix)) {
+            namePrefix = searchText;
+        }
+        PictureCrawlJobVO job = new PictureCrawlJobVO();
+        job.setJobId(IdUtil.fastSimpleUUID());
+        job.setUserId(loginUser.getId());
+        job.setSearchText(searchText);
+        job.setTargetCount(count);
+        job.setCreateTime(new Date());
+        CrawlContext context = new CrawlContext(job, namePrefix, loginUser);
+        updateJob(context, PictureCrawlJobStatusEnum.WAITING);
+        return context;
+    }
+
+    /**
+     * 执行抓取任务
+     */
+    private void runJob(CrawlContext context) {
+        updateJob(context, PictureCrawlJobStatusEnum.RUNNING);
+        int targetCount = context.job.getTargetCount();
+        int maxPageCount = targetCount * 3 / PAGE_SIZE + 10;
+        try {
+            // 1、翻页抓取图片地址，去重后分发上传，直到上传成功的数量达到目标或者没有更多图片
+            Set<String> fileUrlSet = new HashSet<>();
+            int emptyPageCount = 0;
+            boolean full = false;
+            while (!full && emptyPageCount < MAX_EMPTY_PAGE_COUNT && context.pageCount.get() < maxPageCount) {
+                List<String> fileUrlList = fetchPage(context.job.getSearchText(),
+                        context.pageCount.getAndIncrement() * PAGE_SIZE);
+                int newCount = 0;
+                for (String fileUrl : fileUrlList) {
+                    if (!fileUrlSet.add(fileUrl)) {
+                        continue;
+                    }
+                    newCount++;
+                    context.fetchedCount.incrementAndGet();
+                    if (!submitUpload(context, fileUrl)) {
+                        full = true;
+                        break;
+                    }
+                }
+                emptyPageCount = newCount == 0 ? emptyPageCount + 1 : 0;
+                updateJob(context, PictureCrawlJobStatusEnum.RUNNING);
+            }
+            // 2、等待在途上传完成，剩余结果入库
+            awaitInFlight(context);
+            flush(context, true);
+            updateJob(context, PictureCrawlJobStatusEnum.SUCCEEDED);
+            log.info("图片抓取完成, jobId = {}, saved = {}", context.job.getJobId(), context.savedCount.get());
+        } catch (Exception e) {
+            log.error("图片抓取失败, jobId = {}", context.job.getJobId(), e);
+            context.job.setErrorMessage(e instanceof BusinessException ? e.getMessage() : "抓取失败");
+            updateJob(context, PictureCrawlJobStatusEnum.FAILED);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 抓取一页图片地址
+     *
+     * @param searchText 搜索词
+     * @param offset     偏移量
+     * @return 图片地址列表（已去掉参数）
+     */
+    private List<String> fetchPage(String searchText, int offset) throws InterruptedException {
+        String fetchUrl = String.format("https://cn.bing.com/images/async?q=%s&first=%d&count=%d&mmasync=1",
+                URLUtil.encodeAll(searchText), offset, PAGE_SIZE);
+        hostRateLimiter.acquire("cn.bing.com");
+        Document document;
+        try {
+            document = Jsoup.connect(fetchUrl).timeout(PAGE_TIMEOUT_MILLIS).get();
+        } catch (IOException e) {
+            log.warn("获取页面失败, fetchUrl = {}", fetchUrl, e);
+            return Collections.emptyList();
+        }
+        Element div = document.getElementsByClass("dgControl").first();
+        if (div == null) {
+            return Collections.emptyList();
+        }
+        List<String> fileUrlList = new ArrayList<>();
+        for (Element imgElement : div.select("img.mimg")) {
+            String fileUrl = imgElement.attr("src");
+            if (StrUtil.isBlank(fileUrl)) {
+                continue;
+            }
+            // 处理图片，防止图片链接带参数
+            int questionMarkIndex = fileUrl.indexOf("?");
+            if (questionMarkIndex > -1) {
+                fileUrl = fileUrl.substring(0, questionMarkIndex);
+            }
+            fileUrlList.add(fileUrl);
+        }
+        return fileUrlList;
+    }
+
+    /**
+     * 分发上传，在途上传已达到并发上限时阻塞等待
+     *
+     * @return 已达到目标数量时返回 false
+     */
+    private boolean submitUpload(CrawlContext context, String fileUrl) throws InterruptedException {
+        int targetCount = context.job.getTargetCount();
+        while (true) {
+            context.semaphore.acquire();
+            if (context.uploadedCount.get() >= targetCount) {
+                context.semaphore.release();
+                return false;
+            }
+            // 成功数 + 在途数不超过目标数量；名额占满时等在途上传结束，有失败的再继续
+            if (context.reservedCount.incrementAndGet() <= targetCount) {
+                break;
+            }
+            context.reservedCount.decrementAndGet();
+            context.semaphore.release();
+            awaitInFlight(context);
+        }
+        fetchExecutor.execute(() -> {
+            try {
+                upload(context, fileUrl);
+            } finally {
+                context.semaphore.release();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 下载并上传一张图片，内容与本任务已上传的图片重复时跳过
+     */
+    private void upload(CrawlContext context, String fileUrl) {
+        UploadPictureResult uploadPictureResult;
+        try {
+            hostRateLimiter.acquire(URLUtil.url(fileUrl).getHost());
+            uploadPictureResult = pictureService.uploadPictureFile(fileUrl, new PictureUploadRequest(),
+                    context.loginUser);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("图片上传失败, fileUrl = {}, message = {}", fileUrl, e.getMessage());
+            context.reservedCount.decrementAndGet();
+            context.failedCount.incrementAndGet();
+            return;
+        }
+        String contentHash = uploadPictureResult.getContentHash();
+        if (contentHash != null && !context.contentHashSet.add(contentHash)) {
+            // 释放本次对存储对象的引用
+            Picture picture = new Picture();
+            picture.setUrl(uploadPictureResult.getUrl());
+            picture.setThumbnailUrl(uploadPictureResult.getThumbnailUrl());
+            picture.setContentHash(contentHash);
+            pictureService.clearOldPicture(picture);
+            context.reservedCount.decrementAndGet();
+            context.duplicateCount.incrementAndGet();
+            return;
+        }
+        context.uploadedCount.incrementAndGet();
+        synchronized (context.bufferList) {
+            context.bufferList.add(uploadPictureResult);
+        }
+        flush(context, false);
+    }
+
+    /**
+     * 上传结果入库，未强制时攒够一批才入库
+     */
+    private void flush(CrawlContext context, boolean force) {
+        List<UploadPictureResult> batchList;
+        synchronized (context.bufferList) {
+            if (context.bufferList.isEmpty() || (!force && context.bufferList.size() < SAVE_BATCH_SIZE)) {
+                return;
+            }
+            batchList = new ArrayList<>(context.bufferList);
+            context.bufferList.clear();
+        }
+        // 各批依次入库，保证图片名称序号与入库顺序一致
+        synchronized (context.saveLock) {
+            int nameIndex = context.savedCount.get() + context.saveFailedCount;
+            for (UploadPictureResult uploadPictureResult : batchList) {
+                uploadPictureResult.setPicName(context.namePrefix + (++nameIndex));
+            }
+            try {
+                pictureService.saveUploadedPictureBatch(batchList, context.loginUser);
+                context.savedCount.addAndGet(batchList.size());
+            } catch (Exception e) {
+                log.error("图片批量入库失败, jobId = {}", context.job.getJobId(), e);
+                context.saveFailedCount += batchList.size();
+                context.failedCount.addAndGet(batchList.size());
+            }
+        }
+        updateJob(context, PictureCrawlJobStatusEnum.RUNNING);
+    }
+
+    /**
+     * 等待任务的在途上传全部结束
+     */
+    private void awaitInFlight(CrawlContext context) throws InterruptedException {
+        context.semaphore.acquire(JOB_CONCURRENCY);
+        context.semaphore.release(JOB_CONCURRENCY);
+    }
+
+    private void updateJob(CrawlContext context, PictureCrawlJobStatusEnum status) {
+        String json;
+        synchronized (context.job) {
+            PictureCrawlJobVO job = context.job;
+            job.setStatus(status.getValue());
+            job.setPageCount(context.pageCount.get());
+            job.setFetchedCount(context.fetchedCount.get());
+            job.setUploadedCount(context.uploadedCount.get());
+            job.setDuplicateCount(context.duplicateCount.get());
+            job.setFailedCount(context.failedCount.get());
+            job.setSavedCount(context.savedCount.get());
+            job.setUpdateTime(new Date());
+            json = JSONUtil.toJsonStr(job);
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(JOB_KEY_PREFIX + context.job.getJobId(), json,
+                    JOB_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("更新抓取任务进度失败, jobId = {}", context.job.getJobId(), e);
+        }
+    }
+
+    /**
+     * 单个抓取任务的运行状态
+     */
+    private static class CrawlContext {
+
+        private final PictureCrawlJobVO job;
+
+        private final String namePrefix;
+
+        private final User loginUser;
+
+        /**
+         * 在途上传许可
+         */
+        private final Semaphore semaphore = new Semaphore(JOB_CONCURRENCY);
+
+        /**
+         * 上传成功数 + 在途上传数
+         */
+        private final AtomicInteger reservedCount = new AtomicInteger();
+
+        private final AtomicInteger pageCount = new AtomicInteger();
+
+        private final AtomicInteger fetchedCount = new AtomicInteger();
+
+        private final AtomicInteger uploadedCount = new AtomicInteger();
+
+        private final AtomicInteger duplicateCount = new AtomicInteger();
+
+        private final AtomicInteger failedCount = new AtomicInteger();
+
+        private final AtomicInteger savedCount = new AtomicInteger();
+
+        private final Set<String> contentHashSet = ConcurrentHashMap.newKeySet();
+
+        private final List<UploadPictureResult> bufferList = new ArrayList<>();
+
+        private final Object saveLock = new Object();
+
+        /**
+         * 入库失败的数量（仅在 saveLock 内读写）
+         */
+        private int saveFailedCount;
+
+        CrawlContext(PictureCrawlJobVO job, String namePrefix, User loginUser) {
+            this.job = job;
+            this.namePrefix = namePrefix;
+            this.loginUser = loginUser;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.eureka.picwavebackend.manager.event;
+
+import com.eureka.picwavebackend.model.enums.PictureChangeTypeEnum;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * 图片变更事件
+ * 图片新增、更新、删除、审核后发布，由搜索索引等下游组件监听（在事务内发布时，监听方在事务提交后执行）
+ */
+@Getter
+public class PictureChangeEvent extends ApplicationEvent {
+
+    /**
+     * 变更类型
+     */
+    private final PictureChangeTypeEnum changeType;
+
+    /**
+     * 图片所属空间 id（为空表示公共图库）
+     */
+    private final Long spaceId;
+
+    /**
+     * 变更的图片 id 列表
+     */
+    private final List<Long> pictureIdList;
+
+    public PictureChangeEvent(Object source, PictureChangeTypeEnum changeType, Long spaceId, List<Long> pictureIdList) {
+        super(source);
+        this.changeType = changeType;
+        this.spaceId = spaceId;
+        this.pictureIdList = pictureIdList;
+    }
+}
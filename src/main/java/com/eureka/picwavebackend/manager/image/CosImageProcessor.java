@@ -0,0 +1,59 @@
+package com.eureka.picwavebackend.manager.image;
+
+import cn.hutool.core.collection.CollUtil;
+import com.eureka.picwavebackend.manager.CosManager;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
+import com.qcloud.cos.model.PutObjectResult;
+import com.qcloud.cos.model.ciModel.persistence.CIObject;
+import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 数据万象图片处理
+ * 上传原图时附带处理规则，由 COS 转为 webp 并生成缩略图，处理完成后删除原图
+ */
+@Slf4j
+public class CosImageProcessor implements ImageProcessor {
+
+    private final CosManager cosManager;
+
+    private final ObjectStorage objectStorage;
+
+    public CosImageProcessor(CosManager cosManager, ObjectStorage objectStorage) {
+        this.cosManager = cosManager;
+        this.objectStorage = objectStorage;
+    }
+
+    @Override
+    public ImageProcessResult process(String key, InputStream inputStream, long contentLength) {
+        try {
+            PutObjectResult putObjectResult = cosManager.putPictureObject(key, inputStream, contentLength);
+            ImageProcessResult imageProcessResult = new ImageProcessResult();
+            // 获取图片信息
+            ImageInfo imageInfo = putObjectResult.getCiUploadResult().getOriginalInfo().getImageInfo();
+            imageProcessResult.setOriginalFormat(imageInfo.getFormat());
+            imageProcessResult.setOriginalWidth(imageInfo.getWidth());
+            imageProcessResult.setOriginalHeight(imageInfo.getHeight());
+            // 获取图片处理信息
+            List<CIObject> objectList = putObjectResult.getCiUploadResult().getProcessResults().getObjectList();
+            if (CollUtil.isNotEmpty(objectList)) {
+                ProcessedImage compressed = toProcessedImage(objectList.get(0));
+                imageProcessResult.setCompressed(compressed);
+                imageProcessResult.setThumbnail(objectList.size() > 1 ? toProcessedImage(objectList.get(1)) : compressed);
+            }
+            return imageProcessResult;
+        } finally {
+            // 删除原图
+            objectStorage.deleteObject(key);
+            log.info("删除原图成功");
+        }
+    }
+
+    private ProcessedImage toProcessedImage(CIObject ciObject) {
+        return new ProcessedImage(ciObject.getKey(), ciObject.getFormat(), ciObject.getWidth(), ciObject.getHeight(),
+                ciObject.getSize().longValue());
+    }
+}
@@ -0,0 +1,70 @@
+package com.eureka.picwavebackend.manager.image;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * 图片方向处理
+ * ImageIO 解码时不处理 EXIF 方向，重新编码或计算感知哈希前需要先把像素摆正，
+ * 否则同一张手机照片在不同处理路径下得到的结果不一致
+ */
+public class ImageOrientation {
+
+    /**
+     * 按 EXIF 方向摆正图片
+     *
+     * @param image       图片
+     * @param orientation EXIF 方向（1 ~ 8）
+     * @return 摆正后的图片，方向为 1 时返回原图
+     */
+    public static BufferedImage orient(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2:
+                // 水平翻转
+                transform = new AffineTransform(-1, 0, 0, 1, width, 0);
+                break;
+            case 3:
+                // 旋转 180 度
+                transform = new AffineTransform(-1, 0, 0, -1, width, height);
+                break;
+            case 4:
+                // 垂直翻转
+                transform = new AffineTransform(1, 0, 0, -1, 0, height);
+                break;
+            case 5:
+                // 沿主对角线翻转
+                transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6:
+                // 顺时针旋转 90 度
+                transform = new AffineTransform(0, 1, -1, 0, height, 0);
+                break;
+            case 7:
+                // 沿副对角线翻转
+                transform = new AffineTransform(0, -1, -1, 0, height, width);
+                break;
+            case 8:
+                // 逆时针旋转 90 度
+                transform = new AffineTransform(0, -1, 1, 0, 0, width);
+                break;
+            default:
+                return image;
+        }
+        boolean swap = orientation >= 5;
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage orientedImage = new BufferedImage(swap ? height : width, swap ? width : height, type);
+        Graphics2D graphics = orientedImage.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return orientedImage;
+    }
+}
@@ -0,0 +1,35 @@
+package com.eureka.picwavebackend.manager.image;
+
+import lombok.Data;
+
+/**
+ * 图片处理结果
+ */
+@Data
+public class ImageProcessResult {
+
+    /**
+     * 压缩图，处理失败时为空（此时使用原图信息）
+     */
+    private ProcessedImage compressed;
+
+    /**
+     * 缩略图，图片太小不生成缩略图时与压缩图相同
+     */
+    private ProcessedImage thumbnail;
+
+    /**
+     * 原图格式
+     */
+    private String originalFormat;
+
+    /**
+     * 原图宽度
+     */
+    private int originalWidth;
+
+    /**
+     * 原图高度
+     */
+    private int originalHeight;
+}
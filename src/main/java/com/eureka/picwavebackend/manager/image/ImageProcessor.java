@@ -0,0 +1,21 @@
+package com.eureka.picwavebackend.manager.image;
+
+import java.io.InputStream;
+
+/**
+ * 图片处理器
+ * 负责把上传的原图处理成压缩图和缩略图并保存到对象存储，原图不保留
+ */
+public interface ImageProcessor {
+
+    /**
+     * 处理图片
+     *
+     * @param key           原图对象键，处理结果保存在同一目录下
+     * @param inputStream   原图输入流，由调用方关闭
+     * @param contentLength 内容长度
+     * @return 处理结果
+     * @throws Exception 读取或处理失败
+     */
+    ImageProcessResult process(String key, InputStream inputStream, long contentLength) throws Exception;
+}
@@ -0,0 +1,220 @@
+package com.eureka.picwavebackend.manager.image;
+
+import cn.hutool.core.io.FastByteArrayOutputStream;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.eureka.picwavebackend.exception.BusinessException;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
+import com.eureka.picwavebackend.manager.upload.ImageHeaderParser;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.*;
+
+/**
+ * 本地图片处理
+ * 原图只解码一次，压缩图和缩略图在有界线程池中并行编码并上传；
+ * JDK 自带的 ImageIO 没有 webp 编码器，压缩图不透明时编码为 jpg，有透明通道时编码为 png；
+ * 无法解码的格式（如 webp）直接保存原图
+ */
+@Slf4j
+public class LocalImageProcessor implements ImageProcessor {
+
+    /**
+     * 缩略图最大边长
+     */
+    private static final int THUMBNAIL_SIZE = 256;
+
+    /**
+     * 仅对大于该大小的图片生成缩略图
+     */
+    private static final long THUMBNAIL_MIN_FILE_SIZE = 2 * 1024L;
+
+    /**
+     * jpg 压缩质量
+     */
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final ObjectStorage objectStorage;
+
+    /**
+     * 编码线程池，队列满时由调用线程执行，限制同时占用的内存和 CPU
+     */
+    private final ThreadPoolExecutor processExecutor;
+
+    public LocalImageProcessor(ObjectStorage objectStorage) {
+        this.objectStorage = objectStorage;
+        int poolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.processExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(32),
+                ThreadFactoryBuilder.create().setNamePrefix("picture-process-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        processExecutor.shutdown();
+    }
+
+    @Override
+    public ImageProcessResult process(String key, InputStream inputStream, long contentLength) throws Exception {
+        long startTime = System.currentTimeMillis();
+        // 1、读取并解码原图（只解码一次）
+        byte[] content = IoUtil.readBytes(inputStream, (int) contentLength);
+        ImageHeaderParser.ImageHeader imageHeader = ImageHeaderParser.parse(content, content.length);
+        String originalFormat = imageHeader != null ? imageHeader.getFormat() : FileUtil.getSuffix(key);
+        BufferedImage decodedImage = ImageIO.read(new ByteArrayInputStream(content));
+        if (decodedImage == null) {
+            // ImageIO 无法解码（如 webp）时保存原图，原图同时作为压缩图和缩略图
+            return keepOriginal(key, content, originalFormat, imageHeader);
+        }
+        // ImageIO 不处理 EXIF 方向，重新编码会丢掉 EXIF，需要先把像素摆正
+        BufferedImage image = ImageOrientation.orient(decodedImage, imageHeader != null ? imageHeader.getOrientation() : 1);
+        long decodeTime = System.currentTimeMillis();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        String format = hasAlpha ? "png" : "jpg";
+        String keyPrefix = StrUtil.subBefore(key, "/", true) + "/" + FileUtil.mainName(key);
+        // 2、并行编码压缩图和缩略图
+        CompletableFuture<ProcessedImage> compressedFuture = CompletableFuture.supplyAsync(() -> {
+            byte[] bytes = encode(image, format);
+            // 重新编码反而更大时直接使用原图内容
+            if (bytes.length >= content.length && isSameFormat(originalFormat, format)) {
+                bytes = content;
+            }
+            return save(keyPrefix + "." + format, format, width, height, bytes);
+        }, processExecutor);
+        CompletableFuture<ProcessedImage> thumbnailFuture = null;
+        boolean needThumbnail = contentLength > THUMBNAIL_MIN_FILE_SIZE
+                && (width > THUMBNAIL_SIZE || height > THUMBNAIL_SIZE);
+        if (needThumbnail) {
+            // 等比缩放到 THUMBNAIL_SIZE x THUMBNAIL_SIZE 以内
+            double ratio = Math.min(THUMBNAIL_SIZE * 1.0 / width, THUMBNAIL_SIZE * 1.0 / height);
+            int thumbnailWidth = Math.max(1, (int) Math.round(width * ratio));
+            int thumbnailHeight = Math.max(1, (int) Math.round(height * ratio));
+            thumbnailFuture = CompletableFuture.supplyAsync(() -> {
+                BufferedImage thumbnail = AreaAveragingScaler.scale(image, thumbnailWidth, thumbnailHeight);
+                return save(keyPrefix + "_thumbnail." + format, format, thumbnailWidth, thumbnailHeight,
+                        encode(thumbnail, format));
+            }, processExecutor);
+        }
+        // 3、封装处理结果
+        ImageProcessResult imageProcessResult = new ImageProcessResult();
+        imageProcessResult.setOriginalFormat(originalFormat);
+        imageProcessResult.setOriginalWidth(width);
+        imageProcessResult.setOriginalHeight(height);
+        try {
+            ProcessedImage compressed = compressedFuture.get();
+            imageProcessResult.setCompressed(compressed);
+            imageProcessResult.setThumbnail(thumbnailFuture != null ? thumbnailFuture.get() : compressed);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+        log.info("本地处理图片完成, key = {}, size = {}x{}, decode = {}ms, encode = {}ms", key, width, height,
+                decodeTime - startTime, System.currentTimeMillis() - decodeTime);
+        return imageProcessResult;
+    }
+
+    /**
+     * 保存原图作为处理结果（宽高按 EXIF 方向摆正）
+     */
+    private ImageProcessResult keepOriginal(String key, byte[] content, String originalFormat,
+                                            ImageHeaderParser.ImageHeader imageHeader) {
+        if (imageHeader == null || imageHeader.getWidth() == 0 || imageHeader.getHeight() == 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件内容已损坏");
+        }
+        int width = imageHeader.getDisplayWidth();
+        int height = imageHeader.getDisplayHeight();
+        ProcessedImage original = save(key, originalFormat, width, height, content);
+        ImageProcessResult imageProcessResult = new ImageProcessResult();
+        imageProcessResult.setOriginalFormat(originalFormat);
+        imageProcessResult.setOriginalWidth(width);
+        imageProcessResult.setOriginalHeight(height);
+        imageProcessResult.setCompressed(original);
+        imageProcessResult.setThumbnail(original);
+        log.info("本地无法解码图片，保留原图, key = {}, format = {}", key, originalFormat);
+        return imageProcessResult;
+    }
+
+    /**
+     * 上传处理后的图片
+     */
+    private ProcessedImage save(String key, String format, int width, int height, byte[] bytes) {
+        objectStorage.putObject(key, new ByteArrayInputStream(bytes), bytes.length);
+        return new ProcessedImage(key, format, width, height, bytes.length);
+    }
+
+    /**
+     * 编码图片
+     *
+     * @param image  图片
+     * @param format jpg / png
+     * @return 编码后的内容
+     */
+    private static byte[] encode(BufferedImage image, String format) {
+        FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        try {
+            if ("png".equals(format)) {
+                ImageIO.write(image, "png", outputStream);
+                return outputStream.toByteArray();
+            }
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+                ImageWriteParam writeParam = writer.getDefaultWriteParam();
+                writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                writeParam.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(imageOutputStream);
+                writer.write(null, new IIOImage(toRgb(image), null, null), writeParam);
+            } finally {
+                writer.dispose();
+            }
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * jpg 编码器只能正确处理 RGB / BGR / 灰度图片，其余类型（如索引色）先转换
+     */
+    private static BufferedImage toRgb(BufferedImage image) {
+        int type = image.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_3BYTE_BGR
+                || type == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgbImage.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgbImage;
+    }
+
+    private static boolean isSameFormat(String originalFormat, String format) {
+        if ("jpg".equals(format)) {
+            return "jpeg".equals(originalFormat) || "jpg".equals(originalFormat);
+        }
+        return format.equals(originalFormat);
+    }
+}
@@ -0,0 +1,123 @@
+package com.eureka.picwavebackend.manager.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * 感知哈希（pHash）
+ * 图片缩放到 32x32 灰度图后做二维 DCT，取左上角 8x8 低频系数与其中位数比较，得到 64 位指纹；
+ * 缩放、重新压缩、轻微调色后指纹基本不变，两张图片指纹的汉明距离越小越相似
+ */
+public final class PerceptualHash {
+
+    /**
+     * DCT 输入边长
+     */
+    private static final int SIZE = 32;
+
+    /**
+     * 保留的低频系数边长
+     */
+    private static final int LOW_SIZE = 8;
+
+    /**
+     * DCT 余弦表：COS_TABLE[u][x] = cos((2x + 1) * u * PI / (2 * SIZE))
+     */
+    private static final double[][] COS_TABLE = new double[LOW_SIZE][SIZE];
+
+    static {
+        for (int u = 0; u < LOW_SIZE; u++) {
+            for (int x = 0; x < SIZE; x++) {
+                COS_TABLE[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * SIZE));
+            }
+        }
+    }
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * 计算感知哈希
+     *
+     * @param image 图片（可以是降采样后的小图）
+     * @return 64 位指纹
+     */
+    public static long compute(BufferedImage image) {
+        // 1、缩放为 32x32 灰度（透明像素按白色背景合成）
+        double[][] gray = toGray(resize(image));
+        // 2、只计算需要的低频部分：先按行对 x 做 DCT，再按列对 y 做 DCT
+        double[][] rowDct = new double[SIZE][LOW_SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int u = 0; u < LOW_SIZE; u++) {
+                double sum = 0;
+                for (int x = 0; x < SIZE; x++) {
+                    sum += gray[y][x] * COS_TABLE[u][x];
+                }
+                rowDct[y][u] = sum;
+            }
+        }
+        double[] coefficients = new double[LOW_SIZE * LOW_SIZE];
+        for (int v = 0; v < LOW_SIZE; v++) {
+            for (int u = 0; u < LOW_SIZE; u++) {
+                double sum = 0;
+                for (int y = 0; y < SIZE; y++) {
+                    sum += rowDct[y][u] * COS_TABLE[v][y];
+                }
+                coefficients[v * LOW_SIZE + u] = sum;
+            }
+        }
+        // 3、大于中位数的系数记为 1
+        double[] sorted = coefficients.clone();
+        Arrays.sort(sorted);
+        double median = (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2;
+        long hash = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i] > median) {
+                hash |= 1L << i;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 两个指纹的汉明距离
+     */
+    public static int distance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+
+    private static BufferedImage resize(BufferedImage image) {
+        if (image.getWidth() >= SIZE && image.getHeight() >= SIZE) {
+            return AreaAveragingScaler.scale(image, SIZE, SIZE);
+        }
+        // 区域平均只能缩小，比目标还小的图片直接双线性放大
+        BufferedImage resized = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, SIZE, SIZE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static double[][] toGray(BufferedImage image) {
+        int[] pixels = image.getRGB(0, 0, SIZE, SIZE, null, 0, SIZE);
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        double[][] gray = new double[SIZE][SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int argb = pixels[y * SIZE + x];
+                double luma = 0.299 * ((argb >> 16) & 0xFF) + 0.587 * ((argb >> 8) & 0xFF) + 0.114 * (argb & 0xFF);
+                if (hasAlpha) {
+                    double alpha = (argb >>> 24) / 255.0;
+                    luma = luma * alpha + 255 * (1 - alpha);
+                }
+                gray[y][x] = luma;
+            }
+        }
+        return gray;
+    }
+}
@@ -0,0 +1,39 @@
+package com.eureka.picwavebackend.manager.image;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 处理后的图片
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedImage {
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 格式
+     */
+    private String format;
+
+    /**
+     * 宽度
+     */
+    private int width;
+
+    /**
+     * 高度
+     */
+    private int height;
+
+    /**
+     * 大小
+     */
+    private long size;
+}
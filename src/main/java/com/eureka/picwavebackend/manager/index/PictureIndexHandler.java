@@ -0,0 +1,103 @@
+package com.eureka.picwavebackend.manager.index;
+
+import com.eureka.picwavebackend.model.entity.Picture;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * 图片内存索引
+ * 图片由 {@link PictureIndexSyncManager} 统一读取后分发给各个索引，实现类只维护自己的索引结构
+ */
+public interface PictureIndexHandler {
+
+    /**
+     * 索引名称（用于日志）
+     *
+     * @return 索引名称
+     */
+    String getIndexName();
+
+    /**
+     * 开始全量构建
+     *
+     * @return 新索引的构建器
+     */
+    Builder newBuilder();
+
+    /**
+     * 更新当前索引，索引尚未构建完成时忽略
+     *
+     * @param alivePictureList 未删除的图片（包含索引字段，可以包含 pictureIdList 之外的图片）
+     * @param pictureIdList    变更的图片 id，不在 alivePictureList 中的视为已删除
+     */
+    void update(List<Picture> alivePictureList, List<Long> pictureIdList);
+
+    /**
+     * 按变更逐个新增、更新或删除
+     *
+     * @param alivePictureList 未删除的图片
+     * @param pictureIdList    变更的图片 id
+     * @param upsert           新增或更新
+     * @param remove           删除
+     */
+    static void forEachChange(List<Picture> alivePictureList, List<Long> pictureIdList,
+                              Consumer<Picture> upsert, Consumer<Long> remove) {
+        Map<Long, Picture> pictureMap = new HashMap<>();
+        for (Picture picture : alivePictureList) {
+            pictureMap.put(picture.getId(), picture);
+        }
+        for (Long pictureId : pictureIdList) {
+            Picture picture = pictureMap.get(pictureId);
+            if (picture == null) {
+                remove.accept(pictureId);
+            } else {
+                upsert.accept(picture);
+            }
+        }
+    }
+
+    /**
+     * 全量构建器：逐批加入图片，全部加入后整体替换当前索引
+     */
+    interface Builder {
+
+        /**
+         * 加入一批图片
+         *
+         * @param pictureList 图片列表（包含索引字段，均未删除）
+         */
+        void add(List<Picture> pictureList);
+
+        /**
+         * 替换当前索引
+         *
+         * @return 索引中的图片数
+         */
+        int publish();
+
+        /**
+         * 每张图片单独加入的构建器
+         *
+         * @param upsert  加入一张图片
+         * @param publish 替换当前索引并返回图片数
+         * @return 构建器
+         */
+        static Builder of(Consumer<Picture> upsert, IntSupplier publish) {
+            return new Builder() {
+                @Override
+                public void add(List<Picture> pictureList) {
+                    pictureList.forEach(upsert);
+                }
+
+                @Override
+                public int publish() {
+                    return publish.getAsInt();
+                }
+            };
+        }
+    }
+}
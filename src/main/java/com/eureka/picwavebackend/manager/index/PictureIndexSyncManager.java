@@ -0,0 +1,192 @@
+package com.eureka.picwavebackend.manager.index;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.DateUtil;
+import com.eureka.picwavebackend.manager.event.PictureChangeEvent;
+import com.eureka.picwavebackend.mapper.PictureMapper;
+import com.eureka.picwavebackend.model.entity.Picture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 图片内存索引同步管理器
+ * 所有内存索引（文本、标签、感知哈希、颜色）共用一次读取：启动时和每天凌晨全量构建，图片变更后实时更新，
+ * 并定时按 updateTime 增量同步（兜底多实例部署和感知哈希补算）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureIndexSyncManager {
+
+    private final PictureMapper pictureMapper;
+
+    private final List<PictureIndexHandler> indexHandlerList;
+
+    /**
+     * 全量构建每批条数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 增量同步回溯时间（毫秒），避免时钟误差和未提交事务导致漏数据
+     */
+    private static final long SYNC_OVERLAP_MILLIS = 60 * 1000L;
+
+    /**
+     * 是否正在全量构建
+     */
+    private volatile boolean rebuilding;
+
+    /**
+     * 全量构建期间发生变更的图片 id，构建完成后补偿
+     */
+    private final Set<Long> pendingIdSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 上次同步时间，为空表示尚未构建完成
+     */
+    private volatile Date lastSyncTime;
+
+    /**
+     * 图片变更后刷新索引（事务提交后执行）
+     *
+     * @param event 图片变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureChange(PictureChangeEvent event) {
+        List<Long> pictureIdList = event.getPictureIdList();
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        if (rebuilding) {
+            pendingIdSet.addAll(pictureIdList);
+        }
+        refresh(pictureIdList);
+    }
+
+    /**
+     * 应用启动后异步构建索引
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 全量构建所有索引：分批扫描一次图片表，每批分发给所有索引，完成后各自整体替换
+     * 单个索引构建失败时保留其旧索引，不影响其他索引
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            Date syncTime = new Date(start - SYNC_OVERLAP_MILLIS);
+            // 1、创建构建器
+            Map<PictureIndexHandler, PictureIndexHandler.Builder> builderMap = new LinkedHashMap<>();
+            for (PictureIndexHandler indexHandler : indexHandlerList) {
+                try {
+                    builderMap.put(indexHandler, indexHandler.newBuilder());
+                } catch (Exception e) {
+                    log.error("{}构建失败", indexHandler.getIndexName(), e);
+                }
+            }
+            // 2、分批读取图片并分发
+            long lastId = 0;
+            while (!builderMap.isEmpty()) {
+                List<Picture> pictureList = pictureMapper.selectIndexFieldsAfterId(lastId, REBUILD_BATCH_SIZE);
+                if (pictureList.isEmpty()) {
+                    break;
+                }
+                Iterator<Map.Entry<PictureIndexHandler, PictureIndexHandler.Builder>> iterator =
+                        builderMap.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<PictureIndexHandler, PictureIndexHandler.Builder> entry = iterator.next();
+                    try {
+                        entry.getValue().add(pictureList);
+                    } catch (Exception e) {
+                        log.error("{}构建失败", entry.getKey().getIndexName(), e);
+                        iterator.remove();
+                    }
+                }
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+            }
+            // 3、替换索引
+            builderMap.forEach((indexHandler, builder) -> log.info("{}构建完成, 图片数 = {}",
+                    indexHandler.getIndexName(), builder.publish()));
+            lastSyncTime = syncTime;
+            log.info("图片内存索引构建完成, 索引数 = {}, 耗时 = {} ms", builderMap.size(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("图片内存索引构建失败", e);
+        } finally {
+            rebuilding = false;
+        }
+        // 补偿构建期间的变更
+        if (!pendingIdSet.isEmpty()) {
+            List<Long> pendingIdList = new ArrayList<>(pendingIdSet);
+            pendingIdSet.removeAll(pendingIdList);
+            refresh(pendingIdList);
+        }
+    }
+
+    /**
+     * 增量同步上次同步之后有变更的图片（包括其他实例的写入、逻辑删除和感知哈希补算），所有索引共用一次查询
+     */
+    public void syncIncrementally() {
+        Date since = lastSyncTime;
+        if (since == null || rebuilding) {
+            return;
+        }
+        Date syncTime = new Date(System.currentTimeMillis() - SYNC_OVERLAP_MILLIS);
+        List<Picture> pictureList = pictureMapper.selectIndexFieldsUpdatedSince(since);
+        List<Picture> alivePictureList = new ArrayList<>();
+        List<Long> pictureIdList = new ArrayList<>();
+        for (Picture picture : pictureList) {
+            pictureIdList.add(picture.getId());
+            if (picture.getIsDelete() == null || picture.getIsDelete() == 0) {
+                alivePictureList.add(picture);
+            }
+        }
+        if (!pictureIdList.isEmpty()) {
+            dispatch(alivePictureList, pictureIdList);
+        }
+        lastSyncTime = syncTime;
+        if (!pictureList.isEmpty()) {
+            log.info("图片内存索引增量同步完成, 起始时间 = {}, 变更数 = {}", DateUtil.formatDateTime(since), pictureList.size());
+        }
+    }
+
+    /**
+     * 按 id 重新加载图片并更新所有索引，已删除的图片从索引中移除
+     */
+    private void refresh(List<Long> pictureIdList) {
+        List<Picture> alivePictureList;
+        try {
+            alivePictureList = pictureMapper.selectByIds(pictureIdList);
+        } catch (Exception e) {
+            // 索引刷新失败不影响业务，等待增量同步兜底
+            log.error("加载变更图片失败, pictureIdList = {}", pictureIdList, e);
+            return;
+        }
+        dispatch(alivePictureList, pictureIdList);
+    }
+
+    private void dispatch(List<Picture> alivePictureList, List<Long> pictureIdList) {
+        for (PictureIndexHandler indexHandler : indexHandlerList) {
+            try {
+                indexHandler.update(alivePictureList, pictureIdList);
+            } catch (Exception e) {
+                log.error("刷新{}失败, 变更数 = {}", indexHandler.getIndexName(), pictureIdList.size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,734 @@
+package com.eureka.picwavebackend.manager.outpainting;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
+import com.eureka.picwavebackend.api.aliyunai.AliYunAiApi;
+import com.eureka.picwavebackend.api.aliyunai.model.CreateOutPaintingTaskResponse;
+import com.eureka.picwavebackend.api.aliyunai.model.GetOutPaintingTaskResponse;
+import com.eureka.picwavebackend.exception.BusinessException;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.model.dto.file.UploadPictureResult;
+import com.eureka.picwavebackend.model.dto.picture.CreatePictureOutPaintingTaskRequest;
+import com.eureka.picwavebackend.model.dto.picture.PictureUploadRequest;
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.entity.User;
+import com.eureka.picwavebackend.model.vo.PictureVO;
+import com.eureka.picwavebackend.service.PictureService;
+import com.eureka.picwavebackend.service.UserService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 扩图任务管理器
+ * 创建的扩图任务登记在本实例，由一个调度线程按任务状态自适应间隔轮询阿里云（排队中慢、处理中快、出错时指数退避），
+ * 最新状态缓存在 Redis，查询接口直接读缓存；状态变化通过 Redis 频道广播，各实例把结果通过 SSE 推送给订阅的客户端，
+ * 上游轮询次数只与任务数有关，与客户端数量无关
+ * <p>
+ * 开启自动保存的任务成功后，由服务端把结果图片通过 URL 上传流程直接写入存储并入库（校验和扣减空间额度与普通上传一致），
+ * 保存完成后再推送 picture 事件并关闭连接
+ * <p>
+ * 轮询和保存前先获取任务租约（SET NX PX），工作期间续约，同一任务同一时刻只由一个实例处理；
+ * 持有者宕机后租约过期，其他实例在查询时接管（包括保存中的任务），保存前按任务 id 检查是否已入库，不会重复入库和重复扣减额度
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutPaintingTaskManager implements MessageListener {
+
+    private final AliYunAiApi aliYunAiApi;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final PictureService pictureService;
+    private final UserService userService;
+
+    /**
+     * 任务状态键前缀
+     */
+    private static final String TASK_KEY_PREFIX = "picwave:picture:outpainting:task:";
+
+    /**
+     * 任务租约键前缀
+     */
+    private static final String TASK_LEASE_KEY_PREFIX = "picwave:picture:outpainting:lease:";
+
+    /**
+     * 任务状态变化广播频道
+     */
+    private static final String STATUS_CHANNEL = "picwave:picture:outpainting:status";
+
+    /**
+     * 任务状态保留时间（小时），与阿里云结果图片地址有效期一致
+     */
+    private static final long TASK_EXPIRE_HOURS = 24;
+
+    /**
+     * 处理中的轮询间隔（毫秒）
+     */
+    private static final long RUNNING_POLL_MILLIS = 2000;
+
+    /**
+     * 排队中的轮询间隔（毫秒）
+     */
+    private static final long PENDING_POLL_MILLIS = 5000;
+
+    /**
+     * 出错时的最大退避间隔（毫秒）
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    /**
+     * 最长跟踪时间（毫秒），超过后标记为失败
+     */
+    private static final long MAX_TRACK_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * 任务租约时间（毫秒），需大于最大轮询间隔；持有者超过该时间未续约时由其他实例接管（如原实例已重启）
+     */
+    private static final long LEASE_MILLIS = 60 * 1000L;
+
+    /**
+     * 保存期间的续约间隔（毫秒）
+     */
+    private static final long LEASE_RENEW_MILLIS = LEASE_MILLIS / 3;
+
+    /**
+     * 续约（仅持有者可以续约）
+     */
+    private static final DefaultRedisScript<Long> RENEW_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    /**
+     * 释放租约（仅持有者可以释放）
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * SSE 连接超时（毫秒）
+     */
+    private static final long SSE_TIMEOUT_MILLIS = MAX_TRACK_MILLIS;
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final String SAVE_STATUS_SAVING = "saving";
+    private static final String SAVE_STATUS_SUCCEEDED = "succeeded";
+    private static final String SAVE_STATUS_FAILED = "failed";
+
+    /**
+     * 终态
+     */
+    private static final List<String> FINAL_STATUS_LIST = Arrays.asList(STATUS_SUCCEEDED, STATUS_FAILED, "UNKNOWN");
+
+    /**
+     * 本实例的租约标识
+     */
+    private final String leaseToken = IdUtil.fastSimpleUUID();
+
+    /**
+     * 本实例跟踪的任务：任务 id -> 跟踪信息
+     */
+    private final Map<String, TrackedTask> trackedTaskMap = new ConcurrentHashMap<>();
+
+    /**
+     * 本实例的订阅：任务 id -> SSE 连接
+     */
+    private final Map<String, List<SseEmitter>> emitterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 调度线程，每秒挑出到期的任务
+     */
+    private final ScheduledExecutorService pollScheduler = Executors.newSingleThreadScheduledExecutor(
+            ThreadFactoryBuilder.create().setNamePrefix("out-painting-poll-scheduler-").setDaemon(true).build());
+
+    /**
+     * 轮询线程池（调用阿里云接口），队列满时等下一轮
+     */
+    private final ThreadPoolExecutor pollExecutor = new ThreadPoolExecutor(2, 4, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100),
+            ThreadFactoryBuilder.create().setNamePrefix("out-painting-poll-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 结果保存线程池（下载、写存储和入库），队列满时由轮询线程执行
+     */
+    private final ThreadPoolExecutor saveExecutor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(50),
+            ThreadFactoryBuilder.create().setNamePrefix("out-painting-save-").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(STATUS_CHANNEL));
+        pollScheduler.scheduleWithFixedDelay(this::pollDueTasks, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pollScheduler.shutdownNow();
+        pollExecutor.shutdownNow();
+        saveExecutor.shutdown();
+        emitterMap.values().forEach(emitterList -> emitterList.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * 登记新创建的扩图任务
+     *
+     * @param response      创建扩图任务响应
+     * @param createRequest 创建扩图任务请求
+     * @param loginUser     登录用户
+     */
+    public void register(CreateOutPaintingTaskResponse response, CreatePictureOutPaintingTaskRequest createRequest,
+                         User loginUser) {
+        if (response == null || response.getOutput() == null || StrUtil.isBlank(response.getOutput().getTaskId())) {
+            return;
+        }
+        String taskId = response.getOutput().getTaskId();
+        GetOutPaintingTaskResponse status = new GetOutPaintingTaskResponse();
+        status.setRequestId(response.getRequestId());
+        GetOutPaintingTaskResponse.Output output = new GetOutPaintingTaskResponse.Output();
+        output.setTaskId(taskId);
+        output.setTaskStatus(StrUtil.blankToDefault(response.getOutput().getTaskStatus(), STATUS_PENDING));
+        status.setOutput(output);
+        TaskSnapshot snapshot = new TaskSnapshot();
+        snapshot.setUserId(loginUser.getId());
+        snapshot.setPictureId(createRequest.getPictureId());
+        snapshot.setAutoSave(Boolean.TRUE.equals(createRequest.getAutoSave()));
+        snapshot.setReplaceSource(Boolean.TRUE.equals(createRequest.getReplaceSource()));
+        snapshot.setCreateTime(System.currentTimeMillis());
+        snapshot.setResponse(status);
+        saveSnapshot(taskId, snapshot);
+        try {
+            tryAcquireLease(taskId);
+        } catch (Exception e) {
+            // 首次轮询时再获取
+            log.warn("获取扩图任务租约失败, taskId = {}", taskId, e);
+        }
+        track(taskId, snapshot);
+    }
+
+    /**
+     * 查询扩图任务的最新状态（读缓存，不访问阿里云）
+     *
+     * @param taskId    任务 id
+     * @param loginUser 登录用户
+     * @return 任务状态
+     */
+    public GetOutPaintingTaskResponse getTask(String taskId, User loginUser) {
+        TaskSnapshot snapshot = getSnapshot(taskId);
+        ThrowUtils.throwIf(snapshot == null, ErrorCode.NOT_FOUND_ERROR, "任务不存在或已过期");
+        ThrowUtils.throwIf(!loginUser.getId().equals(snapshot.getUserId()), ErrorCode.NO_AUTH_ERROR);
+        adoptIfStale(taskId, snapshot);
+        return snapshot.getResponse();
+    }
+
+    /**
+     * 订阅扩图任务状态，状态变化时推送 status 事件，到达终态后关闭连接
+     *
+     * @param taskId    任务 id
+     * @param loginUser 登录用户
+     * @return SSE 连接
+     */
+    public SseEmitter subscribe(String taskId, User loginUser) {
+        getTask(taskId, loginUser);
+        TaskSnapshot current = getSnapshot(taskId);
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        if (current == null || isFinished(current)) {
+            if (current != null) {
+                send(emitter, current);
+            }
+            emitter.complete();
+            return emitter;
+        }
+        List<SseEmitter> emitterList = emitterMap.computeIfAbsent(taskId, key -> new CopyOnWriteArrayList<>());
+        emitterList.add(emitter);
+        Runnable removeEmitter = () -> removeEmitter(taskId, emitter);
+        emitter.onCompletion(removeEmitter);
+        emitter.onTimeout(removeEmitter);
+        emitter.onError(e -> removeEmitter.run());
+        send(emitter, current);
+        // 登记订阅前任务可能恰好结束，再检查一次
+        TaskSnapshot latest = getSnapshot(taskId);
+        if (latest != null && isFinished(latest)) {
+            notifyLocal(taskId, latest);
+        }
+        return emitter;
+    }
+
+    /**
+     * 收到任务状态变化广播，推送给本实例的订阅者
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String taskId = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!emitterMap.containsKey(taskId)) {
+            return;
+        }
+        TaskSnapshot snapshot = getSnapshot(taskId);
+        if (snapshot != null) {
+            notifyLocal(taskId, snapshot);
+        }
+    }
+
+    /**
+     * 挑出到期的任务交给轮询线程池
+     */
+    private void pollDueTasks() {
+        long now = System.currentTimeMillis();
+        for (TrackedTask task : trackedTaskMap.values()) {
+            if (task.isPolling() || task.getNextPollTime() > now) {
+                continue;
+            }
+            task.setPolling(true);
+            try {
+                pollExecutor.execute(() -> {
+                    try {
+                        poll(task);
+                    } catch (Exception e) {
+                        log.error("轮询扩图任务失败, taskId = {}", task.getTaskId(), e);
+                        task.setNextPollTime(System.currentTimeMillis() + MAX_BACKOFF_MILLIS);
+                    } finally {
+                        task.setPolling(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 等下一轮
+                task.setPolling(false);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 轮询单个任务，状态变化时更新缓存并广播
+     */
+    private void poll(TrackedTask task) {
+        String taskId = task.getTaskId();
+        // 1、获取或续约租约，其他实例持有时交给其处理
+        if (!tryAcquireLease(taskId)) {
+            trackedTaskMap.remove(taskId);
+            return;
+        }
+        TaskSnapshot snapshot = getSnapshot(taskId);
+        if (snapshot == null || isFinished(snapshot)) {
+            trackedTaskMap.remove(taskId);
+            releaseLease(taskId);
+            return;
+        }
+        if (isFinal(snapshot.getResponse())) {
+            // 已成功但还没有保存完成（如原实例保存前或保存中重启，租约过期后由本实例接管）
+            trackedTaskMap.remove(taskId);
+            startSave(taskId, snapshot);
+            return;
+        }
+        // 2、查询阿里云
+        GetOutPaintingTaskResponse response;
+        try {
+            response = aliYunAiApi.getOutPaintingTask(taskId);
+            task.setErrorCount(0);
+        } catch (Exception e) {
+            task.setErrorCount(task.getErrorCount() + 1);
+            log.warn("查询扩图任务失败, taskId = {}, errorCount = {}", taskId, task.getErrorCount(), e);
+            response = null;
+        }
+        long now = System.currentTimeMillis();
+        if (response == null || response.getOutput() == null) {
+            if (now - task.getStartTime() > MAX_TRACK_MILLIS) {
+                response = buildFailed(snapshot.getResponse(), "任务超时");
+            } else {
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, RUNNING_POLL_MILLIS << Math.min(task.getErrorCount(), 4));
+                task.setNextPollTime(now + backoff);
+                return;
+            }
+        } else if (!isFinal(response) && now - task.getStartTime() > MAX_TRACK_MILLIS) {
+            response = buildFailed(response, "任务超时");
+        }
+        // 3、更新缓存，需要保存时开始保存（保存结束后释放租约）
+        String oldStatus = snapshot.getResponse() == null || snapshot.getResponse().getOutput() == null
+                ? null : snapshot.getResponse().getOutput().getTaskStatus();
+        snapshot.setResponse(response);
+        if (needSave(snapshot)) {
+            startSave(taskId, snapshot);
+        } else {
+            saveSnapshot(taskId, snapshot);
+            if (isFinal(response)) {
+                releaseLease(taskId);
+            }
+        }
+        if (isFinal(response)) {
+            trackedTaskMap.remove(taskId);
+        } else {
+            String status = response.getOutput().getTaskStatus();
+            task.setNextPollTime(now + (STATUS_RUNNING.equals(status) ? RUNNING_POLL_MILLIS : PENDING_POLL_MILLIS));
+        }
+        if (isFinal(response) || !StrUtil.equals(oldStatus, response.getOutput().getTaskStatus())) {
+            publish(taskId, snapshot);
+        }
+    }
+
+    /**
+     * 开始保存结果图片（需持有租约），保存期间定时续约，结束后释放租约
+     */
+    private void startSave(String taskId, TaskSnapshot snapshot) {
+        snapshot.setSaveStatus(SAVE_STATUS_SAVING);
+        saveSnapshot(taskId, snapshot);
+        ScheduledFuture<?> renewFuture = pollScheduler.scheduleWithFixedDelay(() -> renewLease(taskId),
+                LEASE_RENEW_MILLIS, LEASE_RENEW_MILLIS, TimeUnit.MILLISECONDS);
+        saveExecutor.execute(() -> {
+            try {
+                save(taskId, snapshot);
+            } finally {
+                renewFuture.cancel(false);
+                releaseLease(taskId);
+            }
+        });
+    }
+
+    /**
+     * 把结果图片通过 URL 上传流程写入存储并入库，新增时关联原图，替换时沿用原图记录
+     */
+    private void save(String taskId, TaskSnapshot snapshot) {
+        try {
+            User user = userService.getById(snapshot.getUserId());
+            ThrowUtils.throwIf(user == null, ErrorCode.NOT_FOUND_ERROR, "用户不存在");
+            Picture sourcePicture = pictureService.getById(snapshot.getPictureId());
+            ThrowUtils.throwIf(sourcePicture == null, ErrorCode.NOT_FOUND_ERROR, "原图不存在");
+            boolean replaceSource = Boolean.TRUE.equals(snapshot.getReplaceSource());
+            PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
+            pictureUploadRequest.setSpaceId(sourcePicture.getSpaceId());
+            pictureUploadRequest.setPicName(sourcePicture.getName());
+            if (replaceSource) {
+                pictureUploadRequest.setId(sourcePicture.getId());
+            }
+            // 已经保存过（如保存后还没来得及更新状态就重启），直接使用已保存的图片
+            Picture picture = getSavedPicture(taskId, sourcePicture.getId(), replaceSource);
+            if (picture == null) {
+                String outputImageUrl = snapshot.getResponse().getOutput().getOutputImageUrl();
+                UploadPictureResult uploadPictureResult = pictureService.uploadPictureFile(outputImageUrl,
+                        pictureUploadRequest, user);
+                picture = pictureService.saveUploadedPicture(uploadPictureResult, pictureUploadRequest, user,
+                        replaceSource ? null : sourcePicture.getId(), taskId);
+                pictureService.sendPictureReviewMessage(picture);
+            }
+            snapshot.setPicture(PictureVO.objToVo(picture));
+            snapshot.setSaveStatus(SAVE_STATUS_SUCCEEDED);
+        } catch (Exception e) {
+            if (e instanceof BusinessException) {
+                snapshot.setSaveMessage(e.getMessage());
+            } else {
+                log.error("保存扩图结果失败, taskId = {}", taskId, e);
+                snapshot.setSaveMessage("保存扩图结果失败");
+            }
+            snapshot.setSaveStatus(SAVE_STATUS_FAILED);
+        }
+        saveSnapshot(taskId, snapshot);
+        publish(taskId, snapshot);
+    }
+
+    /**
+     * 查询任务已保存的图片：新增时为关联原图的新图片，替换时为原图记录
+     *
+     * @param taskId          任务 id
+     * @param sourcePictureId 原图 id
+     * @param replaceSource   是否替换原图
+     * @return 已保存的图片，未保存时返回 null
+     */
+    private Picture getSavedPicture(String taskId, Long sourcePictureId, boolean replaceSource) {
+        LambdaQueryChainWrapper<Picture> queryWrapper = pictureService.lambdaQuery()
+                .eq(Picture::getSourceTaskId, taskId);
+        if (replaceSource) {
+            queryWrapper.eq(Picture::getId, sourcePictureId);
+        } else {
+            queryWrapper.eq(Picture::getSourcePictureId, sourcePictureId);
+        }
+        return queryWrapper.one();
+    }
+
+    /**
+     * 广播任务状态变化
+     */
+    private void publish(String taskId, TaskSnapshot snapshot) {
+        try {
+            stringRedisTemplate.convertAndSend(STATUS_CHANNEL, taskId);
+        } catch (Exception e) {
+            // 广播失败时至少推送给本实例的订阅者
+            log.warn("广播扩图任务状态失败, taskId = {}", taskId, e);
+            notifyLocal(taskId, snapshot);
+        }
+    }
+
+    /**
+     * 任务未结束、租约已过期（原实例已宕机）且本实例没有跟踪时接管，保存中的任务接管后重新保存
+     */
+    private void adoptIfStale(String taskId, TaskSnapshot snapshot) {
+        if (isFinished(snapshot) || trackedTaskMap.containsKey(taskId)) {
+            return;
+        }
+        boolean leased;
+        try {
+            leased = Boolean.TRUE.equals(stringRedisTemplate.hasKey(TASK_LEASE_KEY_PREFIX + taskId));
+        } catch (Exception e) {
+            log.warn("读取扩图任务租约失败, taskId = {}", taskId, e);
+            return;
+        }
+        if (!leased) {
+            track(taskId, snapshot);
+        }
+    }
+
+    /**
+     * 获取租约，本实例已持有时续约
+     *
+     * @param taskId 任务 id
+     * @return 是否持有租约
+     */
+    private boolean tryAcquireLease(String taskId) {
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(TASK_LEASE_KEY_PREFIX + taskId, leaseToken,
+                LEASE_MILLIS, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(acquired) || renewLease(taskId);
+    }
+
+    /**
+     * 续约（仅持有者可以续约）
+     *
+     * @param taskId 任务 id
+     * @return 是否仍持有租约
+     */
+    private boolean renewLease(String taskId) {
+        try {
+            Long result = stringRedisTemplate.execute(RENEW_LEASE_SCRIPT,
+                    Collections.singletonList(TASK_LEASE_KEY_PREFIX + taskId), leaseToken, String.valueOf(LEASE_MILLIS));
+            return result != null && result == 1;
+        } catch (Exception e) {
+            log.warn("扩图任务续约失败, taskId = {}", taskId, e);
+            return false;
+        }
+    }
+
+    private void releaseLease(String taskId) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT,
+                    Collections.singletonList(TASK_LEASE_KEY_PREFIX + taskId), leaseToken);
+        } catch (Exception e) {
+            log.warn("释放扩图任务租约失败, taskId = {}", taskId, e);
+        }
+    }
+
+    private void track(String taskId, TaskSnapshot snapshot) {
+        TrackedTask task = new TrackedTask();
+        task.setTaskId(taskId);
+        task.setStartTime(snapshot.getCreateTime() == null ? System.currentTimeMillis() : snapshot.getCreateTime());
+        // 扩图一般需要十几秒，首次轮询稍晚一些
+        task.setNextPollTime(System.currentTimeMillis() + PENDING_POLL_MILLIS);
+        trackedTaskMap.putIfAbsent(taskId, task);
+    }
+
+    private void notifyLocal(String taskId, TaskSnapshot snapshot) {
+        List<SseEmitter> emitterList = emitterMap.get(taskId);
+        if (emitterList == null) {
+            return;
+        }
+        boolean finished = isFinished(snapshot);
+        for (SseEmitter emitter : emitterList) {
+            send(emitter, snapshot);
+            if (finished) {
+                emitter.complete();
+            }
+        }
+        if (finished) {
+            emitterMap.remove(taskId);
+        }
+    }
+
+    /**
+     * 推送 status 事件，保存结束后再推送 picture（成功）或 save_error（失败）事件
+     */
+    private void send(SseEmitter emitter, TaskSnapshot snapshot) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(JSONUtil.toJsonStr(snapshot.getResponse())));
+            if (SAVE_STATUS_SUCCEEDED.equals(snapshot.getSaveStatus())) {
+                emitter.send(SseEmitter.event().name("picture").data(JSONUtil.toJsonStr(snapshot.getPicture())));
+            } else if (SAVE_STATUS_FAILED.equals(snapshot.getSaveStatus())) {
+                emitter.send(SseEmitter.event().name("save_error").data(snapshot.getSaveMessage()));
+            }
+        } catch (Exception e) {
+            // 客户端已断开
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void removeEmitter(String taskId, SseEmitter emitter) {
+        emitterMap.computeIfPresent(taskId, (key, emitterList) -> {
+            emitterList.remove(emitter);
+            return emitterList.isEmpty() ? null : emitterList;
+        });
+    }
+
+    /**
+     * 任务是否彻底结束：到达终态，且需要自动保存时已保存完成
+     */
+    private static boolean isFinished(TaskSnapshot snapshot) {
+        if (!isFinal(snapshot.getResponse())) {
+            return false;
+        }
+        return !isSucceededWithAutoSave(snapshot)
+                || SAVE_STATUS_SUCCEEDED.equals(snapshot.getSaveStatus())
+                || SAVE_STATUS_FAILED.equals(snapshot.getSaveStatus());
+    }
+
+    /**
+     * 是否需要开始保存结果图片
+     */
+    private static boolean needSave(TaskSnapshot snapshot) {
+        return isSucceededWithAutoSave(snapshot) && snapshot.getSaveStatus() == null;
+    }
+
+    private static boolean isSucceededWithAutoSave(TaskSnapshot snapshot) {
+        GetOutPaintingTaskResponse response = snapshot.getResponse();
+        return Boolean.TRUE.equals(snapshot.getAutoSave()) && response != null && response.getOutput() != null
+                && STATUS_SUCCEEDED.equals(response.getOutput().getTaskStatus())
+                && StrUtil.isNotBlank(response.getOutput().getOutputImageUrl());
+    }
+
+    private static boolean isFinal(GetOutPaintingTaskResponse response) {
+        return response != null && response.getOutput() != null
+                && FINAL_STATUS_LIST.contains(response.getOutput().getTaskStatus());
+    }
+
+    private static GetOutPaintingTaskResponse buildFailed(GetOutPaintingTaskResponse response, String message) {
+        GetOutPaintingTaskResponse failed = response == null ? new GetOutPaintingTaskResponse() : response;
+        if (failed.getOutput() == null) {
+            failed.setOutput(new GetOutPaintingTaskResponse.Output());
+        }
+        failed.getOutput().setTaskStatus(STATUS_FAILED);
+        failed.getOutput().setMessage(message);
+        return failed;
+    }
+
+    private TaskSnapshot getSnapshot(String taskId) {
+        String json = stringRedisTemplate.opsForValue().get(TASK_KEY_PREFIX + taskId);
+        return json == null ? null : JSONUtil.toBean(json, TaskSnapshot.class);
+    }
+
+    private void saveSnapshot(String taskId, TaskSnapshot snapshot) {
+        snapshot.setUpdateTime(System.currentTimeMillis());
+        try {
+            stringRedisTemplate.opsForValue().set(TASK_KEY_PREFIX + taskId, JSONUtil.toJsonStr(snapshot),
+                    TASK_EXPIRE_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("更新扩图任务状态失败, taskId = {}", taskId, e);
+        }
+    }
+
+    /**
+     * 缓存的任务状态
+     */
+    @Data
+    public static class TaskSnapshot {
+
+        /**
+         * 创建用户 id
+         */
+        private Long userId;
+
+        /**
+         * 原图 id
+         */
+        private Long pictureId;
+
+        /**
+         * 是否自动保存结果图片
+         */
+        private Boolean autoSave;
+
+        /**
+         * 自动保存时是否替换原图
+         */
+        private Boolean replaceSource;
+
+        /**
+         * 保存状态：saving、succeeded、failed，为空表示未开始
+         */
+        private String saveStatus;
+
+        /**
+         * 保存失败原因
+         */
+        private String saveMessage;
+
+        /**
+         * 保存后的图片
+         */
+        private PictureVO picture;
+
+        /**
+         * 创建时间（毫秒时间戳）
+         */
+        private Long createTime;
+
+        /**
+         * 更新时间（毫秒时间戳）
+         */
+        private Long updateTime;
+
+        /**
+         * 最新状态
+         */
+        private GetOutPaintingTaskResponse response;
+    }
+
+    /**
+     * 本实例跟踪的任务
+     */
+    @Data
+    private static class TrackedTask {
+
+        private String taskId;
+
+        /**
+         * 开始跟踪时间（按任务创建时间计算）
+         */
+        private long startTime;
+
+        /**
+         * 下次轮询时间
+         */
+        private volatile long nextPollTime;
+
+        /**
+         * 连续出错次数
+         */
+        private int errorCount;
+
+        /**
+         * 是否正在轮询
+         */
+        private volatile boolean polling;
+    }
+}
@@ -0,0 +1,83 @@
+package com.eureka.picwavebackend.manager.search;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * N-gram 分词器
+ * 连续的字母、数字、汉字视为一段，段内切分为一元和二元词元，其余字符作为分隔符；
+ * 中文无需词典即可检索任意子串，英文统一转小写
+ */
+public class NGramTokenizer {
+
+    private NGramTokenizer() {
+    }
+
+    /**
+     * 索引分词：每段输出全部一元和二元词元（保留重复，用于统计词频）
+     *
+     * @param text 文本
+     * @return 词元列表
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        List<String> tokenList = new ArrayList<>();
+        for (String segment : splitSegments(text)) {
+            for (int i = 0; i < segment.length(); i++) {
+                tokenList.add(segment.substring(i, i + 1));
+                if (i + 1 < segment.length()) {
+                    tokenList.add(segment.substring(i, i + 2));
+                }
+            }
+        }
+        return tokenList;
+    }
+
+    /**
+     * 查询分词：只有一个字的段输出一元词元，否则只输出二元词元（去重）
+     *
+     * @param text 查询文本
+     * @return 词元集合
+     */
+    public static Set<String> tokenizeForQuery(String text) {
+        Set<String> tokenSet = new LinkedHashSet<>();
+        for (String segment : splitSegments(text)) {
+            if (segment.length() == 1) {
+                tokenSet.add(segment);
+                continue;
+            }
+            for (int i = 0; i + 1 < segment.length(); i++) {
+                tokenSet.add(segment.substring(i, i + 2));
+            }
+        }
+        return tokenSet;
+    }
+
+    /**
+     * 按非字母数字字符切分并转小写
+     * 仅处理 BMP 字符，代理对视为分隔符
+     */
+    private static List<String> splitSegments(String text) {
+        List<String> segmentList = new ArrayList<>();
+        if (StrUtil.isBlank(text)) {
+            return segmentList;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            } else if (sb.length() > 0) {
+                segmentList.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        if (sb.length() > 0) {
+            segmentList.add(sb.toString());
+        }
+        return segmentList;
+    }
+}
@@ -0,0 +1,456 @@
+package com.eureka.picwavebackend.manager.search;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.manager.color.LabColor;
+import com.eureka.picwavebackend.manager.color.PaletteColor;
+import com.eureka.picwavebackend.model.entity.Picture;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图片颜色索引
+ * 每个空间一段紧凑的原始类型数组（公共图库单独一段）：图片 id、平均色 0xRRGGBB、预先转换为 Lab 的色板及占比。
+ * 检索时顺序扫描、用有界大顶堆保留得分最好的 k 张，不创建对象、不整体排序；删除时用末尾元素填补空位，保持数组紧凑
+ * <p>
+ * 读多写少，使用读写锁保护
+ */
+public class PictureColorIndex {
+
+    /**
+     * 公共图库对应的数组
+     */
+    private static final long PUBLIC_SCOPE = 0L;
+
+    /**
+     * 每张图片最多保留的色板颜色数
+     */
+    public static final int MAX_PALETTE_SIZE = 5;
+
+    /**
+     * 色板颜色占比惩罚：占比越低，匹配代价越高（ΔE 单位）
+     */
+    private static final float RATIO_PENALTY = 20f;
+
+    /**
+     * 单个查询颜色允许的最大匹配代价，超过即认为图片不含该颜色
+     */
+    private static final float MAX_MATCH_COST = 35f;
+
+    /**
+     * 范围 -> 该范围的颜色数组
+     */
+    private final Map<Long, Segment> segmentMap = new HashMap<>();
+
+    /**
+     * 图片 id -> 所在范围
+     */
+    private final Map<Long, Long> scopeMap = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或更新文档，平均色和色板都没有的图片从索引中移除
+     *
+     * @param picture 图片（需包含 id、spaceId、reviewStatus、picColor、picPalette）
+     */
+    public void upsert(Picture picture) {
+        int rgb = parseColor(picture.getPicColor());
+        float[] paletteLabs = new float[MAX_PALETTE_SIZE * 3];
+        float[] paletteRatios = new float[MAX_PALETTE_SIZE];
+        int paletteSize = parsePalette(picture.getPicPalette(), paletteLabs, paletteRatios);
+        if (paletteSize == 0 && rgb >= 0) {
+            // 没有色板（如 COS 提取的颜色）时把平均色当作占比 100% 的色板
+            LabColor.toLab(rgb, paletteLabs, 0);
+            paletteRatios[0] = 1f;
+            paletteSize = 1;
+        }
+        if (paletteSize == 0) {
+            remove(picture.getId());
+            return;
+        }
+        long scope = scopeOf(picture.getSpaceId());
+        int reviewStatus = picture.getReviewStatus() == null ? -1 : picture.getReviewStatus();
+        lock.writeLock().lock();
+        try {
+            Long oldScope = scopeMap.get(picture.getId());
+            if (oldScope != null && oldScope != scope) {
+                removeInternal(picture.getId());
+            }
+            segmentMap.computeIfAbsent(scope, key -> new Segment())
+                    .put(picture.getId(), rgb, reviewStatus, paletteSize, paletteLabs, paletteRatios);
+            scopeMap.put(picture.getId(), scope);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(Long pictureId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索空间内平均色与目标颜色最接近的图片
+     *
+     * @param spaceId 空间 id
+     * @param rgb     目标颜色（0xRRGGBB）
+     * @param limit   最多返回条数
+     * @return 按颜色距离升序的图片 id 列表（同距离时新图片在前）
+     */
+    public List<Long> search(Long spaceId, int rgb, int limit) {
+        lock.readLock().lock();
+        try {
+            Segment segment = segmentMap.get(scopeOf(spaceId));
+            if (segment == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+            return segment.searchByColor(rgb, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按色板检索同时包含所有目标颜色的图片
+     * 每个目标颜色取图片色板中代价最小的一种（ΔE 加上占比惩罚），任一目标颜色代价过高的图片不返回，按平均代价升序
+     *
+     * @param spaceId      空间 id，为空表示公共图库
+     * @param reviewStatus 审核状态，为空表示不限
+     * @param rgbList      目标颜色列表（0xRRGGBB）
+     * @param limit        最多返回条数
+     * @return 按匹配代价升序的图片 id 列表（同代价时新图片在前）
+     */
+    public List<Long> searchByPalette(Long spaceId, Integer reviewStatus, List<Integer> rgbList, int limit) {
+        float[] queryLabs = new float[rgbList.size() * 3];
+        for (int i = 0; i < rgbList.size(); i++) {
+            LabColor.toLab(rgbList.get(i), queryLabs, i * 3);
+        }
+        lock.readLock().lock();
+        try {
+            Segment segment = segmentMap.get(scopeOf(spaceId));
+            if (segment == null || limit <= 0 || rgbList.isEmpty()) {
+                return new ArrayList<>();
+            }
+            return segment.searchByPalette(reviewStatus == null ? -1 : reviewStatus, queryLabs, rgbList.size(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return scopeMap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 解析颜色（支持 0xRRGGBB、#RRGGBB）
+     *
+     * @param color 颜色字符串
+     * @return 0xRRGGBB，无法解析时返回 -1
+     */
+    public static int parseColor(String color) {
+        if (StrUtil.isBlank(color)) {
+            return -1;
+        }
+        try {
+            return Integer.decode(color.trim()) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 解析色板 JSON 并转换为 Lab
+     *
+     * @return 有效颜色数
+     */
+    private static int parsePalette(String picPalette, float[] labs, float[] ratios) {
+        if (StrUtil.isBlank(picPalette)) {
+            return 0;
+        }
+        List<PaletteColor> palette;
+        try {
+            palette = JSONUtil.toList(picPalette, PaletteColor.class);
+        } catch (Exception e) {
+            return 0;
+        }
+        if (CollUtil.isEmpty(palette)) {
+            return 0;
+        }
+        int size = 0;
+        for (PaletteColor paletteColor : palette) {
+            int rgb = parseColor(paletteColor.getColor());
+            if (rgb < 0 || paletteColor.getRatio() == null || size == MAX_PALETTE_SIZE) {
+                continue;
+            }
+            LabColor.toLab(rgb, labs, size * 3);
+            ratios[size] = paletteColor.getRatio().floatValue();
+            size++;
+        }
+        return size;
+    }
+
+    private void removeInternal(Long pictureId) {
+        Long scope = scopeMap.remove(pictureId);
+        if (scope == null) {
+            return;
+        }
+        Segment segment = segmentMap.get(scope);
+        if (segment != null) {
+            segment.remove(pictureId);
+            if (segment.size == 0) {
+                segmentMap.remove(scope);
+            }
+        }
+    }
+
+    private static long scopeOf(Long spaceId) {
+        return spaceId == null ? PUBLIC_SCOPE : spaceId;
+    }
+
+    /**
+     * 单个范围的颜色数组，第 i 张图片的色板占用 labs[i * 15, i * 15 + 15) 和 ratios[i * 5, i * 5 + 5)
+     */
+    private static class Segment {
+
+        private int capacity = 16;
+
+        private long[] ids = new long[capacity];
+
+        /**
+         * 平均色，没有时为 -1
+         */
+        private int[] colors = new int[capacity];
+
+        /**
+         * 审核状态，没有时为 -1
+         */
+        private int[] reviewStatuses = new int[capacity];
+
+        private byte[] paletteSizes = new byte[capacity];
+
+        private float[] paletteLabs = new float[capacity * MAX_PALETTE_SIZE * 3];
+
+        private float[] paletteRatios = new float[capacity * MAX_PALETTE_SIZE];
+
+        private int size;
+
+        /**
+         * 图片 id -> 数组下标
+         */
+        private final Map<Long, Integer> positionMap = new HashMap<>();
+
+        void put(long pictureId, int rgb, int reviewStatus, int paletteSize, float[] labs, float[] ratios) {
+            Integer position = positionMap.get(pictureId);
+            if (position == null) {
+                if (size == capacity) {
+                    grow();
+                }
+                position = size++;
+                positionMap.put(pictureId, position);
+            }
+            write(position, pictureId, rgb, reviewStatus, paletteSize, labs, 0, ratios, 0);
+        }
+
+        void remove(long pictureId) {
+            Integer position = positionMap.remove(pictureId);
+            if (position == null) {
+                return;
+            }
+            int last = size - 1;
+            if (position != last) {
+                write(position, ids[last], colors[last], reviewStatuses[last], paletteSizes[last],
+                        paletteLabs, last * MAX_PALETTE_SIZE * 3, paletteRatios, last * MAX_PALETTE_SIZE);
+                positionMap.put(ids[position], position);
+            }
+            size--;
+        }
+
+        /**
+         * 按平均色的 RGB 欧氏距离检索（距离的平方与相似度单调对应，省去开方）
+         */
+        List<Long> searchByColor(int rgb, int limit) {
+            int targetRed = (rgb >> 16) & 0xFF;
+            int targetGreen = (rgb >> 8) & 0xFF;
+            int targetBlue = rgb & 0xFF;
+            TopKHeap heap = new TopKHeap(Math.min(limit, size));
+            for (int i = 0; i < size; i++) {
+                int color = colors[i];
+                if (color < 0) {
+                    continue;
+                }
+                int dr = ((color >> 16) & 0xFF) - targetRed;
+                int dg = ((color >> 8) & 0xFF) - targetGreen;
+                int db = (color & 0xFF) - targetBlue;
+                heap.offer(dr * dr + dg * dg + db * db, ids[i]);
+            }
+            return heap.toList();
+        }
+
+        /**
+         * 按色板检索，代价放大 100 倍取整后进入堆
+         */
+        List<Long> searchByPalette(int reviewStatus, float[] queryLabs, int queryCount, int limit) {
+            TopKHeap heap = new TopKHeap(Math.min(limit, size));
+            for (int i = 0; i < size; i++) {
+                if (reviewStatus >= 0 && reviewStatuses[i] != reviewStatus) {
+                    continue;
+                }
+                int paletteSize = paletteSizes[i];
+                int labOffset = i * MAX_PALETTE_SIZE * 3;
+                int ratioOffset = i * MAX_PALETTE_SIZE;
+                float totalCost = 0;
+                boolean matched = true;
+                for (int q = 0; q < queryCount && matched; q++) {
+                    float bestCost = Float.MAX_VALUE;
+                    for (int j = 0; j < paletteSize; j++) {
+                        float cost = LabColor.deltaE(queryLabs, q * 3, paletteLabs, labOffset + j * 3)
+                                + RATIO_PENALTY * (1 - paletteRatios[ratioOffset + j]);
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                        }
+                    }
+                    if (bestCost > MAX_MATCH_COST) {
+                        matched = false;
+                    }
+                    totalCost += bestCost;
+                }
+                if (matched) {
+                    heap.offer((int) (totalCost / queryCount * 100), ids[i]);
+                }
+            }
+            return heap.toList();
+        }
+
+        private void write(int position, long pictureId, int rgb, int reviewStatus, int paletteSize,
+                           float[] labs, int labOffset, float[] ratios, int ratioOffset) {
+            ids[position] = pictureId;
+            colors[position] = rgb;
+            reviewStatuses[position] = reviewStatus;
+            paletteSizes[position] = (byte) paletteSize;
+            System.arraycopy(labs, labOffset, paletteLabs, position * MAX_PALETTE_SIZE * 3, MAX_PALETTE_SIZE * 3);
+            System.arraycopy(ratios, ratioOffset, paletteRatios, position * MAX_PALETTE_SIZE, MAX_PALETTE_SIZE);
+        }
+
+        private void grow() {
+            capacity *= 2;
+            ids = Arrays.copyOf(ids, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            reviewStatuses = Arrays.copyOf(reviewStatuses, capacity);
+            paletteSizes = Arrays.copyOf(paletteSizes, capacity);
+            paletteLabs = Arrays.copyOf(paletteLabs, capacity * MAX_PALETTE_SIZE * 3);
+            paletteRatios = Arrays.copyOf(paletteRatios, capacity * MAX_PALETTE_SIZE);
+        }
+    }
+
+    /**
+     * 有界大顶堆，保留得分最小的 k 个，堆顶是当前保留结果中最差的一个
+     */
+    static class TopKHeap {
+
+        private final int[] scores;
+
+        private final long[] ids;
+
+        private int heapSize;
+
+        TopKHeap(int capacity) {
+            this.scores = new int[capacity];
+            this.ids = new long[capacity];
+        }
+
+        void offer(int score, long id) {
+            if (heapSize < scores.length) {
+                scores[heapSize] = score;
+                ids[heapSize] = id;
+                siftUp(heapSize);
+                heapSize++;
+            } else if (heapSize > 0 && worse(scores[0], ids[0], score, id)) {
+                scores[0] = score;
+                ids[0] = id;
+                siftDown(heapSize);
+            }
+        }
+
+        /**
+         * 依次弹出堆顶得到从差到好的顺序，倒序填充
+         */
+        List<Long> toList() {
+            Long[] result = new Long[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                result[i] = ids[0];
+                scores[0] = scores[i];
+                ids[0] = ids[i];
+                siftDown(i);
+            }
+            heapSize = 0;
+            return new ArrayList<>(Arrays.asList(result));
+        }
+
+        /**
+         * a 是否比 b 差：得分更大，或得分相同但 id 更小（更旧）
+         */
+        private static boolean worse(int scoreA, long idA, int scoreB, long idB) {
+            return scoreA > scoreB || (scoreA == scoreB && idA < idB);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!worse(scores[index], ids[index], scores[parent], ids[parent])) {
+                    break;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int size) {
+            int index = 0;
+            while (true) {
+                int left = index * 2 + 1;
+                if (left >= size) {
+                    break;
+                }
+                int worst = left;
+                int right = left + 1;
+                if (right < size && worse(scores[right], ids[right], scores[left], ids[left])) {
+                    worst = right;
+                }
+                if (!worse(scores[worst], ids[worst], scores[index], ids[index])) {
+                    break;
+                }
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.eureka.picwavebackend.manager.search;
+
+import com.eureka.picwavebackend.manager.index.PictureIndexHandler;
+import com.eureka.picwavebackend.manager.index.PictureIndexSyncManager;
+import com.eureka.picwavebackend.model.entity.Picture;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 图片颜色索引管理器
+ * 维护按空间划分的平均色和色板数组，构建和同步由 {@link PictureIndexSyncManager} 统一调度
+ */
+@Component
+public class PictureColorIndexManager implements PictureIndexHandler {
+
+    /**
+     * 当前索引，为空表示尚未构建完成
+     */
+    private volatile PictureColorIndex index;
+
+    /**
+     * 检索空间内主色调与目标颜色最接近的图片
+     *
+     * @param spaceId 空间 id
+     * @param rgb     目标颜色（0xRRGGBB）
+     * @param limit   最多返回条数
+     * @return 按颜色距离升序的图片 id 列表；索引未就绪时返回 null，由调用方降级为数据库查询
+     */
+    public List<Long> search(Long spaceId, int rgb, int limit) {
+        PictureColorIndex currentIndex = index;
+        if (currentIndex == null) {
+            return null;
+        }
+        return currentIndex.search(spaceId, rgb, limit);
+    }
+
+    /**
+     * 按色板检索同时包含所有目标颜色的图片
+     *
+     * @param spaceId      空间 id，为空表示公共图库
+     * @param reviewStatus 审核状态，为空表示不限
+     * @param rgbList      目标颜色列表（0xRRGGBB）
+     * @param limit        最多返回条数
+     * @return 按匹配度降序的图片 id 列表；索引未就绪时返回 null，由调用方降级为数据库查询
+     */
+    public List<Long> searchByPalette(Long spaceId, Integer reviewStatus, List<Integer> rgbList, int limit) {
+        PictureColorIndex currentIndex = index;
+        if (currentIndex == null) {
+            return null;
+        }
+        return currentIndex.searchByPalette(spaceId, reviewStatus, rgbList, limit);
+    }
+
+    @Override
+    public String getIndexName() {
+        return "图片主色调索引";
+    }
+
+    @Override
+    public Builder newBuilder() {
+        PictureColorIndex newIndex = new PictureColorIndex();
+        return Builder.of(newIndex::upsert, () -> {
+            index = newIndex;
+            return newIndex.size();
+        });
+    }
+
+    @Override
+    public void update(List<Picture> alivePictureList, List<Long> pictureIdList) {
+        PictureColorIndex currentIndex = index;
+        if (currentIndex == null) {
+            return;
+        }
+        PictureIndexHandler.forEachChange(alivePictureList, pictureIdList, currentIndex::upsert, currentIndex::remove);
+    }
+}
@@ -0,0 +1,257 @@
+package com.eureka.picwavebackend.manager.search;
+
+import com.eureka.picwavebackend.manager.image.PerceptualHash;
+import com.eureka.picwavebackend.model.entity.Picture;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图片感知哈希索引
+ * 每个空间一棵 BK 树（公共图库单独一棵），按汉明距离检索相似图片：
+ * 汉明距离满足三角不等式，查询距离 d 的节点时只需进入与该节点距离在 [d - r, d + r] 内的子树；
+ * BK 树不支持删除，删除图片只把 id 从节点上摘掉，空节点继续参与路由，每天全量重建时清理
+ * <p>
+ * 读多写少，使用读写锁保护
+ */
+public class PictureHashIndex {
+
+    /**
+     * 公共图库对应的树
+     */
+    private static final long PUBLIC_SCOPE = 0L;
+
+    /**
+     * 范围 -> BK 树根节点
+     */
+    private final Map<Long, Node> rootMap = new HashMap<>();
+
+    /**
+     * 正排表：图片 id -> 文档信息
+     */
+    private final Map<Long, Doc> docMap = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或更新文档，没有感知哈希的图片从索引中移除
+     *
+     * @param picture 图片（需包含 id、spaceId、reviewStatus、picHash）
+     */
+    public void upsert(Picture picture) {
+        if (picture.getPicHash() == null) {
+            remove(picture.getId());
+            return;
+        }
+        long hash = picture.getPicHash();
+        long scope = scopeOf(picture.getSpaceId());
+        lock.writeLock().lock();
+        try {
+            Doc oldDoc = docMap.get(picture.getId());
+            Node node;
+            if (oldDoc != null && oldDoc.node.hash == hash && oldDoc.scope == scope) {
+                // 只有审核状态等属性变化，节点不变
+                node = oldDoc.node;
+            } else {
+                removeInternal(picture.getId());
+                node = insertNode(scope, hash);
+                node.pictureIdSet.add(picture.getId());
+            }
+            docMap.put(picture.getId(), new Doc(scope, picture.getReviewStatus(), node));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(Long pictureId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索与指定指纹汉明距离不超过 maxDistance 的图片，按距离升序
+     *
+     * @param hash         感知哈希
+     * @param spaceId      空间 id，为空表示公共图库
+     * @param reviewStatus 审核状态，为空表示不限
+     * @param maxDistance  最大汉明距离
+     * @param limit        最多返回条数
+     * @return 图片 id 列表
+     */
+    public List<Long> search(long hash, Long spaceId, Integer reviewStatus, int maxDistance, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Hit> hitList = new ArrayList<>();
+            Node root = rootMap.get(scopeOf(spaceId));
+            if (root == null) {
+                return new ArrayList<>();
+            }
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int distance = PerceptualHash.distance(node.hash, hash);
+                if (distance <= maxDistance) {
+                    for (Long pictureId : node.pictureIdSet) {
+                        Doc doc = docMap.get(pictureId);
+                        if (reviewStatus == null || reviewStatus.equals(doc.reviewStatus)) {
+                            hitList.add(new Hit(pictureId, distance));
+                        }
+                    }
+                }
+                // 三角不等式剪枝
+                for (int i = 0; i < node.childCount; i++) {
+                    int childDistance = node.childDistances[i];
+                    if (childDistance >= distance - maxDistance && childDistance <= distance + maxDistance) {
+                        stack.push(node.children[i]);
+                    }
+                }
+            }
+            // 按距离升序输出（同距离时新图片在前）
+            hitList.sort(Comparator.comparingInt((Hit hit) -> hit.distance)
+                    .thenComparing(hit -> hit.pictureId, Comparator.reverseOrder()));
+            List<Long> resultList = new ArrayList<>(Math.min(limit, hitList.size()));
+            for (int i = 0; i < hitList.size() && i < limit; i++) {
+                resultList.add(hitList.get(i).pictureId);
+            }
+            return resultList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docMap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 找到指纹对应的节点，不存在时插入
+     */
+    private Node insertNode(long scope, long hash) {
+        Node node = rootMap.get(scope);
+        if (node == null) {
+            node = new Node(hash);
+            rootMap.put(scope, node);
+            return node;
+        }
+        while (true) {
+            int distance = PerceptualHash.distance(node.hash, hash);
+            if (distance == 0) {
+                return node;
+            }
+            Node child = node.getChild(distance);
+            if (child == null) {
+                child = new Node(hash);
+                node.addChild(distance, child);
+                return child;
+            }
+            node = child;
+        }
+    }
+
+    private void removeInternal(Long pictureId) {
+        Doc oldDoc = docMap.remove(pictureId);
+        if (oldDoc != null) {
+            oldDoc.node.pictureIdSet.remove(pictureId);
+        }
+    }
+
+    private static long scopeOf(Long spaceId) {
+        return spaceId == null ? PUBLIC_SCOPE : spaceId;
+    }
+
+    /**
+     * BK 树节点，相同指纹的图片共用一个节点
+     */
+    private static class Node {
+
+        private final long hash;
+
+        private final Set<Long> pictureIdSet = new HashSet<>(2);
+
+        /**
+         * 子节点按与本节点的距离区分，最多 64 个，用数组按需扩容
+         */
+        private int[] childDistances;
+
+        private Node[] children;
+
+        private int childCount;
+
+        Node(long hash) {
+            this.hash = hash;
+        }
+
+        Node getChild(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (children == null) {
+                childDistances = new int[4];
+                children = new Node[4];
+            } else if (childCount == children.length) {
+                childDistances = Arrays.copyOf(childDistances, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            childDistances[childCount] = distance;
+            children[childCount] = child;
+            childCount++;
+        }
+    }
+
+    /**
+     * 文档信息
+     */
+    private static class Doc {
+
+        private final long scope;
+
+        private final Integer reviewStatus;
+
+        private final Node node;
+
+        Doc(long scope, Integer reviewStatus, Node node) {
+            this.scope = scope;
+            this.reviewStatus = reviewStatus;
+            this.node = node;
+        }
+    }
+
+    /**
+     * 命中结果
+     */
+    private static class Hit {
+
+        private final long pictureId;
+
+        private final int distance;
+
+        Hit(long pictureId, int distance) {
+            this.pictureId = pictureId;
+            this.distance = distance;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.eureka.picwavebackend.manager.search;
+
+import com.eureka.picwavebackend.manager.index.PictureIndexHandler;
+import com.eureka.picwavebackend.manager.index.PictureIndexSyncManager;
+import com.eureka.picwavebackend.model.entity.Picture;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 图片感知哈希索引管理器
+ * 维护按空间划分的 BK 树，构建和同步由 {@link PictureIndexSyncManager} 统一调度
+ */
+@Component
+public class PictureHashIndexManager implements PictureIndexHandler {
+
+    /**
+     * 当前索引，为空表示尚未构建完成
+     */
+    private volatile PictureHashIndex index;
+
+    /**
+     * 检索相似图片
+     *
+     * @param picHash      感知哈希
+     * @param spaceId      空间 id，为空表示公共图库
+     * @param reviewStatus 审核状态，为空表示不限
+     * @param maxDistance  最大汉明距离
+     * @param limit        最多返回条数
+     * @return 按距离升序的图片 id 列表；索引未就绪时返回 null，由调用方降级为数据库查询
+     */
+    public List<Long> search(long picHash, Long spaceId, Integer reviewStatus, int maxDistance, int limit) {
+        PictureHashIndex currentIndex = index;
+        if (currentIndex == null) {
+            return null;
+        }
+        return currentIndex.search(picHash, spaceId, reviewStatus, maxDistance, limit);
+    }
+
+    @Override
+    public String getIndexName() {
+        return "图片感知哈希索引";
+    }
+
+    @Override
+    public Builder newBuilder() {
+        PictureHashIndex newIndex = new PictureHashIndex();
+        return Builder.of(newIndex::upsert, () -> {
+            index = newIndex;
+            return newIndex.size();
+        });
+    }
+
+    @Override
+    public void update(List<Picture> alivePictureList, List<Long> pictureIdList) {
+        PictureHashIndex currentIndex = index;
+        if (currentIndex == null) {
+            return;
+        }
+        PictureIndexHandler.forEachChange(alivePictureList, pictureIdList, currentIndex::upsert, currentIndex::remove);
+    }
+}
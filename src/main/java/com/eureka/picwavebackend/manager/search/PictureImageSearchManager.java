@@ -0,0 +1,188 @@
+package com.eureka.picwavebackend.manager.search;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.api.imagesearch.ImageSearchApiFacade;
+import com.eureka.picwavebackend.api.imagesearch.model.ImageSearchResult;
+import com.eureka.picwavebackend.exception.BusinessException;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 以图识图管理器
+ * 识图需要依次调用三个外部接口，结果按图片地址缓存在 Redis：未过期的缓存直接返回；
+ * 否则在识图线程池中执行（同一图片并发请求共用一次调用），并给请求设置整体时限，
+ * 超时后有旧缓存就先返回旧结果，没有则提示稍后重试，识图在后台继续执行并写入缓存
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureImageSearchManager {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 缓存键前缀
+     */
+    private static final String CACHE_KEY_PREFIX = "picwave:picture:imagesearch:";
+
+    /**
+     * 缓存有效期（毫秒），超过后视为旧结果，重新识图
+     */
+    private static final long CACHE_FRESH_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 缓存保留时间（天），旧结果用于超时时兜底
+     */
+    private static final long CACHE_EXPIRE_DAYS = 7;
+
+    /**
+     * 单次请求的整体时限（毫秒）
+     */
+    private static final long SEARCH_DEADLINE_MILLIS = 8000;
+
+    /**
+     * 识图线程池（外部接口耗时为主），队列满时拒绝
+     */
+    private final ThreadPoolExecutor searchExecutor = new ThreadPoolExecutor(4, 8, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(50),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-image-search-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 时限计时线程
+     */
+    private final ScheduledExecutorService deadlineScheduler = Executors.newSingleThreadScheduledExecutor(
+            ThreadFactoryBuilder.create().setNamePrefix("picture-image-search-deadline-").setDaemon(true).build());
+
+    /**
+     * 图片地址摘要 -> 进行中的识图
+     */
+    private final Map<String, CompletableFuture<List<ImageSearchResult>>> runningMap = new ConcurrentHashMap<>();
+
+    @PreDestroy
+    public void destroy() {
+        searchExecutor.shutdownNow();
+        deadlineScheduler.shutdownNow();
+    }
+
+    /**
+     * 以图识图，不阻塞调用线程
+     *
+     * @param imageUrl 图片地址（需为百度可识别的格式）
+     * @return 识图结果，超过时限且没有旧缓存时以 BusinessException 结束
+     */
+    public CompletableFuture<List<ImageSearchResult>> search(String imageUrl) {
+        String digest = DigestUtil.md5Hex(imageUrl);
+        // 1、命中未过期的缓存直接返回
+        CachedSearchResult cached = getCache(digest);
+        if (cached != null && cached.getCreateTime() != null
+                && System.currentTimeMillis() - cached.getCreateTime() < CACHE_FRESH_MILLIS) {
+            return CompletableFuture.completedFuture(cached.getResultList());
+        }
+        // 2、发起或复用识图
+        CompletableFuture<List<ImageSearchResult>> searchFuture = startSearch(digest, imageUrl);
+        // 3、加上整体时限
+        CompletableFuture<List<ImageSearchResult>> resultFuture = new CompletableFuture<>();
+        searchFuture.whenComplete((resultList, e) -> {
+            if (e == null) {
+                resultFuture.complete(resultList);
+            } else if (cached != null) {
+                resultFuture.complete(cached.getResultList());
+            } else {
+                resultFuture.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+        ScheduledFuture<?> deadline = deadlineScheduler.schedule(() -> {
+            if (cached != null) {
+                resultFuture.complete(cached.getResultList());
+            } else {
+                resultFuture.completeExceptionally(new BusinessException(ErrorCode.OPERATION_ERROR, "识图结果生成中，请稍后重试"));
+            }
+        }, SEARCH_DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
+        resultFuture.whenComplete((resultList, e) -> deadline.cancel(false));
+        return resultFuture;
+    }
+
+    /**
+     * 发起识图，同一图片已有进行中的识图时直接复用
+     */
+    private CompletableFuture<List<ImageSearchResult>> startSearch(String digest, String imageUrl) {
+        CompletableFuture<List<ImageSearchResult>> running = runningMap.get(digest);
+        if (running != null) {
+            return running;
+        }
+        CompletableFuture<List<ImageSearchResult>> searchFuture = new CompletableFuture<>();
+        running = runningMap.putIfAbsent(digest, searchFuture);
+        if (running != null) {
+            return running;
+        }
+        try {
+            searchExecutor.execute(() -> {
+                try {
+                    List<ImageSearchResult> resultList = ImageSearchApiFacade.searchImage(imageUrl);
+                    putCache(digest, resultList);
+                    searchFuture.complete(resultList);
+                } catch (Exception e) {
+                    searchFuture.completeExceptionally(e);
+                } finally {
+                    runningMap.remove(digest, searchFuture);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            runningMap.remove(digest, searchFuture);
+            searchFuture.completeExceptionally(new BusinessException(ErrorCode.OPERATION_ERROR, "识图服务繁忙，请稍后重试"));
+        }
+        return searchFuture;
+    }
+
+    private CachedSearchResult getCache(String digest) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(CACHE_KEY_PREFIX + digest);
+            return json == null ? null : JSONUtil.toBean(json, CachedSearchResult.class);
+        } catch (Exception e) {
+            // 缓存不可用时直接识图
+            log.warn("读取识图缓存失败, digest = {}", digest, e);
+            return null;
+        }
+    }
+
+    private void putCache(String digest, List<ImageSearchResult> resultList) {
+        CachedSearchResult cached = new CachedSearchResult();
+        cached.setCreateTime(System.currentTimeMillis());
+        cached.setResultList(resultList);
+        try {
+            stringRedisTemplate.opsForValue().set(CACHE_KEY_PREFIX + digest, JSONUtil.toJsonStr(cached),
+                    CACHE_EXPIRE_DAYS, TimeUnit.DAYS);
+        } catch (Exception e) {
+            log.warn("写入识图缓存失败, digest = {}", digest, e);
+        }
+    }
+
+    /**
+     * 缓存的识图结果
+     */
+    @Data
+    public static class CachedSearchResult {
+
+        /**
+         * 识图时间（毫秒时间戳）
+         */
+        private Long createTime;
+
+        /**
+         * 识图结果
+         */
+        private List<ImageSearchResult> resultList;
+    }
+}
@@ -0,0 +1,235 @@
+package com.eureka.picwavebackend.manager.search;
+
+import com.eureka.picwavebackend.model.entity.Picture;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图片文本倒排索引（名称 + 简介），按 BM25 打分
+ * 读多写少，使用读写锁保护
+ */
+public class PictureSearchIndex {
+
+    /**
+     * BM25 参数
+     */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * 名称字段权重（名称命中比简介命中更相关）
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    /**
+     * 倒排表：词元 -> (图片 id -> 加权词频)
+     */
+    private final Map<String, Map<Long, Integer>> postingMap = new HashMap<>();
+
+    /**
+     * 正排表：图片 id -> 文档信息
+     */
+    private final Map<Long, Doc> docMap = new HashMap<>();
+
+    /**
+     * 所有文档加权长度之和，用于计算平均长度
+     */
+    private long totalLength;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或更新文档
+     *
+     * @param picture 图片（需包含 id、spaceId、name、introduction、reviewStatus）
+     */
+    public void upsert(Picture picture) {
+        // 1、计算加权词频
+        Map<String, Integer> termFreqMap = new HashMap<>();
+        for (String token : NGramTokenizer.tokenizeForIndex(picture.getName())) {
+            termFreqMap.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : NGramTokenizer.tokenizeForIndex(picture.getIntroduction())) {
+            termFreqMap.merge(token, 1, Integer::sum);
+        }
+        int length = 0;
+        for (Integer freq : termFreqMap.values()) {
+            length += freq;
+        }
+        Doc doc = new Doc(picture.getSpaceId(), picture.getReviewStatus(), length, termFreqMap.keySet());
+        // 2、替换旧文档
+        lock.writeLock().lock();
+        try {
+            removeInternal(picture.getId());
+            for (Map.Entry<String, Integer> entry : termFreqMap.entrySet()) {
+                postingMap.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(picture.getId(), entry.getValue());
+            }
+            docMap.put(picture.getId(), doc);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(Long pictureId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索：所有查询词元都命中的文档才会返回（近似子串匹配），按相关度降序
+     *
+     * @param queryTokenSet 查询词元
+     * @param spaceId       空间 id，为空表示不限
+     * @param nullSpaceId   是否只查公共图库
+     * @param reviewStatus  审核状态，为空表示不限
+     * @param limit         最多返回条数
+     * @return 图片 id 列表
+     */
+    public List<Long> search(Set<String> queryTokenSet, Long spaceId, boolean nullSpaceId,
+                             Integer reviewStatus, int limit) {
+        lock.readLock().lock();
+        try {
+            // 1、取出倒排链，任一词元未命中则直接返回
+            List<Map.Entry<String, Map<Long, Integer>>> postingList = new ArrayList<>();
+            for (String token : queryTokenSet) {
+                Map<Long, Integer> posting = postingMap.get(token);
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                postingList.add(new AbstractMap.SimpleEntry<>(token, posting));
+            }
+            // 2、从最短的倒排链开始求交集
+            postingList.sort(Comparator.comparingInt(entry -> entry.getValue().size()));
+            int docCount = docMap.size();
+            double avgLength = docCount == 0 ? 1 : Math.max(1.0, (double) totalLength / docCount);
+            double[] idfArray = new double[postingList.size()];
+            for (int i = 0; i < postingList.size(); i++) {
+                int df = postingList.get(i).getValue().size();
+                idfArray[i] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+            // 3、打分并用小顶堆保留 topK
+            PriorityQueue<Hit> heap = new PriorityQueue<>(Comparator.comparingDouble((Hit hit) -> hit.score)
+                    .thenComparingLong(hit -> hit.pictureId));
+            for (Map.Entry<Long, Integer> candidate : postingList.get(0).getValue().entrySet()) {
+                Long pictureId = candidate.getKey();
+                Doc doc = docMap.get(pictureId);
+                if (doc == null || !doc.matchScope(spaceId, nullSpaceId, reviewStatus)) {
+                    continue;
+                }
+                double score = 0;
+                boolean matchAll = true;
+                for (int i = 0; i < postingList.size(); i++) {
+                    Integer freq = i == 0 ? candidate.getValue() : postingList.get(i).getValue().get(pictureId);
+                    if (freq == null) {
+                        matchAll = false;
+                        break;
+                    }
+                    double norm = K1 * (1 - B + B * doc.length / avgLength);
+                    score += idfArray[i] * freq * (K1 + 1) / (freq + norm);
+                }
+                if (!matchAll) {
+                    continue;
+                }
+                heap.offer(new Hit(pictureId, score));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+            // 4、按分数降序输出（同分时新图片在前）
+            LinkedList<Long> resultList = new LinkedList<>();
+            while (!heap.isEmpty()) {
+                resultList.addFirst(heap.poll().pictureId);
+            }
+            return new ArrayList<>(resultList);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docMap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long pictureId) {
+        Doc oldDoc = docMap.remove(pictureId);
+        if (oldDoc == null) {
+            return;
+        }
+        for (String token : oldDoc.tokenSet) {
+            Map<Long, Integer> posting = postingMap.get(token);
+            if (posting == null) {
+                continue;
+            }
+            posting.remove(pictureId);
+            if (posting.isEmpty()) {
+                postingMap.remove(token);
+            }
+        }
+        totalLength -= oldDoc.length;
+    }
+
+    /**
+     * 文档信息
+     */
+    private static class Doc {
+
+        private final Long spaceId;
+
+        private final Integer reviewStatus;
+
+        private final int length;
+
+        private final Set<String> tokenSet;
+
+        Doc(Long spaceId, Integer reviewStatus, int length, Set<String> tokenSet) {
+            this.spaceId = spaceId;
+            this.reviewStatus = reviewStatus;
+            this.length = length;
+            this.tokenSet = tokenSet;
+        }
+
+        boolean matchScope(Long spaceId, boolean nullSpaceId, Integer reviewStatus) {
+            if (nullSpaceId && this.spaceId != null) {
+                return false;
+            }
+            if (spaceId != null && !spaceId.equals(this.spaceId)) {
+                return false;
+            }
+            return reviewStatus == null || reviewStatus.equals(this.reviewStatus);
+        }
+    }
+
+    /**
+     * 命中结果
+     */
+    private static class Hit {
+
+        private final long pictureId;
+
+        private final double score;
+
+        Hit(long pictureId, double score) {
+            this.pictureId = pictureId;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.eureka.picwavebackend.manager.search;
+
+import com.eureka.picwavebackend.manager.index.PictureIndexHandler;
+import com.eureka.picwavebackend.manager.index.PictureIndexSyncManager;
+import com.eureka.picwavebackend.model.entity.Picture;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 图片搜索管理器
+ * 维护名称、简介的内存倒排索引，构建和同步由 {@link PictureIndexSyncManager} 统一调度
+ */
+@Component
+public class PictureSearchManager implements PictureIndexHandler {
+
+    /**
+     * 当前索引，为空表示尚未构建完成
+     */
+    private volatile PictureSearchIndex index;
+
+    /**
+     * 检索图片
+     *
+     * @param searchText   搜索词
+     * @param spaceId      空间 id，为空表示不限
+     * @param nullSpaceId  是否只查公共图库
+     * @param reviewStatus 审核状态，为空表示不限
+     * @return 按相关度降序的全部命中图片 id（不截断，由调用方分页）；索引未就绪或搜索词无有效字符时返回 null，由调用方降级为模糊查询
+     */
+    public List<Long> search(String searchText, Long spaceId, boolean nullSpaceId, Integer reviewStatus) {
+        PictureSearchIndex currentIndex = index;
+        if (currentIndex == null) {
+            return null;
+        }
+        Set<String> queryTokenSet = NGramTokenizer.tokenizeForQuery(searchText);
+        if (queryTokenSet.isEmpty()) {
+            return null;
+        }
+        return currentIndex.search(queryTokenSet, spaceId, nullSpaceId, reviewStatus, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public String getIndexName() {
+        return "图片搜索索引";
+    }
+
+    @Override
+    public Builder newBuilder() {
+        PictureSearchIndex newIndex = new PictureSearchIndex();
+        return Builder.of(newIndex::upsert, () -> {
+            index = newIndex;
+            return newIndex.size();
+        });
+    }
+
+    @Override
+    public void update(List<Picture> alivePictureList, List<Long> pictureIdList) {
+        PictureSearchIndex currentIndex = index;
+        if (currentIndex == null) {
+            return;
+        }
+        PictureIndexHandler.forEachChange(alivePictureList, pictureIdList, currentIndex::upsert, currentIndex::remove);
+    }
+}
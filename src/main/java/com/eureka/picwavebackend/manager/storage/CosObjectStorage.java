@@ -0,0 +1,102 @@
+package com.eureka.picwavebackend.manager.storage;
+
+import cn.hutool.core.collection.CollUtil;
+import com.eureka.picwavebackend.config.CosClientConfig;
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.model.*;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 腾讯云 COS 对象存储
+ */
+public class CosObjectStorage implements ObjectStorage {
+
+    /**
+     * 单次批量删除、列举的最大条数（COS 接口限制）
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private final COSClient cosClient;
+
+    private final CosClientConfig cosClientConfig;
+
+    public CosObjectStorage(COSClient cosClient, CosClientConfig cosClientConfig) {
+        this.cosClient = cosClient;
+        this.cosClientConfig = cosClientConfig;
+    }
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        cosClient.putObject(new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream, objectMetadata));
+    }
+
+    @Override
+    public InputStream getObject(String key) {
+        return cosClient.getObject(new GetObjectRequest(cosClientConfig.getBucket(), key)).getObjectContent();
+    }
+
+    @Override
+    public InputStream getObject(String key, long offset, long length) {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(cosClientConfig.getBucket(), key);
+        // Range 的结束位置包含在内
+        getObjectRequest.setRange(offset, offset + length - 1);
+        return cosClient.getObject(getObjectRequest).getObjectContent();
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        cosClient.deleteObject(new DeleteObjectRequest(cosClientConfig.getBucket(), key));
+    }
+
+    @Override
+    public void deleteObjects(List<String> keyList) {
+        for (List<String> partKeyList : CollUtil.split(keyList, BATCH_SIZE)) {
+            DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(cosClientConfig.getBucket());
+            List<DeleteObjectsRequest.KeyVersion> keyVersionList = new ArrayList<>(partKeyList.size());
+            for (String key : partKeyList) {
+                keyVersionList.add(new DeleteObjectsRequest.KeyVersion(key));
+            }
+            deleteObjectsRequest.setKeys(keyVersionList);
+            cosClient.deleteObjects(deleteObjectsRequest);
+        }
+    }
+
+    @Override
+    public List<String> listObjects(String prefix) {
+        List<String> keyList = new ArrayList<>();
+        ListObjectsRequest listObjectsRequest = new ListObjectsRequest();
+        listObjectsRequest.setBucketName(cosClientConfig.getBucket());
+        listObjectsRequest.setPrefix(prefix);
+        listObjectsRequest.setMaxKeys(BATCH_SIZE);
+        ObjectListing objectListing;
+        do {
+            objectListing = cosClient.listObjects(listObjectsRequest);
+            for (COSObjectSummary objectSummary : objectListing.getObjectSummaries()) {
+                keyList.add(objectSummary.getKey());
+            }
+            listObjectsRequest.setMarker(objectListing.getNextMarker());
+        } while (objectListing.isTruncated());
+        return keyList;
+    }
+
+    @Override
+    public void copyObject(String sourceKey, String targetKey) {
+        String bucket = cosClientConfig.getBucket();
+        cosClient.copyObject(new CopyObjectRequest(bucket, sourceKey, bucket, targetKey));
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return cosClientConfig.getHost() + "/" + key;
+    }
+
+    @Override
+    public String getKey(String url) {
+        return url.replace(cosClientConfig.getHost() + "/", "");
+    }
+}
@@ -0,0 +1,230 @@
+package com.eureka.picwavebackend.manager.storage;
+
+import cn.hutool.core.util.StrUtil;
+import com.eureka.picwavebackend.exception.BusinessException;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 本地磁盘对象存储（压测、离线调试使用）
+ * 对象键映射为根目录下的相对路径；写入先写临时文件再原子重命名，避免读到写了一半的文件；
+ * 较大的对象通过内存映射读取，减少一次内核态到用户态的拷贝
+ */
+@Slf4j
+public class LocalObjectStorage implements ObjectStorage {
+
+    /**
+     * 超过该大小的读取使用内存映射
+     */
+    private static final long MMAP_THRESHOLD = 256 * 1024L;
+
+    private final Path rootPath;
+
+    private final String host;
+
+    public LocalObjectStorage(Path rootPath, String host) {
+        this.rootPath = rootPath.toAbsolutePath().normalize();
+        this.host = host;
+        try {
+            Files.createDirectories(this.rootPath);
+        } catch (IOException e) {
+            throw new IllegalStateException("创建本地存储目录失败: " + this.rootPath, e);
+        }
+    }
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength) {
+        Path path = resolve(key);
+        Path tempPath = null;
+        try {
+            Files.createDirectories(path.getParent());
+            tempPath = Files.createTempFile(path.getParent(), ".upload-", ".tmp");
+            // 输入流由调用方关闭，这里只包装不关闭
+            ReadableByteChannel sourceChannel = Channels.newChannel(inputStream);
+            try (FileChannel fileChannel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < contentLength) {
+                    long transferred = fileChannel.transferFrom(sourceChannel, position, contentLength - position);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                if (position != contentLength) {
+                    throw new IOException("内容长度不一致, expected = " + contentLength + ", actual = " + position);
+                }
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(tempPath);
+            throw storageError("上传对象失败", key, e);
+        }
+    }
+
+    @Override
+    public InputStream getObject(String key) {
+        return getObject(key, 0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public InputStream getObject(String key, long offset, long length) {
+        Path path = resolve(key);
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            long start = Math.min(offset, size);
+            long count = Math.min(length, size - start);
+            if (count >= MMAP_THRESHOLD) {
+                // 映射在通道关闭后仍然有效
+                return new ByteBufferInputStream(fileChannel.map(FileChannel.MapMode.READ_ONLY, start, count));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) count);
+            while (buffer.hasRemaining() && fileChannel.read(buffer, start + buffer.position()) > 0) {
+                // 读满为止
+            }
+            buffer.flip();
+            return new ByteBufferInputStream(buffer);
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "对象不存在");
+        } catch (IOException e) {
+            throw storageError("下载对象失败", key, e);
+        }
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw storageError("删除对象失败", key, e);
+        }
+    }
+
+    @Override
+    public void deleteObjects(List<String> keyList) {
+        for (String key : keyList) {
+            deleteObject(key);
+        }
+    }
+
+    @Override
+    public List<String> listObjects(String prefix) {
+        // 从前缀中最深的完整目录开始遍历，避免扫描整个根目录
+        String normalizedPrefix = StrUtil.removePrefix(StrUtil.nullToEmpty(prefix), "/");
+        int lastSlashIndex = normalizedPrefix.lastIndexOf('/');
+        Path startPath = lastSlashIndex < 0 ? rootPath : resolve(normalizedPrefix.substring(0, lastSlashIndex));
+        List<String> keyList = new ArrayList<>();
+        if (!Files.isDirectory(startPath)) {
+            return keyList;
+        }
+        try (Stream<Path> pathStream = Files.walk(startPath)) {
+            pathStream.filter(Files::isRegularFile)
+                    .map(path -> rootPath.relativize(path).toString().replace('\\', '/'))
+                    .filter(key -> key.startsWith(normalizedPrefix) && !key.endsWith(".tmp"))
+                    .forEach(keyList::add);
+        } catch (IOException e) {
+            throw storageError("列举对象失败", prefix, e);
+        }
+        return keyList;
+    }
+
+    @Override
+    public void copyObject(String sourceKey, String targetKey) {
+        Path targetPath = resolve(targetKey);
+        try {
+            Files.createDirectories(targetPath.getParent());
+            Files.copy(resolve(sourceKey), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw storageError("复制对象失败", sourceKey, e);
+        }
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return host + "/" + StrUtil.removePrefix(key, "/");
+    }
+
+    @Override
+    public String getKey(String url) {
+        return StrUtil.removePrefix(url, host + "/");
+    }
+
+    /**
+     * 对象键转为本地路径，不允许跳出根目录
+     */
+    private Path resolve(String key) {
+        Path path = rootPath.resolve(StrUtil.removePrefix(key, "/")).normalize();
+        if (!path.startsWith(rootPath) || path.equals(rootPath)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "对象键不合法");
+        }
+        return path;
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败, path = {}", path, e);
+        }
+    }
+
+    private static BusinessException storageError(String message, String key, IOException e) {
+        log.error("{}, key = {}", message, key, e);
+        return new BusinessException(ErrorCode.SYSTEM_ERROR, message);
+    }
+
+    /**
+     * 基于 ByteBuffer 的输入流
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
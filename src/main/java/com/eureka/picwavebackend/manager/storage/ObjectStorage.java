@@ -0,0 +1,84 @@
+package com.eureka.picwavebackend.manager.storage;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 对象存储
+ * 屏蔽具体的存储后端（腾讯云 COS、本地磁盘），业务代码只通过对象键读写
+ */
+public interface ObjectStorage {
+
+    /**
+     * 上传对象（已存在时覆盖）
+     *
+     * @param key           对象键
+     * @param inputStream   输入流，由调用方关闭
+     * @param contentLength 内容长度
+     */
+    void putObject(String key, InputStream inputStream, long contentLength);
+
+    /**
+     * 下载对象
+     *
+     * @param key 对象键
+     * @return 输入流，由调用方关闭
+     */
+    InputStream getObject(String key);
+
+    /**
+     * 下载对象的一部分
+     *
+     * @param key    对象键
+     * @param offset 起始位置
+     * @param length 长度（超出对象末尾时读到末尾为止）
+     * @return 输入流，由调用方关闭
+     */
+    InputStream getObject(String key, long offset, long length);
+
+    /**
+     * 删除对象
+     *
+     * @param key 对象键
+     */
+    void deleteObject(String key);
+
+    /**
+     * 批量删除对象（不存在的对象忽略）
+     *
+     * @param keyList 对象键列表
+     */
+    void deleteObjects(List<String> keyList);
+
+    /**
+     * 按前缀列出对象键
+     *
+     * @param prefix 前缀
+     * @return 对象键列表
+     */
+    List<String> listObjects(String prefix);
+
+    /**
+     * 服务端复制对象，不经过应用
+     *
+     * @param sourceKey 源对象键
+     * @param targetKey 目标对象键
+     */
+    void copyObject(String sourceKey, String targetKey);
+
+    /**
+     * 获取对象的访问地址
+     *
+     * @param key 对象键
+     * @return 访问地址
+     */
+    String getUrl(String key);
+
+    /**
+     * 根据访问地址解析对象键
+     *
+     * @param url 访问地址
+     * @return 对象键
+     */
+    String getKey(String url);
+}
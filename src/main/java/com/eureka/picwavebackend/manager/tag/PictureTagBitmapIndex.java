@@ -0,0 +1,187 @@
+package com.eureka.picwavebackend.manager.tag;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图片标签位图索引
+ * 每个标签、空间、审核状态各维护一个图片 id 压缩位图，多标签过滤即位图求交
+ * 读多写少，使用读写锁保护
+ */
+public class PictureTagBitmapIndex {
+
+    /**
+     * 标签 id -> 图片 id 位图
+     */
+    private final Map<Long, Roaring64NavigableMap> tagBitmapMap = new HashMap<>();
+
+    /**
+     * 空间 id -> 图片 id 位图
+     */
+    private final Map<Long, Roaring64NavigableMap> spaceBitmapMap = new HashMap<>();
+
+    /**
+     * 公共图库图片 id 位图
+     */
+    private final Roaring64NavigableMap publicBitmap = new Roaring64NavigableMap();
+
+    /**
+     * 审核状态 -> 图片 id 位图
+     */
+    private final Map<Integer, Roaring64NavigableMap> reviewStatusBitmapMap = new HashMap<>();
+
+    /**
+     * 图片 id -> 图片索引信息（用于更新时移除旧位）
+     */
+    private final Map<Long, Entry> entryMap = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或更新图片
+     *
+     * @param pictureId    图片 id
+     * @param spaceId      空间 id
+     * @param reviewStatus 审核状态
+     * @param tagIdList    标签 id 列表
+     */
+    public void upsert(long pictureId, Long spaceId, Integer reviewStatus, List<Long> tagIdList) {
+        Entry entry = new Entry(spaceId, reviewStatus, new ArrayList<>(tagIdList));
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+            for (Long tagId : entry.tagIdList) {
+                tagBitmapMap.computeIfAbsent(tagId, k -> new Roaring64NavigableMap()).addLong(pictureId);
+            }
+            if (spaceId == null) {
+                publicBitmap.addLong(pictureId);
+            } else {
+                spaceBitmapMap.computeIfAbsent(spaceId, k -> new Roaring64NavigableMap()).addLong(pictureId);
+            }
+            if (reviewStatus != null) {
+                reviewStatusBitmapMap.computeIfAbsent(reviewStatus, k -> new Roaring64NavigableMap()).addLong(pictureId);
+            }
+            entryMap.put(pictureId, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除图片
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(long pictureId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询同时包含所有标签且满足范围条件的图片
+     *
+     * @param tagIdCollection 标签 id
+     * @param spaceId         空间 id，为空表示不限
+     * @param nullSpaceId     是否只查公共图库
+     * @param reviewStatus    审核状态，为空表示不限
+     * @return 图片 id 位图（新对象，可自由修改）
+     */
+    public Roaring64NavigableMap query(Collection<Long> tagIdCollection, Long spaceId, boolean nullSpaceId,
+                                       Integer reviewStatus) {
+        lock.readLock().lock();
+        try {
+            // 1、收集参与求交的位图，任一为空则结果为空
+            List<Roaring64NavigableMap> bitmapList = new ArrayList<>();
+            for (Long tagId : tagIdCollection) {
+                bitmapList.add(tagBitmapMap.get(tagId));
+            }
+            if (nullSpaceId) {
+                bitmapList.add(publicBitmap);
+            }
+            if (spaceId != null) {
+                bitmapList.add(spaceBitmapMap.get(spaceId));
+            }
+            if (reviewStatus != null) {
+                bitmapList.add(reviewStatusBitmapMap.get(reviewStatus));
+            }
+            if (bitmapList.isEmpty() || bitmapList.contains(null)) {
+                return new Roaring64NavigableMap();
+            }
+            // 2、从基数最小的位图开始求交
+            bitmapList.sort(Comparator.comparingLong(Roaring64NavigableMap::getLongCardinality));
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            result.or(bitmapList.get(0));
+            for (int i = 1; i < bitmapList.size() && !result.isEmpty(); i++) {
+                result.and(bitmapList.get(i));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图片数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entryMap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(long pictureId) {
+        Entry oldEntry = entryMap.remove(pictureId);
+        if (oldEntry == null) {
+            return;
+        }
+        for (Long tagId : oldEntry.tagIdList) {
+            removeFromBitmap(tagBitmapMap, tagId, pictureId);
+        }
+        if (oldEntry.spaceId == null) {
+            publicBitmap.removeLong(pictureId);
+        } else {
+            removeFromBitmap(spaceBitmapMap, oldEntry.spaceId, pictureId);
+        }
+        if (oldEntry.reviewStatus != null) {
+            removeFromBitmap(reviewStatusBitmapMap, oldEntry.reviewStatus, pictureId);
+        }
+    }
+
+    private static <K> void removeFromBitmap(Map<K, Roaring64NavigableMap> bitmapMap, K key, long pictureId) {
+        Roaring64NavigableMap bitmap = bitmapMap.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.removeLong(pictureId);
+        if (bitmap.isEmpty()) {
+            bitmapMap.remove(key);
+        }
+    }
+
+    /**
+     * 图片索引信息
+     */
+    private static class Entry {
+
+        private final Long spaceId;
+
+        private final Integer reviewStatus;
+
+        private final List<Long> tagIdList;
+
+        Entry(Long spaceId, Integer reviewStatus, List<Long> tagIdList) {
+            this.spaceId = spaceId;
+            this.reviewStatus = reviewStatus;
+            this.tagIdList = tagIdList;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.eureka.picwavebackend.manager.tag;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.eureka.picwavebackend.manager.index.PictureIndexHandler;
+import com.eureka.picwavebackend.manager.index.PictureIndexSyncManager;
+import com.eureka.picwavebackend.mapper.PictureTagMapper;
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.entity.PictureTag;
+import com.eureka.picwavebackend.service.TagService;
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 图片标签索引管理器
+ * 维护标签位图索引，构建和同步由 {@link PictureIndexSyncManager} 统一调度
+ */
+@Component
+@RequiredArgsConstructor
+public class PictureTagIndexManager implements PictureIndexHandler {
+
+    private final PictureTagMapper pictureTagMapper;
+    private final TagService tagService;
+
+    /**
+     * 全量构建、批量加载每批条数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 标签名称 -> 标签 id（标签只增不删，可以一直缓存）
+     */
+    private final Map<String, Long> tagIdCache = new ConcurrentHashMap<>();
+
+    /**
+     * 当前索引，为空表示尚未构建完成
+     */
+    private volatile PictureTagBitmapIndex index;
+
+    /**
+     * 查询同时包含所有标签的图片
+     *
+     * @param tagNameList  标签名称列表
+     * @param spaceId      空间 id，为空表示不限
+     * @param nullSpaceId  是否只查公共图库
+     * @param reviewStatus 审核状态，为空表示不限
+     * @return 图片 id 位图；索引未就绪时返回 null，由调用方降级为 SQL 查询
+     */
+    public Roaring64NavigableMap query(List<String> tagNameList, Long spaceId, boolean nullSpaceId,
+                                       Integer reviewStatus) {
+        PictureTagBitmapIndex currentIndex = index;
+        if (currentIndex == null) {
+            return null;
+        }
+        Map<String, Long> tagIdMap = getTagIdMap(tagNameList);
+        if (tagIdMap.size() < normalizeTagNames(tagNameList).size()) {
+            // 存在不认识的标签，结果必为空
+            return new Roaring64NavigableMap();
+        }
+        return currentIndex.query(tagIdMap.values(), spaceId, nullSpaceId, reviewStatus);
+    }
+
+    /**
+     * 获取标签 id（优先读缓存，未命中查库）
+     *
+     * @param tagNameList 标签名称列表
+     * @return 标签名称 -> 标签 id（不存在的标签不包含在内）
+     */
+    public Map<String, Long> getTagIdMap(List<String> tagNameList) {
+        Set<String> tagNameSet = normalizeTagNames(tagNameList);
+        Map<String, Long> tagIdMap = new HashMap<>();
+        List<String> missTagNameList = new ArrayList<>();
+        for (String tagName : tagNameSet) {
+            Long tagId = tagIdCache.get(tagName);
+            if (tagId == null) {
+                missTagNameList.add(tagName);
+            } else {
+                tagIdMap.put(tagName, tagId);
+            }
+        }
+        if (!missTagNameList.isEmpty()) {
+            Map<String, Long> dbTagIdMap = tagService.getTagIdMap(missTagNameList);
+            tagIdCache.putAll(dbTagIdMap);
+            tagIdMap.putAll(dbTagIdMap);
+        }
+        return tagIdMap;
+    }
+
+    @Override
+    public String getIndexName() {
+        return "图片标签索引";
+    }
+
+    /**
+     * 全量构建：先加载全部图片标签关联，再随图片逐批构建位图
+     */
+    @Override
+    public Builder newBuilder() {
+        Map<Long, List<Long>> pictureTagIdMap = new HashMap<>();
+        long lastId = 0;
+        while (true) {
+            List<PictureTag> pictureTagList = pictureTagMapper.selectList(new QueryWrapper<PictureTag>()
+                    .select("id", "pictureId", "tagId")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT " + BATCH_SIZE));
+            if (pictureTagList.isEmpty()) {
+                break;
+            }
+            for (PictureTag pictureTag : pictureTagList) {
+                pictureTagIdMap.computeIfAbsent(pictureTag.getPictureId(), k -> new ArrayList<>())
+                        .add(pictureTag.getTagId());
+            }
+            lastId = pictureTagList.get(pictureTagList.size() - 1).getId();
+        }
+        PictureTagBitmapIndex newIndex = new PictureTagBitmapIndex();
+        return Builder.of(picture -> newIndex.upsert(picture.getId(), picture.getSpaceId(), picture.getReviewStatus(),
+                pictureTagIdMap.getOrDefault(picture.getId(), Collections.emptyList())), () -> {
+            index = newIndex;
+            return newIndex.size();
+        });
+    }
+
+    /**
+     * 重新加载变更图片的标签并更新索引
+     */
+    @Override
+    public void update(List<Picture> alivePictureList, List<Long> pictureIdList) {
+        PictureTagBitmapIndex currentIndex = index;
+        if (currentIndex == null) {
+            return;
+        }
+        for (List<Long> partIdList : CollUtil.split(pictureIdList, BATCH_SIZE)) {
+            Map<Long, List<Long>> pictureTagIdMap = new HashMap<>();
+            pictureTagMapper.selectList(new QueryWrapper<PictureTag>()
+                            .select("pictureId", "tagId")
+                            .in("pictureId", partIdList))
+                    .forEach(pictureTag -> pictureTagIdMap.computeIfAbsent(pictureTag.getPictureId(), k -> new ArrayList<>())
+                            .add(pictureTag.getTagId()));
+            PictureIndexHandler.forEachChange(alivePictureList, partIdList,
+                    picture -> currentIndex.upsert(picture.getId(), picture.getSpaceId(), picture.getReviewStatus(),
+                            pictureTagIdMap.getOrDefault(picture.getId(), Collections.emptyList())),
+                    currentIndex::remove);
+        }
+    }
+
+    private static Set<String> normalizeTagNames(List<String> tagNameList) {
+        Set<String> tagNameSet = new LinkedHashSet<>();
+        if (tagNameList == null) {
+            return tagNameSet;
+        }
+        for (String tagName : tagNameList) {
+            if (StrUtil.isNotBlank(tagName)) {
+                tagNameSet.add(tagName.trim());
+            }
+        }
+        return tagNameSet;
+    }
+}
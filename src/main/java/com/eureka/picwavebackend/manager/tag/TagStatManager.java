@@ -0,0 +1,342 @@
+package com.eureka.picwavebackend.manager.tag;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.mapper.PictureMapper;
+import com.eureka.picwavebackend.model.dto.space.SpaceStatDelta;
+import com.eureka.picwavebackend.model.entity.Picture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标签使用次数统计管理器
+ * 每个空间（公共图库为 0）和全部图片各用一个 Redis 有序集合保存标签使用次数，取前 N 个标签只需一次范围查询；
+ * 图片标签变更的增量随空间统计一起计算，在事务提交后累加，启动时（尚未构建过）和每天凌晨全量重建修正误差；
+ * 多实例同时触发全量构建时，只有取得 Redis 租约的实例执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TagStatManager {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PictureMapper pictureMapper;
+
+    /**
+     * 统计键前缀，后接空间 id
+     */
+    private static final String STAT_KEY_PREFIX = "picwave:space:tag:stat:";
+
+    /**
+     * 全部图片的统计键
+     */
+    private static final String ALL_STAT_KEY = STAT_KEY_PREFIX + "all";
+
+    /**
+     * 全量构建完成标记，没有标记时统计不可用，由调用方降级为扫描图片表
+     */
+    private static final String READY_KEY = STAT_KEY_PREFIX + "ready";
+
+    /**
+     * 有统计键的空间 id 集合，全量构建时据此删除已没有标签的空间的统计键
+     */
+    private static final String SCOPE_SET_KEY = STAT_KEY_PREFIX + "scopes";
+
+    /**
+     * 全量构建时的临时键后缀，后接本次构建的令牌
+     */
+    private static final String REBUILD_KEY_SUFFIX = ":rebuilding:";
+
+    /**
+     * 全量构建租约键
+     */
+    private static final String REBUILD_LEASE_KEY = STAT_KEY_PREFIX + "rebuild:lease";
+
+    /**
+     * 全量构建租约时间（毫秒），构建期间每批续约；持有者宕机后租约过期，其他实例可以重新构建
+     */
+    private static final long REBUILD_LEASE_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * 续约（仅持有者可以续约）
+     */
+    private static final DefaultRedisScript<Long> RENEW_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    /**
+     * 释放租约（仅持有者可以释放）
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 全量构建每批条数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 统计是否可用
+     *
+     * @return 是否已完成全量构建
+     */
+    public boolean isReady() {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY));
+        } catch (Exception e) {
+            log.warn("读取标签统计状态失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 获取使用次数最多的标签
+     *
+     * @param spaceId 空间 id（公共图库为 0），为空表示全部图片
+     * @param topN    标签个数，小于等于 0 表示全部
+     * @return 标签名称和使用次数，按使用次数降序
+     */
+    public LinkedHashMap<String, Long> listTopTag(Long spaceId, int topN) {
+        String key = spaceId == null ? ALL_STAT_KEY : STAT_KEY_PREFIX + spaceId;
+        Set<ZSetOperations.TypedTuple<String>> tupleSet = stringRedisTemplate.opsForZSet()
+                .reverseRangeWithScores(key, 0, topN <= 0 ? -1 : topN - 1);
+        LinkedHashMap<String, Long> tagCountMap = new LinkedHashMap<>();
+        if (tupleSet == null) {
+            return tagCountMap;
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : tupleSet) {
+            if (tuple.getValue() != null && tuple.getScore() != null && tuple.getScore() > 0) {
+                tagCountMap.put(tuple.getValue(), tuple.getScore().longValue());
+            }
+        }
+        return tagCountMap;
+    }
+
+    /**
+     * 累加标签使用次数增量（在事务中调用时，事务提交后执行）
+     *
+     * @param tagCountMap 空间 id -> 标签名称 -> 使用次数增量
+     */
+    public void applyDelta(Map<Long, Map<String, Long>> tagCountMap) {
+        if (CollUtil.isEmpty(tagCountMap)) {
+            return;
+        }
+        runAfterCommit(() -> doApplyDelta(tagCountMap));
+    }
+
+    /**
+     * 删除空间的标签统计并从全部图片的统计中扣除（在事务中调用时，事务提交后执行）
+     *
+     * @param spaceId 空间 id
+     */
+    public void removeSpace(long spaceId) {
+        runAfterCommit(() -> {
+            LinkedHashMap<String, Long> spaceTagCountMap = listTopTag(spaceId, 0);
+            Map<String, Long> allTagCountMap = new HashMap<>();
+            spaceTagCountMap.forEach((tagName, count) -> allTagCountMap.put(tagName, -count));
+            doApplyDelta(Collections.singletonMap(null, allTagCountMap));
+            stringRedisTemplate.delete(STAT_KEY_PREFIX + spaceId);
+            stringRedisTemplate.opsForSet().remove(SCOPE_SET_KEY, String.valueOf(spaceId));
+        });
+    }
+
+    /**
+     * 应用启动后，尚未构建过时异步全量构建
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!isReady()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 全量构建，每个统计键先写入本次构建独有的临时键再整体替换
+     * 构建期间提交的增量可能被覆盖，由下次构建修正；其他实例正在构建时直接跳过
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        String leaseToken = IdUtil.fastSimpleUUID();
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(REBUILD_LEASE_KEY, leaseToken,
+                    REBUILD_LEASE_MILLIS, TimeUnit.MILLISECONDS))) {
+                log.info("其他实例正在构建标签统计，跳过本次构建");
+                return;
+            }
+        } catch (Exception e) {
+            log.error("获取标签统计构建租约失败", e);
+            return;
+        }
+        try {
+            // 1、扫描图片表汇总标签使用次数（空间 id 为空表示全部图片）
+            Map<Long, Map<String, Long>> scopeTagCountMap = new HashMap<>();
+            Map<String, Long> allTagCountMap = new HashMap<>();
+            long lastId = 0;
+            while (true) {
+                List<Picture> pictureList = pictureMapper.selectTagsAfterId(lastId, BATCH_SIZE);
+                if (pictureList.isEmpty()) {
+                    break;
+                }
+                for (Picture picture : pictureList) {
+                    if (!JSONUtil.isTypeJSONArray(picture.getTags())) {
+                        continue;
+                    }
+                    long spaceId = picture.getSpaceId() == null ? SpaceStatDelta.PUBLIC_SPACE_ID : picture.getSpaceId();
+                    Map<String, Long> tagCountMap = scopeTagCountMap.computeIfAbsent(spaceId, key -> new HashMap<>());
+                    for (String tagName : JSONUtil.toList(picture.getTags(), String.class)) {
+                        if (StrUtil.isNotBlank(tagName)) {
+                            tagCountMap.merge(tagName, 1L, Long::sum);
+                            allTagCountMap.merge(tagName, 1L, Long::sum);
+                        }
+                    }
+                }
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+                renewLease(leaseToken);
+            }
+            // 2、写入临时键并替换
+            renewLease(leaseToken);
+            scopeTagCountMap.forEach((spaceId, tagCountMap) ->
+                    replaceStat(STAT_KEY_PREFIX + spaceId, tagCountMap, leaseToken));
+            replaceStat(ALL_STAT_KEY, allTagCountMap, leaseToken);
+            // 3、删除已没有标签的空间的统计键
+            Set<String> newScopeSet = new HashSet<>();
+            scopeTagCountMap.keySet().forEach(spaceId -> newScopeSet.add(String.valueOf(spaceId)));
+            if (!newScopeSet.isEmpty()) {
+                stringRedisTemplate.opsForSet().add(SCOPE_SET_KEY, newScopeSet.toArray(new String[0]));
+            }
+            Set<String> oldScopeSet = stringRedisTemplate.opsForSet().members(SCOPE_SET_KEY);
+            if (oldScopeSet != null) {
+                for (String spaceId : oldScopeSet) {
+                    if (!newScopeSet.contains(spaceId)) {
+                        stringRedisTemplate.delete(STAT_KEY_PREFIX + spaceId);
+                        stringRedisTemplate.opsForSet().remove(SCOPE_SET_KEY, spaceId);
+                    }
+                }
+            }
+            stringRedisTemplate.opsForValue().set(READY_KEY, String.valueOf(System.currentTimeMillis()));
+            log.info("标签统计构建完成, 空间数 = {}, 标签数 = {}, 耗时 = {} ms", scopeTagCountMap.size(),
+                    allTagCountMap.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("标签统计构建失败", e);
+        } finally {
+            releaseLease(leaseToken);
+        }
+    }
+
+    private void replaceStat(String key, Map<String, Long> tagCountMap, String leaseToken) {
+        if (tagCountMap.isEmpty()) {
+            stringRedisTemplate.delete(key);
+            return;
+        }
+        String rebuildKey = key + REBUILD_KEY_SUFFIX + leaseToken;
+        try {
+            Set<ZSetOperations.TypedTuple<String>> tupleSet = new HashSet<>();
+            for (Map.Entry<String, Long> entry : tagCountMap.entrySet()) {
+                tupleSet.add(new DefaultTypedTuple<>(entry.getKey(), entry.getValue().doubleValue()));
+                if (tupleSet.size() >= BATCH_SIZE) {
+                    stringRedisTemplate.opsForZSet().add(rebuildKey, tupleSet);
+                    tupleSet = new HashSet<>();
+                }
+            }
+            if (!tupleSet.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(rebuildKey, tupleSet);
+            }
+            stringRedisTemplate.rename(rebuildKey, key);
+        } catch (RuntimeException e) {
+            // 构建失败时删除本次的临时键
+            stringRedisTemplate.delete(rebuildKey);
+            throw e;
+        }
+    }
+
+    /**
+     * 续约，租约已被其他实例持有（本实例构建超时）时中止构建，避免覆盖其他实例的结果
+     *
+     * @param leaseToken 本次构建的令牌
+     */
+    private void renewLease(String leaseToken) {
+        Long result = stringRedisTemplate.execute(RENEW_LEASE_SCRIPT, Collections.singletonList(REBUILD_LEASE_KEY),
+                leaseToken, String.valueOf(REBUILD_LEASE_MILLIS));
+        if (result == null || result != 1) {
+            throw new IllegalStateException("标签统计构建租约已失效");
+        }
+    }
+
+    private void releaseLease(String leaseToken) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, Collections.singletonList(REBUILD_LEASE_KEY), leaseToken);
+        } catch (Exception e) {
+            log.warn("释放标签统计构建租约失败", e);
+        }
+    }
+
+    /**
+     * 在一次管道中累加增量，并清理使用次数归零的标签
+     *
+     * @param tagCountMap 空间 id（为空表示只累加到全部图片）-> 标签名称 -> 使用次数增量
+     */
+    private void doApplyDelta(Map<Long, Map<String, Long>> tagCountMap) {
+        Map<String, Long> allTagCountMap = new HashMap<>();
+        tagCountMap.forEach((spaceId, countMap) -> countMap.forEach((tagName, count) ->
+                allTagCountMap.merge(tagName, count, Long::sum)));
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            tagCountMap.forEach((spaceId, countMap) -> {
+                if (spaceId == null) {
+                    return;
+                }
+                String key = STAT_KEY_PREFIX + spaceId;
+                countMap.forEach((tagName, count) -> stringConnection.zIncrBy(key, count, tagName));
+                stringConnection.sAdd(SCOPE_SET_KEY, String.valueOf(spaceId));
+                stringConnection.zRemRangeByScore(key, Double.NEGATIVE_INFINITY, 0);
+            });
+            allTagCountMap.forEach((tagName, count) -> {
+                if (count != 0) {
+                    stringConnection.zIncrBy(ALL_STAT_KEY, count, tagName);
+                }
+            });
+            stringConnection.zRemRangeByScore(ALL_STAT_KEY, Double.NEGATIVE_INFINITY, 0);
+            return null;
+        });
+    }
+
+    private void runAfterCommit(Runnable runnable) {
+        Runnable safeRunnable = () -> {
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                // 统计失败不影响业务，等待全量构建修正
+                log.error("更新标签统计失败", e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeRunnable.run();
+                }
+            });
+        } else {
+            safeRunnable.run();
+        }
+    }
+}
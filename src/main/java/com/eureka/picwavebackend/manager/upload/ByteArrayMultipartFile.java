@@ -0,0 +1,70 @@
+package com.eureka.picwavebackend.manager.upload;
+
+import cn.hutool.core.io.FileUtil;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * 内存中的上传文件
+ * 请求结束后容器会删除 multipart 临时文件，异步上传时先把内容复制到内存（不超过 2M）再交给后台线程
+ */
+public class ByteArrayMultipartFile implements MultipartFile {
+
+    private final String name;
+
+    private final String originalFilename;
+
+    private final String contentType;
+
+    private final byte[] content;
+
+    public ByteArrayMultipartFile(MultipartFile multipartFile, byte[] content) {
+        this.name = multipartFile.getName();
+        this.originalFilename = multipartFile.getOriginalFilename();
+        this.contentType = multipartFile.getContentType();
+        this.content = content;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return content.length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return content.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return content;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void transferTo(File dest) {
+        FileUtil.writeBytes(content, dest);
+    }
+}
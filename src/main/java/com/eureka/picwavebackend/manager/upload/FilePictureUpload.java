@@ -1,12 +1,16 @@
 package com.eureka.picwavebackend.manager.upload;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.exception.ThrowUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 
@@ -23,8 +27,13 @@ public class FilePictureUpload extends PictureUploadTemplate{
         ThrowUtils.throwIf(fileSize > 2 * ONE_M, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
         // 2. 校验文件后缀
         String fileSuffix = FileUtil.getSuffix(multipartFile.getOriginalFilename());
-        final List<String> ALLOW_FORMAT_LIST = Arrays.asList("jpeg", "jpg", "png", "webp");
+        final List<String> ALLOW_FORMAT_LIST = Arrays.asList("jpeg", "jpg", "png", "webp", "gif");
         ThrowUtils.throwIf(!ALLOW_FORMAT_LIST.contains(fileSuffix), ErrorCode.PARAMS_ERROR, "文件类型错误");
+        // 3. 校验文件头（只读开头部分，不解码像素），损坏、分辨率过大、内容与后缀不符的文件在上传前拒绝
+        ImageHeaderParser.ImageHeader imageHeader = readImageHeader(multipartFile);
+        String message = ImageHeaderParser.validate(imageHeader);
+        ThrowUtils.throwIf(message != null, ErrorCode.PARAMS_ERROR, message);
+        ThrowUtils.throwIf(!imageHeader.matchesSuffix(fileSuffix), ErrorCode.PARAMS_ERROR, "文件内容与后缀不符");
     }
 
     @Override
@@ -33,6 +42,25 @@ public class FilePictureUpload extends PictureUploadTemplate{
         return multipartFile.getOriginalFilename();
     }
 
+    @Override
+    protected PictureSource openPictureSource(Object inputSource) throws Exception {
+        MultipartFile multipartFile = (MultipartFile) inputSource;
+        return new PictureSource(multipartFile.getInputStream(), multipartFile.getSize());
+    }
+
+    /**
+     * 读取文件开头部分并解析文件头
+     */
+    private ImageHeaderParser.ImageHeader readImageHeader(MultipartFile multipartFile) {
+        int length = (int) Math.min(multipartFile.getSize(), ImageHeaderParser.HEADER_LENGTH);
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            byte[] head = IoUtil.readBytes(inputStream, length);
+            return ImageHeaderParser.parse(head, head.length);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件读取失败");
+        }
+    }
+
     @Override
     protected void processFile(Object inputSource, File file) throws Exception {
         MultipartFile multipartFile = (MultipartFile) inputSource;
@@ -0,0 +1,335 @@
+package com.eureka.picwavebackend.manager.upload;
+
+import lombok.Data;
+
+/**
+ * 图片文件头解析
+ * 只根据文件开头的字节识别格式、宽高和 EXIF 方向，不解码像素；
+ * 解码前据此拒绝损坏的文件、格式与后缀不符的文件和解压炸弹（文件很小但像素极多）
+ */
+public class ImageHeaderParser {
+
+    /**
+     * 识别格式至少需要的字节数
+     */
+    public static final int MAGIC_LENGTH = 12;
+
+    /**
+     * 解析宽高和 EXIF 方向读取的字节数（JPEG 的 EXIF 段最长 64 KB，SOF 段一般在其后不远）
+     */
+    public static final int HEADER_LENGTH = 64 * 1024;
+
+    /**
+     * 允许的最大边长
+     */
+    public static final int MAX_PICTURE_DIMENSION = 16384;
+
+    /**
+     * 允许的最大像素数（解码后每像素约 4 字节）
+     */
+    public static final long MAX_PICTURE_PIXELS = 40_000_000L;
+
+    /**
+     * EXIF 方向标签
+     */
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private ImageHeaderParser() {
+    }
+
+    /**
+     * 解析文件头
+     *
+     * @param head   文件开头的字节
+     * @param length 有效字节数
+     * @return 图片头信息，无法识别格式时返回 null；宽高未知时为 0
+     */
+    public static ImageHeader parse(byte[] head, int length) {
+        String format = detectFormat(head, length);
+        if (format == null) {
+            return null;
+        }
+        ImageHeader imageHeader = new ImageHeader();
+        imageHeader.setFormat(format);
+        switch (format) {
+            case "png":
+                parsePngSize(head, length, imageHeader);
+                break;
+            case "webp":
+                parseWebpSize(head, length, imageHeader);
+                break;
+            case "gif":
+                parseGifSize(head, length, imageHeader);
+                break;
+            default:
+                parseJpegSize(head, length, imageHeader);
+                break;
+        }
+        return imageHeader;
+    }
+
+    /**
+     * 校验文件头：能识别格式，宽高（已知时）不超过限制
+     *
+     * @param imageHeader 图片头信息，可以为空
+     * @return 校验不通过的原因，通过时返回 null
+     */
+    public static String validate(ImageHeader imageHeader) {
+        if (imageHeader == null) {
+            return "文件类型错误";
+        }
+        int width = imageHeader.getWidth();
+        int height = imageHeader.getHeight();
+        // 宽高按无符号数解析，超过 int 范围时为负数
+        if (width < 0 || height < 0 || width > MAX_PICTURE_DIMENSION || height > MAX_PICTURE_DIMENSION
+                || (long) width * height > MAX_PICTURE_PIXELS) {
+            return "图片分辨率过大";
+        }
+        return null;
+    }
+
+    /**
+     * 根据魔数识别格式
+     *
+     * @return jpeg / png / webp / gif，无法识别时返回 null
+     */
+    public static String detectFormat(byte[] head, int length) {
+        if (length >= 3 && u8(head, 0) == 0xFF && u8(head, 1) == 0xD8 && u8(head, 2) == 0xFF) {
+            return "jpeg";
+        }
+        if (length >= 8 && u8(head, 0) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G'
+                && head[4] == '\r' && head[5] == '\n' && u8(head, 6) == 0x1A && head[7] == '\n') {
+            return "png";
+        }
+        if (length >= MAGIC_LENGTH && matches(head, 0, "RIFF") && matches(head, 8, "WEBP")) {
+            return "webp";
+        }
+        if (length >= 6 && (matches(head, 0, "GIF87a") || matches(head, 0, "GIF89a"))) {
+            return "gif";
+        }
+        return null;
+    }
+
+    /**
+     * PNG：IHDR 块固定在第 8 字节之后，宽高为大端 32 位整数
+     */
+    private static void parsePngSize(byte[] head, int length, ImageHeader imageHeader) {
+        if (length >= 24 && matches(head, 12, "IHDR")) {
+            imageHeader.setWidth(u32be(head, 16));
+            imageHeader.setHeight(u32be(head, 20));
+        }
+    }
+
+    /**
+     * WebP：按第一个块的类型（有损 VP8、无损 VP8L、扩展 VP8X）读取宽高
+     */
+    private static void parseWebpSize(byte[] head, int length, ImageHeader imageHeader) {
+        if (length < 30) {
+            return;
+        }
+        if (matches(head, 12, "VP8 ")) {
+            imageHeader.setWidth(u16le(head, 26) & 0x3FFF);
+            imageHeader.setHeight(u16le(head, 28) & 0x3FFF);
+        } else if (matches(head, 12, "VP8L")) {
+            int b1 = u8(head, 22);
+            int b2 = u8(head, 23);
+            int b3 = u8(head, 24);
+            imageHeader.setWidth(1 + (((b1 & 0x3F) << 8) | u8(head, 21)));
+            imageHeader.setHeight(1 + (((b3 & 0x0F) << 10) | (b2 << 2) | ((b1 & 0xC0) >> 6)));
+        } else if (matches(head, 12, "VP8X")) {
+            imageHeader.setWidth(1 + u24le(head, 24));
+            imageHeader.setHeight(1 + u24le(head, 27));
+        }
+    }
+
+    /**
+     * GIF：逻辑屏幕宽高紧跟在 6 字节签名之后，小端 16 位整数
+     */
+    private static void parseGifSize(byte[] head, int length, ImageHeader imageHeader) {
+        if (length >= 10) {
+            imageHeader.setWidth(u16le(head, 6));
+            imageHeader.setHeight(u16le(head, 8));
+        }
+    }
+
+    /**
+     * JPEG：逐段跳过，途经 APP1 段时读取 EXIF 方向，直到遇到 SOF 段读取宽高
+     */
+    private static void parseJpegSize(byte[] head, int length, ImageHeader imageHeader) {
+        int i = 2;
+        while (i + 9 <= length) {
+            if (u8(head, i) != 0xFF) {
+                return;
+            }
+            int marker = u8(head, i + 1);
+            if (marker == 0xFF) {
+                // 填充字节
+                i++;
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                // 没有长度的独立标记
+                i += 2;
+                continue;
+            }
+            boolean sof = marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (sof) {
+                imageHeader.setHeight(u16be(head, i + 5));
+                imageHeader.setWidth(u16be(head, i + 7));
+                return;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // 图像结束或扫描数据开始，之后不会再有 SOF
+                return;
+            }
+            int segmentLength = u16be(head, i + 2);
+            if (segmentLength < 2) {
+                return;
+            }
+            if (marker == 0xE1) {
+                parseExifOrientation(head, i + 4, Math.min(length, i + 2 + segmentLength), imageHeader);
+            }
+            i += 2 + segmentLength;
+        }
+    }
+
+    /**
+     * EXIF：6 字节标识之后是 TIFF 头（字节序、魔数 42、IFD0 偏移），在 IFD0 中查找方向标签
+     *
+     * @param start APP1 段数据起始位置
+     * @param end   APP1 段数据结束位置（不含）
+     */
+    private static void parseExifOrientation(byte[] head, int start, int end, ImageHeader imageHeader) {
+        if (end - start < 14 || !matches(head, start, "Exif\0\0")) {
+            return;
+        }
+        int tiff = start + 6;
+        boolean littleEndian;
+        if (matches(head, tiff, "II")) {
+            littleEndian = true;
+        } else if (matches(head, tiff, "MM")) {
+            littleEndian = false;
+        } else {
+            return;
+        }
+        if (u16(head, tiff + 2, littleEndian) != 42) {
+            return;
+        }
+        long ifdOffset = u32(head, tiff + 4, littleEndian) & 0xFFFFFFFFL;
+        if (ifdOffset < 8 || tiff + ifdOffset + 2 > end) {
+            return;
+        }
+        int ifd = tiff + (int) ifdOffset;
+        int entryCount = u16(head, ifd, littleEndian);
+        for (int k = 0; k < entryCount; k++) {
+            int entry = ifd + 2 + k * 12;
+            if (entry + 12 > end) {
+                return;
+            }
+            if (u16(head, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = u16(head, entry + 8, littleEndian);
+                if (orientation >= 1 && orientation <= 8) {
+                    imageHeader.setOrientation(orientation);
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean matches(byte[] bytes, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes[offset + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u8(byte[] bytes, int offset) {
+        return bytes[offset] & 0xFF;
+    }
+
+    private static int u16be(byte[] bytes, int offset) {
+        return (u8(bytes, offset) << 8) | u8(bytes, offset + 1);
+    }
+
+    private static int u16le(byte[] bytes, int offset) {
+        return u8(bytes, offset) | (u8(bytes, offset + 1) << 8);
+    }
+
+    private static int u16(byte[] bytes, int offset, boolean littleEndian) {
+        return littleEndian ? u16le(bytes, offset) : u16be(bytes, offset);
+    }
+
+    private static int u32(byte[] bytes, int offset, boolean littleEndian) {
+        return littleEndian ? u16le(bytes, offset) | (u16le(bytes, offset + 2) << 16) : u32be(bytes, offset);
+    }
+
+    private static int u24le(byte[] bytes, int offset) {
+        return u8(bytes, offset) | (u8(bytes, offset + 1) << 8) | (u8(bytes, offset + 2) << 16);
+    }
+
+    private static int u32be(byte[] bytes, int offset) {
+        return (u16be(bytes, offset) << 16) | u16be(bytes, offset + 2);
+    }
+
+    /**
+     * 图片头信息
+     */
+    @Data
+    public static class ImageHeader {
+
+        /**
+         * 格式：jpeg / png / webp / gif
+         */
+        private String format;
+
+        /**
+         * 宽度，未知时为 0
+         */
+        private int width;
+
+        /**
+         * 高度，未知时为 0
+         */
+        private int height;
+
+        /**
+         * EXIF 方向（1 ~ 8），没有 EXIF 时为 1
+         */
+        private int orientation = 1;
+
+        /**
+         * 按 EXIF 方向摆正后的宽度（方向 5 ~ 8 需要旋转 90 度，宽高互换）
+         */
+        public int getDisplayWidth() {
+            return orientation >= 5 ? height : width;
+        }
+
+        /**
+         * 按 EXIF 方向摆正后的高度
+         */
+        public int getDisplayHeight() {
+            return orientation >= 5 ? width : height;
+        }
+
+        /**
+         * 按文件内容确定的文件后缀（不含点），jpeg 使用 jpg
+         */
+        public String getSuffix() {
+            return "jpeg".equals(format) ? "jpg" : format;
+        }
+
+        /**
+         * 格式是否与文件后缀相符
+         *
+         * @param suffix 文件后缀（不含点）
+         */
+        public boolean matchesSuffix(String suffix) {
+            if ("jpeg".equals(format)) {
+                return "jpg".equalsIgnoreCase(suffix) || "jpeg".equalsIgnoreCase(suffix);
+            }
+            return format.equalsIgnoreCase(suffix);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.eureka.picwavebackend.manager.upload;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.SecureUtil;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.function.Consumer;
+
+/**
+ * 图片校验输入流
+ * 包装上传的原始输入流，字节流过时顺带完成：长度校验、魔数校验、文件头校验（分辨率）、SHA-256 摘要，并保留一份内容副本（图片不超过几 MB），
+ * 读满声明的长度后回调 contentConsumer，调用方可以在对象存储处理图片的同时并行处理内容；
+ * 校验不通过时抛出 IOException 中断上传，原因通过 {@link #getErrorMessage()} 获取
+ * <p>
+ * 不支持 mark / reset，保证每个字节只经过一次
+ */
+public class PictureInspectInputStream extends FilterInputStream {
+
+    private final MessageDigest messageDigest = SecureUtil.sha256().getDigest();
+
+    /**
+     * 内容副本，长度即声明的内容长度
+     */
+    private final byte[] content;
+
+    /**
+     * 读满内容后的回调
+     */
+    private final Consumer<byte[]> contentConsumer;
+
+    /**
+     * 已读取字节数
+     */
+    private int size;
+
+    /**
+     * 是否已经校验过魔数
+     */
+    private boolean formatChecked;
+
+    /**
+     * 文件头信息，读够文件头时解析一次，读完后再完整解析一次
+     */
+    private ImageHeaderParser.ImageHeader imageHeader;
+
+    /**
+     * 是否已经读到末尾
+     */
+    private boolean completed;
+
+    private String errorMessage;
+
+    private String contentHash;
+
+    /**
+     * @param in              原始输入流
+     * @param contentLength   声明的内容长度（调用方需先校验不超过大小限制）
+     * @param contentConsumer 读满内容后的回调，可以为空
+     */
+    public PictureInspectInputStream(InputStream in, int contentLength, Consumer<byte[]> contentConsumer) {
+        super(in);
+        this.content = new byte[contentLength];
+        this.contentConsumer = contentConsumer;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            onEnd();
+        } else {
+            onBytes(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n == -1) {
+            onEnd();
+        } else if (n > 0) {
+            onBytes(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的字节也要参与摘要，改为读取后丢弃
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count == -1) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void onBytes(byte[] b, int off, int n) throws IOException {
+        if (n > content.length - size) {
+            fail("文件大小与声明的长度不一致");
+        }
+        messageDigest.update(b, off, n);
+        System.arraycopy(b, off, content, size, n);
+        size += n;
+        if (!formatChecked && size >= ImageHeaderParser.MAGIC_LENGTH) {
+            checkFormat();
+        }
+        // 读够文件头时提前校验分辨率，解压炸弹不必等到下载完成
+        if (imageHeader == null && size >= ImageHeaderParser.HEADER_LENGTH) {
+            checkHeader();
+        }
+        if (size == content.length) {
+            complete();
+        }
+    }
+
+    private void onEnd() throws IOException {
+        if (size < content.length) {
+            fail("文件大小与声明的长度不一致");
+        }
+        complete();
+    }
+
+    private void complete() throws IOException {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        if (!formatChecked) {
+            checkFormat();
+        }
+        checkHeader();
+        if (contentConsumer != null) {
+            contentConsumer.accept(content);
+        }
+    }
+
+    private void checkFormat() throws IOException {
+        formatChecked = true;
+        if (ImageHeaderParser.detectFormat(content, size) == null) {
+            fail("文件类型错误");
+        }
+    }
+
+    private void checkHeader() throws IOException {
+        imageHeader = ImageHeaderParser.parse(content, size);
+        String message = ImageHeaderParser.validate(imageHeader);
+        if (message != null) {
+            fail(message);
+        }
+    }
+
+    private void fail(String message) throws IOException {
+        errorMessage = message;
+        throw new IOException(message);
+    }
+
+    /**
+     * 已读取字节数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 校验失败原因，校验通过时为 null
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * 是否已经读满声明的长度
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 内容 SHA-256（十六进制），应在读满内容后获取
+     */
+    public String getContentHash() {
+        if (contentHash == null) {
+            contentHash = HexUtil.encodeHexStr(messageDigest.digest());
+        }
+        return contentHash;
+    }
+
+    /**
+     * 内容副本，应在读满内容后获取，调用方不能修改
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * 文件头信息（格式、宽高、EXIF 方向），应在读满内容后获取，无法识别时返回 null
+     */
+    public ImageHeaderParser.ImageHeader getImageHeader() {
+        return imageHeader;
+    }
+}
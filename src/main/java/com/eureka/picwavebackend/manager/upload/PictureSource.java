@@ -0,0 +1,38 @@
+package com.eureka.picwavebackend.manager.upload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.InputStream;
+
+/**
+ * 图片输入流及其长度（流式上传时对象存储需要预先知道长度）
+ */
+@Data
+@AllArgsConstructor
+public class PictureSource {
+
+    /**
+     * 输入流，由上传模板负责关闭
+     */
+    private InputStream inputStream;
+
+    /**
+     * 内容长度（字节）
+     */
+    private long contentLength;
+
+    /**
+     * 原始文件名（用于图片名称），读取时才能确定时有值，为空时使用 getOriginFilename
+     */
+    private String originFilename;
+
+    /**
+     * 输入源声明的图片格式（如 URL 响应的 Content-Type），与文件内容不符时拒绝上传，为空表示未声明
+     */
+    private String declaredFormat;
+
+    public PictureSource(InputStream inputStream, long contentLength) {
+        this(inputStream, contentLength, null, null);
+    }
+}
@@ -0,0 +1,165 @@
+package com.eureka.picwavebackend.manager.upload;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.exception.BusinessException;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.model.dto.file.UploadPictureResult;
+import com.eureka.picwavebackend.model.dto.picture.PictureUploadRequest;
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.entity.User;
+import com.eureka.picwavebackend.model.enums.PictureUploadTaskStatusEnum;
+import com.eureka.picwavebackend.model.vo.PictureUploadTaskVO;
+import com.eureka.picwavebackend.model.vo.PictureVO;
+import com.eureka.picwavebackend.service.PictureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.concurrent.*;
+
+/**
+ * 异步图片上传任务管理器
+ * 请求线程只负责接收内容并提交任务，上传（下载、校验、处理、保存到对象存储）、入库、审核通知分别在各自的有界线程池执行：
+ * 上传线程池队列满时直接拒绝提交，入库线程池队列满时由上传线程自己执行（反压到上传阶段），通知线程池队列满时丢弃通知；
+ * 任务状态保存在 Redis，任意实例都能查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureUploadTaskManager {
+
+    /**
+     * 任务状态键前缀
+     */
+    private static final String TASK_KEY_PREFIX = "picwave:picture:upload:task:";
+
+    /**
+     * 任务状态保留时间（分钟）
+     */
+    private static final long TASK_EXPIRE_MINUTES = 60;
+
+    private final PictureService pictureService;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 上传线程池（网络和对象存储耗时为主）
+     */
+    private final ThreadPoolExecutor uploadExecutor = new ThreadPoolExecutor(4, 16, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-upload-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 入库线程池（受数据库连接数限制）
+     */
+    private final ThreadPoolExecutor saveExecutor = new ThreadPoolExecutor(2, 4, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-upload-save-").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * 审核通知线程池
+     */
+    private final ThreadPoolExecutor notifyExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100),
+            ThreadFactoryBuilder.create().setNamePrefix("picture-upload-notify-").build(),
+            (runnable, executor) -> log.warn("审核通知队列已满，丢弃通知"));
+
+    @PreDestroy
+    public void destroy() {
+        uploadExecutor.shutdown();
+        saveExecutor.shutdown();
+        notifyExecutor.shutdown();
+    }
+
+    /**
+     * 提交上传任务
+     *
+     * @param inputSource          输入源（内存中的文件或 URL，不能依赖请求的生命周期）
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @return 任务 id
+     */
+    public String submit(Object inputSource, PictureUploadRequest pictureUploadRequest, User loginUser) {
+        String taskId = IdUtil.fastSimpleUUID();
+        PictureUploadTaskVO task = new PictureUploadTaskVO();
+        task.setTaskId(taskId);
+        task.setUserId(loginUser.getId());
+        task.setCreateTime(new Date());
+        updateTask(task, PictureUploadTaskStatusEnum.WAITING);
+        try {
+            CompletableFuture.supplyAsync(() -> {
+                        // 1、上传
+                        updateTask(task, PictureUploadTaskStatusEnum.UPLOADING);
+                        return pictureService.uploadPictureFile(inputSource, pictureUploadRequest, loginUser);
+                    }, uploadExecutor)
+                    .thenApplyAsync(uploadPictureResult -> {
+                        // 2、入库
+                        updateTask(task, PictureUploadTaskStatusEnum.SAVING);
+                        Picture picture = pictureService.saveUploadedPicture(uploadPictureResult, pictureUploadRequest, loginUser);
+                        task.setPicture(PictureVO.objToVo(picture));
+                        updateTask(task, PictureUploadTaskStatusEnum.SUCCEEDED);
+                        return picture;
+                    }, saveExecutor)
+                    .thenAcceptAsync(pictureService::sendPictureReviewMessage, notifyExecutor)
+                    .whenComplete((result, e) -> {
+                        if (e == null) {
+                            return;
+                        }
+                        if (task.getPicture() == null) {
+                            onFailed(task, e);
+                        } else {
+                            log.warn("发送审核通知失败, taskId = {}", taskId, e);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            stringRedisTemplate.delete(TASK_KEY_PREFIX + taskId);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "上传任务过多，请稍后重试");
+        }
+        return taskId;
+    }
+
+    /**
+     * 查询上传任务
+     *
+     * @param taskId    任务 id
+     * @param loginUser 登录用户
+     * @return 任务状态
+     */
+    public PictureUploadTaskVO getTask(String taskId, User loginUser) {
+        String json = stringRedisTemplate.opsForValue().get(TASK_KEY_PREFIX + taskId);
+        ThrowUtils.throwIf(json == null, ErrorCode.NOT_FOUND_ERROR, "任务不存在或已过期");
+        PictureUploadTaskVO task = JSONUtil.toBean(json, PictureUploadTaskVO.class);
+        ThrowUtils.throwIf(!loginUser.getId().equals(task.getUserId()), ErrorCode.NO_AUTH_ERROR);
+        return task;
+    }
+
+    private void onFailed(PictureUploadTaskVO task, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof BusinessException) {
+            task.setErrorMessage(cause.getMessage());
+        } else {
+            log.error("异步上传图片失败, taskId = {}", task.getTaskId(), cause);
+            task.setErrorMessage("上传失败");
+        }
+        updateTask(task, PictureUploadTaskStatusEnum.FAILED);
+    }
+
+    private void updateTask(PictureUploadTaskVO task, PictureUploadTaskStatusEnum status) {
+        task.setStatus(status.getValue());
+        task.setUpdateTime(new Date());
+        try {
+            stringRedisTemplate.opsForValue().set(TASK_KEY_PREFIX + task.getTaskId(), JSONUtil.toJsonStr(task),
+                    TASK_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("更新上传任务状态失败, taskId = {}", task.getTaskId(), e);
+        }
+    }
+}
@@ -1,32 +1,46 @@
 package com.eureka.picwavebackend.manager.upload;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.io.NullOutputStream;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.json.JSONUtil;
 import com.eureka.picwavebackend.config.CosClientConfig;
+import com.eureka.picwavebackend.config.StorageConfig;
 import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
-import com.eureka.picwavebackend.manager.CosManager;
+import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.manager.color.PictureColorExtractor;
+import com.eureka.picwavebackend.manager.color.PictureColors;
+import com.eureka.picwavebackend.manager.image.ImageProcessResult;
+import com.eureka.picwavebackend.manager.image.ImageProcessor;
+import com.eureka.picwavebackend.manager.image.ProcessedImage;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
 import com.eureka.picwavebackend.model.dto.file.UploadPictureResult;
+import com.eureka.picwavebackend.model.entity.PictureObject;
+import com.eureka.picwavebackend.service.PictureObjectService;
 import com.qcloud.cos.COSClient;
 import com.qcloud.cos.model.COSObject;
 import com.qcloud.cos.model.COSObjectInputStream;
 import com.qcloud.cos.model.GetObjectRequest;
-import com.qcloud.cos.model.PutObjectResult;
-import com.qcloud.cos.model.ciModel.persistence.CIObject;
-import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
-import com.qcloud.cos.model.ciModel.persistence.ProcessResults;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 图片上传模板
@@ -34,15 +48,37 @@ import java.util.List;
 @Slf4j
 public abstract class PictureUploadTemplate {
 
-    @Resource
-    protected CosManager cosManager;
-
     @Resource
     protected CosClientConfig cosClientConfig;
 
     @Resource
     protected COSClient cosClient;
 
+    @Resource
+    protected PictureColorExtractor pictureColorExtractor;
+
+    @Resource
+    protected ObjectStorage objectStorage;
+
+    @Resource
+    protected ImageProcessor imageProcessor;
+
+    @Resource
+    protected StorageConfig storageConfig;
+
+    @Resource
+    protected PictureObjectService pictureObjectService;
+
+    /**
+     * 图片最大字节数
+     */
+    protected static final long MAX_PICTURE_SIZE = 2 * 1024 * 1024L;
+
+    /**
+     * 等待本地颜色提取的最长时间（毫秒）
+     */
+    private static final long COLOR_EXTRACT_TIMEOUT_MILLIS = 3000L;
+
     /**
      * 模板方法
      *
@@ -53,45 +89,82 @@ public abstract class PictureUploadTemplate {
     public UploadPictureResult uploadPicture(Object inputSource, String uploadPathPrefix) {
         // 1、校验图片
         validPicture(inputSource);
-        // 2、生成上传地址
-        String uuid = RandomUtil.randomString(16);
-        String originFilename = getOriginFilename(inputSource);
-        String uploadFilename = String.format("%s_%s.%s", DateUtil.formatDate(new Date()), uuid,
-                FileUtil.getSuffix(originFilename));
-        String uploadPath = String.format("/%s/%s", uploadPathPrefix, uploadFilename);
-
+        String uploadPath = null;
         File file = null;
+        PictureInspectInputStream inspectInputStream = null;
         try {
-            // 3、创建临时文件
-            file = File.createTempFile(uploadPath, null);
-            // 4、处理文件
-            processFile(inputSource, file);
-            // 5、上传图片
-            PutObjectResult putObjectResult = cosManager.putPictureObject(uploadPath, file);
-            // 获取图片信息
-            ImageInfo imageInfo = putObjectResult.getCiUploadResult().getOriginalInfo().getImageInfo();
-            // 获取图片处理信息
-            ProcessResults processResults = putObjectResult.getCiUploadResult().getProcessResults();
-            List<CIObject> objectList = processResults.getObjectList();
-            if (CollUtil.isNotEmpty(objectList)) {
-                CIObject compressedCiObject = objectList.get(0);
-                CIObject thumbnailCiObject = compressedCiObject;
-                if (objectList.size() > 1) {
-                    thumbnailCiObject = objectList.get(1);
-                }
-                // 封装返回结果（处理信息）
-                return buildResult(originFilename, compressedCiObject, thumbnailCiObject);
+            // 2、获取输入流：优先直接读取输入源，不支持时（如未知长度）先处理成本地临时文件
+            PictureSource pictureSource = openPictureSource(inputSource);
+            // 3、确定原始文件名：读取时才能确定文件名的输入源以读取结果为准
+            String uuid = RandomUtil.randomString(16);
+            String originFilename = pictureSource != null && pictureSource.getOriginFilename() != null
+                    ? pictureSource.getOriginFilename() : getOriginFilename(inputSource);
+            if (pictureSource == null) {
+                file = File.createTempFile(uuid, null);
+                processFile(inputSource, file);
+                pictureSource = new PictureSource(Files.newInputStream(file.toPath()), file.length());
+            }
+            // 4、读取全部内容，字节流过时完成长度、格式、分辨率校验并计算摘要；内容读完后立即在本地提取颜色，与图片处理并行
+            long contentLength = pictureSource.getContentLength();
+            if (contentLength > MAX_PICTURE_SIZE) {
+                IoUtil.close(pictureSource.getInputStream());
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+            }
+            AtomicReference<CompletableFuture<PictureColors>> colorFutureRef = new AtomicReference<>();
+            inspectInputStream = new PictureInspectInputStream(pictureSource.getInputStream(), (int) contentLength,
+                    content -> colorFutureRef.set(pictureColorExtractor.extractAsync(content)));
+            try (InputStream inputStream = inspectInputStream) {
+                IoUtil.copy(inputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+            ImageHeaderParser.ImageHeader imageHeader = inspectInputStream.getImageHeader();
+            ThrowUtils.throwIf(imageHeader == null || !inspectInputStream.isCompleted(),
+                    ErrorCode.PARAMS_ERROR, "文件内容不完整或类型错误");
+            ThrowUtils.throwIf(imageHeader.getWidth() == 0 || imageHeader.getHeight() == 0,
+                    ErrorCode.PARAMS_ERROR, "文件内容已损坏");
+            String declaredFormat = pictureSource.getDeclaredFormat();
+            ThrowUtils.throwIf(declaredFormat != null && !imageHeader.matchesSuffix(declaredFormat),
+                    ErrorCode.PARAMS_ERROR, "文件内容与声明的类型不符");
+            // 上传地址的后缀以文件内容为准，不信任文件名和响应类型
+            String uploadFilename = String.format("%s_%s.%s", DateUtil.formatDate(new Date()), uuid,
+                    imageHeader.getSuffix());
+            uploadPath = String.format("/%s/%s", uploadPathPrefix, uploadFilename);
+            String contentHash = inspectInputStream.getContentHash();
+            // 5、相同内容已经存储过时直接引用，不再重复处理
+            PictureObject pictureObject = pictureObjectService.acquire(contentHash);
+            if (pictureObject != null) {
+                cancelColorExtract(colorFutureRef.get());
+                log.info("图片内容已存在，复用存储对象, contentHash = {}", contentHash);
+                return buildResult(originFilename, pictureObject);
+            }
+            // 6、处理图片
+            ImageProcessResult imageProcessResult = imageProcessor.process(uploadPath,
+                    new ByteArrayInputStream(inspectInputStream.getContent()), contentLength);
+            PictureColors pictureColors = getPictureColors(colorFutureRef.get());
+            ProcessedImage compressed = imageProcessResult.getCompressed();
+            if (compressed != null) {
+                // 封装返回结果（处理信息），并登记为存储对象
+                UploadPictureResult uploadPictureResult = buildResult(originFilename, compressed,
+                        imageProcessResult.getThumbnail());
+                fillExtraInfo(uploadPictureResult, compressed.getKey(), contentHash, pictureColors);
+                return registerPictureObject(originFilename, uploadPictureResult);
             }
-            // 6、封装返回结果（原图信息）
-            return buildResult(originFilename, file, uploadPath, imageInfo);
+            // 7、封装返回结果（原图信息），处理失败时不登记存储对象
+            UploadPictureResult uploadPictureResult = buildResult(originFilename, inspectInputStream.getSize(),
+                    uploadPath, imageHeader);
+            fillExtraInfo(uploadPictureResult, uploadPath, null, pictureColors);
+            return uploadPictureResult;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
+            // 校验输入流发现的问题属于参数错误
+            if (inspectInputStream != null && inspectInputStream.getErrorMessage() != null) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, inspectInputStream.getErrorMessage());
+            }
+            log.error("图片上传失败, uploadPath = {}", uploadPath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
         } finally {
-            // 7、删除临时文件
+            // 8、删除临时文件（原图由图片处理器负责清理）
             deleteTempFile(file);
-            // 8、删除原图
-            cosManager.deleteObject(uploadPath);
-            log.info("删除原图成功");
         }
     }
 
@@ -105,6 +178,15 @@ public abstract class PictureUploadTemplate {
      */
     protected abstract String getOriginFilename(Object inputSource);
 
+    /**
+     * 直接打开输入源的输入流（流式上传，不落地临时文件）
+     *
+     * @return 输入流及长度，无法预先知道长度等不支持流式上传的情况返回 null，改为调用 processFile
+     */
+    protected PictureSource openPictureSource(Object inputSource) throws Exception {
+        return null;
+    }
+
     /**
      * 处理输入源并生成本地临时文件
      */
@@ -114,52 +196,143 @@ public abstract class PictureUploadTemplate {
      * 封装返回结果（原图信息）
      *
      * @param originFilename 原始文件名
-     * @param file           文件
+     * @param picSize        文件大小
      * @param uploadPath     上传路径
-     * @param imageInfo      图片信息
+     * @param imageHeader    文件头信息（宽高按 EXIF 方向摆正）
      * @return uploadPictureResult
      */
-    private UploadPictureResult buildResult(String originFilename, File file, String uploadPath, ImageInfo imageInfo) {
+    private UploadPictureResult buildResult(String originFilename, long picSize, String uploadPath,
+                                            ImageHeaderParser.ImageHeader imageHeader) {
         UploadPictureResult uploadPictureResult = new UploadPictureResult();
-        int picWidth = imageInfo.getWidth();
-        int picHeight = imageInfo.getHeight();
+        int picWidth = imageHeader.getDisplayWidth();
+        int picHeight = imageHeader.getDisplayHeight();
         double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
         uploadPictureResult.setPicName(FileUtil.mainName(originFilename));
         uploadPictureResult.setPicWidth(picWidth);
         uploadPictureResult.setPicHeight(picHeight);
         uploadPictureResult.setPicScale(picScale);
-        uploadPictureResult.setPicFormat(imageInfo.getFormat());
-        uploadPictureResult.setPicSize(FileUtil.size(file));
-        uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + uploadPath);
-        uploadPictureResult.setPicColor(this.getImageAve(uploadPath));
+        uploadPictureResult.setPicFormat(imageHeader.getFormat());
+        uploadPictureResult.setPicSize(picSize);
+        uploadPictureResult.setUrl(objectStorage.getUrl(uploadPath));
         return uploadPictureResult;
     }
 
     /**
      * 封装返回结果（处理信息）
      *
-     * @param originFilename     原始文件名
-     * @param compressedCiObject 压缩处理后的图片对象
+     * @param originFilename 原始文件名
+     * @param compressed     压缩处理后的图片
+     * @param thumbnail      缩略图
      * @return uploadPictureResult
      */
-    private UploadPictureResult buildResult(String originFilename, CIObject compressedCiObject, CIObject thumbnailCiObject) {
+    private UploadPictureResult buildResult(String originFilename, ProcessedImage compressed, ProcessedImage thumbnail) {
         UploadPictureResult uploadPictureResult = new UploadPictureResult();
-        int picWidth = compressedCiObject.getWidth();
-        int picHeight = compressedCiObject.getHeight();
+        int picWidth = compressed.getWidth();
+        int picHeight = compressed.getHeight();
         double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
         uploadPictureResult.setPicName(FileUtil.mainName(originFilename));
         uploadPictureResult.setPicWidth(picWidth);
         uploadPictureResult.setPicHeight(picHeight);
         uploadPictureResult.setPicScale(picScale);
-        uploadPictureResult.setPicFormat(compressedCiObject.getFormat());
-        uploadPictureResult.setPicSize(compressedCiObject.getSize().longValue());
-        uploadPictureResult.setPicColor(this.getImageAve(compressedCiObject.getKey()));
+        uploadPictureResult.setPicFormat(compressed.getFormat());
+        uploadPictureResult.setPicSize(compressed.getSize());
         // 设置压缩图地址和缩略图地址
-        uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + compressedCiObject.getKey());
-        uploadPictureResult.setThumbnailUrl(cosClientConfig.getHost() + "/" + thumbnailCiObject.getKey());
+        uploadPictureResult.setUrl(objectStorage.getUrl(compressed.getKey()));
+        uploadPictureResult.setThumbnailUrl(objectStorage.getUrl(thumbnail.getKey()));
         return uploadPictureResult;
     }
 
+    /**
+     * 封装返回结果（复用已存储的对象）
+     *
+     * @param originFilename 原始文件名
+     * @param pictureObject  图片存储对象
+     * @return uploadPictureResult
+     */
+    private UploadPictureResult buildResult(String originFilename, PictureObject pictureObject) {
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        BeanUtil.copyProperties(pictureObject, uploadPictureResult);
+        uploadPictureResult.setPicName(FileUtil.mainName(originFilename));
+        return uploadPictureResult;
+    }
+
+    /**
+     * 把新处理的图片登记为存储对象
+     * 相同内容被并发上传且对方先登记时，改为引用对方的对象并删除本次处理出的文件；对方的对象正在删除时不参与去重
+     *
+     * @param originFilename      原始文件名
+     * @param uploadPictureResult 本次处理的结果
+     * @return 最终使用的结果
+     */
+    private UploadPictureResult registerPictureObject(String originFilename, UploadPictureResult uploadPictureResult) {
+        PictureObject pictureObject = new PictureObject();
+        BeanUtil.copyProperties(uploadPictureResult, pictureObject);
+        if (pictureObjectService.register(pictureObject)) {
+            return uploadPictureResult;
+        }
+        PictureObject existPictureObject = pictureObjectService.acquire(uploadPictureResult.getContentHash());
+        if (existPictureObject == null) {
+            uploadPictureResult.setContentHash(null);
+            return uploadPictureResult;
+        }
+        objectStorage.deleteObjects(CollUtil.distinct(Arrays.asList(
+                objectStorage.getKey(uploadPictureResult.getUrl()),
+                objectStorage.getKey(uploadPictureResult.getThumbnailUrl()))));
+        return buildResult(originFilename, existPictureObject);
+    }
+
+    /**
+     * 填充内容摘要和颜色信息
+     *
+     * @param uploadPictureResult 返回结果
+     * @param key                 图片对象键（本地无法提取颜色时通过 COS 获取主色调，本地存储时不获取）
+     * @param contentHash         内容摘要，不登记存储对象时为空
+     * @param pictureColors       本地提取的颜色，可以为空
+     */
+    private void fillExtraInfo(UploadPictureResult uploadPictureResult, String key, String contentHash,
+                               PictureColors pictureColors) {
+        uploadPictureResult.setContentHash(contentHash);
+        if (pictureColors == null) {
+            if (!storageConfig.isLocal()) {
+                uploadPictureResult.setPicColor(this.getImageAve(key));
+            }
+            return;
+        }
+        uploadPictureResult.setPicColor(pictureColors.getAverageColor());
+        uploadPictureResult.setPicPalette(JSONUtil.toJsonStr(pictureColors.getPalette()));
+        uploadPictureResult.setPicHash(pictureColors.getPerceptualHash());
+    }
+
+    /**
+     * 等待本地颜色提取结果
+     *
+     * @param colorFuture 提取任务，可以为空
+     * @return 提取结果，失败、超时或无法解码时返回 null
+     */
+    private PictureColors getPictureColors(CompletableFuture<PictureColors> colorFuture) {
+        if (colorFuture == null) {
+            return null;
+        }
+        try {
+            return colorFuture.get(COLOR_EXTRACT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("本地提取图片颜色失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 取消还没开始的颜色提取
+     */
+    private void cancelColorExtract(CompletableFuture<PictureColors> colorFuture) {
+        if (colorFuture != null) {
+            colorFuture.cancel(false);
+        }
+    }
+
     /**
      * 获取图片主色调
      *
@@ -1,27 +1,52 @@
 package com.eureka.picwavebackend.manager.upload;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.http.HttpResponse;
 import cn.hutool.http.HttpStatus;
 import cn.hutool.http.HttpUtil;
-import cn.hutool.http.Method;
 import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.exception.ThrowUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * URL 图片上传
+ * 只发送一次 GET 请求：根据响应头校验类型和大小，正文边读边校验魔数和字节数，超出上限立即中断
+ */
 @Slf4j
 @Service
 public class UrlPictureUpload extends PictureUploadTemplate{
 
+    /**
+     * 连接超时（毫秒）
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * 读取超时（毫秒）
+     */
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 最多跟随的重定向次数
+     */
+    private static final int MAX_REDIRECT_COUNT = 3;
+
+    private static final List<String> ALLOW_CONTENT_TYPE_LIST = Arrays.asList("image/jpeg", "image/jpg", "image/png",
+            "image/webp", "image/gif", "application/octet-stream");
+
     @Override
     protected void validPicture(Object inputSource) {
         String fileUrl = (String) inputSource;
@@ -32,59 +57,110 @@ public class UrlPictureUpload extends PictureUploadTemplate{
         } catch (MalformedURLException e) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件地址格式不正确");
         }
-        // 2、校验图片地址协议
+        // 2、校验图片地址协议（类型和大小在读取时校验，不再单独发送 HEAD 请求）
         ThrowUtils.throwIf(!fileUrl.startsWith("http://") && !fileUrl.startsWith("https://"),
                 ErrorCode.PARAMS_ERROR, "仅支持 HTTP 或 HTTPS 协议的文件地址");
-        // 发送 HEAD 请求获取图片信息
-        try (HttpResponse response = HttpUtil.createRequest(Method.HEAD, fileUrl).execute()) {
-            // 3、校验图片是否存在
-            if (response.getStatus() != HttpStatus.HTTP_OK) {
-                return;
-            }
-            // 4、校验图片格式
-            String contentType = response.header("Content-Type");
-            if (StrUtil.isNotBlank(contentType)) {
-                final List<String> ALLOW_FORMAT_LIST = Arrays.asList("image/jpeg", "image/jpg", "image/png", "image/webp");
-                ThrowUtils.throwIf(!ALLOW_FORMAT_LIST.contains(contentType.toLowerCase()), ErrorCode.PARAMS_ERROR, "文件格式错误");
-            }
-            // 5、校验图片大小
-            String contentLengthStr = response.header("Content-Length");
-            if (StrUtil.isNotBlank(contentLengthStr)) {
-                long contentLength = Long.parseLong(contentLengthStr);
-                final long TWO_MB = 2 * 1024 * 1024L;
-                ThrowUtils.throwIf(contentLength > TWO_MB, ErrorCode.PARAMS_ERROR, "文件大小不能超过2MB");
-            }
-        }
     }
 
     @Override
     protected String getOriginFilename(Object inputSource) {
+        // 只用于图片名称，上传地址的后缀以文件内容为准
+        return FileUtil.mainName((String) inputSource) + ".jpg";
+    }
+
+    @Override
+    protected PictureSource openPictureSource(Object inputSource) throws IOException {
         String fileUrl = (String) inputSource;
-        String originalFilename = FileUtil.mainName(fileUrl);
-        // 尝试从 Content-Type 中获取文件后缀
-        try (HttpResponse response = HttpUtil.createRequest(Method.HEAD, fileUrl).execute()) {
-            String contentType = response.header("Content-Type");
-            if (StrUtil.isNotBlank(contentType)) {
-                switch (contentType.toLowerCase()) {
-                    case "image/jpeg":
-                    case "image/jpg":
-                        return originalFilename + ".jpg";
-                    case "image/png":
-                        return originalFilename + ".png";
-                    case "image/webp":
-                        return originalFilename + ".webp";
-                }
+        HttpResponse response;
+        try {
+            response = HttpUtil.createGet(fileUrl)
+                    .setConnectionTimeout(CONNECT_TIMEOUT_MILLIS)
+                    .setReadTimeout(READ_TIMEOUT_MILLIS)
+                    .setMaxRedirectCount(MAX_REDIRECT_COUNT)
+                    .executeAsync();
+        } catch (IORuntimeException e) {
+            log.warn("文件地址无法访问, fileUrl = {}", fileUrl, e);
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件地址无法访问");
+        }
+        try {
+            // 1、校验响应状态和类型
+            ThrowUtils.throwIf(response.getStatus() != HttpStatus.HTTP_OK, ErrorCode.PARAMS_ERROR, "文件地址无法访问");
+            String contentType = StrUtil.subBefore(StrUtil.nullToEmpty(response.header("Content-Type")), ";", false)
+                    .trim().toLowerCase();
+            ThrowUtils.throwIf(StrUtil.isNotBlank(contentType) && !ALLOW_CONTENT_TYPE_LIST.contains(contentType),
+                    ErrorCode.PARAMS_ERROR, "文件格式错误");
+            String declaredFormat = getDeclaredFormat(contentType);
+            String originFilename = FileUtil.mainName(fileUrl) + "." + (declaredFormat == null ? "jpg" : declaredFormat);
+            // 2、声明了长度时直接流式读取，由校验输入流保证实际长度与声明一致
+            long contentLength = response.contentLength();
+            ThrowUtils.throwIf(contentLength > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+            if (contentLength > 0) {
+                return new PictureSource(response.bodyStream(), contentLength, originFilename, declaredFormat);
+            }
+            // 3、未声明长度（分块传输）时按上限读取到内存，超出上限立即中断
+            byte[] content;
+            try (InputStream inputStream = response.bodyStream()) {
+                content = readWithBudget(inputStream, MAX_PICTURE_SIZE);
+            } finally {
+                response.close();
             }
-        } catch (Exception e) {
-            log.error("Failed to get Content-Type from URL: {}", fileUrl, e);
+            return new PictureSource(new ByteArrayInputStream(content), content.length, originFilename, declaredFormat);
+        } catch (RuntimeException e) {
+            response.close();
+            throw e;
         }
-        // 如果无法从 Content-Type 中获取后缀，则使用默认的 .jpg 后缀
-        return originalFilename + ".jpg";
     }
 
     @Override
-    protected void processFile(Object inputSource, File file) {
-        String fileUrl = (String) inputSource;
-        HttpUtil.downloadFile(fileUrl, file);
+    protected void processFile(Object inputSource, File file) throws IOException {
+        // openPictureSource 总是返回输入流，这里只作为兜底
+        PictureSource pictureSource = openPictureSource(inputSource);
+        try (InputStream inputStream = pictureSource.getInputStream()) {
+            FileUtil.writeFromStream(inputStream, file, false);
+        }
+    }
+
+    /**
+     * 按字节上限读取全部内容，读到足够的字节后先校验魔数
+     *
+     * @param inputStream 输入流
+     * @param maxBytes    字节上限
+     * @return 内容
+     */
+    private byte[] readWithBudget(InputStream inputStream, long maxBytes) throws IOException {
+        byte[] buffer = new byte[(int) maxBytes + 1];
+        int size = 0;
+        boolean formatChecked = false;
+        int n;
+        while (size < buffer.length && (n = inputStream.read(buffer, size, buffer.length - size)) != -1) {
+            size += n;
+            if (!formatChecked && size >= ImageHeaderParser.MAGIC_LENGTH) {
+                ThrowUtils.throwIf(ImageHeaderParser.detectFormat(buffer, size) == null,
+                        ErrorCode.PARAMS_ERROR, "文件类型错误");
+                formatChecked = true;
+            }
+        }
+        ThrowUtils.throwIf(size > maxBytes, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+        ThrowUtils.throwIf(size == 0, ErrorCode.PARAMS_ERROR, "文件内容为空");
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * 根据 Content-Type 确定声明的图片格式，未声明或为 application/octet-stream 时返回 null（以文件内容为准）
+     */
+    private static String getDeclaredFormat(String contentType) {
+        switch (contentType) {
+            case "image/jpeg":
+            case "image/jpg":
+                return "jpeg";
+            case "image/png":
+                return "png";
+            case "image/webp":
+                return "webp";
+            case "image/gif":
+                return "gif";
+            default:
+                return null;
+        }
     }
 }
@@ -6,7 +6,9 @@ import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +20,67 @@ public interface PictureMapper extends BaseMapper<Picture> {
     @Delete("DELETE FROM picture WHERE `isDelete` = 1")
     int deleteDeleted();
 
+    /**
+     * 物理删除指定的已逻辑删除图片
+     *
+     * @param idList 图片 id 列表
+     * @return 删除条数
+     */
+    int deleteDeletedByIds(@Param("idList") List<Long> idList);
+
+    /**
+     * 按 id 游标分批查询图片的索引字段（用于重建内存索引）
+     *
+     * @param lastId 上一批最后一条 id
+     * @param limit  每批条数
+     * @return 图片列表
+     */
+    @Select("SELECT id, spaceId, name, introduction, reviewStatus, picColor, picPalette, picHash FROM picture " +
+            "WHERE `isDelete` = 0 AND id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<Picture> selectIndexFieldsAfterId(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * 查询指定时间之后有变更的图片的索引字段（包含已逻辑删除的图片，用于增量同步内存索引）
+     *
+     * @param updateTime 起始更新时间
+     * @return 图片列表
+     */
+    @Select("SELECT id, spaceId, name, introduction, reviewStatus, picColor, picPalette, picHash, isDelete FROM picture " +
+            "WHERE updateTime >= #{updateTime}")
+    List<Picture> selectIndexFieldsUpdatedSince(@Param("updateTime") Date updateTime);
+
+    /**
+     * 按 id 游标分批查询图片的标签（用于重建标签统计）
+     *
+     * @param lastId 上一批最后一条 id
+     * @param limit  每批条数
+     * @return 图片列表（只包含 id、spaceId、tags）
+     */
+    @Select("SELECT id, spaceId, tags FROM picture " +
+            "WHERE `isDelete` = 0 AND id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<Picture> selectTagsAfterId(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * 按 id 游标分批查询还没有感知哈希的图片（用于补算感知哈希）
+     *
+     * @param lastId 上一批最后一条 id
+     * @param limit  每批条数
+     * @return 图片列表（只包含 id、spaceId、url、thumbnailUrl、contentHash）
+     */
+    @Select("SELECT id, spaceId, url, thumbnailUrl, contentHash FROM picture " +
+            "WHERE `isDelete` = 0 AND picHash IS NULL AND id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<Picture> selectWithoutPicHashAfterId(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * 更新图片的感知哈希
+     *
+     * @param id      图片 id
+     * @param picHash 感知哈希
+     * @return 更新条数
+     */
+    @Update("UPDATE picture SET picHash = #{picHash} WHERE id = #{id}")
+    int updatePicHash(@Param("id") long id, @Param("picHash") long picHash);
+
 
     /**
      * 查询图片分类统计
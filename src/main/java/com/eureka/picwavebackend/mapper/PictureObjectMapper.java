@@ -0,0 +1,50 @@
+package com.eureka.picwavebackend.mapper;
+
+import com.eureka.picwavebackend.model.entity.PictureObject;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+/**
+* @author Eureka
+*/
+public interface PictureObjectMapper extends BaseMapper<PictureObject> {
+
+    /**
+     * 增加引用（引用数已归零、即将删除的对象不能再被引用）
+     *
+     * @param contentHash 原图内容摘要
+     * @return 更新条数
+     */
+    @Update("UPDATE picture_object SET refCount = refCount + 1 WHERE contentHash = #{contentHash} AND refCount > 0")
+    int incrementRefCount(@Param("contentHash") String contentHash);
+
+    /**
+     * 减少引用
+     *
+     * @param contentHash 原图内容摘要
+     * @return 更新条数
+     */
+    @Update("UPDATE picture_object SET refCount = refCount - 1 WHERE contentHash = #{contentHash} AND refCount > 0")
+    int decrementRefCount(@Param("contentHash") String contentHash);
+
+    /**
+     * 补写存储对象的感知哈希（之后复用该对象的上传直接带上感知哈希）
+     *
+     * @param contentHash 原图内容摘要
+     * @param picHash     感知哈希
+     * @return 更新条数
+     */
+    @Update("UPDATE picture_object SET picHash = #{picHash} WHERE contentHash = #{contentHash} AND picHash IS NULL")
+    int updatePicHash(@Param("contentHash") String contentHash, @Param("picHash") long picHash);
+
+    /**
+     * 删除引用数已归零的对象
+     *
+     * @param contentHash 原图内容摘要
+     * @return 删除条数
+     */
+    @Delete("DELETE FROM picture_object WHERE contentHash = #{contentHash} AND refCount = 0")
+    int deleteUnreferenced(@Param("contentHash") String contentHash);
+}
@@ -0,0 +1,19 @@
+package com.eureka.picwavebackend.mapper;
+
+import com.eureka.picwavebackend.model.entity.PictureTag;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+
+/**
+* @author Eureka
+*/
+public interface PictureTagMapper extends BaseMapper<PictureTag> {
+
+    /**
+     * 删除已逻辑删除图片的标签关联（图片物理删除前调用）
+     *
+     * @return 删除条数
+     */
+    @Delete("DELETE FROM picture_tag WHERE pictureId IN (SELECT id FROM picture WHERE `isDelete` = 1)")
+    int deleteOfDeletedPicture();
+}
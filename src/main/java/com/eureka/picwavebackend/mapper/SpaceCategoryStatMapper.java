@@ -0,0 +1,34 @@
+package com.eureka.picwavebackend.mapper;
+
+import com.eureka.picwavebackend.model.entity.SpaceCategoryStat;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+* @author Eureka
+*/
+public interface SpaceCategoryStatMapper extends BaseMapper<SpaceCategoryStat> {
+
+    /**
+     * 累加分类统计增量（记录不存在时以增量作为初始值插入）
+     *
+     * @param delta 统计增量（数量和大小为增减值）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO space_category_stat (spaceId, category, totalCount, totalSize) " +
+            "VALUES (#{spaceId}, #{category}, #{totalCount}, #{totalSize}) " +
+            "ON DUPLICATE KEY UPDATE totalCount = totalCount + #{totalCount}, totalSize = totalSize + #{totalSize}")
+    int upsertDelta(SpaceCategoryStat delta);
+
+    /**
+     * 按分类汇总所有空间（含公共图库）的统计
+     *
+     * @return 分类统计列表
+     */
+    @Select("SELECT category, SUM(totalCount) AS totalCount, SUM(totalSize) AS totalSize " +
+            "FROM space_category_stat GROUP BY category HAVING SUM(totalCount) > 0")
+    List<SpaceCategoryStat> sumAllGroupByCategory();
+}
@@ -0,0 +1,35 @@
+package com.eureka.picwavebackend.mapper;
+
+import com.eureka.picwavebackend.model.entity.SpaceStat;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+
+/**
+* @author Eureka
+*/
+public interface SpaceStatMapper extends BaseMapper<SpaceStat> {
+
+    /**
+     * 累加统计增量（记录不存在时以增量作为初始值插入）
+     *
+     * @param delta 统计增量（各字段为增减值）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO space_stat (spaceId, totalCount, totalSize, smallCount, mediumCount, largeCount, hugeCount) " +
+            "VALUES (#{spaceId}, #{totalCount}, #{totalSize}, #{smallCount}, #{mediumCount}, #{largeCount}, #{hugeCount}) " +
+            "ON DUPLICATE KEY UPDATE totalCount = totalCount + #{totalCount}, totalSize = totalSize + #{totalSize}, " +
+            "smallCount = smallCount + #{smallCount}, mediumCount = mediumCount + #{mediumCount}, " +
+            "largeCount = largeCount + #{largeCount}, hugeCount = hugeCount + #{hugeCount}")
+    int upsertDelta(SpaceStat delta);
+
+    /**
+     * 汇总所有空间（含公共图库）的统计
+     *
+     * @return 汇总统计，没有记录时各字段为 null
+     */
+    @Select("SELECT SUM(totalCount) AS totalCount, SUM(totalSize) AS totalSize, SUM(smallCount) AS smallCount, " +
+            "SUM(mediumCount) AS mediumCount, SUM(largeCount) AS largeCount, SUM(hugeCount) AS hugeCount " +
+            "FROM space_stat")
+    SpaceStat sumAll();
+}
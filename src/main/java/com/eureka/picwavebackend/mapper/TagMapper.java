@@ -0,0 +1,11 @@
+package com.eureka.picwavebackend.mapper;
+
+import com.eureka.picwavebackend.model.entity.Tag;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+* @author Eureka
+*/
+public interface TagMapper extends BaseMapper<Tag> {
+
+}
@@ -49,4 +49,19 @@ public class UploadPictureResult {
      * 图片主色调
      */
     private String picColor;
+
+    /**
+     * 图片主色调色板（JSON 数组）
+     */
+    private String picPalette;
+
+    /**
+     * 原图内容摘要（SHA-256），登记为图片存储对象时有值
+     */
+    private String contentHash;
+
+    /**
+     * 感知哈希（64 位），本地无法解码时为空
+     */
+    private Long picHash;
 }
@@ -18,5 +18,15 @@ public class CreatePictureOutPaintingTaskRequest implements Serializable {
      */
     private CreateOutPaintingTaskRequest.Parameters parameters;
 
+    /**
+     * 任务成功后是否由服务端自动保存结果图片（保存到原图所在空间）
+     */
+    private Boolean autoSave;
+
+    /**
+     * 自动保存时是否替换原图（否则新增一张图片并关联原图）
+     */
+    private Boolean replaceSource;
+
     private static final long serialVersionUID = 1L;
 }
@@ -109,4 +109,9 @@ public class PictureQueryRequest extends PageRequest implements Serializable {
      */
     private Date endEditTime;
 
+    /**
+     * 游标（游标分页使用，首页为空，后续传入上一页返回的 nextCursor）
+     */
+    private String cursor;
+
 }
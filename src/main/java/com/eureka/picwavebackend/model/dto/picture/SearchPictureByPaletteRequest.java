@@ -0,0 +1,22 @@
+package com.eureka.picwavebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class SearchPictureByPaletteRequest implements Serializable {
+
+    /**
+     * 目标颜色列表（0xRRGGBB 或 #RRGGBB），图片需同时包含这些颜色
+     */
+    private List<String> colorList;
+
+    /**
+     * 空间 id，为空表示公共图库
+     */
+    private Long spaceId;
+
+    private static final long serialVersionUID = 1L;
+}
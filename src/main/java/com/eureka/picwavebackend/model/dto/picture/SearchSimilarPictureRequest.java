@@ -0,0 +1,21 @@
+package com.eureka.picwavebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class SearchSimilarPictureRequest implements Serializable {
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 最大汉明距离（0 ~ 16，越小越相似，不传时使用默认值；0 ~ 4 可视为近似重复）
+     */
+    private Integer maxDistance;
+
+    private static final long serialVersionUID = 1L;
+}
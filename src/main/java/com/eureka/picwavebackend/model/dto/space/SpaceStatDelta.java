@@ -0,0 +1,200 @@
+package com.eureka.picwavebackend.model.dto.space;
+
+import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.entity.SpaceCategoryStat;
+import com.eureka.picwavebackend.model.entity.SpaceStat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 空间统计增量
+ * 汇总一次图片变更对各空间统计（含标签使用次数）的影响，同一空间（分类、标签）只保留一条增量；
+ * 按空间 id、分类有序保存，写入时加锁顺序一致，避免并发事务互相死锁
+ */
+public class SpaceStatDelta {
+
+    /**
+     * 公共图库在统计表中的空间 id
+     */
+    public static final long PUBLIC_SPACE_ID = 0L;
+
+    /**
+     * 空间 id -> 统计增量
+     */
+    private final Map<Long, SpaceStat> spaceStatMap = new TreeMap<>();
+
+    /**
+     * 空间 id -> 分类 -> 分类统计增量
+     */
+    private final Map<Long, Map<String, SpaceCategoryStat>> categoryStatMap = new TreeMap<>();
+
+    /**
+     * 空间 id -> 标签名称 -> 使用次数增量
+     */
+    private final Map<Long, Map<String, Long>> tagCountMap = new TreeMap<>();
+
+    /**
+     * 新增图片
+     *
+     * @param picture 图片（需包含 spaceId、category、picSize、tags）
+     * @return 当前增量
+     */
+    public SpaceStatDelta add(Picture picture) {
+        accumulate(picture.getSpaceId(), picture.getCategory(), picture.getPicSize(), 1);
+        accumulateTags(picture.getSpaceId(), picture.getTags(), 1);
+        return this;
+    }
+
+    /**
+     * 删除图片
+     *
+     * @param picture 图片（需包含 spaceId、category、picSize、tags）
+     * @return 当前增量
+     */
+    public SpaceStatDelta remove(Picture picture) {
+        accumulate(picture.getSpaceId(), picture.getCategory(), picture.getPicSize(), -1);
+        accumulateTags(picture.getSpaceId(), picture.getTags(), -1);
+        return this;
+    }
+
+    /**
+     * 更新图片，新图片中为空的字段视为未修改（与 updateById 一致）
+     *
+     * @param oldPicture 更新前的图片
+     * @param newPicture 更新的字段
+     * @return 当前增量
+     */
+    public SpaceStatDelta replace(Picture oldPicture, Picture newPicture) {
+        Long spaceId = ObjUtil.defaultIfNull(newPicture.getSpaceId(), oldPicture.getSpaceId());
+        String category = ObjUtil.defaultIfNull(newPicture.getCategory(), oldPicture.getCategory());
+        Long picSize = ObjUtil.defaultIfNull(newPicture.getPicSize(), oldPicture.getPicSize());
+        String tags = ObjUtil.defaultIfNull(newPicture.getTags(), oldPicture.getTags());
+        boolean sameSpace = ObjUtil.equals(spaceId, oldPicture.getSpaceId());
+        if (!sameSpace
+                || !ObjUtil.equals(normalizeCategory(category), normalizeCategory(oldPicture.getCategory()))
+                || !ObjUtil.equals(picSize, oldPicture.getPicSize())) {
+            accumulate(oldPicture.getSpaceId(), oldPicture.getCategory(), oldPicture.getPicSize(), -1);
+            accumulate(spaceId, category, picSize, 1);
+        }
+        if (!sameSpace || !ObjUtil.equals(tags, oldPicture.getTags())) {
+            accumulateTags(oldPicture.getSpaceId(), oldPicture.getTags(), -1);
+            accumulateTags(spaceId, tags, 1);
+        }
+        return this;
+    }
+
+    /**
+     * 获取空间统计增量（跳过相互抵消的增量）
+     */
+    public List<SpaceStat> getSpaceStatList() {
+        List<SpaceStat> spaceStatList = new ArrayList<>();
+        for (SpaceStat spaceStat : spaceStatMap.values()) {
+            if (spaceStat.getTotalCount() != 0 || spaceStat.getTotalSize() != 0
+                    || spaceStat.getSmallCount() != 0 || spaceStat.getMediumCount() != 0
+                    || spaceStat.getLargeCount() != 0 || spaceStat.getHugeCount() != 0) {
+                spaceStatList.add(spaceStat);
+            }
+        }
+        return spaceStatList;
+    }
+
+    /**
+     * 获取分类统计增量（跳过相互抵消的增量）
+     */
+    public List<SpaceCategoryStat> getCategoryStatList() {
+        List<SpaceCategoryStat> categoryStatList = new ArrayList<>();
+        for (Map<String, SpaceCategoryStat> map : categoryStatMap.values()) {
+            for (SpaceCategoryStat categoryStat : map.values()) {
+                if (categoryStat.getTotalCount() != 0 || categoryStat.getTotalSize() != 0) {
+                    categoryStatList.add(categoryStat);
+                }
+            }
+        }
+        return categoryStatList;
+    }
+
+    /**
+     * 获取标签使用次数增量（跳过相互抵消的增量）
+     *
+     * @return 空间 id -> 标签名称 -> 使用次数增量
+     */
+    public Map<Long, Map<String, Long>> getTagCountMap() {
+        Map<Long, Map<String, Long>> resultMap = new TreeMap<>();
+        tagCountMap.forEach((spaceId, countMap) -> countMap.forEach((tagName, count) -> {
+            if (count != 0) {
+                resultMap.computeIfAbsent(spaceId, key -> new TreeMap<>()).put(tagName, count);
+            }
+        }));
+        return resultMap;
+    }
+
+    /**
+     * 统计表中的分类（未分类为空字符串）
+     *
+     * @param category 图片分类
+     * @return 统计表中的分类
+     */
+    public static String normalizeCategory(String category) {
+        return category == null ? "" : category;
+    }
+
+    private void accumulateTags(Long spaceId, String tags, int sign) {
+        if (!JSONUtil.isTypeJSONArray(tags)) {
+            return;
+        }
+        long statSpaceId = spaceId == null ? PUBLIC_SPACE_ID : spaceId;
+        Map<String, Long> countMap = tagCountMap.computeIfAbsent(statSpaceId, key -> new TreeMap<>());
+        for (String tagName : JSONUtil.toList(tags, String.class)) {
+            if (StrUtil.isNotBlank(tagName)) {
+                countMap.merge(tagName, (long) sign, Long::sum);
+            }
+        }
+    }
+
+    private void accumulate(Long spaceId, String category, Long picSize, int sign) {
+        long statSpaceId = spaceId == null ? PUBLIC_SPACE_ID : spaceId;
+        long size = picSize == null ? 0 : picSize;
+        // 1、空间统计
+        SpaceStat spaceStat = spaceStatMap.computeIfAbsent(statSpaceId, key -> {
+            SpaceStat stat = new SpaceStat();
+            stat.setSpaceId(key);
+            stat.setTotalCount(0L);
+            stat.setTotalSize(0L);
+            stat.setSmallCount(0L);
+            stat.setMediumCount(0L);
+            stat.setLargeCount(0L);
+            stat.setHugeCount(0L);
+            return stat;
+        });
+        spaceStat.setTotalCount(spaceStat.getTotalCount() + sign);
+        spaceStat.setTotalSize(spaceStat.getTotalSize() + sign * size);
+        if (size < 100 * 1024) {
+            spaceStat.setSmallCount(spaceStat.getSmallCount() + sign);
+        } else if (size < 500 * 1024) {
+            spaceStat.setMediumCount(spaceStat.getMediumCount() + sign);
+        } else if (size < 1024 * 1024) {
+            spaceStat.setLargeCount(spaceStat.getLargeCount() + sign);
+        } else {
+            spaceStat.setHugeCount(spaceStat.getHugeCount() + sign);
+        }
+        // 2、分类统计
+        SpaceCategoryStat categoryStat = categoryStatMap
+                .computeIfAbsent(statSpaceId, key -> new TreeMap<>())
+                .computeIfAbsent(normalizeCategory(category), key -> {
+                    SpaceCategoryStat stat = new SpaceCategoryStat();
+                    stat.setSpaceId(statSpaceId);
+                    stat.setCategory(key);
+                    stat.setTotalCount(0L);
+                    stat.setTotalSize(0L);
+                    return stat;
+                });
+        categoryStat.setTotalCount(categoryStat.getTotalCount() + sign);
+        categoryStat.setTotalSize(categoryStat.getTotalSize() + sign * size);
+    }
+}
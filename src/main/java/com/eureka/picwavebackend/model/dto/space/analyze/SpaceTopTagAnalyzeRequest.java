@@ -0,0 +1,14 @@
+package com.eureka.picwavebackend.model.dto.space.analyze;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class SpaceTopTagAnalyzeRequest extends SpaceAnalyzeRequest {
+
+    /**
+     * 使用次数最多的前 N 个标签
+     */
+    private Integer topN = 20;
+}
@@ -126,6 +126,31 @@ public class Picture implements Serializable {
      */
     private String picColor;
 
+    /**
+     * 图片主色调色板（JSON 数组，包含颜色和占比）
+     */
+    private String picPalette;
+
+    /**
+     * 原图内容 SHA-256（对应图片存储对象，为空表示不参与去重）
+     */
+    private String contentHash;
+
+    /**
+     * 感知哈希（64 位，用于相似图片检索，为空表示尚未计算）
+     */
+    private Long picHash;
+
+    /**
+     * 来源图片 id（由扩图等 AI 编辑结果生成的图片，为空表示用户上传）
+     */
+    private Long sourcePictureId;
+
+    /**
+     * 来源 AI 任务 id（保存扩图等任务结果时去重，为空表示用户上传）
+     */
+    private String sourceTaskId;
+
     /**
      * 是否删除
      */
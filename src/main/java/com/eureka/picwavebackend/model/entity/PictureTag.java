@@ -0,0 +1,35 @@
+package com.eureka.picwavebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 图片标签关联
+ */
+@TableName(value ="picture_tag")
+@Data
+public class PictureTag {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 标签 id
+     */
+    private Long tagId;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+}
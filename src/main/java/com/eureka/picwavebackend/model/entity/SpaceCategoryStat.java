@@ -0,0 +1,37 @@
+package com.eureka.picwavebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 空间分类统计（spaceId 为 0 表示公共图库，category 为空字符串表示未分类）
+ */
+@TableName(value ="space_category_stat")
+@Data
+public class SpaceCategoryStat {
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 分类
+     */
+    private String category;
+
+    /**
+     * 图片数量
+     */
+    private Long totalCount;
+
+    /**
+     * 图片总大小
+     */
+    private Long totalSize;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+}
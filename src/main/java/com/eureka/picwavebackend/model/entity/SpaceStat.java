@@ -0,0 +1,55 @@
+package com.eureka.picwavebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 空间统计（spaceId 为 0 表示公共图库）
+ */
+@TableName(value ="space_stat")
+@Data
+public class SpaceStat {
+    /**
+     * 空间 id
+     */
+    @TableId(type = IdType.INPUT)
+    private Long spaceId;
+
+    /**
+     * 图片数量
+     */
+    private Long totalCount;
+
+    /**
+     * 图片总大小
+     */
+    private Long totalSize;
+
+    /**
+     * 小于 100KB 的图片数量
+     */
+    private Long smallCount;
+
+    /**
+     * 100KB-500KB 的图片数量
+     */
+    private Long mediumCount;
+
+    /**
+     * 500KB-1MB 的图片数量
+     */
+    private Long largeCount;
+
+    /**
+     * 大于等于 1MB 的图片数量
+     */
+    private Long hugeCount;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+}
@@ -0,0 +1,38 @@
+package com.eureka.picwavebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+@Getter
+public enum ImageProcessorTypeEnum {
+
+    COS("数据万象", "cos"),
+    LOCAL("本地处理", "local");
+
+    private final String text;
+
+    private final String value;
+
+    ImageProcessorTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static ImageProcessorTypeEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (ImageProcessorTypeEnum anEnum : ImageProcessorTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.eureka.picwavebackend.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 图片变更类型枚举
+ */
+@Getter
+public enum PictureChangeTypeEnum {
+    ADD("新增", "add"),
+    UPDATE("更新", "update"),
+    DELETE("删除", "delete"),
+    REVIEW("审核", "review");
+
+    private final String text;
+    private final String value;
+
+    PictureChangeTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
@@ -0,0 +1,40 @@
+package com.eureka.picwavebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+@Getter
+public enum PictureCrawlJobStatusEnum {
+
+    WAITING("排队中", "waiting"),
+    RUNNING("抓取中", "running"),
+    SUCCEEDED("成功", "succeeded"),
+    FAILED("失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    PictureCrawlJobStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static PictureCrawlJobStatusEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (PictureCrawlJobStatusEnum anEnum : PictureCrawlJobStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.eureka.picwavebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+@Getter
+public enum PictureUploadTaskStatusEnum {
+
+    WAITING("排队中", "waiting"),
+    UPLOADING("上传中", "uploading"),
+    SAVING("保存中", "saving"),
+    SUCCEEDED("成功", "succeeded"),
+    FAILED("失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    PictureUploadTaskStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static PictureUploadTaskStatusEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (PictureUploadTaskStatusEnum anEnum : PictureUploadTaskStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
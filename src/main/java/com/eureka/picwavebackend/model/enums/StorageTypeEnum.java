@@ -0,0 +1,38 @@
+package com.eureka.picwavebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+@Getter
+public enum StorageTypeEnum {
+
+    COS("腾讯云 COS", "cos"),
+    LOCAL("本地磁盘", "local");
+
+    private final String text;
+
+    private final String value;
+
+    StorageTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static StorageTypeEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (StorageTypeEnum anEnum : StorageTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+package com.eureka.picwavebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+@Data
+public class PictureCrawlJobVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务 id
+     */
+    private String jobId;
+
+    /**
+     * 提交任务的用户 id
+     */
+    private Long userId;
+
+    /**
+     * 搜索词
+     */
+    private String searchText;
+
+    /**
+     * 任务状态：waiting/running/succeeded/failed
+     */
+    private String status;
+
+    /**
+     * 目标数量
+     */
+    private Integer targetCount;
+
+    /**
+     * 已抓取页数
+     */
+    private Integer pageCount;
+
+    /**
+     * 去重后发现的图片地址数量
+     */
+    private Integer fetchedCount;
+
+    /**
+     * 上传成功数量
+     */
+    private Integer uploadedCount;
+
+    /**
+     * 内容重复跳过数量
+     */
+    private Integer duplicateCount;
+
+    /**
+     * 失败数量
+     */
+    private Integer failedCount;
+
+    /**
+     * 入库数量
+     */
+    private Integer savedCount;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+}
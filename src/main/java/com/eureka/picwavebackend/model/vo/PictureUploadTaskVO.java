@@ -0,0 +1,47 @@
+package com.eureka.picwavebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+@Data
+public class PictureUploadTaskVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务 id
+     */
+    private String taskId;
+
+    /**
+     * 提交任务的用户 id
+     */
+    private Long userId;
+
+    /**
+     * 任务状态：waiting/uploading/saving/succeeded/failed
+     */
+    private String status;
+
+    /**
+     * 上传成功的图片
+     */
+    private PictureVO picture;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+}
@@ -113,6 +113,11 @@ public class PictureVO implements Serializable {
      * 图片主色调
      */
     private String picColor;
+
+    /**
+     * 来源图片 id（由扩图等 AI 编辑结果生成的图片）
+     */
+    private Long sourcePictureId;
   
     /**  
      * 封装类转对象
@@ -0,0 +1,34 @@
+package com.eureka.picwavebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.eureka.picwavebackend.model.entity.PictureObject;
+
+/**
+ * @author Eureka
+ */
+public interface PictureObjectService extends IService<PictureObject> {
+
+    /**
+     * 按内容摘要引用已存在的对象（引用数加一）
+     *
+     * @param contentHash 原图内容摘要
+     * @return 引用成功时返回对象，不存在或即将删除时返回 null
+     */
+    PictureObject acquire(String contentHash);
+
+    /**
+     * 登记新处理的对象（引用数为一）
+     *
+     * @param pictureObject 图片存储对象
+     * @return 是否登记成功，相同内容已被并发登记时返回 false
+     */
+    boolean register(PictureObject pictureObject);
+
+    /**
+     * 释放一次引用
+     *
+     * @param contentHash 原图内容摘要
+     * @return 是否已无引用（调用方需删除存储中的文件）
+     */
+    boolean release(String contentHash);
+}
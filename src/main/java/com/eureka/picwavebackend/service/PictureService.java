@@ -3,6 +3,8 @@ package com.eureka.picwavebackend.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.eureka.picwavebackend.api.aliyunai.model.CreateOutPaintingTaskResponse;
+import com.eureka.picwavebackend.common.CursorPage;
+import com.eureka.picwavebackend.model.dto.file.UploadPictureResult;
 import com.eureka.picwavebackend.model.dto.picture.*;
 import com.eureka.picwavebackend.model.entity.Picture;
 import com.baomidou.mybatisplus.extension.service.IService;
@@ -26,13 +28,60 @@ public interface PictureService extends IService<Picture> {
                             User loginUser);
 
     /**
-     * 批量抓取和创建图片
+     * 上传图片文件（校验空间额度，处理并保存到对象存储，不写数据库）
      *
-     * @param pictureUploadByBatchRequest 图片上传批量请求
-     * @param loginUser                   登录用户
-     * @return 上传成功图片数量
+     * @param inputSource          输入源
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @return 上传结果
+     */
+    UploadPictureResult uploadPictureFile(Object inputSource,
+                                          PictureUploadRequest pictureUploadRequest,
+                                          User loginUser);
+
+    /**
+     * 保存上传的图片记录（新增或替换，并更新空间额度）
+     *
+     * @param uploadPictureResult  上传结果
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @return 图片
+     */
+    Picture saveUploadedPicture(UploadPictureResult uploadPictureResult,
+                                PictureUploadRequest pictureUploadRequest,
+                                User loginUser);
+
+    /**
+     * 保存上传的图片记录并关联来源图片和任务（用于保存扩图等 AI 编辑结果）
+     *
+     * @param uploadPictureResult  上传结果
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @param sourcePictureId      来源图片 id，为空表示不关联
+     * @param sourceTaskId         来源任务 id，为空表示不关联（同一任务只能保存一张图片）
+     * @return 图片
+     */
+    Picture saveUploadedPicture(UploadPictureResult uploadPictureResult,
+                                PictureUploadRequest pictureUploadRequest,
+                                User loginUser,
+                                Long sourcePictureId,
+                                String sourceTaskId);
+
+    /**
+     * 图片待审核时发送审核通知
+     *
+     * @param picture 图片
      */
-    Integer uploadPictureByBatch(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser);
+    void sendPictureReviewMessage(Picture picture);
+
+    /**
+     * 批量保存上传的图片记录（仅公共图库新增，一个事务内批量插入）
+     *
+     * @param uploadPictureResultList 上传结果列表（图片名称取上传结果中的名称）
+     * @param loginUser               登录用户
+     * @return 图片列表
+     */
+    List<Picture> saveUploadedPictureBatch(List<UploadPictureResult> uploadPictureResultList, User loginUser);
 
     /**
      * 删除图片
@@ -43,7 +92,7 @@ public interface PictureService extends IService<Picture> {
     void deletePicture(long pictureId, User loginUser);
 
     /**
-     * 清除旧图片
+     * 清除旧图片（释放存储对象的引用，没有其他图片引用时删除文件）
      *
      * @param oldPicture 旧图片
      */
@@ -57,6 +106,14 @@ public interface PictureService extends IService<Picture> {
      */
     void editPicture(PictureEditRequest pictureEditRequest, User loginUser);
 
+    /**
+     * 更新图片（仅管理员可用）
+     *
+     * @param pictureUpdateRequest 图片更新请求
+     * @param loginUser            登录用户
+     */
+    void updatePicture(PictureUpdateRequest pictureUpdateRequest, User loginUser);
+
     /**
      * 批量编辑图片
      *
@@ -83,6 +140,14 @@ public interface PictureService extends IService<Picture> {
      */
     QueryWrapper<Picture> getQueryWrapper(PictureQueryRequest pictureQueryRequest);
 
+    /**
+     * 分页查询图片（带搜索词时按相关度排序，命中过多时由倒排索引分页）
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @return 分页对象
+     */
+    Page<Picture> pagePicture(PictureQueryRequest pictureQueryRequest);
+
     /**
      * 获取图片（包装类）
      *
@@ -99,6 +164,22 @@ public interface PictureService extends IService<Picture> {
      */
     Page<PictureVO> getPictureVOPage(Page<Picture> picturePage);
 
+    /**
+     * 填充图片作者信息（优先读用户缓存）
+     *
+     * @param pictureVOList 脱敏图片列表
+     */
+    void fillPictureVOUser(List<PictureVO> pictureVOList);
+
+    /**
+     * 游标分页获取图片列表（包装类）
+     * 按 (sortField, id) 定位下一页，不执行 COUNT 查询
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @return 游标分页对象
+     */
+    CursorPage<PictureVO> listPictureVOByCursor(PictureQueryRequest pictureQueryRequest);
+
     /**
      * 根据颜色搜索图片（包装类）
      *
@@ -109,6 +190,23 @@ public interface PictureService extends IService<Picture> {
      */
     List<PictureVO> searchPictureByColor(Long spaceId, String picColor, User loginUser);
 
+    /**
+     * 按色板搜索同时包含多种颜色的图片（空间权限由调用方校验）
+     *
+     * @param spaceId   空间 id，为空表示公共图库（只查过审图片）
+     * @param colorList 目标颜色列表
+     * @return 按匹配度降序的脱敏图片列表
+     */
+    List<PictureVO> searchPictureByPalette(Long spaceId, List<String> colorList);
+
+    /**
+     * 搜索相似图片（在图片所在的空间或公共图库中按感知哈希检索）
+     *
+     * @param searchSimilarPictureRequest 搜索相似图片请求
+     * @return 按相似度降序的脱敏图片列表（不含图片本身）
+     */
+    List<PictureVO> searchSimilarPicture(SearchSimilarPictureRequest searchSimilarPictureRequest);
+
     /**
      * 校验图片
      *
@@ -0,0 +1,20 @@
+package com.eureka.picwavebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.eureka.picwavebackend.model.entity.PictureTag;
+
+import java.util.List;
+
+/**
+ * @author Eureka
+ */
+public interface PictureTagService extends IService<PictureTag> {
+
+    /**
+     * 覆盖图片的标签关联（需在图片更新的事务中调用）
+     *
+     * @param pictureIdList 图片 id 列表
+     * @param tagNameList   标签名称列表，为空表示清空标签
+     */
+    void updatePictureTags(List<Long> pictureIdList, List<String> tagNameList);
+}
@@ -50,6 +50,15 @@ public interface SpaceAnalyzeService {
      */
     List<SpaceTagAnalyzeResponse> getSpaceTagAnalyze(SpaceTagAnalyzeRequest spaceTagAnalyzeRequest, User loginUser);
 
+    /**
+     * 获取空间热门标签（标签云）
+     *
+     * @param spaceTopTagAnalyzeRequest 空间热门标签分析请求
+     * @param loginUser                 登录用户
+     * @return 使用次数最多的前 N 个标签，按使用次数降序
+     */
+    List<SpaceTagAnalyzeResponse> getSpaceTopTagAnalyze(SpaceTopTagAnalyzeRequest spaceTopTagAnalyzeRequest, User loginUser);
+
     /**
      * 获取空间大小分析
      *
@@ -0,0 +1,44 @@
+package com.eureka.picwavebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.eureka.picwavebackend.model.dto.space.SpaceStatDelta;
+import com.eureka.picwavebackend.model.entity.SpaceCategoryStat;
+import com.eureka.picwavebackend.model.entity.SpaceStat;
+
+import java.util.List;
+
+/**
+ * @author Eureka
+ */
+public interface SpaceStatService extends IService<SpaceStat> {
+
+    /**
+     * 写入统计增量（需在图片变更的事务中调用）
+     *
+     * @param spaceStatDelta 统计增量
+     */
+    void applyDelta(SpaceStatDelta spaceStatDelta);
+
+    /**
+     * 删除空间的统计（需在空间删除的事务中调用）
+     *
+     * @param spaceId 空间 id
+     */
+    void removeSpaceStat(long spaceId);
+
+    /**
+     * 获取空间统计
+     *
+     * @param spaceId 空间 id（公共图库为 0），为空表示汇总所有空间
+     * @return 空间统计，没有图片时各项为 0
+     */
+    SpaceStat getSpaceStat(Long spaceId);
+
+    /**
+     * 获取空间分类统计
+     *
+     * @param spaceId 空间 id（公共图库为 0），为空表示汇总所有空间
+     * @return 图片数量大于 0 的分类统计列表
+     */
+    List<SpaceCategoryStat> listCategoryStat(Long spaceId);
+}
@@ -0,0 +1,30 @@
+package com.eureka.picwavebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.eureka.picwavebackend.model.entity.Tag;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Eureka
+ */
+public interface TagService extends IService<Tag> {
+
+    /**
+     * 获取标签 id，不存在的标签自动创建
+     *
+     * @param tagNameList 标签名称列表
+     * @return 标签 id 列表（已去重）
+     */
+    List<Long> getOrCreateTagIdList(List<String> tagNameList);
+
+    /**
+     * 查询已存在标签的 id
+     *
+     * @param tagNameCollection 标签名称
+     * @return 标签名称 -> 标签 id（不存在的标签不包含在内）
+     */
+    Map<String, Long> getTagIdMap(Collection<String> tagNameCollection);
+}
@@ -0,0 +1,58 @@
+package com.eureka.picwavebackend.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.eureka.picwavebackend.mapper.PictureObjectMapper;
+import com.eureka.picwavebackend.model.entity.PictureObject;
+import com.eureka.picwavebackend.service.PictureObjectService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+/**
+ * 图片存储对象服务
+ * 相同内容的图片共用一份存储文件，每条图片记录持有一次引用；
+ * 引用数只在大于 0 时增减，归零后不能再被引用，由最后一个释放者删除记录和存储中的文件
+ *
+ * @author Eureka
+ */
+@Slf4j
+@Service
+public class PictureObjectServiceImpl extends ServiceImpl<PictureObjectMapper, PictureObject>
+        implements PictureObjectService {
+
+    @Override
+    public PictureObject acquire(String contentHash) {
+        if (StrUtil.isBlank(contentHash)) {
+            return null;
+        }
+        if (baseMapper.incrementRefCount(contentHash) == 0) {
+            return null;
+        }
+        return this.lambdaQuery().eq(PictureObject::getContentHash, contentHash).one();
+    }
+
+    @Override
+    public boolean register(PictureObject pictureObject) {
+        pictureObject.setRefCount(1);
+        try {
+            return this.save(pictureObject);
+        } catch (DuplicateKeyException e) {
+            log.info("图片存储对象已被并发登记, contentHash = {}", pictureObject.getContentHash());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean release(String contentHash) {
+        if (StrUtil.isBlank(contentHash)) {
+            return true;
+        }
+        if (baseMapper.decrementRefCount(contentHash) == 0) {
+            // 没有对应的对象记录，文件不受引用计数管理
+            return true;
+        }
+        // 只有把引用数减到 0 的释放者才能删掉记录
+        return baseMapper.deleteUnreferenced(contentHash) > 0;
+    }
+}
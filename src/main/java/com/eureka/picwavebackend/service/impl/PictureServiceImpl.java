@@ -1,6 +1,7 @@
 package com.eureka.picwavebackend.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.codec.Base64;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.ObjUtil;
 import cn.hutool.core.util.ObjectUtil;
@@ -13,43 +14,53 @@ import com.eureka.picwavebackend.api.aliyunai.AliYunAiApi;
 
 import com.eureka.picwavebackend.api.aliyunai.model.CreateOutPaintingTaskRequest;
 import com.eureka.picwavebackend.api.aliyunai.model.CreateOutPaintingTaskResponse;
-import com.eureka.picwavebackend.config.CosClientConfig;
+import com.eureka.picwavebackend.common.CursorPage;
 import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.exception.ThrowUtils;
-import com.eureka.picwavebackend.manager.CosManager;
+import com.eureka.picwavebackend.manager.cache.EntityCacheManager;
+import com.eureka.picwavebackend.manager.cache.IdBloomFilterManager;
 import com.eureka.picwavebackend.manager.dingding.CustomRobot;
+import com.eureka.picwavebackend.manager.event.PictureChangeEvent;
+import com.eureka.picwavebackend.manager.image.PerceptualHash;
+import com.eureka.picwavebackend.manager.search.PictureColorIndex;
+import com.eureka.picwavebackend.manager.search.PictureColorIndexManager;
+import com.eureka.picwavebackend.manager.search.PictureHashIndexManager;
+import com.eureka.picwavebackend.manager.search.PictureSearchManager;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
+import com.eureka.picwavebackend.manager.tag.PictureTagIndexManager;
 import com.eureka.picwavebackend.manager.upload.FilePictureUpload;
 import com.eureka.picwavebackend.manager.upload.PictureUploadTemplate;
 import com.eureka.picwavebackend.manager.upload.UrlPictureUpload;
 import com.eureka.picwavebackend.model.dto.file.UploadPictureResult;
 import com.eureka.picwavebackend.model.dto.picture.*;
+import com.eureka.picwavebackend.model.dto.space.SpaceStatDelta;
 import com.eureka.picwavebackend.model.entity.Picture;
 import com.eureka.picwavebackend.model.entity.Space;
 import com.eureka.picwavebackend.model.entity.User;
+import com.eureka.picwavebackend.model.enums.PictureChangeTypeEnum;
 import com.eureka.picwavebackend.model.enums.PictureReviewStatusEnum;
 import com.eureka.picwavebackend.model.vo.PictureVO;
 import com.eureka.picwavebackend.model.vo.UserVO;
+import com.eureka.picwavebackend.service.PictureObjectService;
 import com.eureka.picwavebackend.service.PictureService;
+import com.eureka.picwavebackend.service.PictureTagService;
 import com.eureka.picwavebackend.mapper.PictureMapper;
 import com.eureka.picwavebackend.service.SpaceService;
+import com.eureka.picwavebackend.service.SpaceStatService;
 import com.eureka.picwavebackend.service.UserService;
-import com.eureka.picwavebackend.utils.ColorSimilarUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
-import java.awt.*;
-import java.io.IOException;
+import java.io.Serializable;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -63,12 +74,91 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     private final UserService userService;
     private final FilePictureUpload filePictureUpload;
     private final UrlPictureUpload urlPictureUpload;
-    private final CosManager cosManager;
-    private final CosClientConfig cosClientConfig;
+    private final ObjectStorage objectStorage;
+    private final PictureObjectService pictureObjectService;
     private final SpaceService spaceService;
+    private final SpaceStatService spaceStatService;
     private final TransactionTemplate transactionTemplate;
     private final AliYunAiApi aliYunAiApi;
     private final CustomRobot customRobot;
+    private final PictureSearchManager pictureSearchManager;
+    private final PictureHashIndexManager pictureHashIndexManager;
+    private final PictureColorIndexManager pictureColorIndexManager;
+    private final PictureTagService pictureTagService;
+    private final PictureTagIndexManager pictureTagIndexManager;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final EntityCacheManager entityCacheManager;
+    private final IdBloomFilterManager idBloomFilterManager;
+
+    /**
+     * 根据 id 获取图片（优先读缓存）
+     */
+    @Override
+    public Picture getById(Serializable id) {
+        // 布隆过滤器判断不存在时直接返回，不查缓存和数据库
+        if (!idBloomFilterManager.mightContain(EntityCacheManager.PICTURE, id)) {
+            return null;
+        }
+        return entityCacheManager.get(EntityCacheManager.PICTURE, id, Picture.class, super::getById);
+    }
+
+    /**
+     * 根据 id 批量获取图片（优先读缓存）
+     */
+    @Override
+    public List<Picture> listByIds(Collection<? extends Serializable> idList) {
+        return entityCacheManager.listByIds(EntityCacheManager.PICTURE, idList, Picture.class, super::listByIds, Picture::getId);
+    }
+
+    /**
+     * 游标分页支持的排序字段（非空且可走索引）
+     */
+    private static final List<String> CURSOR_SORT_FIELD_LIST = Arrays.asList("id", "createTime", "editTime");
+
+    /**
+     * 标签过滤命中数超过该值时改用关联表子查询，避免 IN 列表过长
+     */
+    private static final int MAX_TAG_HIT_IN_SIZE = 2000;
+
+    /**
+     * 搜索命中数超过该值且按相关度排序时，不再用 IN + FIELD 排序，改为在内存中按相关度分页
+     */
+    private static final int MAX_SEARCH_HIT_IN_SIZE = 1000;
+
+    /**
+     * 搜索命中过多且带有其他条件时，每批校验条件的图片 id 数
+     */
+    private static final int SEARCH_FILTER_BATCH_SIZE = 1000;
+
+    /**
+     * 按颜色搜索最多返回条数
+     */
+    private static final int COLOR_SEARCH_LIMIT = 12;
+
+    /**
+     * 按色板搜索最多的目标颜色数
+     */
+    private static final int MAX_PALETTE_QUERY_SIZE = 3;
+
+    /**
+     * 按色板搜索最多返回条数
+     */
+    private static final int PALETTE_SEARCH_LIMIT = 20;
+
+    /**
+     * 相似图片默认最大汉明距离
+     */
+    private static final int DEFAULT_SIMILAR_DISTANCE = 10;
+
+    /**
+     * 相似图片允许的最大汉明距离（再大基本是不相关的图片）
+     */
+    private static final int MAX_SIMILAR_DISTANCE = 16;
+
+    /**
+     * 相似图片最多返回条数
+     */
+    private static final int SIMILAR_PICTURE_LIMIT = 12;
 
     /**
      * 上传图片
@@ -82,6 +172,24 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     public PictureVO uploadPicture(Object inputSource,
                                    PictureUploadRequest pictureUploadRequest,
                                    User loginUser) {
+        UploadPictureResult uploadPictureResult = this.uploadPictureFile(inputSource, pictureUploadRequest, loginUser);
+        Picture picture = this.saveUploadedPicture(uploadPictureResult, pictureUploadRequest, loginUser);
+        this.sendPictureReviewMessage(picture);
+        return PictureVO.objToVo(picture);
+    }
+
+    /**
+     * 上传图片文件（校验空间额度，处理并保存到对象存储，不写数据库）
+     *
+     * @param inputSource          输入源
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @return 上传结果
+     */
+    @Override
+    public UploadPictureResult uploadPictureFile(Object inputSource,
+                                                 PictureUploadRequest pictureUploadRequest,
+                                                 User loginUser) {
         // 校验参数
         ThrowUtils.throwIf(inputSource == null, ErrorCode.PARAMS_ERROR);
         ThrowUtils.throwIf(pictureUploadRequest == null, ErrorCode.PARAMS_ERROR);
@@ -113,8 +221,115 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         if (inputSource instanceof String) {
             pictureUploadTemplate = urlPictureUpload;
         }
-        UploadPictureResult uploadPictureResult = pictureUploadTemplate.uploadPicture(inputSource, uploadPathPrefix);
-        // 构造入库图片信息
+        return pictureUploadTemplate.uploadPicture(inputSource, uploadPathPrefix);
+    }
+
+    /**
+     * 保存上传的图片记录（新增或替换，并更新空间额度）
+     *
+     * @param uploadPictureResult  上传结果
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @return 图片
+     */
+    @Override
+    public Picture saveUploadedPicture(UploadPictureResult uploadPictureResult,
+                                       PictureUploadRequest pictureUploadRequest,
+                                       User loginUser) {
+        return saveUploadedPicture(uploadPictureResult, pictureUploadRequest, loginUser, null, null);
+    }
+
+    /**
+     * 保存上传的图片记录并关联来源图片和任务（用于保存扩图等 AI 编辑结果）
+     *
+     * @param uploadPictureResult  上传结果
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @param sourcePictureId      来源图片 id，为空表示不关联
+     * @param sourceTaskId         来源任务 id，为空表示不关联（同一任务只能保存一张图片）
+     * @return 图片
+     */
+    @Override
+    public Picture saveUploadedPicture(UploadPictureResult uploadPictureResult,
+                                       PictureUploadRequest pictureUploadRequest,
+                                       User loginUser,
+                                       Long sourcePictureId,
+                                       String sourceTaskId) {
+        Picture picture = buildUploadedPicture(uploadPictureResult, pictureUploadRequest, loginUser);
+        picture.setSourcePictureId(sourcePictureId);
+        picture.setSourceTaskId(sourceTaskId);
+        // 补充审核参数
+        fillReviewParams(picture, loginUser);
+        // 保存失败时释放本次对存储对象的引用
+        Picture oldPicture;
+        try {
+            oldPicture = doSaveUploadedPicture(picture, pictureUploadRequest);
+        } catch (RuntimeException e) {
+            this.clearOldPicture(picture);
+            throw e;
+        }
+        // 事务提交后再清理被替换的旧图片，回滚时旧记录仍引用原文件，不能提前释放引用
+        if (oldPicture != null) {
+            try {
+                this.clearOldPicture(oldPicture);
+            } catch (Exception e) {
+                log.error("清理旧图片失败, pictureId = {}", oldPicture.getId(), e);
+            }
+        }
+        return picture;
+    }
+
+    /**
+     * 批量保存上传的图片记录（仅公共图库新增，一个事务内批量插入）
+     *
+     * @param uploadPictureResultList 上传结果列表（图片名称取上传结果中的名称）
+     * @param loginUser               登录用户
+     * @return 图片列表
+     */
+    @Override
+    public List<Picture> saveUploadedPictureBatch(List<UploadPictureResult> uploadPictureResultList, User loginUser) {
+        if (CollUtil.isEmpty(uploadPictureResultList)) {
+            return Collections.emptyList();
+        }
+        // 1、构造入库图片信息
+        PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
+        List<Picture> pictureList = new ArrayList<>(uploadPictureResultList.size());
+        for (UploadPictureResult uploadPictureResult : uploadPictureResultList) {
+            Picture picture = buildUploadedPicture(uploadPictureResult, pictureUploadRequest, loginUser);
+            fillReviewParams(picture, loginUser);
+            pictureList.add(picture);
+        }
+        // 2、批量插入（开启事务），失败时释放本批对存储对象的引用
+        try {
+            transactionTemplate.execute(status -> {
+                boolean result = this.saveBatch(pictureList);
+                ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "操作失败");
+                // 更新空间统计
+                SpaceStatDelta spaceStatDelta = new SpaceStatDelta();
+                pictureList.forEach(spaceStatDelta::add);
+                spaceStatService.applyDelta(spaceStatDelta);
+                publishPictureChangeEvent(PictureChangeTypeEnum.ADD, null,
+                        pictureList.stream().map(Picture::getId).collect(Collectors.toList()));
+                return pictureList;
+            });
+        } catch (RuntimeException e) {
+            pictureList.forEach(this::clearOldPicture);
+            throw e;
+        }
+        return pictureList;
+    }
+
+    /**
+     * 根据上传结果构造入库图片信息
+     *
+     * @param uploadPictureResult  上传结果
+     * @param pictureUploadRequest 图片上传请求
+     * @param loginUser            登录用户
+     * @return 图片
+     */
+    private Picture buildUploadedPicture(UploadPictureResult uploadPictureResult,
+                                         PictureUploadRequest pictureUploadRequest,
+                                         User loginUser) {
         Picture picture = new Picture();
         picture.setSpaceId(pictureUploadRequest.getSpaceId());
         picture.setUrl(uploadPictureResult.getUrl());
@@ -132,12 +347,26 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         picture.setUserId(loginUser.getId());
         picture.setCreateTime(new Date());
         picture.setPicColor(uploadPictureResult.getPicColor());
-        // 补充审核参数
-        fillReviewParams(picture, loginUser);
+        picture.setPicPalette(uploadPictureResult.getPicPalette());
+        picture.setContentHash(uploadPictureResult.getContentHash());
+        picture.setPicHash(uploadPictureResult.getPicHash());
+        return picture;
+    }
+
+    /**
+     * 保存图片记录并更新空间额度
+     *
+     * @param picture              图片
+     * @param pictureUploadRequest 图片上传请求
+     * @return 被替换的旧图片，新增时为 null
+     */
+    private Picture doSaveUploadedPicture(Picture picture, PictureUploadRequest pictureUploadRequest) {
+        Long spaceId = pictureUploadRequest.getSpaceId();
         // 判断更新还是新增
         Long pictureId = pictureUploadRequest.getId();
+        Picture oldPicture = null;
         if (pictureId != null) {
-            Picture oldPicture = this.getById(pictureId);
+            oldPicture = this.getById(pictureId);
             ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
             // 校验空间权限
             if (spaceId == null) {
@@ -156,23 +385,30 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             // 设置更新相关字段
             picture.setId(pictureId);
             picture.setEditTime(new Date());
-            // 判断是否为用户空间
-            if (spaceId != null) {
-                // 释放空间额度
+        }
+        // 操作数据库（开启事务）
+        Picture finalOldPicture = oldPicture;
+        transactionTemplate.execute(status -> {
+            // 替换用户空间的图片时先释放旧图片的空间额度，与保存在同一事务内
+            if (finalOldPicture != null && spaceId != null) {
                 boolean update = spaceService.lambdaUpdate()
-                        .eq(Space::getId, oldPicture.getSpaceId())
-                        .setSql("totalSize = totalSize - " + oldPicture.getPicSize())
+                        .eq(Space::getId, finalOldPicture.getSpaceId())
+                        .setSql("totalSize = totalSize - " + finalOldPicture.getPicSize())
                         .setSql("totalCount = totalCount - 1")
                         .update();
                 ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "额度更新失败");
+                entityCacheManager.evict(EntityCacheManager.SPACE, finalOldPicture.getSpaceId());
             }
-            // 清理旧图片
-            clearOldPicture(oldPicture);
-        }
-        // 操作数据库（开启事务）
-        transactionTemplate.execute(status -> {
             boolean result = this.saveOrUpdate(picture);
             ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "操作失败");
+            // 更新空间统计
+            SpaceStatDelta spaceStatDelta = new SpaceStatDelta();
+            if (finalOldPicture == null) {
+                spaceStatDelta.add(picture);
+            } else {
+                spaceStatDelta.replace(finalOldPicture, picture);
+            }
+            spaceStatService.applyDelta(spaceStatDelta);
             // 更新空间额度
             if (spaceId != null) {
                 boolean update = spaceService.lambdaUpdate()
@@ -181,77 +417,26 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
                         .setSql("totalCount = totalCount + 1")
                         .update();
                 ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "额度更新失败");
+                entityCacheManager.evict(EntityCacheManager.SPACE, spaceId);
             }
+            publishPictureChangeEvent(pictureId == null ? PictureChangeTypeEnum.ADD : PictureChangeTypeEnum.UPDATE,
+                    picture.getSpaceId(), Collections.singletonList(picture.getId()));
             return picture;
         });
-        // 如果图片为待审核状态，发送钉钉消息
-        if (picture.getReviewStatus() != null && PictureReviewStatusEnum.REVIEWING.getValue() == picture.getReviewStatus()) {
-            customRobot.sendPictureReviewMessage(picture);
-        }
-        return PictureVO.objToVo(picture);
+        return oldPicture;
     }
 
     /**
-     * 批量抓取和创建图片
+     * 图片待审核时发送审核通知
      *
-     * @param pictureUploadByBatchRequest 图片上传批量请求
-     * @param loginUser                   登录用户
-     * @return 上传成功图片数量
+     * @param picture 图片
      */
     @Override
-    public Integer uploadPictureByBatch(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser) {
-        String searchText = pictureUploadByBatchRequest.getSearchText();
-        String namePrefix = pictureUploadByBatchRequest.getNamePrefix();
-        if (StrUtil.isBlank(namePrefix)) {
-            namePrefix = searchText;
-        }
-        // 图片数量
-        Integer count = pictureUploadByBatchRequest.getCount();
-        ThrowUtils.throwIf(count > 30, ErrorCode.PARAMS_ERROR, "最多 30 条");
-        // 获取图片地址
-        String fetchUrl = String.format("https://cn.bing.com/images/async?q=%s&mmasync=1", searchText);
-        Document document;
-        try {
-            document = Jsoup.connect(fetchUrl).get();
-        } catch (IOException e) {
-            log.error("获取页面失败", e);
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "获取页面失败");
-        }
-        Element div = document.getElementsByClass("dgControl").first();
-        if (ObjUtil.isNull(div)) {
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "获取元素失败");
-        }
-        Elements imgElementList = div.select("img.mimg");
-        int uploadCount = 0;
-        for (Element imgElement : imgElementList) {
-            String fileUrl = imgElement.attr("src");
-            if (StrUtil.isBlank(fileUrl)) {
-                log.info("当前链接为空，已跳过: {}", fileUrl);
-                continue;
-            }
-            // 处理图片，防止图片链接带参数
-            int questionMarkIndex = fileUrl.indexOf("?");
-            if (questionMarkIndex > -1) {
-                fileUrl = fileUrl.substring(0, questionMarkIndex);
-            }
-            // 上传图片
-            PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
-            if (StrUtil.isNotBlank(namePrefix)) {
-                pictureUploadRequest.setPicName(namePrefix + (uploadCount + 1));
-            }
-            try {
-                PictureVO pictureVO = this.uploadPicture(fileUrl, pictureUploadRequest, loginUser);
-                log.info("图片上传成功, id = {}", pictureVO.getId());
-                uploadCount++;
-            } catch (Exception e) {
-                log.error("图片上传失败", e);
-                continue;
-            }
-            if (uploadCount >= count) {
-                break;
-            }
+    public void sendPictureReviewMessage(Picture picture) {
+        // 如果图片为待审核状态，发送钉钉消息
+        if (picture.getReviewStatus() != null && PictureReviewStatusEnum.REVIEWING.getValue() == picture.getReviewStatus()) {
+            customRobot.sendPictureReviewMessage(picture);
         }
-        return uploadCount;
     }
 
     /**
@@ -275,6 +460,8 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             // 删除图片
             boolean result = this.removeById(pictureId);
             ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+            // 更新空间统计
+            spaceStatService.applyDelta(new SpaceStatDelta().remove(oldPicture));
             if (oldPicture.getSpaceId() != null) {
                 // 释放空间额度
                 boolean update = spaceService.lambdaUpdate()
@@ -283,11 +470,13 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
                         .setSql("totalCount = totalCount - 1")
                         .update();
                 ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "额度更新失败");
+                entityCacheManager.evict(EntityCacheManager.SPACE, oldPicture.getSpaceId());
             }
+            publishPictureChangeEvent(PictureChangeTypeEnum.DELETE, oldPicture.getSpaceId(),
+                    Collections.singletonList(pictureId));
             return oldPicture;
         });
-        // 异步清理文件
-        this.clearOldPicture(oldPicture);
+        // 逻辑删除的图片文件由定时清理任务释放，避免重复释放存储对象的引用
     }
 
     /**
@@ -302,12 +491,17 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         ThrowUtils.throwIf(StrUtil.isBlank(oldPicture.getUrl()) &&
                         StrUtil.isBlank(oldPicture.getThumbnailUrl()),
                 ErrorCode.PARAMS_ERROR, "老图片地址不存在");
+        // 释放存储对象的引用，仍被其他图片引用时保留文件
+        if (!pictureObjectService.release(oldPicture.getContentHash())) {
+            log.info("图片文件仍被引用，跳过删除, contentHash = {}", oldPicture.getContentHash());
+            return;
+        }
         String oldUrl = oldPicture.getUrl();
         String oldThumbnailUrl = oldPicture.getThumbnailUrl();
-        String oldKey = oldUrl.replace(cosClientConfig.getHost() + "/", "");
-        String oldThumbnailKey = oldThumbnailUrl.replace(cosClientConfig.getHost() + "/", "");
-        cosManager.deleteObject(oldKey);
-        cosManager.deleteObject(oldThumbnailKey);
+        String oldKey = objectStorage.getKey(oldUrl);
+        String oldThumbnailKey = objectStorage.getKey(oldThumbnailUrl);
+        objectStorage.deleteObject(oldKey);
+        objectStorage.deleteObject(oldThumbnailKey);
         log.info("删除旧图片成功, key = {}", oldKey);
         log.info("删除旧图片成功, thumbnailKey = {}", oldThumbnailKey);
     }
@@ -334,9 +528,54 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
 //        checkPictureAuth(loginUser, oldPicture);
         // 补充审核参数
         this.fillReviewParams(picture, loginUser);
-        // 操纵数据库
-        boolean result = this.updateById(picture);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+        // 操纵数据库（开启事务）
+        transactionTemplate.execute(status -> {
+            boolean result = this.updateById(picture);
+            ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+            // 更新空间统计
+            spaceStatService.applyDelta(new SpaceStatDelta().replace(oldPicture, picture));
+            // 同步标签关联
+            if (pictureEditRequest.getTags() != null) {
+                pictureTagService.updatePictureTags(Collections.singletonList(id), pictureEditRequest.getTags());
+            }
+            publishPictureChangeEvent(PictureChangeTypeEnum.UPDATE, oldPicture.getSpaceId(),
+                    Collections.singletonList(id));
+            return true;
+        });
+    }
+
+    /**
+     * 更新图片（仅管理员可用）
+     *
+     * @param pictureUpdateRequest 图片更新请求
+     * @param loginUser            登录用户
+     */
+    @Override
+    public void updatePicture(PictureUpdateRequest pictureUpdateRequest, User loginUser) {
+        // 1、校验图片
+        Long id = pictureUpdateRequest.getId();
+        Picture oldPicture = this.getById(id);
+        ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR);
+        Picture picture = new Picture();
+        BeanUtils.copyProperties(pictureUpdateRequest, picture);
+        picture.setTags(JSONUtil.toJsonStr(pictureUpdateRequest.getTags()));
+        this.validPicture(picture);
+        // 2、补充审核参数
+        this.fillReviewParams(picture, loginUser);
+        // 3、更新（开启事务）
+        transactionTemplate.execute(status -> {
+            boolean result = this.updateById(picture);
+            ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+            // 更新空间统计
+            spaceStatService.applyDelta(new SpaceStatDelta().replace(oldPicture, picture));
+            // 同步标签关联
+            if (pictureUpdateRequest.getTags() != null) {
+                pictureTagService.updatePictureTags(Collections.singletonList(id), pictureUpdateRequest.getTags());
+            }
+            publishPictureChangeEvent(PictureChangeTypeEnum.UPDATE, oldPicture.getSpaceId(),
+                    Collections.singletonList(id));
+            return true;
+        });
     }
 
     /**
@@ -363,24 +602,34 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
                 ErrorCode.NO_AUTH_ERROR, "没有空间访问权限");
         // 3、查询指定图片
         List<Picture> pictureList = this.lambdaQuery()
-                .select(Picture::getId, Picture::getSpaceId)
+                .select(Picture::getId, Picture::getSpaceId, Picture::getCategory, Picture::getPicSize, Picture::getTags)
                 .eq(Picture::getSpaceId, spaceId)
                 .in(Picture::getId, pictureIdList)
                 .list();
         // 4、更新分类和标签
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta();
         pictureList.forEach(picture -> {
+            Picture oldPicture = BeanUtil.copyProperties(picture, Picture.class);
             if (StrUtil.isNotBlank(category)) {
                 picture.setCategory(category);
             }
             if (CollUtil.isNotEmpty(tags)) {
                 picture.setTags(JSONUtil.toJsonStr(tags));
             }
+            spaceStatDelta.replace(oldPicture, picture);
         });
         // 5、批量更新图片名称
         fillPictureWithNameRule(pictureList, nameRule);
         // 5、批量更新
         boolean result = this.updateBatchById(pictureList);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+        spaceStatService.applyDelta(spaceStatDelta);
+        // 6、同步标签关联
+        List<Long> updateIdList = pictureList.stream().map(Picture::getId).collect(Collectors.toList());
+        if (CollUtil.isNotEmpty(tags)) {
+            pictureTagService.updatePictureTags(updateIdList, tags);
+        }
+        publishPictureChangeEvent(PictureChangeTypeEnum.UPDATE, spaceId, updateIdList);
     }
 
     /**
@@ -467,25 +716,146 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         if (CollUtil.isEmpty(pictureList)) {
             return pictureVOPage;
         }
-        // 2、图片列表转脱敏图片列表
-        List<PictureVO> pictureVOList = pictureList.stream().map(PictureVO::objToVo).collect(Collectors.toList());
-        // 3、关联查询用户信息
-        Set<Long> userIdSet = pictureList.stream().map(Picture::getUserId).collect(Collectors.toSet());
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
-        // 4、填充信息
-        pictureVOList.forEach(pictureVO -> {
-            Long userId = pictureVO.getUserId();
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            pictureVO.setUser(userService.getUserVO(user));
-        });
-        pictureVOPage.setRecords(pictureVOList);
+        // 2、图片列表转脱敏图片列表（关联用户信息）
+        pictureVOPage.setRecords(getPictureVOList(pictureList));
         return pictureVOPage;
     }
 
+    /**
+     * 游标分页获取图片列表（包装类）
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @return 游标分页对象
+     */
+    @Override
+    public CursorPage<PictureVO> listPictureVOByCursor(PictureQueryRequest pictureQueryRequest) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 1、校验排序字段（游标只支持非空且有索引的字段）
+        String sortField = pictureQueryRequest.getSortField();
+        if (StrUtil.isBlank(sortField)) {
+            sortField = "id";
+            pictureQueryRequest.setSortField(sortField);
+        }
+        ThrowUtils.throwIf(!CURSOR_SORT_FIELD_LIST.contains(sortField), ErrorCode.PARAMS_ERROR, "不支持的排序字段");
+        int pageSize = pictureQueryRequest.getPageSize();
+        ThrowUtils.throwIf(pageSize <= 0, ErrorCode.PARAMS_ERROR);
+        // 2、多取一条用于判断是否还有下一页，不走分页插件，避免 COUNT 查询
+        QueryWrapper<Picture> queryWrapper = this.getQueryWrapper(pictureQueryRequest);
+        // 游标条件只用于游标分页，偏移分页的接口忽略 cursor
+        String cursor = pictureQueryRequest.getCursor();
+        if (StrUtil.isNotBlank(cursor)) {
+            fillCursorCondition(queryWrapper, cursor, sortField, "ascend".equals(pictureQueryRequest.getSortOrder()));
+        }
+        queryWrapper.last("LIMIT " + (pageSize + 1));
+        List<Picture> pictureList = this.list(queryWrapper);
+        // 3、封装结果
+        CursorPage<PictureVO> cursorPage = new CursorPage<>();
+        boolean hasMore = pictureList.size() > pageSize;
+        if (hasMore) {
+            pictureList = pictureList.subList(0, pageSize);
+        }
+        cursorPage.setHasMore(hasMore);
+        if (CollUtil.isEmpty(pictureList)) {
+            return cursorPage;
+        }
+        cursorPage.setRecords(getPictureVOList(pictureList));
+        if (hasMore) {
+            Picture lastPicture = pictureList.get(pictureList.size() - 1);
+            cursorPage.setNextCursor(encodeCursor(lastPicture, sortField, pictureQueryRequest.getSortOrder()));
+        }
+        return cursorPage;
+    }
+
+    /**
+     * 图片列表转脱敏图片列表，并关联查询用户信息
+     *
+     * @param pictureList 图片列表
+     * @return 脱敏图片列表
+     */
+    private List<PictureVO> getPictureVOList(List<Picture> pictureList) {
+        // 1、图片列表转脱敏图片列表
+        List<PictureVO> pictureVOList = pictureList.stream().map(PictureVO::objToVo).collect(Collectors.toList());
+        // 2、关联查询用户信息
+        fillPictureVOUser(pictureVOList);
+        return pictureVOList;
+    }
+
+    /**
+     * 填充图片作者信息（优先读用户缓存）
+     * 图片列表缓存不保存用户信息，命中缓存后也调用此方法，用户修改昵称、头像后立即可见
+     *
+     * @param pictureVOList 脱敏图片列表
+     */
+    @Override
+    public void fillPictureVOUser(List<PictureVO> pictureVOList) {
+        if (CollUtil.isEmpty(pictureVOList)) {
+            return;
+        }
+        // 1、关联查询用户信息
+        Set<Long> userIdSet = pictureVOList.stream().map(PictureVO::getUserId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> userIdUserMap = userService.listByIds(userIdSet).stream()
+                .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
+        // 2、填充信息
+        pictureVOList.forEach(pictureVO -> pictureVO.setUser(userService.getUserVO(userIdUserMap.get(pictureVO.getUserId()))));
+    }
+
+    /**
+     * 生成游标
+     * 格式：Base64Url(sortField|sortOrder|sortValue|id)，对前端不透明
+     *
+     * @param lastPicture 当前页最后一条图片
+     * @param sortField   排序字段
+     * @param sortOrder   排序顺序
+     * @return 游标
+     */
+    private String encodeCursor(Picture lastPicture, String sortField, String sortOrder) {
+        Object sortValue = BeanUtil.getFieldValue(lastPicture, sortField);
+        long value = sortValue instanceof Date ? ((Date) sortValue).getTime() : ((Number) sortValue).longValue();
+        String raw = StrUtil.join("|", sortField, sortOrder, value, lastPicture.getId());
+        return Base64.encodeUrlSafe(raw);
+    }
+
+    /**
+     * 拼接游标定位条件：(sortField, id) 严格位于游标之后
+     *
+     * @param queryWrapper 查询条件
+     * @param cursor       游标
+     * @param sortField    排序字段
+     * @param isAsc        是否升序
+     */
+    private void fillCursorCondition(QueryWrapper<Picture> queryWrapper, String cursor, String sortField, boolean isAsc) {
+        List<String> partList;
+        try {
+            partList = StrUtil.split(Base64.decodeStr(cursor), '|');
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+        }
+        ThrowUtils.throwIf(partList.size() != 4 || !partList.get(0).equals(sortField)
+                || partList.get(1).equals("ascend") != isAsc, ErrorCode.PARAMS_ERROR, "游标无效");
+        long value;
+        long lastId;
+        try {
+            value = Long.parseLong(partList.get(2));
+            lastId = Long.parseLong(partList.get(3));
+        } catch (NumberFormatException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+        }
+        if ("id".equals(sortField)) {
+            queryWrapper.gt(isAsc, "id", lastId).lt(!isAsc, "id", lastId);
+            return;
+        }
+        // 其余游标排序字段均为时间类型
+        Date sortValue = new Date(value);
+        if (isAsc) {
+            queryWrapper.and(qw -> qw.gt(sortField, sortValue)
+                    .or(or -> or.eq(sortField, sortValue).gt("id", lastId)));
+        } else {
+            queryWrapper.and(qw -> qw.lt(sortField, sortValue)
+                    .or(or -> or.eq(sortField, sortValue).lt("id", lastId)));
+        }
+    }
+
     @Override
     public List<PictureVO> searchPictureByColor(Long spaceId, String picColor, User loginUser) {
         // 1、校验参数
@@ -496,34 +866,149 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
         ThrowUtils.throwIf(!space.getUserId().equals(loginUser.getId()),
                 ErrorCode.NO_AUTH_ERROR, "无权访问此空间");
-        // 3、查询该空间下的所有图片
-        List<Picture> pictureList = this.lambdaQuery()
-                .eq(Picture::getSpaceId, spaceId)
-                .isNotNull(Picture::getPicColor)
-                .list();
-        // 如果没有图片，直接返回空列表
-        if (CollUtil.isEmpty(pictureList)) {
+        int targetRgb = PictureColorIndex.parseColor(picColor);
+        ThrowUtils.throwIf(targetRgb < 0, ErrorCode.PARAMS_ERROR, "颜色格式错误");
+        // 3、在主色调索引中取最接近的图片
+        List<Long> pictureIdList = pictureColorIndexManager.search(spaceId, targetRgb, COLOR_SEARCH_LIMIT);
+        if (pictureIdList == null) {
+            // 索引未就绪，降级为只查 id 和主色调后在内存中计算
+            PictureColorIndex tempIndex = new PictureColorIndex();
+            this.lambdaQuery()
+                    .select(Picture::getId, Picture::getSpaceId, Picture::getPicColor)
+                    .eq(Picture::getSpaceId, spaceId)
+                    .isNotNull(Picture::getPicColor)
+                    .list()
+                    .forEach(tempIndex::upsert);
+            pictureIdList = tempIndex.search(spaceId, targetRgb, COLOR_SEARCH_LIMIT);
+        }
+        if (pictureIdList.isEmpty()) {
             return new ArrayList<>();
         }
-        // 将目标颜色转为 Color 对象
-        Color targetColor = Color.decode(picColor);
-        // 4. 计算相似度并排序
-        List<Picture> sortedPictureList = pictureList.stream()
-                .sorted(Comparator.comparingDouble(picture -> {
-                    // 提取图片主色调
-                    String hexColor = picture.getPicColor();
-                    // 没有主色调的图片放到最后
-                    if (StrUtil.isBlank(hexColor)) {
-                        return Double.MAX_VALUE;
-                    }
-                    Color pictureColor = Color.decode(hexColor);
+        // 4、按相似度顺序返回
+        Map<Long, Picture> pictureMap = this.listByIds(pictureIdList).stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item, (a, b) -> a));
+        return pictureIdList.stream()
+                .map(pictureMap::get)
+                .filter(Objects::nonNull)
+                .map(PictureVO::objToVo)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按色板搜索同时包含多种颜色的图片
+     *
+     * @param spaceId   空间 id，为空表示公共图库（只查过审图片）
+     * @param colorList 目标颜色列表
+     * @return 按匹配度降序的脱敏图片列表
+     */
+    @Override
+    public List<PictureVO> searchPictureByPalette(Long spaceId, List<String> colorList) {
+        // 1、校验参数
+        ThrowUtils.throwIf(CollUtil.isEmpty(colorList), ErrorCode.PARAMS_ERROR, "请选择颜色");
+        ThrowUtils.throwIf(colorList.size() > MAX_PALETTE_QUERY_SIZE, ErrorCode.PARAMS_ERROR,
+                "最多选择 " + MAX_PALETTE_QUERY_SIZE + " 种颜色");
+        List<Integer> rgbList = new ArrayList<>(colorList.size());
+        for (String color : colorList) {
+            int rgb = PictureColorIndex.parseColor(color);
+            ThrowUtils.throwIf(rgb < 0, ErrorCode.PARAMS_ERROR, "颜色格式错误");
+            rgbList.add(rgb);
+        }
+        if (spaceId != null) {
+            ThrowUtils.throwIf(spaceService.getById(spaceId) == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
+        }
+        Integer reviewStatus = spaceId == null ? PictureReviewStatusEnum.PASS.getValue() : null;
+        // 2、在颜色索引中检索
+        List<Long> pictureIdList = pictureColorIndexManager.searchByPalette(spaceId, reviewStatus, rgbList,
+                PALETTE_SEARCH_LIMIT);
+        if (pictureIdList == null) {
+            // 索引未就绪，降级为只查颜色字段后在内存中计算
+            PictureColorIndex tempIndex = new PictureColorIndex();
+            this.lambdaQuery()
+                    .select(Picture::getId, Picture::getSpaceId, Picture::getReviewStatus,
+                            Picture::getPicColor, Picture::getPicPalette)
+                    .eq(spaceId != null, Picture::getSpaceId, spaceId)
+                    .isNull(spaceId == null, Picture::getSpaceId)
+                    .eq(reviewStatus != null, Picture::getReviewStatus, reviewStatus)
+                    .isNotNull(Picture::getPicColor)
+                    .list()
+                    .forEach(tempIndex::upsert);
+            pictureIdList = tempIndex.searchByPalette(spaceId, reviewStatus, rgbList, PALETTE_SEARCH_LIMIT);
+        }
+        if (pictureIdList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 3、按匹配顺序返回
+        Map<Long, Picture> pictureMap = this.listByIds(pictureIdList).stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item, (a, b) -> a));
+        return pictureIdList.stream()
+                .map(pictureMap::get)
+                .filter(Objects::nonNull)
+                .map(PictureVO::objToVo)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 搜索相似图片
+     *
+     * @param searchSimilarPictureRequest 搜索相似图片请求
+     * @return 按相似度降序的脱敏图片列表（不含图片本身）
+     */
+    @Override
+    public List<PictureVO> searchSimilarPicture(SearchSimilarPictureRequest searchSimilarPictureRequest) {
+        // 1、校验参数
+        Long pictureId = searchSimilarPictureRequest.getPictureId();
+        ThrowUtils.throwIf(pictureId == null || pictureId <= 0, ErrorCode.PARAMS_ERROR);
+        Integer maxDistance = searchSimilarPictureRequest.getMaxDistance();
+        if (maxDistance == null) {
+            maxDistance = DEFAULT_SIMILAR_DISTANCE;
+        }
+        ThrowUtils.throwIf(maxDistance < 0 || maxDistance > MAX_SIMILAR_DISTANCE, ErrorCode.PARAMS_ERROR,
+                "相似度阈值不合法");
+        Picture picture = this.getById(pictureId);
+        ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR);
+        ThrowUtils.throwIf(picture.getPicHash() == null, ErrorCode.OPERATION_ERROR, "图片特征尚未生成，请稍后重试");
+        // 2、在图片所在范围内检索（公共图库只查过审图片），结果包含图片本身，多取一条
+        Long spaceId = picture.getSpaceId();
+        Integer reviewStatus = spaceId == null ? PictureReviewStatusEnum.PASS.getValue() : null;
+        List<Long> pictureIdList = pictureHashIndexManager.search(picture.getPicHash(), spaceId, reviewStatus,
+                maxDistance, SIMILAR_PICTURE_LIMIT + 1);
+        if (pictureIdList == null) {
+            // 索引未就绪，降级为查库计算
+            pictureIdList = searchSimilarPictureIdFromDb(picture.getPicHash(), spaceId, reviewStatus, maxDistance);
+        }
+        pictureIdList.remove(pictureId);
+        if (pictureIdList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 3、按检索顺序返回
+        Map<Long, Picture> pictureMap = this.listByIds(pictureIdList).stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item, (a, b) -> a));
+        return pictureIdList.stream()
+                .map(pictureMap::get)
+                .filter(Objects::nonNull)
+                .limit(SIMILAR_PICTURE_LIMIT)
+                .map(PictureVO::objToVo)
+                .collect(Collectors.toList());
+    }
 
-                    return -ColorSimilarUtils.calculateSimilarity(targetColor, pictureColor);
-                }))
-                .limit(12)
+    /**
+     * 查库计算相似图片（感知哈希索引未就绪时使用）
+     */
+    private List<Long> searchSimilarPictureIdFromDb(long picHash, Long spaceId, Integer reviewStatus, int maxDistance) {
+        List<Picture> candidateList = this.lambdaQuery()
+                .select(Picture::getId, Picture::getPicHash)
+                .eq(spaceId != null, Picture::getSpaceId, spaceId)
+                .isNull(spaceId == null, Picture::getSpaceId)
+                .eq(reviewStatus != null, Picture::getReviewStatus, reviewStatus)
+                .isNotNull(Picture::getPicHash)
+                .list();
+        return candidateList.stream()
+                .filter(candidate -> PerceptualHash.distance(candidate.getPicHash(), picHash) <= maxDistance)
+                .sorted(Comparator.comparingInt((Picture candidate) -> PerceptualHash.distance(candidate.getPicHash(), picHash))
+                        .thenComparing(Picture::getId, Comparator.reverseOrder()))
+                .limit(SIMILAR_PICTURE_LIMIT + 1)
+                .map(Picture::getId)
                 .collect(Collectors.toList());
-        // 转换为 PictureVO
-        return sortedPictureList.stream().map(PictureVO::objToVo).collect(Collectors.toList());
     }
 
     /**
@@ -534,12 +1019,111 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
      */
     @Override
     public QueryWrapper<Picture> getQueryWrapper(PictureQueryRequest pictureQueryRequest) {
-        // 构造查询对象
-        QueryWrapper<Picture> pictureQueryWrapper = new QueryWrapper<>();
-        // 参数校验
         if (pictureQueryRequest == null) {
-            return pictureQueryWrapper;
+            return new QueryWrapper<>();
         }
+        return buildQueryWrapper(pictureQueryRequest, searchPictureId(pictureQueryRequest));
+    }
+
+    /**
+     * 分页查询图片
+     * 带搜索词且未指定排序字段时按相关度排序：命中数不多时用 IN + FIELD 排序交给数据库分页，
+     * 命中过多时由倒排索引给出总数和当前页的图片 id（有其他条件时先分批校验条件），不再降级为模糊查询
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @return 分页对象
+     */
+    @Override
+    public Page<Picture> pagePicture(PictureQueryRequest pictureQueryRequest) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        long current = pictureQueryRequest.getCurrent();
+        long pageSize = pictureQueryRequest.getPageSize();
+        List<Long> searchIdList = searchPictureId(pictureQueryRequest);
+        if (searchIdList == null || searchIdList.size() <= MAX_SEARCH_HIT_IN_SIZE
+                || StrUtil.isNotEmpty(pictureQueryRequest.getSortField())) {
+            return this.page(new Page<>(current, pageSize), buildQueryWrapper(pictureQueryRequest, searchIdList));
+        }
+        // 1、有倒排索引之外的条件时，按相关度顺序分批校验条件（主键查询），得到满足条件的全部图片 id
+        List<Long> matchedIdList = searchIdList;
+        if (hasNonSearchCondition(pictureQueryRequest)) {
+            matchedIdList = new ArrayList<>();
+            for (List<Long> batchIdList : CollUtil.split(searchIdList, SEARCH_FILTER_BATCH_SIZE)) {
+                QueryWrapper<Picture> queryWrapper = buildQueryWrapper(pictureQueryRequest, batchIdList).select("id");
+                Set<Long> batchMatchedIdSet = this.listObjs(queryWrapper, id -> ((Number) id).longValue())
+                        .stream().collect(Collectors.toSet());
+                for (Long pictureId : batchIdList) {
+                    if (batchMatchedIdSet.contains(pictureId)) {
+                        matchedIdList.add(pictureId);
+                    }
+                }
+            }
+        }
+        // 2、按相关度顺序截取当前页，查询后恢复顺序
+        Page<Picture> picturePage = new Page<>(current, pageSize, matchedIdList.size());
+        long offset = (current - 1) * pageSize;
+        if (current <= 0 || pageSize <= 0 || offset >= matchedIdList.size()) {
+            return picturePage;
+        }
+        List<Long> pageIdList = matchedIdList.subList((int) offset,
+                (int) Math.min(offset + pageSize, matchedIdList.size()));
+        Map<Long, Picture> pictureMap = this.listByIds(pageIdList).stream()
+                .collect(Collectors.toMap(Picture::getId, picture -> picture, (a, b) -> a));
+        picturePage.setRecords(pageIdList.stream()
+                .map(pictureMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        return picturePage;
+    }
+
+    /**
+     * 用倒排索引检索搜索词
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @return 按相关度降序的命中图片 id；没有搜索词、索引未就绪或搜索词无有效字符时返回 null
+     */
+    private List<Long> searchPictureId(PictureQueryRequest pictureQueryRequest) {
+        String searchText = pictureQueryRequest.getSearchText();
+        if (StrUtil.isBlank(searchText)) {
+            return null;
+        }
+        return pictureSearchManager.search(searchText, pictureQueryRequest.getSpaceId(),
+                pictureQueryRequest.isNullSpaceId(), pictureQueryRequest.getReviewStatus());
+    }
+
+    /**
+     * 是否有倒排索引无法过滤的条件（索引只按空间和审核状态过滤）
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @return 是否需要数据库校验
+     */
+    private boolean hasNonSearchCondition(PictureQueryRequest pictureQueryRequest) {
+        return ObjUtil.isNotEmpty(pictureQueryRequest.getId())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getUserId())
+                || StrUtil.isNotBlank(pictureQueryRequest.getName())
+                || StrUtil.isNotBlank(pictureQueryRequest.getIntroduction())
+                || StrUtil.isNotBlank(pictureQueryRequest.getPicFormat())
+                || StrUtil.isNotBlank(pictureQueryRequest.getCategory())
+                || CollUtil.isNotEmpty(pictureQueryRequest.getTags())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getPicWidth())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getPicHeight())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getPicSize())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getPicScale())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getReviewerId())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getReviewMessage())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getStartEditTime())
+                || ObjUtil.isNotEmpty(pictureQueryRequest.getEndEditTime());
+    }
+
+    /**
+     * 构造查询条件
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @param searchIdList        倒排索引命中的图片 id，为空时搜索词降级为模糊查询
+     * @return 查询条件
+     */
+    private QueryWrapper<Picture> buildQueryWrapper(PictureQueryRequest pictureQueryRequest, List<Long> searchIdList) {
+        // 构造查询对象
+        QueryWrapper<Picture> pictureQueryWrapper = new QueryWrapper<>();
         // 取值
         Long id = pictureQueryRequest.getId();
         Long spaceId = pictureQueryRequest.getSpaceId();
@@ -562,10 +1146,16 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         String reviewMessage = pictureQueryRequest.getReviewMessage();
         Date startEditTime = pictureQueryRequest.getStartEditTime();
         Date endEditTime = pictureQueryRequest.getEndEditTime();
-        // 拼接多字段查询
+        // 拼接多字段查询（优先走倒排索引，索引未就绪时降级为模糊查询）
         if (StrUtil.isNotBlank(searchText)) {
-            pictureQueryWrapper.and(qw -> qw.like("name", searchText)
-                    .or().like("introduction", searchText));
+            if (searchIdList == null) {
+                pictureQueryWrapper.and(qw -> qw.like("name", searchText)
+                        .or().like("introduction", searchText));
+            } else if (searchIdList.isEmpty()) {
+                pictureQueryWrapper.apply("1 = 0");
+            } else {
+                pictureQueryWrapper.in("id", searchIdList);
+            }
         }
         // 拼接参数
         pictureQueryWrapper.eq(ObjUtil.isNotEmpty(id), "id", id);
@@ -585,17 +1175,63 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         pictureQueryWrapper.like(ObjUtil.isNotEmpty(reviewMessage), "reviewMessage", reviewMessage);
         pictureQueryWrapper.ge(ObjUtil.isNotEmpty(startEditTime), "editTime", startEditTime);
         pictureQueryWrapper.lt(ObjUtil.isNotEmpty(endEditTime), "editTime", endEditTime);
-        // 拼接标签
+        // 拼接标签（同时包含所有标签）
         if (CollUtil.isNotEmpty(tags)) {
-            for (String tag : tags) {
-                pictureQueryWrapper.like(StrUtil.isNotBlank(tag), "tags", tag);
-            }
+            fillTagCondition(pictureQueryWrapper, tags, spaceId, nullSpaceId, reviewStatus);
+        }
+        // 拼接排序（追加 id 保证排序稳定，游标分页依赖该顺序）
+        boolean isAsc = "ascend".equals(sortOrder);
+        // 未指定排序字段时，搜索结果按相关度排序
+        if (StrUtil.isEmpty(sortField) && CollUtil.isNotEmpty(searchIdList)) {
+            pictureQueryWrapper.orderByAsc("FIELD(id, " + CollUtil.join(searchIdList, ",") + ")");
         }
-        // 拼接排序
-        pictureQueryWrapper.orderBy(StrUtil.isNotEmpty(sortField), sortOrder.equals("ascend"), sortField);
+        pictureQueryWrapper.orderBy(StrUtil.isNotEmpty(sortField), isAsc, sortField);
+        pictureQueryWrapper.orderBy(StrUtil.isNotEmpty(sortField) && !"id".equals(sortField), isAsc, "id");
         return pictureQueryWrapper;
     }
 
+    /**
+     * 拼接标签条件：优先用位图索引求交得到图片 id，索引未就绪或命中过多时改用关联表子查询
+     *
+     * @param queryWrapper 查询条件
+     * @param tags         标签列表
+     * @param spaceId      空间 id
+     * @param nullSpaceId  是否只查公共图库
+     * @param reviewStatus 审核状态
+     */
+    private void fillTagCondition(QueryWrapper<Picture> queryWrapper, List<String> tags, Long spaceId,
+                                  boolean nullSpaceId, Integer reviewStatus) {
+        List<String> tagNameList = tags.stream()
+                .filter(StrUtil::isNotBlank)
+                .map(String::trim)
+                .distinct()
+                .collect(Collectors.toList());
+        if (tagNameList.isEmpty()) {
+            return;
+        }
+        // 1、位图索引
+        Roaring64NavigableMap tagBitmap = pictureTagIndexManager.query(tagNameList, spaceId, nullSpaceId, reviewStatus);
+        if (tagBitmap != null && tagBitmap.isEmpty()) {
+            queryWrapper.apply("1 = 0");
+            return;
+        }
+        if (tagBitmap != null && tagBitmap.getLongCardinality() <= MAX_TAG_HIT_IN_SIZE) {
+            List<Long> pictureIdList = new ArrayList<>();
+            tagBitmap.forEach(pictureIdList::add);
+            queryWrapper.in("id", pictureIdList);
+            return;
+        }
+        // 2、关联表子查询（标签 id 均为数字，可以直接拼接）
+        Map<String, Long> tagIdMap = pictureTagIndexManager.getTagIdMap(tagNameList);
+        if (tagIdMap.size() < tagNameList.size()) {
+            queryWrapper.apply("1 = 0");
+            return;
+        }
+        queryWrapper.inSql("id", String.format(
+                "SELECT pictureId FROM picture_tag WHERE tagId IN (%s) GROUP BY pictureId HAVING COUNT(*) = %d",
+                CollUtil.join(tagIdMap.values(), ","), tagIdMap.size()));
+    }
+
     /**
      * 校验图片
      *
@@ -685,6 +1321,21 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         updatePicture.setReviewTime(new Date());
         boolean update = this.updateById(updatePicture);
         ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR);
+        publishPictureChangeEvent(PictureChangeTypeEnum.REVIEW, oldPicture.getSpaceId(), Collections.singletonList(id));
+    }
+
+    /**
+     * 发布图片变更事件（事务内发布时，监听方在事务提交后执行）
+     *
+     * @param changeType    变更类型
+     * @param spaceId       空间 id
+     * @param pictureIdList 图片 id 列表
+     */
+    private void publishPictureChangeEvent(PictureChangeTypeEnum changeType, Long spaceId, List<Long> pictureIdList) {
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        applicationEventPublisher.publishEvent(new PictureChangeEvent(this, changeType, spaceId, pictureIdList));
     }
 
 }
@@ -0,0 +1,58 @@
+package com.eureka.picwavebackend.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.mapper.PictureTagMapper;
+import com.eureka.picwavebackend.model.entity.PictureTag;
+import com.eureka.picwavebackend.service.PictureTagService;
+import com.eureka.picwavebackend.service.TagService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Eureka
+ */
+@Service
+@RequiredArgsConstructor
+public class PictureTagServiceImpl extends ServiceImpl<PictureTagMapper, PictureTag>
+        implements PictureTagService {
+
+    private final TagService tagService;
+
+    /**
+     * 覆盖图片的标签关联（需在图片更新的事务中调用）
+     *
+     * @param pictureIdList 图片 id 列表
+     * @param tagNameList   标签名称列表，为空表示清空标签
+     */
+    @Override
+    public void updatePictureTags(List<Long> pictureIdList, List<String> tagNameList) {
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        // 1、获取标签 id
+        List<Long> tagIdList = tagService.getOrCreateTagIdList(tagNameList);
+        // 2、删除旧关联
+        this.lambdaUpdate().in(PictureTag::getPictureId, pictureIdList).remove();
+        // 3、保存新关联
+        if (tagIdList.isEmpty()) {
+            return;
+        }
+        List<PictureTag> pictureTagList = new ArrayList<>();
+        for (Long pictureId : pictureIdList) {
+            for (Long tagId : tagIdList) {
+                PictureTag pictureTag = new PictureTag();
+                pictureTag.setPictureId(pictureId);
+                pictureTag.setTagId(tagId);
+                pictureTagList.add(pictureTag);
+            }
+        }
+        boolean result = this.saveBatch(pictureTagList);
+        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "标签保存失败");
+    }
+}
@@ -2,19 +2,24 @@ package com.eureka.picwavebackend.service.impl;
 
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.manager.tag.TagStatManager;
+import com.eureka.picwavebackend.model.dto.space.SpaceStatDelta;
 import com.eureka.picwavebackend.model.dto.space.analyze.*;
 import com.eureka.picwavebackend.model.entity.Picture;
 import com.eureka.picwavebackend.model.entity.Space;
+import com.eureka.picwavebackend.model.entity.SpaceStat;
 import com.eureka.picwavebackend.model.entity.User;
 import com.eureka.picwavebackend.model.vo.space.analyze.*;
 import com.eureka.picwavebackend.service.PictureService;
 import com.eureka.picwavebackend.service.SpaceAnalyzeService;
 import com.eureka.picwavebackend.service.SpaceService;
+import com.eureka.picwavebackend.service.SpaceStatService;
 import com.eureka.picwavebackend.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -32,6 +37,8 @@ public class SpaceAnalyzeServiceImpl implements SpaceAnalyzeService {
     private final UserService userService;
     private final SpaceService spaceService;
     private final PictureService pictureService;
+    private final SpaceStatService spaceStatService;
+    private final TagStatManager tagStatManager;
 
     /**
      * 校验空间分析权限
@@ -62,20 +69,11 @@ public class SpaceAnalyzeServiceImpl implements SpaceAnalyzeService {
     public SpaceUsageAnalyzeResponse getSpaceUsageAnalyze(SpaceUsageAnalyzeRequest spaceUsageAnalyzeRequest, User loginUser) {
         // 1、校验空间分析权限
         checkSpaceAnalyzeAuth(spaceUsageAnalyzeRequest, loginUser);
-        // 2、构造查询条件
-        QueryWrapper<Picture> pictureQueryWrapper = new QueryWrapper<>();
-        // 根据空间分析请求构造查询条件
-        fillAnalyzeQueryWrapper(spaceUsageAnalyzeRequest, pictureQueryWrapper);
-        pictureQueryWrapper.select("picSize");
-        // 3、查询
-        List<Object> pictureObjList = pictureService.getBaseMapper().selectObjs(pictureQueryWrapper);
-        // 获取已使用数量
-        long usedCount = pictureObjList.size();
-        // 获取已使用大小
-        long usedSize = pictureObjList.stream()
-                .filter(Objects::nonNull)
-                .mapToLong(result -> result instanceof Long ? (Long) result : 0)
-                .sum();
+        // 2、读取空间统计
+        SpaceStat spaceStat = spaceStatService.getSpaceStat(getStatSpaceId(spaceUsageAnalyzeRequest));
+        // 3、获取已使用数量和大小
+        long usedCount = spaceStat.getTotalCount();
+        long usedSize = spaceStat.getTotalSize();
         // 4、公共图库
         if (spaceUsageAnalyzeRequest.isQueryPublic() || spaceUsageAnalyzeRequest.isQueryAll()) {
             return SpaceUsageAnalyzeResponse.builder()
@@ -118,22 +116,12 @@ public class SpaceAnalyzeServiceImpl implements SpaceAnalyzeService {
         ThrowUtils.throwIf(spaceCategoryAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 2、校验权限
         checkSpaceAnalyzeAuth(spaceCategoryAnalyzeRequest, loginUser);
-        // 3、构造查询条件
-        QueryWrapper<Picture> pictureQueryWrapper = new QueryWrapper<>();
-        fillAnalyzeQueryWrapper(spaceCategoryAnalyzeRequest, pictureQueryWrapper);
-        // 使用 Mybatis-Plus 分组查询
-        pictureQueryWrapper.select("category AS category",
-                        "COUNT(*) AS count",
-                        "SUM(picSize) AS totalSize")
-                .groupBy("category");
-        // 4、查询并转换结果
-        return pictureService.getBaseMapper().selectMaps(pictureQueryWrapper)
+        // 3、读取分类统计并转换结果
+        return spaceStatService.listCategoryStat(getStatSpaceId(spaceCategoryAnalyzeRequest))
                 .stream()
-                .map(result -> {
-                    String category = result.get("category") != null ? result.get("category").toString() : "未分类";
-                    Long count = ((Number) result.get("count")).longValue();
-                    Long totalSize = ((Number) result.get("totalSize")).longValue();
-                    return new SpaceCategoryAnalyzeResponse(category, count, totalSize);
+                .map(categoryStat -> {
+                    String category = StrUtil.isNotEmpty(categoryStat.getCategory()) ? categoryStat.getCategory() : "未分类";
+                    return new SpaceCategoryAnalyzeResponse(category, categoryStat.getTotalCount(), categoryStat.getTotalSize());
                 })
                 .collect(Collectors.toList());
         /*// 4、使用 Mapper 分组查询
@@ -164,10 +152,13 @@ public class SpaceAnalyzeServiceImpl implements SpaceAnalyzeService {
         ThrowUtils.throwIf(spaceTagAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 2、校验权限
         checkSpaceAnalyzeAuth(spaceTagAnalyzeRequest, loginUser);
-        // 3、构造查询条件
+        // 3、读取标签统计
+        if (tagStatManager.isReady()) {
+            return toTagAnalyzeResponseList(tagStatManager.listTopTag(getStatSpaceId(spaceTagAnalyzeRequest), 0));
+        }
+        // 4、统计尚未构建完成时，查询所有符合条件的标签
         QueryWrapper<Picture> pictureQueryWrapper = new QueryWrapper<>();
         fillAnalyzeQueryWrapper(spaceTagAnalyzeRequest, pictureQueryWrapper);
-        // 4、查询所有符合条件的标签
         pictureQueryWrapper.select("tags");
         List<String> tagsJsonList = pictureService.getBaseMapper().selectObjs(pictureQueryWrapper)
                 .stream()
@@ -185,6 +176,27 @@ public class SpaceAnalyzeServiceImpl implements SpaceAnalyzeService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 获取空间热门标签（标签云）
+     *
+     * @param spaceTopTagAnalyzeRequest 空间热门标签分析请求
+     * @param loginUser                 登录用户
+     * @return 使用次数最多的前 N 个标签，按使用次数降序
+     */
+    @Override
+    public List<SpaceTagAnalyzeResponse> getSpaceTopTagAnalyze(
+            SpaceTopTagAnalyzeRequest spaceTopTagAnalyzeRequest, User loginUser) {
+        // 1、校验参数
+        ThrowUtils.throwIf(spaceTopTagAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
+        Integer topN = spaceTopTagAnalyzeRequest.getTopN();
+        ThrowUtils.throwIf(topN == null || topN <= 0 || topN > 100, ErrorCode.PARAMS_ERROR, "标签个数需在 1-100 之间");
+        // 2、校验权限
+        checkSpaceAnalyzeAuth(spaceTopTagAnalyzeRequest, loginUser);
+        ThrowUtils.throwIf(!tagStatManager.isReady(), ErrorCode.OPERATION_ERROR, "标签统计生成中，请稍后重试");
+        // 3、读取有序集合中的前 N 个标签
+        return toTagAnalyzeResponseList(tagStatManager.listTopTag(getStatSpaceId(spaceTopTagAnalyzeRequest), topN));
+    }
+
     /**
      * 获取空间大小分析
      *
@@ -198,29 +210,17 @@ public class SpaceAnalyzeServiceImpl implements SpaceAnalyzeService {
         ThrowUtils.throwIf(spaceSizeAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 校验空间限
         checkSpaceAnalyzeAuth(spaceSizeAnalyzeRequest, loginUser);
-        // 构造查询条件
-        QueryWrapper<Picture> pictureQueryWrapper = new QueryWrapper<>();
-        fillAnalyzeQueryWrapper(spaceSizeAnalyzeRequest, pictureQueryWrapper);
-        // 构造查询条件
-        pictureQueryWrapper.select("picSize");
+        // 读取空间统计中的分段数量
+        SpaceStat spaceStat = spaceStatService.getSpaceStat(getStatSpaceId(spaceSizeAnalyzeRequest));
         // 定义分段范围，注意使用有序 Map
         Map<String, Long> sizeRanges = new LinkedHashMap<>();
-        pictureService.getBaseMapper().selectObjs(pictureQueryWrapper)
-                .stream()
-                .map(size -> ((Number) size).longValue())
-                .forEach(picSize -> {
-                    if (picSize < 100 * 1024) {
-                        sizeRanges.put("<100KB", sizeRanges.getOrDefault("<100KB", 0L) + 1);
-                    } else if (picSize < 500 * 1024) {
-                        sizeRanges.put("100KB-500KB", sizeRanges.getOrDefault("100KB-500KB", 0L) + 1);
-                    } else if (picSize < 1024 * 1024) {
-                        sizeRanges.put("500KB-1MB", sizeRanges.getOrDefault("500KB-1MB", 0L) + 1);
-                    } else {
-                        sizeRanges.put(">1MB", sizeRanges.getOrDefault(">1MB", 0L) + 1);
-                    }
-                });
-        // 转换为响应对象
+        sizeRanges.put("<100KB", spaceStat.getSmallCount());
+        sizeRanges.put("100KB-500KB", spaceStat.getMediumCount());
+        sizeRanges.put("500KB-1MB", spaceStat.getLargeCount());
+        sizeRanges.put(">1MB", spaceStat.getHugeCount());
+        // 转换为响应对象（跳过没有图片的分段）
         return sizeRanges.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
                 .map(entry -> new SpaceSizeAnalyzeResponse(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
@@ -295,6 +295,38 @@ public class SpaceAnalyzeServiceImpl implements SpaceAnalyzeService {
         return spaceService.list(spaceQueryWrapper);
     }
 
+    /**
+     * 标签使用次数转换为响应对象（保持原有顺序）
+     *
+     * @param tagCountMap 标签名称 -> 使用次数
+     * @return 空间标签分析响应
+     */
+    private static List<SpaceTagAnalyzeResponse> toTagAnalyzeResponseList(Map<String, Long> tagCountMap) {
+        return tagCountMap.entrySet().stream()
+                .map(entry -> new SpaceTagAnalyzeResponse(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取分析范围对应的统计空间 id
+     *
+     * @param spaceAnalyzeRequest 空间分析请求类
+     * @return 统计空间 id（公共图库为 0），为空表示所有空间
+     */
+    private static Long getStatSpaceId(SpaceAnalyzeRequest spaceAnalyzeRequest) {
+        if (spaceAnalyzeRequest.isQueryAll()) {
+            return null;
+        }
+        if (spaceAnalyzeRequest.isQueryPublic()) {
+            return SpaceStatDelta.PUBLIC_SPACE_ID;
+        }
+        Long spaceId = spaceAnalyzeRequest.getSpaceId();
+        if (spaceId != null) {
+            return spaceId;
+        }
+        throw new BusinessException(ErrorCode.PARAMS_ERROR, "未指定查询范围");
+    }
+
     /**
      * 填充 QueryWrapper 对应属性
      *
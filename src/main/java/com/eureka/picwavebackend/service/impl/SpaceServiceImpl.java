@@ -10,6 +10,9 @@ import com.eureka.picwavebackend.common.DeleteRequest;
 import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.manager.cache.EntityCacheManager;
+import com.eureka.picwavebackend.manager.cache.IdBloomFilterManager;
+import com.eureka.picwavebackend.manager.event.PictureChangeEvent;
 import com.eureka.picwavebackend.mapper.PictureMapper;
 import com.eureka.picwavebackend.mapper.SpaceMapper;
 import com.eureka.picwavebackend.mapper.SpaceUserMapper;
@@ -19,17 +22,21 @@ import com.eureka.picwavebackend.model.entity.Picture;
 import com.eureka.picwavebackend.model.entity.Space;
 import com.eureka.picwavebackend.model.entity.SpaceUser;
 import com.eureka.picwavebackend.model.entity.User;
+import com.eureka.picwavebackend.model.enums.PictureChangeTypeEnum;
 import com.eureka.picwavebackend.model.enums.SpaceLevelEnum;
 import com.eureka.picwavebackend.model.enums.SpaceRoleEnum;
 import com.eureka.picwavebackend.model.enums.SpaceTypeEnum;
 import com.eureka.picwavebackend.model.vo.SpaceVO;
 import com.eureka.picwavebackend.model.vo.UserVO;
 import com.eureka.picwavebackend.service.SpaceService;
+import com.eureka.picwavebackend.service.SpaceStatService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -44,6 +51,50 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
     private final TransactionTemplate transactionTemplate;
     private final ConcurrentHashMap<Long, Object> lockMap = new ConcurrentHashMap<>();
     private final SpaceUserMapper spaceUserMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final EntityCacheManager entityCacheManager;
+    private final IdBloomFilterManager idBloomFilterManager;
+    private final SpaceStatService spaceStatService;
+
+    /**
+     * 根据 id 获取空间（优先读缓存）
+     */
+    @Override
+    public Space getById(Serializable id) {
+        // 布隆过滤器判断不存在时直接返回，不查缓存和数据库
+        if (!idBloomFilterManager.mightContain(EntityCacheManager.SPACE, id)) {
+            return null;
+        }
+        return entityCacheManager.get(EntityCacheManager.SPACE, id, Space.class, super::getById);
+    }
+
+    /**
+     * 根据 id 批量获取空间（优先读缓存）
+     */
+    @Override
+    public List<Space> listByIds(Collection<? extends Serializable> idList) {
+        return entityCacheManager.listByIds(EntityCacheManager.SPACE, idList, Space.class, super::listByIds, Space::getId);
+    }
+
+    /**
+     * 根据 id 更新空间，并删除缓存
+     */
+    @Override
+    public boolean updateById(Space space) {
+        boolean result = super.updateById(space);
+        entityCacheManager.evict(EntityCacheManager.SPACE, space.getId());
+        return result;
+    }
+
+    /**
+     * 根据 id 删除空间，并删除缓存
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        entityCacheManager.evict(EntityCacheManager.SPACE, id);
+        return result;
+    }
 
     /**
      * 创建空间
@@ -82,6 +133,7 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
                     // 创建空间
                     boolean save = this.save(space);
                     ThrowUtils.throwIf(!save, ErrorCode.OPERATION_ERROR, "创建空间失败");
+                    idBloomFilterManager.add(EntityCacheManager.SPACE, space.getId());
                     // 如果是团队空间，关联新增团队成员记录
                     if (spaceAddRequest.getSpaceType() == SpaceTypeEnum.TEAM.getValue()) {
                         SpaceUser spaceUser = new SpaceUser();
@@ -131,6 +183,12 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
                     .collect(Collectors.toList());
             int deleteCount = pictureMapper.deleteByIds(pictureIdList);
             ThrowUtils.throwIf(deleteCount < 0, ErrorCode.OPERATION_ERROR, "删除空间图片失败");
+            // 删除空间统计
+            spaceStatService.removeSpaceStat(spaceId);
+            if (CollUtil.isNotEmpty(pictureIdList)) {
+                applicationEventPublisher.publishEvent(
+                        new PictureChangeEvent(this, PictureChangeTypeEnum.DELETE, spaceId, pictureIdList));
+            }
             return true;
         });
     }
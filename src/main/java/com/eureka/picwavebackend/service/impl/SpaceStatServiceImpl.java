@@ -0,0 +1,79 @@
+package com.eureka.picwavebackend.service.impl;
+
+import cn.hutool.core.util.ObjUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.eureka.picwavebackend.manager.tag.TagStatManager;
+import com.eureka.picwavebackend.mapper.SpaceCategoryStatMapper;
+import com.eureka.picwavebackend.mapper.SpaceStatMapper;
+import com.eureka.picwavebackend.model.dto.space.SpaceStatDelta;
+import com.eureka.picwavebackend.model.entity.SpaceCategoryStat;
+import com.eureka.picwavebackend.model.entity.SpaceStat;
+import com.eureka.picwavebackend.service.SpaceStatService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 空间统计服务
+ * 图片增删改时在同一事务内以 INSERT ... ON DUPLICATE KEY UPDATE 累加增量，空间分析直接读取统计行，
+ * 不再扫描图片表；汇总所有空间时按空间行求和，避免所有写入争用同一行。
+ * 标签使用次数见 {@link TagStatManager}
+ *
+ * @author Eureka
+ */
+@Service
+@RequiredArgsConstructor
+public class SpaceStatServiceImpl extends ServiceImpl<SpaceStatMapper, SpaceStat>
+        implements SpaceStatService {
+
+    private final SpaceCategoryStatMapper spaceCategoryStatMapper;
+    private final TagStatManager tagStatManager;
+
+    @Override
+    public void applyDelta(SpaceStatDelta spaceStatDelta) {
+        // 增量已按空间 id、分类排序，先写空间统计再写分类统计
+        for (SpaceStat spaceStat : spaceStatDelta.getSpaceStatList()) {
+            baseMapper.upsertDelta(spaceStat);
+        }
+        for (SpaceCategoryStat categoryStat : spaceStatDelta.getCategoryStatList()) {
+            spaceCategoryStatMapper.upsertDelta(categoryStat);
+        }
+        // 标签使用次数保存在 Redis，事务提交后累加
+        tagStatManager.applyDelta(spaceStatDelta.getTagCountMap());
+    }
+
+    @Override
+    public void removeSpaceStat(long spaceId) {
+        baseMapper.deleteById(spaceId);
+        spaceCategoryStatMapper.delete(new QueryWrapper<SpaceCategoryStat>().eq("spaceId", spaceId));
+        tagStatManager.removeSpace(spaceId);
+    }
+
+    @Override
+    public SpaceStat getSpaceStat(Long spaceId) {
+        SpaceStat spaceStat = spaceId == null ? baseMapper.sumAll() : baseMapper.selectById(spaceId);
+        if (spaceStat == null) {
+            spaceStat = new SpaceStat();
+            spaceStat.setSpaceId(spaceId);
+        }
+        spaceStat.setTotalCount(ObjUtil.defaultIfNull(spaceStat.getTotalCount(), 0L));
+        spaceStat.setTotalSize(ObjUtil.defaultIfNull(spaceStat.getTotalSize(), 0L));
+        spaceStat.setSmallCount(ObjUtil.defaultIfNull(spaceStat.getSmallCount(), 0L));
+        spaceStat.setMediumCount(ObjUtil.defaultIfNull(spaceStat.getMediumCount(), 0L));
+        spaceStat.setLargeCount(ObjUtil.defaultIfNull(spaceStat.getLargeCount(), 0L));
+        spaceStat.setHugeCount(ObjUtil.defaultIfNull(spaceStat.getHugeCount(), 0L));
+        return spaceStat;
+    }
+
+    @Override
+    public List<SpaceCategoryStat> listCategoryStat(Long spaceId) {
+        if (spaceId == null) {
+            return spaceCategoryStatMapper.sumAllGroupByCategory();
+        }
+        return spaceCategoryStatMapper.selectList(new QueryWrapper<SpaceCategoryStat>()
+                .eq("spaceId", spaceId)
+                .gt("totalCount", 0));
+    }
+}
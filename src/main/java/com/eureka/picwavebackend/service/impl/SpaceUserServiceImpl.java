@@ -7,6 +7,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.manager.cache.EntityCacheManager;
 import com.eureka.picwavebackend.model.dto.spaceuser.SpaceUserAddRequest;
 import com.eureka.picwavebackend.model.dto.spaceuser.SpaceUserQueryRequest;
 import com.eureka.picwavebackend.model.entity.Space;
@@ -25,7 +26,9 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +44,43 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
 
     private final SpaceService spaceService;
     private final UserService userService;
+    private final EntityCacheManager entityCacheManager;
+
+    /**
+     * 根据 id 获取空间成员（优先读缓存）
+     */
+    @Override
+    public SpaceUser getById(Serializable id) {
+        return entityCacheManager.get(EntityCacheManager.SPACE_USER, id, SpaceUser.class, super::getById);
+    }
+
+    /**
+     * 根据 id 批量获取空间成员（优先读缓存）
+     */
+    @Override
+    public List<SpaceUser> listByIds(Collection<? extends Serializable> idList) {
+        return entityCacheManager.listByIds(EntityCacheManager.SPACE_USER, idList, SpaceUser.class, super::listByIds, SpaceUser::getId);
+    }
+
+    /**
+     * 根据 id 更新空间成员，并删除缓存
+     */
+    @Override
+    public boolean updateById(SpaceUser spaceUser) {
+        boolean result = super.updateById(spaceUser);
+        entityCacheManager.evict(EntityCacheManager.SPACE_USER, spaceUser.getId());
+        return result;
+    }
+
+    /**
+     * 根据 id 删除空间成员，并删除缓存
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        entityCacheManager.evict(EntityCacheManager.SPACE_USER, id);
+        return result;
+    }
 
     /**
      * 创建空间成员
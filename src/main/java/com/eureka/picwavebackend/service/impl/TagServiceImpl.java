@@ -0,0 +1,97 @@
+package com.eureka.picwavebackend.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.eureka.picwavebackend.exception.ErrorCode;
+import com.eureka.picwavebackend.exception.ThrowUtils;
+import com.eureka.picwavebackend.mapper.TagMapper;
+import com.eureka.picwavebackend.model.entity.Tag;
+import com.eureka.picwavebackend.service.TagService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * @author Eureka
+ */
+@Slf4j
+@Service
+public class TagServiceImpl extends ServiceImpl<TagMapper, Tag>
+        implements TagService {
+
+    /**
+     * 标签名称最大长度
+     */
+    private static final int MAX_TAG_NAME_LENGTH = 64;
+
+    /**
+     * 获取标签 id，不存在的标签自动创建
+     *
+     * @param tagNameList 标签名称列表
+     * @return 标签 id 列表（已去重）
+     */
+    @Override
+    public List<Long> getOrCreateTagIdList(List<String> tagNameList) {
+        // 1、规范化标签名称
+        Set<String> tagNameSet = new LinkedHashSet<>();
+        if (CollUtil.isNotEmpty(tagNameList)) {
+            for (String tagName : tagNameList) {
+                if (StrUtil.isBlank(tagName)) {
+                    continue;
+                }
+                tagName = tagName.trim();
+                ThrowUtils.throwIf(tagName.length() > MAX_TAG_NAME_LENGTH, ErrorCode.PARAMS_ERROR, "标签过长");
+                tagNameSet.add(tagName);
+            }
+        }
+        if (tagNameSet.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 2、查询已存在的标签
+        Map<String, Long> tagIdMap = getTagIdMap(tagNameSet);
+        // 3、创建不存在的标签（并发创建时唯一索引冲突，重新查询即可）
+        for (String tagName : tagNameSet) {
+            if (tagIdMap.containsKey(tagName)) {
+                continue;
+            }
+            Tag tag = new Tag();
+            tag.setName(tagName);
+            try {
+                this.save(tag);
+                tagIdMap.put(tagName, tag.getId());
+            } catch (DuplicateKeyException e) {
+                Tag existTag = this.lambdaQuery().eq(Tag::getName, tagName).one();
+                ThrowUtils.throwIf(existTag == null, ErrorCode.SYSTEM_ERROR, "标签创建失败");
+                tagIdMap.put(tagName, existTag.getId());
+            }
+        }
+        List<Long> tagIdList = new ArrayList<>();
+        for (String tagName : tagNameSet) {
+            tagIdList.add(tagIdMap.get(tagName));
+        }
+        return tagIdList;
+    }
+
+    /**
+     * 查询已存在标签的 id
+     *
+     * @param tagNameCollection 标签名称
+     * @return 标签名称 -> 标签 id（不存在的标签不包含在内）
+     */
+    @Override
+    public Map<String, Long> getTagIdMap(Collection<String> tagNameCollection) {
+        Map<String, Long> tagIdMap = new HashMap<>();
+        if (CollUtil.isEmpty(tagNameCollection)) {
+            return tagIdMap;
+        }
+        this.lambdaQuery()
+                .select(Tag::getId, Tag::getName)
+                .in(Tag::getName, tagNameCollection)
+                .list()
+                .forEach(tag -> tagIdMap.put(tag.getName(), tag.getId()));
+        return tagIdMap;
+    }
+}
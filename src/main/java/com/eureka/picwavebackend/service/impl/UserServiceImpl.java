@@ -8,6 +8,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.eureka.picwavebackend.exception.BusinessException;
 import com.eureka.picwavebackend.exception.ErrorCode;
 import com.eureka.picwavebackend.manager.auth.StpKit;
+import com.eureka.picwavebackend.manager.cache.EntityCacheManager;
 import com.eureka.picwavebackend.model.dto.user.UserQueryRequest;
 import com.eureka.picwavebackend.model.entity.User;
 import com.eureka.picwavebackend.model.enums.UserRoleEnum;
@@ -15,6 +16,7 @@ import com.eureka.picwavebackend.model.vo.LoginUserVO;
 import com.eureka.picwavebackend.model.vo.UserVO;
 import com.eureka.picwavebackend.service.UserService;
 import com.eureka.picwavebackend.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,8 @@ import org.springframework.util.DigestUtils;
 
 import javax.servlet.http.HttpServletRequest;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -31,9 +35,48 @@ import static com.eureka.picwavebackend.constant.UserConstant.USER_LOGIN_STATE;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class UserServiceImpl extends ServiceImpl<UserMapper, User>
         implements UserService {
 
+    private final EntityCacheManager entityCacheManager;
+
+    /**
+     * 根据 id 获取用户（优先读缓存）
+     */
+    @Override
+    public User getById(Serializable id) {
+        return entityCacheManager.get(EntityCacheManager.USER, id, User.class, super::getById);
+    }
+
+    /**
+     * 根据 id 批量获取用户（优先读缓存）
+     */
+    @Override
+    public List<User> listByIds(Collection<? extends Serializable> idList) {
+        return entityCacheManager.listByIds(EntityCacheManager.USER, idList, User.class, super::listByIds, User::getId);
+    }
+
+    /**
+     * 根据 id 更新用户，并删除缓存
+     */
+    @Override
+    public boolean updateById(User user) {
+        boolean result = super.updateById(user);
+        entityCacheManager.evict(EntityCacheManager.USER, user.getId());
+        return result;
+    }
+
+    /**
+     * 根据 id 删除用户，并删除缓存
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        entityCacheManager.evict(EntityCacheManager.USER, id);
+        return result;
+    }
+
     @Override
     public long userRegister(String userAccount, String userPassword, String checkPassword) {
         // 1、校验参数
@@ -0,0 +1,97 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.eureka.picwavebackend.model.vo.PictureVO;
+import com.eureka.picwavebackend.model.vo.UserVO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureListCacheManagerTest {
+
+    @Test
+    void cacheValueDropsUser() {
+        Page<PictureVO> page = page(pictureVO(1L, "旧昵称"), pictureVO(2L, "旧昵称"));
+
+        Page<PictureVO> cacheValue = PictureListCacheManager.toCacheValue(page);
+
+        assertEquals(2L, cacheValue.getCurrent());
+        assertEquals(10L, cacheValue.getSize());
+        assertEquals(12L, cacheValue.getTotal());
+        assertEquals(2, cacheValue.getRecords().size());
+        for (PictureVO pictureVO : cacheValue.getRecords()) {
+            assertNull(pictureVO.getUser());
+            assertEquals(7L, pictureVO.getUserId());
+        }
+        // 查询结果本身不受影响
+        assertEquals("旧昵称", page.getRecords().get(0).getUser().getUserName());
+    }
+
+    @Test
+    void copyIsIndependentOfCacheValue() {
+        Page<PictureVO> cacheValue = PictureListCacheManager.toCacheValue(page(pictureVO(1L, "旧昵称")));
+
+        // 调用方填充作者信息，不影响缓存值和其他请求拿到的副本
+        Page<PictureVO> copy = PictureListCacheManager.copyOf(cacheValue);
+        copy.getRecords().get(0).setUser(userVO("新昵称"));
+        copy.setTotal(0);
+        Page<PictureVO> otherCopy = PictureListCacheManager.copyOf(cacheValue);
+
+        assertNull(cacheValue.getRecords().get(0).getUser());
+        assertNull(otherCopy.getRecords().get(0).getUser());
+        assertEquals(12L, otherCopy.getTotal());
+        assertEquals(cacheValue.getRecords(), otherCopy.getRecords());
+    }
+
+    @Test
+    void cacheValueIsReadOnly() {
+        Page<PictureVO> cacheValue = PictureListCacheManager.toCacheValue(page(pictureVO(1L, "旧昵称")));
+
+        assertThrows(UnsupportedOperationException.class, () -> cacheValue.getRecords().add(new PictureVO()));
+        assertThrows(UnsupportedOperationException.class, () -> cacheValue.getRecords().get(0).getTags().add("山"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> cacheValue.getRecords().get(0).getPermissionList().clear());
+    }
+
+    @Test
+    void copyListsAreModifiable() {
+        Page<PictureVO> cacheValue = PictureListCacheManager.toCacheValue(page(pictureVO(1L, "旧昵称")));
+
+        Page<PictureVO> copy = PictureListCacheManager.copyOf(cacheValue);
+        copy.getRecords().add(new PictureVO());
+        copy.getRecords().get(0).getTags().add("山");
+        copy.getRecords().get(0).getPermissionList().clear();
+
+        PictureVO cached = cacheValue.getRecords().get(0);
+        assertEquals(1, cacheValue.getRecords().size());
+        assertEquals(Arrays.asList("风景", "海"), cached.getTags());
+        assertEquals(Collections.singletonList("picture:view"), cached.getPermissionList());
+    }
+
+    private static Page<PictureVO> page(PictureVO... pictureVOs) {
+        Page<PictureVO> page = new Page<>(2, 10, 12);
+        page.setRecords(Arrays.asList(pictureVOs));
+        return page;
+    }
+
+    private static PictureVO pictureVO(Long id, String userName) {
+        PictureVO pictureVO = new PictureVO();
+        pictureVO.setId(id);
+        pictureVO.setName("图片" + id);
+        pictureVO.setTags(Arrays.asList("风景", "海"));
+        pictureVO.setPermissionList(Collections.singletonList("picture:view"));
+        pictureVO.setUserId(7L);
+        pictureVO.setUser(userVO(userName));
+        return pictureVO;
+    }
+
+    private static UserVO userVO(String userName) {
+        UserVO userVO = new UserVO();
+        userVO.setId(7L);
+        userVO.setUserName(userName);
+        return userVO;
+    }
+}
@@ -0,0 +1,136 @@
+package com.eureka.picwavebackend.manager.cache;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.eureka.picwavebackend.model.vo.PictureVO;
+import com.eureka.picwavebackend.model.vo.UserVO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureVOPageCodecTest {
+
+    @Test
+    void roundTripKeepsAllFields() {
+        UserVO userVO = new UserVO();
+        userVO.setId(7L);
+        userVO.setUserAccount("eureka");
+        userVO.setUserName("尤里卡");
+        userVO.setUserRole("admin");
+        userVO.setCreateTime(new Date(1700000000000L));
+        PictureVO pictureVO = new PictureVO();
+        pictureVO.setId(1885000000000000001L);
+        pictureVO.setSpaceId(2L);
+        pictureVO.setPermissionList(Arrays.asList("picture:view", "picture:edit"));
+        pictureVO.setUrl("https://example.com/public/1/a.webp");
+        pictureVO.setThumbnailUrl("https://example.com/public/1/a_thumbnail.webp");
+        pictureVO.setName("日落");
+        // 超过 127 字节，长度需要多字节变长整数
+        pictureVO.setIntroduction(StrUtil.repeat("海边的日落", 30));
+        pictureVO.setTags(Arrays.asList("风景", "海"));
+        pictureVO.setCategory("摄影");
+        pictureVO.setPicSize(123456L);
+        pictureVO.setPicWidth(1920);
+        pictureVO.setPicHeight(1080);
+        pictureVO.setPicScale(1.78);
+        pictureVO.setPicFormat("webp");
+        pictureVO.setUserId(7L);
+        pictureVO.setCreateTime(new Date(1700000000000L));
+        pictureVO.setEditTime(new Date(1700000001000L));
+        pictureVO.setUpdateTime(new Date(1700000002000L));
+        pictureVO.setUser(userVO);
+        pictureVO.setPicColor("0xff8800");
+        pictureVO.setSourcePictureId(3L);
+
+        CacheEntry<Page<PictureVO>> cacheEntry = decode(encode(pictureVO));
+
+        Page<PictureVO> page = cacheEntry.getValue();
+        assertEquals(2L, page.getCurrent());
+        assertEquals(10L, page.getSize());
+        assertEquals(11L, page.getTotal());
+        assertEquals(1700000100000L, cacheEntry.getExpireTime());
+        assertEquals(35L, cacheEntry.getLoadCost());
+        assertEquals(Collections.singletonList(pictureVO), page.getRecords());
+    }
+
+    @Test
+    void nullFieldsStayNull() {
+        PictureVO pictureVO = new PictureVO();
+        pictureVO.setId(1L);
+        pictureVO.setName("只有名称");
+
+        PictureVO decoded = decode(encode(pictureVO)).getValue().getRecords().get(0);
+
+        assertEquals(pictureVO, decoded);
+        assertNull(decoded.getUser());
+        assertNull(decoded.getTags());
+        assertNull(decoded.getPicScale());
+    }
+
+    @Test
+    void nullListItemIsWrittenAsEmptyString() {
+        PictureVO pictureVO = new PictureVO();
+        pictureVO.setTags(Arrays.asList("a", null, "c"));
+
+        PictureVO decoded = decode(encode(pictureVO)).getValue().getRecords().get(0);
+
+        assertEquals(Arrays.asList("a", "", "c"), decoded.getTags());
+    }
+
+    @Test
+    void roundTripManyRecords() {
+        // 记录数超过 127，条数需要多字节变长整数
+        List<PictureVO> pictureVOList = new ArrayList<>();
+        for (long i = 0; i < 300; i++) {
+            PictureVO pictureVO = new PictureVO();
+            pictureVO.setId(i);
+            pictureVO.setName("图片" + i);
+            pictureVOList.add(pictureVO);
+        }
+        Page<PictureVO> page = new Page<>(1, 300, 300);
+        page.setRecords(pictureVOList);
+
+        byte[] bytes = PictureVOPageCodec.encode(page, 0L, 0L);
+        CacheEntry<Page<PictureVO>> cacheEntry = PictureVOPageCodec.decode(bytes);
+
+        assertNotNull(cacheEntry);
+        assertEquals(pictureVOList, cacheEntry.getValue().getRecords());
+        assertEquals(bytes.length, cacheEntry.getWeight());
+    }
+
+    @Test
+    void otherFormatVersionIsMiss() {
+        byte[] bytes = encode(new PictureVO());
+        bytes[0]++;
+
+        assertNull(PictureVOPageCodec.decode(bytes));
+    }
+
+    @Test
+    void truncatedBytesIsMiss() {
+        PictureVO pictureVO = new PictureVO();
+        pictureVO.setName("被截断的图片");
+        byte[] bytes = encode(pictureVO);
+
+        assertNull(PictureVOPageCodec.decode(Arrays.copyOf(bytes, bytes.length - 3)));
+        assertNull(PictureVOPageCodec.decode(new byte[0]));
+    }
+
+    private static byte[] encode(PictureVO pictureVO) {
+        Page<PictureVO> page = new Page<>(2, 10, 11);
+        page.setRecords(Collections.singletonList(pictureVO));
+        return PictureVOPageCodec.encode(page, 1700000100000L, 35L);
+    }
+
+    private static CacheEntry<Page<PictureVO>> decode(byte[] bytes) {
+        CacheEntry<Page<PictureVO>> cacheEntry = PictureVOPageCodec.decode(bytes);
+        assertNotNull(cacheEntry);
+        return cacheEntry;
+    }
+}
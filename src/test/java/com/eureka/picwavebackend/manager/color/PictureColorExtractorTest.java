@@ -0,0 +1,133 @@
+package com.eureka.picwavebackend.manager.color;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureColorExtractorTest {
+
+    private final PictureColorExtractor pictureColorExtractor = new PictureColorExtractor();
+
+    @Test
+    void extractAverageColorAndPalette() throws IOException {
+        // 100 x 100 不需要降采样：上 50 行红色，中间 30 行蓝色，下 20 行绿色
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        fillRows(image, 0, 50, 0xFF0000);
+        fillRows(image, 50, 80, 0x0000FF);
+        fillRows(image, 80, 100, 0x00FF00);
+
+        PictureColors pictureColors = extract(image);
+
+        // 平均色：红 255 * 0.5，绿 255 * 0.2，蓝 255 * 0.3
+        assertEquals("0x7f334c", pictureColors.getAverageColor());
+        List<PaletteColor> palette = pictureColors.getPalette();
+        assertEquals(3, palette.size());
+        assertPaletteColor(palette.get(0), "0xff0000", 0.5);
+        assertPaletteColor(palette.get(1), "0x0000ff", 0.3);
+        assertPaletteColor(palette.get(2), "0x00ff00", 0.2);
+        assertNotNull(pictureColors.getPerceptualHash());
+    }
+
+    @Test
+    void similarColorsAreMerged() throws IOException {
+        // 0xdc0000 与 0xff0000 不在同一个桶，但色差小于阈值，合并到占比更高的颜色
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        fillRows(image, 0, 60, 0xFF0000);
+        fillRows(image, 60, 100, 0xDC0000);
+
+        List<PaletteColor> palette = extract(image).getPalette();
+
+        assertEquals(1, palette.size());
+        assertPaletteColor(palette.get(0), "0xff0000", 1.0);
+    }
+
+    @Test
+    void paletteIsLimitedToFiveColors() throws IOException {
+        int[] colors = {0xFF0000, 0x00FF00, 0x0000FF, 0xFFFF00, 0x00FFFF, 0xFF00FF, 0x000000};
+        BufferedImage image = new BufferedImage(70, 70, BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < colors.length; i++) {
+            // 行数依次减少，占比依次降低
+            fillRows(image, i * 10, i * 10 + 10 - i, colors[i]);
+        }
+
+        List<PaletteColor> palette = extract(image).getPalette();
+
+        assertEquals(5, palette.size());
+        for (int i = 1; i < palette.size(); i++) {
+            assertTrue(palette.get(i - 1).getRatio() >= palette.get(i).getRatio());
+        }
+    }
+
+    @Test
+    void transparentPixelsAreSkipped() throws IOException {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        fillRows(image, 0, 50, 0xFF0000FF);
+        fillRows(image, 50, 100, 0x00FF0000);
+
+        PictureColors pictureColors = extract(image);
+
+        assertEquals("0x0000ff", pictureColors.getAverageColor());
+        assertEquals(1, pictureColors.getPalette().size());
+        assertPaletteColor(pictureColors.getPalette().get(0), "0x0000ff", 1.0);
+
+        // 全部透明时无法提取
+        BufferedImage transparentImage = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        assertNull(pictureColorExtractor.extract(toPng(transparentImage)));
+    }
+
+    @Test
+    void largeImageIsSampled() throws IOException {
+        BufferedImage image = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB);
+        fillRows(image, 0, 500, 0xFF0000);
+        fillRows(image, 500, 1000, 0x0000FF);
+
+        PictureColors pictureColors = extract(image);
+
+        List<PaletteColor> palette = pictureColors.getPalette();
+        assertEquals(2, palette.size());
+        assertEquals(0.5, palette.get(0).getRatio(), 0.05);
+        assertEquals(0.5, palette.get(1).getRatio(), 0.05);
+    }
+
+    @Test
+    void undecodableBytesReturnNull() throws Exception {
+        assertNull(pictureColorExtractor.extract("not an image".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(pictureColorExtractor.extract(new byte[0]));
+        // 异步提取结果一致
+        assertNull(pictureColorExtractor.extractAsync(new byte[0]).get(10, TimeUnit.SECONDS));
+        pictureColorExtractor.destroy();
+    }
+
+    private PictureColors extract(BufferedImage image) throws IOException {
+        PictureColors pictureColors = pictureColorExtractor.extract(toPng(image));
+        assertNotNull(pictureColors);
+        return pictureColors;
+    }
+
+    private static void assertPaletteColor(PaletteColor paletteColor, String color, double ratio) {
+        assertEquals(color, paletteColor.getColor());
+        assertEquals(ratio, paletteColor.getRatio(), 1e-4);
+    }
+
+    private static void fillRows(BufferedImage image, int fromRow, int toRow, int argb) {
+        for (int y = fromRow; y < toRow; y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+    }
+
+    private static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bos);
+        return bos.toByteArray();
+    }
+}
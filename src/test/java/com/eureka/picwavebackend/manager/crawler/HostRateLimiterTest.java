@@ -0,0 +1,142 @@
+package com.eureka.picwavebackend.manager.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostRateLimiterTest {
+
+    private static final long INTERVAL_MILLIS = 100;
+
+    /**
+     * 模拟时钟（纳秒）
+     */
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toNanos(1));
+
+    /**
+     * 每次等待的时长（毫秒）
+     */
+    private final List<Long> sleepMillisList = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void sameHostIsSpacedByInterval() throws InterruptedException {
+        HostRateLimiter hostRateLimiter = sleepingLimiter();
+
+        // 第一次请求不需要等待，之后每次等满一个间隔
+        hostRateLimiter.acquire("example.com");
+        assertTrue(sleepMillisList.isEmpty());
+        hostRateLimiter.acquire("example.com");
+        hostRateLimiter.acquire("example.com");
+        assertEquals(Arrays.asList(INTERVAL_MILLIS, INTERVAL_MILLIS), sleepMillisList);
+    }
+
+    @Test
+    void elapsedTimeIsDeducted() throws InterruptedException {
+        HostRateLimiter hostRateLimiter = sleepingLimiter();
+        hostRateLimiter.acquire("example.com");
+
+        // 距上次请求已过去 30 毫秒，只需再等 70 毫秒
+        advance(30);
+        hostRateLimiter.acquire("example.com");
+        assertEquals(Collections.singletonList(70L), sleepMillisList);
+    }
+
+    @Test
+    void differentHostsDoNotWaitForEachOther() throws InterruptedException {
+        HostRateLimiter hostRateLimiter = sleepingLimiter();
+
+        hostRateLimiter.acquire("a.example.com");
+        hostRateLimiter.acquire("b.example.com");
+        hostRateLimiter.acquire("c.example.com");
+        assertTrue(sleepMillisList.isEmpty());
+    }
+
+    @Test
+    void idleHostIsNotDelayed() throws InterruptedException {
+        HostRateLimiter hostRateLimiter = sleepingLimiter();
+        hostRateLimiter.acquire("example.com");
+
+        // 空闲超过间隔后，不会因为之前的请求而等待
+        advance(INTERVAL_MILLIS + 1);
+        hostRateLimiter.acquire("example.com");
+        // 空闲超过淘汰时间（域名记录已过期）同样不等待
+        advance(TimeUnit.MINUTES.toMillis(11));
+        hostRateLimiter.acquire("example.com");
+        assertTrue(sleepMillisList.isEmpty());
+        // 之后的请求照常限流
+        hostRateLimiter.acquire("example.com");
+        assertEquals(Collections.singletonList(INTERVAL_MILLIS), sleepMillisList);
+    }
+
+    @Test
+    void simultaneousRequestsReserveConsecutiveSlots() throws InterruptedException {
+        // 时钟不走：同一时刻到达的请求依次预约到后面的时间点
+        HostRateLimiter hostRateLimiter = frozenLimiter();
+        for (int i = 0; i < 4; i++) {
+            hostRateLimiter.acquire("example.com");
+        }
+
+        assertEquals(Arrays.asList(100L, 200L, 300L), sleepMillisList);
+    }
+
+    @Test
+    void concurrentRequestsReserveDistinctSlots() throws InterruptedException {
+        HostRateLimiter hostRateLimiter = frozenLimiter();
+        int threadCount = 8;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(() -> {
+                try {
+                    startLatch.await();
+                    hostRateLimiter.acquire("example.com");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            }).start();
+        }
+        startLatch.countDown();
+        assertTrue(doneLatch.await(10, TimeUnit.SECONDS));
+
+        // 无论线程如何交错，预约的时间点互不重复且依次相隔一个间隔（第一个请求不等待）
+        List<Long> sortedList = new ArrayList<>(sleepMillisList);
+        Collections.sort(sortedList);
+        List<Long> expected = new ArrayList<>();
+        for (long i = 1; i < threadCount; i++) {
+            expected.add(i * INTERVAL_MILLIS);
+        }
+        assertEquals(expected, sortedList);
+    }
+
+    /**
+     * 等待时推进时钟，模拟单线程依次请求
+     */
+    private HostRateLimiter sleepingLimiter() {
+        return new HostRateLimiter(INTERVAL_MILLIS, clock::get, nanos -> {
+            sleepMillisList.add(TimeUnit.NANOSECONDS.toMillis(nanos));
+            clock.addAndGet(nanos);
+        });
+    }
+
+    /**
+     * 等待时不推进时钟，模拟同一时刻到达的请求
+     */
+    private HostRateLimiter frozenLimiter() {
+        return new HostRateLimiter(INTERVAL_MILLIS, clock::get,
+                nanos -> sleepMillisList.add(TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,100 @@
+package com.eureka.picwavebackend.manager.image;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerceptualHashTest {
+
+    /**
+     * 相似图片的汉明距离上限（与相似图片检索的默认距离一致）
+     */
+    private static final int SIMILAR_DISTANCE = 10;
+
+    /**
+     * 不相关图片的汉明距离下限（与相似图片检索允许的最大距离一致）
+     */
+    private static final int UNRELATED_DISTANCE = 16;
+
+    @Test
+    void distanceCountsDifferentBits() {
+        assertEquals(0, PerceptualHash.distance(0x1234L, 0x1234L));
+        assertEquals(2, PerceptualHash.distance(0b1011L, 0b0010L));
+        assertEquals(64, PerceptualHash.distance(0L, -1L));
+    }
+
+    @Test
+    void sameImageHasSameHash() {
+        assertEquals(PerceptualHash.compute(blocks(256, 256, 1)), PerceptualHash.compute(blocks(256, 256, 1)));
+    }
+
+    @Test
+    void resizedImageIsSimilar() {
+        long hash = PerceptualHash.compute(blocks(512, 384, 1));
+
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.compute(blocks(160, 120, 1))) <= SIMILAR_DISTANCE);
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.compute(scale(blocks(512, 384, 1), 96, 72))) <= SIMILAR_DISTANCE);
+    }
+
+    @Test
+    void smallImageIsUpscaled() {
+        long hash = PerceptualHash.compute(blocks(512, 384, 1));
+
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.compute(scale(blocks(512, 384, 1), 16, 12))) <= SIMILAR_DISTANCE);
+    }
+
+    @Test
+    void differentImageIsNotSimilar() {
+        long hash = PerceptualHash.compute(blocks(512, 384, 1));
+
+        for (long seed = 2; seed < 10; seed++) {
+            assertTrue(PerceptualHash.distance(hash, PerceptualHash.compute(blocks(512, 384, seed))) > UNRELATED_DISTANCE);
+        }
+    }
+
+    @Test
+    void transparentPixelsAreWhite() {
+        BufferedImage transparent = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage white = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = white.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 64, 64);
+        graphics.dispose();
+
+        assertEquals(PerceptualHash.compute(white), PerceptualHash.compute(transparent));
+    }
+
+    /**
+     * 生成 6x6 随机灰度色块组成的测试图片，种子相同时内容相同
+     */
+    private static BufferedImage blocks(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[][] grayBlocks = new int[6][6];
+        for (int[] row : grayBlocks) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = random.nextInt(256);
+            }
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int gray = grayBlocks[y * 6 / height][x * 6 / width];
+                image.setRGB(x, y, (gray << 16) | (gray << 8) | gray);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
@@ -0,0 +1,42 @@
+package com.eureka.picwavebackend.manager.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NGramTokenizerTest {
+
+    @Test
+    void indexTokensAreUnigramsAndBigrams() {
+        assertEquals(Arrays.asList("日", "日落", "落", "落a", "a"), NGramTokenizer.tokenizeForIndex("日落A"));
+        // 重复的词元保留，用于统计词频
+        assertEquals(Arrays.asList("a", "aa", "a"), NGramTokenizer.tokenizeForIndex("aa"));
+    }
+
+    @Test
+    void nonLetterOrDigitSplitsSegments() {
+        assertEquals(Arrays.asList("h", "hi", "i", "世", "世界", "界"), NGramTokenizer.tokenizeForIndex("Hi, 世界!"));
+        // 代理对（如 emoji）视为分隔符
+        assertEquals(Arrays.asList("a", "b"), NGramTokenizer.tokenizeForIndex("a🌅b"));
+    }
+
+    @Test
+    void queryTokensAreBigramsOrSingleChar() {
+        assertEquals(new LinkedHashSet<>(Collections.singletonList("日落")), NGramTokenizer.tokenizeForQuery("日落"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("海", "日落")), NGramTokenizer.tokenizeForQuery("海 日落"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("su", "un", "ns", "se", "et")), NGramTokenizer.tokenizeForQuery("SUNSET"));
+        // 去重
+        assertEquals(new LinkedHashSet<>(Collections.singletonList("aa")), NGramTokenizer.tokenizeForQuery("aaaa"));
+    }
+
+    @Test
+    void blankTextHasNoToken() {
+        assertTrue(NGramTokenizer.tokenizeForIndex(null).isEmpty());
+        assertTrue(NGramTokenizer.tokenizeForIndex("  ").isEmpty());
+        assertTrue(NGramTokenizer.tokenizeForQuery("，。！").isEmpty());
+    }
+}
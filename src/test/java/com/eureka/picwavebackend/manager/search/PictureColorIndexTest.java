@@ -0,0 +1,242 @@
+package com.eureka.picwavebackend.manager.search;
+
+import cn.hutool.json.JSONUtil;
+import com.eureka.picwavebackend.manager.color.LabColor;
+import com.eureka.picwavebackend.manager.color.PaletteColor;
+import com.eureka.picwavebackend.model.entity.Picture;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureColorIndexTest {
+
+    /**
+     * 与 PictureColorIndex 中的常量一致
+     */
+    private static final float RATIO_PENALTY = 20f;
+    private static final float MAX_MATCH_COST = 35f;
+
+    @Test
+    void heapKeepsBestAndBreaksTiesByNewest() {
+        PictureColorIndex.TopKHeap heap = new PictureColorIndex.TopKHeap(3);
+        heap.offer(5, 1L);
+        heap.offer(3, 2L);
+        heap.offer(5, 3L);
+        heap.offer(1, 4L);
+        heap.offer(3, 5L);
+        heap.offer(9, 6L);
+        heap.offer(5, 7L);
+
+        // 得分升序，同分时 id 大的（新图片）在前
+        assertEquals(Arrays.asList(4L, 5L, 2L), heap.toList());
+    }
+
+    @Test
+    void heapToListDrains() {
+        PictureColorIndex.TopKHeap heap = new PictureColorIndex.TopKHeap(2);
+        heap.offer(2, 1L);
+        heap.offer(1, 2L);
+
+        assertEquals(Arrays.asList(2L, 1L), heap.toList());
+        // 弹出后堆为空，可以继续使用
+        assertTrue(heap.toList().isEmpty());
+        heap.offer(3, 3L);
+        assertEquals(Collections.singletonList(3L), heap.toList());
+        // 容量为 0 时不保留任何结果
+        PictureColorIndex.TopKHeap emptyHeap = new PictureColorIndex.TopKHeap(0);
+        emptyHeap.offer(1, 1L);
+        assertTrue(emptyHeap.toList().isEmpty());
+    }
+
+    @Test
+    void heapMatchesBruteForce() {
+        Random random = new Random(42);
+        for (int capacity : new int[]{1, 7, 50, 1000}) {
+            PictureColorIndex.TopKHeap heap = new PictureColorIndex.TopKHeap(capacity);
+            List<long[]> offerList = new ArrayList<>();
+            for (long id = 1; id <= 500; id++) {
+                // 得分范围小，大量同分
+                int score = random.nextInt(20);
+                heap.offer(score, id);
+                offerList.add(new long[]{score, id});
+            }
+            List<Long> expected = offerList.stream()
+                    .sorted(Comparator.<long[]>comparingLong(offer -> offer[0]).thenComparing(offer -> -offer[1]))
+                    .limit(capacity)
+                    .map(offer -> offer[1])
+                    .collect(Collectors.toList());
+            assertEquals(expected, heap.toList());
+        }
+    }
+
+    @Test
+    void removeMovesLastIntoGap() {
+        PictureColorIndex index = new PictureColorIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.upsert(picture(id, null, 1, gray((int) id * 40)));
+        }
+
+        // 删除中间的图片，末尾的 5 移到空位
+        index.remove(2L);
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(1L, 3L, 4L, 5L), index.search(null, 0x000000, 10));
+        // 更新被移动的图片，应写到新位置，不产生重复或残留
+        index.upsert(picture(5L, null, 1, "0x000000"));
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(5L, 1L, 3L, 4L), index.search(null, 0x000000, 10));
+        // 删除被移动的图片和当前末尾的图片
+        index.remove(5L);
+        index.remove(4L);
+        assertEquals(Arrays.asList(1L, 3L), index.search(null, 0x000000, 10));
+        // 删除不存在的图片不影响其他图片
+        index.remove(99L);
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void pictureMovesBetweenScopes() {
+        PictureColorIndex index = new PictureColorIndex();
+        index.upsert(picture(1L, 100L, 1, "0xff0000"));
+        index.upsert(picture(2L, 100L, 1, "0xff0000"));
+
+        // 从空间移到公共图库
+        index.upsert(picture(1L, null, 1, "0xff0000"));
+        assertEquals(2, index.size());
+        assertEquals(Collections.singletonList(2L), index.search(100L, 0xFF0000, 10));
+        assertEquals(Collections.singletonList(1L), index.search(null, 0xFF0000, 10));
+        // 再移到另一个空间，公共图库为空
+        index.upsert(picture(1L, 200L, 1, "0xff0000"));
+        assertTrue(index.search(null, 0xFF0000, 10).isEmpty());
+        assertEquals(Collections.singletonList(1L), index.search(200L, 0xFF0000, 10));
+        // 删除空间中最后一张图片后空间为空
+        index.remove(2L);
+        assertTrue(index.search(100L, 0xFF0000, 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void randomUpdatesMatchBruteForce() {
+        // 1、随机新增、更新（含跨范围移动）、删除
+        Random random = new Random(42);
+        PictureColorIndex index = new PictureColorIndex();
+        Long[] scopes = {null, 1L, 2L};
+        Map<Long, Long> scopeMap = new HashMap<>();
+        Map<Long, Integer> colorMap = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            long id = 1 + random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                scopeMap.remove(id);
+                colorMap.remove(id);
+            } else {
+                Long spaceId = scopes[random.nextInt(scopes.length)];
+                int rgb = random.nextInt(0x1000000);
+                index.upsert(picture(id, spaceId, 1, String.format("0x%06x", rgb)));
+                scopeMap.put(id, spaceId);
+                colorMap.put(id, rgb);
+            }
+        }
+        assertEquals(colorMap.size(), index.size());
+        // 2、每个范围的检索结果与逐个计算一致
+        int target = 0x336699;
+        for (Long spaceId : scopes) {
+            List<Long> expected = colorMap.keySet().stream()
+                    .filter(id -> Objects.equals(scopeMap.get(id), spaceId))
+                    .sorted(Comparator.<Long>comparingInt(id -> squaredDistance(colorMap.get(id), target))
+                            .thenComparing(Comparator.reverseOrder()))
+                    .collect(Collectors.toList());
+            assertEquals(expected, index.search(spaceId, target, 1000));
+        }
+    }
+
+    @Test
+    void paletteCostPrefersDominantColor() {
+        PictureColorIndex index = new PictureColorIndex();
+        index.upsert(palettePicture(1L, 1, new PaletteColor("0xff0000", 0.9), new PaletteColor("0x0000ff", 0.1)));
+        index.upsert(palettePicture(2L, 1, new PaletteColor("0xff0000", 0.5), new PaletteColor("0x0000ff", 0.5)));
+        index.upsert(palettePicture(3L, 1, new PaletteColor("0x00ff00", 1.0)));
+
+        // 红色：占比 0.9 的代价 2，占比 0.5 的代价 10，绿色图片超过最大代价不返回
+        assertEquals(Arrays.asList(1L, 2L), index.searchByPalette(null, null, list(0xFF0000), 10));
+        // 蓝色：占比 0.5 的代价 10，占比 0.1 的代价 18
+        assertEquals(Arrays.asList(2L, 1L), index.searchByPalette(null, null, list(0x0000FF), 10));
+        // 红 + 蓝：平均代价都是 10，同代价时新图片在前；绿色图片缺少两种颜色
+        assertEquals(Arrays.asList(2L, 1L), index.searchByPalette(null, null, list(0xFF0000, 0x0000FF), 10));
+        // 必须包含所有目标颜色
+        assertTrue(index.searchByPalette(null, null, list(0xFF0000, 0x00FF00), 10).isEmpty());
+        // limit 截断
+        assertEquals(Collections.singletonList(1L), index.searchByPalette(null, null, list(0xFF0000), 1));
+    }
+
+    @Test
+    void matchCostAboveLimitIsRejected() {
+        // 查询颜色与红色的色差在 (35 - 20 * 0.95, 35] 之间：占比高时能匹配，占比低时加上惩罚超过上限
+        int query = 0xB40000;
+        float deltaE = deltaE(query, 0xFF0000);
+        assertTrue(deltaE + RATIO_PENALTY * 0.05f < MAX_MATCH_COST);
+        assertTrue(deltaE + RATIO_PENALTY * 0.95f > MAX_MATCH_COST);
+        PictureColorIndex index = new PictureColorIndex();
+        index.upsert(palettePicture(1L, 1, new PaletteColor("0xff0000", 0.95), new PaletteColor("0x00ff00", 0.05)));
+        index.upsert(palettePicture(2L, 1, new PaletteColor("0x00ff00", 0.95), new PaletteColor("0xff0000", 0.05)));
+
+        assertEquals(Collections.singletonList(1L), index.searchByPalette(null, null, list(query), 10));
+        // 完全相同的颜色只有占比惩罚，两张都能匹配
+        assertEquals(Arrays.asList(1L, 2L), index.searchByPalette(null, null, list(0xFF0000), 10));
+    }
+
+    @Test
+    void paletteSearchFiltersReviewStatus() {
+        PictureColorIndex index = new PictureColorIndex();
+        index.upsert(palettePicture(1L, 1, new PaletteColor("0xff0000", 1.0)));
+        index.upsert(palettePicture(2L, 0, new PaletteColor("0xff0000", 1.0)));
+        // 没有色板时平均色视为占比 100% 的色板
+        index.upsert(picture(3L, null, 1, "0xff0000"));
+
+        assertEquals(Arrays.asList(3L, 1L), index.searchByPalette(null, 1, list(0xFF0000), 10));
+        assertEquals(Collections.singletonList(2L), index.searchByPalette(null, 0, list(0xFF0000), 10));
+        assertEquals(Arrays.asList(3L, 2L, 1L), index.searchByPalette(null, null, list(0xFF0000), 10));
+        // 平均色和色板都没有时从索引中移除
+        index.upsert(picture(3L, null, 1, null));
+        assertEquals(2, index.size());
+    }
+
+    private static Picture picture(Long id, Long spaceId, Integer reviewStatus, String picColor) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setSpaceId(spaceId);
+        picture.setReviewStatus(reviewStatus);
+        picture.setPicColor(picColor);
+        return picture;
+    }
+
+    private static Picture palettePicture(Long id, Integer reviewStatus, PaletteColor... palette) {
+        Picture picture = picture(id, null, reviewStatus, palette[0].getColor());
+        picture.setPicPalette(JSONUtil.toJsonStr(Arrays.asList(palette)));
+        return picture;
+    }
+
+    private static String gray(int value) {
+        return String.format("0x%02x%02x%02x", value, value, value);
+    }
+
+    private static List<Integer> list(Integer... rgbs) {
+        return Arrays.asList(rgbs);
+    }
+
+    private static int squaredDistance(int rgb1, int rgb2) {
+        int dr = ((rgb1 >> 16) & 0xFF) - ((rgb2 >> 16) & 0xFF);
+        int dg = ((rgb1 >> 8) & 0xFF) - ((rgb2 >> 8) & 0xFF);
+        int db = (rgb1 & 0xFF) - (rgb2 & 0xFF);
+        return dr * dr + dg * dg + db * db;
+    }
+
+    private static float deltaE(int rgb1, int rgb2) {
+        float[] labs = new float[6];
+        LabColor.toLab(rgb1, labs, 0);
+        LabColor.toLab(rgb2, labs, 3);
+        return LabColor.deltaE(labs, 0, labs, 3);
+    }
+}
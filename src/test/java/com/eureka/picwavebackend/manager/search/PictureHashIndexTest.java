@@ -0,0 +1,107 @@
+package com.eureka.picwavebackend.manager.search;
+
+import com.eureka.picwavebackend.manager.image.PerceptualHash;
+import com.eureka.picwavebackend.model.entity.Picture;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureHashIndexTest {
+
+    @Test
+    void radiusSearchMatchesBruteForce() {
+        // 1、随机指纹，每个再派生几个翻转少量位的近似指纹，保证各个半径都有命中
+        Random random = new Random(42);
+        PictureHashIndex index = new PictureHashIndex();
+        Map<Long, Long> hashMap = new HashMap<>();
+        long pictureId = 1;
+        for (int i = 0; i < 300; i++) {
+            long hash = random.nextLong();
+            for (int j = 0; j < 5; j++) {
+                long nearHash = hash;
+                for (int k = 0; k < j * 3; k++) {
+                    nearHash ^= 1L << random.nextInt(64);
+                }
+                index.upsert(picture(pictureId, null, 1, nearHash));
+                hashMap.put(pictureId, nearHash);
+                pictureId++;
+            }
+        }
+        assertEquals(hashMap.size(), index.size());
+        // 2、各半径的结果与暴力计算一致
+        for (int q = 0; q < 50; q++) {
+            long query = hashMap.get(1L + random.nextInt(hashMap.size())) ^ (1L << random.nextInt(64));
+            for (int maxDistance : new int[]{0, 3, 10, 16}) {
+                Set<Long> expected = new HashSet<>();
+                hashMap.forEach((id, hash) -> {
+                    if (PerceptualHash.distance(hash, query) <= maxDistance) {
+                        expected.add(id);
+                    }
+                });
+                List<Long> resultList = index.search(query, null, null, maxDistance, Integer.MAX_VALUE);
+                assertEquals(expected, new HashSet<>(resultList), "maxDistance = " + maxDistance);
+                assertEquals(expected.size(), resultList.size());
+            }
+        }
+    }
+
+    @Test
+    void resultIsSortedByDistanceThenNewest() {
+        PictureHashIndex index = new PictureHashIndex();
+        index.upsert(picture(1L, null, 1, 0b0111L));
+        index.upsert(picture(2L, null, 1, 0b0001L));
+        index.upsert(picture(3L, null, 1, 0b0000L));
+        index.upsert(picture(4L, null, 1, 0b0001L));
+
+        assertEquals(Arrays.asList(3L, 4L, 2L, 1L), index.search(0L, null, null, 3, 10));
+        assertEquals(Arrays.asList(3L, 4L), index.search(0L, null, null, 3, 2));
+        assertEquals(Collections.singletonList(3L), index.search(0L, null, null, 0, 10));
+    }
+
+    @Test
+    void searchIsScopedBySpaceAndReviewStatus() {
+        PictureHashIndex index = new PictureHashIndex();
+        index.upsert(picture(1L, null, 1, 0L));
+        index.upsert(picture(2L, 100L, 1, 0L));
+        index.upsert(picture(3L, null, 0, 0L));
+
+        assertEquals(Arrays.asList(3L, 1L), index.search(0L, null, null, 0, 10));
+        assertEquals(Collections.singletonList(1L), index.search(0L, null, 1, 0, 10));
+        assertEquals(Collections.singletonList(2L), index.search(0L, 100L, null, 0, 10));
+        assertTrue(index.search(0L, 200L, null, 64, 10).isEmpty());
+    }
+
+    @Test
+    void updateAndRemoveKeepRouting() {
+        PictureHashIndex index = new PictureHashIndex();
+        index.upsert(picture(1L, null, 1, 0L));
+        index.upsert(picture(2L, null, 1, 0b0011L));
+        index.upsert(picture(3L, null, 1, 0b1111L));
+
+        // 指纹变化后移到新节点，旧节点变空但仍参与路由
+        index.upsert(picture(1L, null, 1, -1L));
+        assertEquals(Arrays.asList(2L, 3L), index.search(0L, null, null, 4, 10));
+        assertEquals(Collections.singletonList(1L), index.search(-1L, null, null, 0, 10));
+
+        // 只有审核状态变化
+        index.upsert(picture(2L, null, 0, 0b0011L));
+        assertEquals(Collections.singletonList(3L), index.search(0L, null, 1, 4, 10));
+
+        // 删除和没有指纹的图片都从索引中移除
+        index.remove(3L);
+        index.upsert(picture(1L, null, 1, null));
+        assertEquals(Collections.singletonList(2L), index.search(0L, null, null, 64, 10));
+        assertEquals(1, index.size());
+    }
+
+    private static Picture picture(Long id, Long spaceId, Integer reviewStatus, Long picHash) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setSpaceId(spaceId);
+        picture.setReviewStatus(reviewStatus);
+        picture.setPicHash(picHash);
+        return picture;
+    }
+}
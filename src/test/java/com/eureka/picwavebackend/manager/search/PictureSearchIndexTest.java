@@ -0,0 +1,103 @@
+package com.eureka.picwavebackend.manager.search;
+
+import com.eureka.picwavebackend.model.entity.Picture;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureSearchIndexTest {
+
+    @Test
+    void allQueryTokensMustMatch() {
+        PictureSearchIndex index = new PictureSearchIndex();
+        index.upsert(picture(1L, null, 1, "海边日落", null));
+        index.upsert(picture(2L, null, 1, "日出", "山顶的落日"));
+        index.upsert(picture(3L, null, 1, "落叶", null));
+
+        assertEquals(Collections.singletonList(1L), search(index, "日落"));
+        assertEquals(Collections.singletonList(2L), search(index, "落日"));
+        assertTrue(search(index, "日落 森林").isEmpty());
+        assertTrue(search(index, "不存在").isEmpty());
+    }
+
+    @Test
+    void nameHitRanksAboveIntroductionHit() {
+        PictureSearchIndex index = new PictureSearchIndex();
+        index.upsert(picture(1L, null, 1, "城市夜景", "日落"));
+        index.upsert(picture(2L, null, 1, "日落", "城市夜景"));
+
+        assertEquals(Arrays.asList(2L, 1L), search(index, "日落"));
+    }
+
+    @Test
+    void higherTermFrequencyAndShorterDocumentRankFirst() {
+        PictureSearchIndex index = new PictureSearchIndex();
+        index.upsert(picture(1L, null, 1, "猫", "一只猫"));
+        index.upsert(picture(2L, null, 1, "猫", "一只猫和另一只猫"));
+        index.upsert(picture(3L, null, 1, "猫", "一只猫在很长很长很长很长很长很长的走廊里"));
+
+        List<Long> resultList = search(index, "猫");
+        assertEquals(3, resultList.size());
+        // 词频相同时更短的文档排在前面，长度相近时词频更高的排在前面
+        assertTrue(resultList.indexOf(2L) < resultList.indexOf(3L));
+        assertTrue(resultList.indexOf(1L) < resultList.indexOf(3L));
+    }
+
+    @Test
+    void sameScoreNewestFirstAndLimitKeepsTop() {
+        PictureSearchIndex index = new PictureSearchIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.upsert(picture(id, null, 1, "日落", null));
+        }
+        index.upsert(picture(6L, null, 1, "日落日落", null));
+
+        assertEquals(Arrays.asList(6L, 5L, 4L, 3L, 2L, 1L), search(index, "日落"));
+        assertEquals(Arrays.asList(6L, 5L), index.search(NGramTokenizer.tokenizeForQuery("日落"), null, false, null, 2));
+    }
+
+    @Test
+    void searchIsScopedBySpaceAndReviewStatus() {
+        PictureSearchIndex index = new PictureSearchIndex();
+        index.upsert(picture(1L, null, 1, "日落", null));
+        index.upsert(picture(2L, 100L, 1, "日落", null));
+        index.upsert(picture(3L, null, 0, "日落", null));
+
+        assertEquals(Arrays.asList(3L, 2L, 1L), search(index, "日落"));
+        assertEquals(Arrays.asList(3L, 1L), index.search(NGramTokenizer.tokenizeForQuery("日落"), null, true, null, 10));
+        assertEquals(Collections.singletonList(2L), index.search(NGramTokenizer.tokenizeForQuery("日落"), 100L, false, null, 10));
+        assertEquals(Collections.singletonList(1L), index.search(NGramTokenizer.tokenizeForQuery("日落"), null, true, 1, 10));
+    }
+
+    @Test
+    void upsertReplacesAndRemoveDeletes() {
+        PictureSearchIndex index = new PictureSearchIndex();
+        index.upsert(picture(1L, null, 1, "日落", null));
+        index.upsert(picture(2L, null, 1, "日出", null));
+
+        index.upsert(picture(1L, null, 1, "森林", null));
+        assertTrue(search(index, "日落").isEmpty());
+        assertEquals(Collections.singletonList(1L), search(index, "森林"));
+
+        index.remove(2L);
+        assertTrue(search(index, "日出").isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    private static List<Long> search(PictureSearchIndex index, String searchText) {
+        return index.search(NGramTokenizer.tokenizeForQuery(searchText), null, false, null, 100);
+    }
+
+    private static Picture picture(Long id, Long spaceId, Integer reviewStatus, String name, String introduction) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setSpaceId(spaceId);
+        picture.setReviewStatus(reviewStatus);
+        picture.setName(name);
+        picture.setIntroduction(introduction);
+        return picture;
+    }
+}
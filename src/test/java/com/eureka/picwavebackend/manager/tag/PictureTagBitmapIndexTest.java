@@ -0,0 +1,126 @@
+package com.eureka.picwavebackend.manager.tag;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureTagBitmapIndexTest {
+
+    @Test
+    void queryIntersectsAllTags() {
+        PictureTagBitmapIndex index = new PictureTagBitmapIndex();
+        index.upsert(1L, null, 1, Arrays.asList(10L, 20L));
+        index.upsert(2L, null, 1, Arrays.asList(10L, 20L, 30L));
+        index.upsert(3L, null, 1, Collections.singletonList(10L));
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, ids(index, Collections.singletonList(10L)));
+        assertArrayEquals(new long[]{1L, 2L}, ids(index, Arrays.asList(10L, 20L)));
+        assertArrayEquals(new long[]{2L}, ids(index, Arrays.asList(10L, 20L, 30L)));
+        // 不存在的标签直接返回空
+        assertArrayEquals(new long[0], ids(index, Arrays.asList(10L, 40L)));
+        // 没有任何条件时不返回全部图片
+        assertArrayEquals(new long[0], ids(index, Collections.emptyList()));
+    }
+
+    @Test
+    void queryIsScopedBySpaceAndReviewStatus() {
+        PictureTagBitmapIndex index = new PictureTagBitmapIndex();
+        index.upsert(1L, null, 1, Collections.singletonList(10L));
+        index.upsert(2L, 100L, 1, Collections.singletonList(10L));
+        index.upsert(3L, null, 0, Collections.singletonList(10L));
+        index.upsert(4L, 200L, null, Collections.singletonList(10L));
+        List<Long> tagIdList = Collections.singletonList(10L);
+
+        assertArrayEquals(new long[]{1L, 3L}, index.query(tagIdList, null, true, null).toArray());
+        assertArrayEquals(new long[]{1L}, index.query(tagIdList, null, true, 1).toArray());
+        assertArrayEquals(new long[]{2L}, index.query(tagIdList, 100L, false, null).toArray());
+        assertArrayEquals(new long[]{1L, 2L}, index.query(tagIdList, null, false, 1).toArray());
+        assertArrayEquals(new long[]{4L}, index.query(tagIdList, 200L, false, null).toArray());
+        assertTrue(index.query(tagIdList, 300L, false, null).isEmpty());
+        assertTrue(index.query(tagIdList, null, false, 2).isEmpty());
+    }
+
+    @Test
+    void upsertReplacesOldEntry() {
+        PictureTagBitmapIndex index = new PictureTagBitmapIndex();
+        index.upsert(1L, 100L, 0, Arrays.asList(10L, 20L));
+        // 标签、空间、审核状态全部变化，旧位都要移除
+        index.upsert(1L, null, 1, Collections.singletonList(30L));
+
+        assertEquals(1, index.size());
+        assertTrue(index.query(Collections.singletonList(10L), null, false, null).isEmpty());
+        assertTrue(index.query(Collections.singletonList(20L), null, false, null).isEmpty());
+        assertTrue(index.query(Collections.singletonList(30L), 100L, false, null).isEmpty());
+        assertTrue(index.query(Collections.singletonList(30L), null, false, 0).isEmpty());
+        assertArrayEquals(new long[]{1L}, index.query(Collections.singletonList(30L), null, true, 1).toArray());
+    }
+
+    @Test
+    void removeClearsAllBitmaps() {
+        PictureTagBitmapIndex index = new PictureTagBitmapIndex();
+        index.upsert(1L, null, 1, Arrays.asList(10L, 20L));
+        index.upsert(2L, 100L, 1, Collections.singletonList(10L));
+
+        index.remove(1L);
+        // 重复删除和删除不存在的图片不报错
+        index.remove(1L);
+        index.remove(99L);
+
+        assertEquals(1, index.size());
+        assertArrayEquals(new long[]{2L}, ids(index, Collections.singletonList(10L)));
+        assertTrue(index.query(Collections.singletonList(20L), null, false, null).isEmpty());
+        assertTrue(index.query(Collections.singletonList(10L), null, true, null).isEmpty());
+    }
+
+    @Test
+    void queryResultIsACopy() {
+        PictureTagBitmapIndex index = new PictureTagBitmapIndex();
+        index.upsert(1L, null, 1, Collections.singletonList(10L));
+        index.upsert(2L, null, 1, Collections.singletonList(10L));
+
+        // 修改查询结果不影响索引
+        Roaring64NavigableMap result = index.query(Collections.singletonList(10L), null, false, null);
+        result.removeLong(1L);
+        result.addLong(3L);
+
+        assertArrayEquals(new long[]{1L, 2L}, ids(index, Collections.singletonList(10L)));
+    }
+
+    @Test
+    void queryMatchesBruteForce() {
+        // 1、随机图片，每张带若干标签
+        Random random = new Random(42);
+        PictureTagBitmapIndex index = new PictureTagBitmapIndex();
+        Map<Long, Set<Long>> pictureTagMap = new HashMap<>();
+        for (long pictureId = 1; pictureId <= 2000; pictureId++) {
+            Set<Long> tagIdSet = new HashSet<>();
+            int tagCount = random.nextInt(5);
+            for (int i = 0; i < tagCount; i++) {
+                tagIdSet.add((long) random.nextInt(20));
+            }
+            index.upsert(pictureId, null, 1, new ArrayList<>(tagIdSet));
+            pictureTagMap.put(pictureId, tagIdSet);
+        }
+        // 2、多标签查询结果与逐个比对一致
+        for (int q = 0; q < 100; q++) {
+            Set<Long> queryTagIdSet = new HashSet<>();
+            int tagCount = 1 + random.nextInt(3);
+            for (int i = 0; i < tagCount; i++) {
+                queryTagIdSet.add((long) random.nextInt(20));
+            }
+            long[] expected = pictureTagMap.entrySet().stream()
+                    .filter(entry -> entry.getValue().containsAll(queryTagIdSet))
+                    .mapToLong(Map.Entry::getKey)
+                    .sorted()
+                    .toArray();
+            assertArrayEquals(expected, ids(index, queryTagIdSet));
+        }
+    }
+
+    private static long[] ids(PictureTagBitmapIndex index, Collection<Long> tagIdCollection) {
+        return index.query(tagIdCollection, null, false, null).toArray();
+    }
+}
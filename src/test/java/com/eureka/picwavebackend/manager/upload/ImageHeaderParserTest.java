@@ -0,0 +1,276 @@
+package com.eureka.picwavebackend.manager.upload;
+
+import com.eureka.picwavebackend.manager.upload.ImageHeaderParser.ImageHeader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageHeaderParserTest {
+
+    @Test
+    void parseJpegSizeAndExifOrientation() {
+        byte[] jpeg = jpeg(exifApp1(true, 6), sof0(300, 400));
+
+        ImageHeader imageHeader = parse(jpeg);
+
+        assertEquals("jpeg", imageHeader.getFormat());
+        assertEquals(400, imageHeader.getWidth());
+        assertEquals(300, imageHeader.getHeight());
+        assertEquals(6, imageHeader.getOrientation());
+        // 方向 6 需要旋转 90 度，摆正后宽高互换
+        assertEquals(300, imageHeader.getDisplayWidth());
+        assertEquals(400, imageHeader.getDisplayHeight());
+        assertEquals("jpg", imageHeader.getSuffix());
+        assertTrue(imageHeader.matchesSuffix("JPG"));
+        assertTrue(imageHeader.matchesSuffix("jpeg"));
+        assertFalse(imageHeader.matchesSuffix("png"));
+    }
+
+    @Test
+    void parseBigEndianExifOrientation() {
+        ImageHeader imageHeader = parse(jpeg(exifApp1(false, 3), sof0(10, 20)));
+
+        assertEquals(3, imageHeader.getOrientation());
+        assertEquals(20, imageHeader.getDisplayWidth());
+    }
+
+    @Test
+    void truncatedJpegHasUnknownSize() {
+        byte[] jpeg = jpeg(exifApp1(true, 6), sof0(300, 400));
+        // 截断在 SOF 段中间
+        ImageHeader imageHeader = ImageHeaderParser.parse(jpeg, jpeg.length - 30);
+
+        assertEquals("jpeg", imageHeader.getFormat());
+        assertEquals(0, imageHeader.getWidth());
+        assertEquals(0, imageHeader.getHeight());
+        // 宽高未知时交给解码阶段判断
+        assertNull(ImageHeaderParser.validate(imageHeader));
+    }
+
+    @Test
+    void malformedJpegSegmentsAreIgnored() {
+        // 段之间出现非 0xFF 字节
+        byte[] app0 = {(byte) 0xFF, (byte) 0xE0, 0, 4, 0, 0};
+        byte[] garbage = new byte[16];
+        Arrays.fill(garbage, (byte) 0x11);
+        assertEquals(0, parse(jpeg(app0, garbage, sof0(300, 400))).getWidth());
+        // 段长度小于 2
+        assertEquals(0, parse(jpeg(new byte[]{(byte) 0xFF, (byte) 0xE0, 0, 1, 0, 0, 0, 0, 0, 0}, sof0(300, 400))).getWidth());
+        // 扫描数据开始之后不再查找 SOF
+        assertEquals(0, parse(jpeg(new byte[]{(byte) 0xFF, (byte) 0xDA, 0, 2}, sof0(300, 400))).getWidth());
+    }
+
+    @Test
+    void malformedExifKeepsDefaultOrientation() {
+        byte[] app1 = exifApp1(true, 6);
+        // IFD0 偏移指向段外
+        app1[14] = (byte) 0xF0;
+        ImageHeader imageHeader = parse(jpeg(app1, sof0(300, 400)));
+
+        assertEquals(1, imageHeader.getOrientation());
+        assertEquals(400, imageHeader.getWidth());
+        // 方向值超出 1 ~ 8
+        assertEquals(1, parse(jpeg(exifApp1(true, 9), sof0(300, 400))).getOrientation());
+    }
+
+    @Test
+    void parsePngSize() {
+        ImageHeader imageHeader = parse(png(640, 480));
+
+        assertEquals("png", imageHeader.getFormat());
+        assertEquals("png", imageHeader.getSuffix());
+        assertEquals(640, imageHeader.getWidth());
+        assertEquals(480, imageHeader.getHeight());
+        assertNull(ImageHeaderParser.validate(imageHeader));
+    }
+
+    @Test
+    void truncatedPngHasUnknownSize() {
+        ImageHeader imageHeader = ImageHeaderParser.parse(png(640, 480), 20);
+
+        assertEquals("png", imageHeader.getFormat());
+        assertEquals(0, imageHeader.getWidth());
+        assertEquals(0, imageHeader.getHeight());
+    }
+
+    @Test
+    void parseWebpSize() {
+        byte[] vp8 = webp("VP8 ");
+        vp8[23] = (byte) 0x9D;
+        vp8[24] = 0x01;
+        vp8[25] = 0x2A;
+        putU16le(vp8, 26, 640);
+        putU16le(vp8, 28, 480);
+        assertSize(parse(vp8), 640, 480);
+
+        byte[] vp8l = webp("VP8L");
+        vp8l[20] = 0x2F;
+        int bits = (640 - 1) | ((480 - 1) << 14);
+        putU16le(vp8l, 21, bits & 0xFFFF);
+        putU16le(vp8l, 23, bits >>> 16);
+        assertSize(parse(vp8l), 640, 480);
+
+        byte[] vp8x = webp("VP8X");
+        putU24le(vp8x, 24, 20000 - 1);
+        putU24le(vp8x, 27, 480 - 1);
+        ImageHeader imageHeader = parse(vp8x);
+        assertSize(imageHeader, 20000, 480);
+        assertEquals("图片分辨率过大", ImageHeaderParser.validate(imageHeader));
+    }
+
+    @Test
+    void truncatedWebpHasUnknownSize() {
+        ImageHeader imageHeader = ImageHeaderParser.parse(webp("VP8X"), 20);
+
+        assertEquals("webp", imageHeader.getFormat());
+        assertSize(imageHeader, 0, 0);
+        // 不足 12 字节时无法识别
+        assertNull(ImageHeaderParser.parse(webp("VP8X"), 11));
+    }
+
+    @Test
+    void parseGifSize() {
+        byte[] gif = Arrays.copyOf("GIF89a".getBytes(StandardCharsets.US_ASCII), 13);
+        putU16le(gif, 6, 320);
+        putU16le(gif, 8, 240);
+
+        assertSize(parse(gif), 320, 240);
+        assertSize(ImageHeaderParser.parse(gif, 9), 0, 0);
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertNull(ImageHeaderParser.parse("<html></html>".getBytes(StandardCharsets.US_ASCII), 13));
+        assertNull(ImageHeaderParser.parse(new byte[]{(byte) 0xFF, (byte) 0xD8}, 2));
+        assertEquals("文件类型错误", ImageHeaderParser.validate(null));
+    }
+
+    @Test
+    void decompressionBombIsRejected() {
+        // 边长未超限但像素数超限
+        assertEquals("图片分辨率过大", ImageHeaderParser.validate(parse(png(8000, 6000))));
+        // 边长超限
+        assertEquals("图片分辨率过大", ImageHeaderParser.validate(parse(png(16385, 1))));
+        // 宽度超过 int 范围
+        assertEquals("图片分辨率过大", ImageHeaderParser.validate(parse(png(0x80000000, 1))));
+        assertNull(ImageHeaderParser.validate(parse(png(16384, 2000))));
+    }
+
+    private static ImageHeader parse(byte[] bytes) {
+        ImageHeader imageHeader = ImageHeaderParser.parse(bytes, bytes.length);
+        assertNotNull(imageHeader);
+        return imageHeader;
+    }
+
+    private static void assertSize(ImageHeader imageHeader, int width, int height) {
+        assertEquals(width, imageHeader.getWidth());
+        assertEquals(height, imageHeader.getHeight());
+    }
+
+    private static byte[] jpeg(byte[]... segments) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(0xFF);
+        bos.write(0xD8);
+        for (byte[] segment : segments) {
+            bos.write(segment, 0, segment.length);
+        }
+        // 扫描数据
+        bos.write(0xFF);
+        bos.write(0xDA);
+        bos.write(new byte[16], 0, 16);
+        return bos.toByteArray();
+    }
+
+    private static byte[] sof0(int height, int width) {
+        byte[] segment = new byte[19];
+        segment[0] = (byte) 0xFF;
+        segment[1] = (byte) 0xC0;
+        putU16be(segment, 2, 17);
+        segment[4] = 8;
+        putU16be(segment, 5, height);
+        putU16be(segment, 7, width);
+        return segment;
+    }
+
+    /**
+     * APP1 段：Exif 标识 + TIFF 头 + 只有方向标签的 IFD0
+     */
+    private static byte[] exifApp1(boolean littleEndian, int orientation) {
+        byte[] segment = new byte[4 + 6 + 8 + 2 + 12 + 4];
+        segment[0] = (byte) 0xFF;
+        segment[1] = (byte) 0xE1;
+        putU16be(segment, 2, segment.length - 2);
+        System.arraycopy("Exif\0\0".getBytes(StandardCharsets.US_ASCII), 0, segment, 4, 6);
+        int tiff = 10;
+        segment[tiff] = segment[tiff + 1] = (byte) (littleEndian ? 'I' : 'M');
+        putU16(segment, tiff + 2, 42, littleEndian);
+        putU32(segment, tiff + 4, 8, littleEndian);
+        int ifd = tiff + 8;
+        putU16(segment, ifd, 1, littleEndian);
+        // 方向标签：类型 SHORT，个数 1，值左对齐存放在 4 字节中
+        putU16(segment, ifd + 2, 0x0112, littleEndian);
+        putU16(segment, ifd + 4, 3, littleEndian);
+        putU32(segment, ifd + 6, 1, littleEndian);
+        putU16(segment, ifd + 10, orientation, littleEndian);
+        return segment;
+    }
+
+    private static byte[] png(int width, int height) {
+        byte[] png = new byte[33];
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(signature, 0, png, 0, signature.length);
+        putU16be(png, 8, 0);
+        putU16be(png, 10, 13);
+        System.arraycopy("IHDR".getBytes(StandardCharsets.US_ASCII), 0, png, 12, 4);
+        putU16be(png, 16, width >>> 16);
+        putU16be(png, 18, width & 0xFFFF);
+        putU16be(png, 20, height >>> 16);
+        putU16be(png, 22, height & 0xFFFF);
+        return png;
+    }
+
+    private static byte[] webp(String chunkType) {
+        byte[] webp = new byte[30];
+        System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, webp, 0, 4);
+        System.arraycopy("WEBP".getBytes(StandardCharsets.US_ASCII), 0, webp, 8, 4);
+        System.arraycopy(chunkType.getBytes(StandardCharsets.US_ASCII), 0, webp, 12, 4);
+        return webp;
+    }
+
+    private static void putU16(byte[] bytes, int offset, int value, boolean littleEndian) {
+        if (littleEndian) {
+            putU16le(bytes, offset, value);
+        } else {
+            putU16be(bytes, offset, value);
+        }
+    }
+
+    private static void putU32(byte[] bytes, int offset, int value, boolean littleEndian) {
+        if (littleEndian) {
+            putU16le(bytes, offset, value & 0xFFFF);
+            putU16le(bytes, offset + 2, value >>> 16);
+        } else {
+            putU16be(bytes, offset, value >>> 16);
+            putU16be(bytes, offset + 2, value & 0xFFFF);
+        }
+    }
+
+    private static void putU16be(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 8);
+        bytes[offset + 1] = (byte) value;
+    }
+
+    private static void putU16le(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void putU24le(byte[] bytes, int offset, int value) {
+        putU16le(bytes, offset, value & 0xFFFF);
+        bytes[offset + 2] = (byte) (value >>> 16);
+    }
+}
@@ -0,0 +1,178 @@
+package com.eureka.picwavebackend.model.dto.space;
+
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.entity.SpaceCategoryStat;
+import com.eureka.picwavebackend.model.entity.SpaceStat;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceStatDeltaTest {
+
+    @Test
+    void addCountsSizeBucketCategoryAndTags() {
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta()
+                .add(picture(1L, "风景", 50 * 1024L, "[\"海\",\"日落\"]"))
+                .add(picture(1L, null, 2 * 1024 * 1024L, "[\"海\"]"));
+
+        SpaceStat spaceStat = single(spaceStatDelta.getSpaceStatList());
+        assertEquals(1L, spaceStat.getSpaceId());
+        assertEquals(2L, spaceStat.getTotalCount());
+        assertEquals(50 * 1024L + 2 * 1024 * 1024L, spaceStat.getTotalSize());
+        assertEquals(1L, spaceStat.getSmallCount());
+        assertEquals(0L, spaceStat.getMediumCount());
+        assertEquals(0L, spaceStat.getLargeCount());
+        assertEquals(1L, spaceStat.getHugeCount());
+        // 未分类为空字符串，按分类排序
+        List<SpaceCategoryStat> categoryStatList = spaceStatDelta.getCategoryStatList();
+        assertEquals(Arrays.asList("", "风景"), categoryOf(categoryStatList));
+        assertEquals(2 * 1024 * 1024L, categoryStatList.get(0).getTotalSize());
+        Map<String, Long> tagCountMap = spaceStatDelta.getTagCountMap().get(1L);
+        assertEquals(2L, tagCountMap.get("海"));
+        assertEquals(1L, tagCountMap.get("日落"));
+    }
+
+    @Test
+    void sizeBucketBoundaries() {
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta()
+                .add(picture(1L, null, 100 * 1024L - 1, null))
+                .add(picture(1L, null, 100 * 1024L, null))
+                .add(picture(1L, null, 500 * 1024L, null))
+                .add(picture(1L, null, 1024 * 1024L, null))
+                .add(picture(1L, null, null, null));
+
+        SpaceStat spaceStat = single(spaceStatDelta.getSpaceStatList());
+        // 体积为空按 0 计入小图
+        assertEquals(2L, spaceStat.getSmallCount());
+        assertEquals(1L, spaceStat.getMediumCount());
+        assertEquals(1L, spaceStat.getLargeCount());
+        assertEquals(1L, spaceStat.getHugeCount());
+    }
+
+    @Test
+    void publicPictureUsesPublicSpaceId() {
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta().add(picture(null, null, 1L, "[\"海\"]"));
+
+        assertEquals(SpaceStatDelta.PUBLIC_SPACE_ID, single(spaceStatDelta.getSpaceStatList()).getSpaceId());
+        assertEquals(SpaceStatDelta.PUBLIC_SPACE_ID, single(spaceStatDelta.getCategoryStatList()).getSpaceId());
+        assertTrue(spaceStatDelta.getTagCountMap().containsKey(SpaceStatDelta.PUBLIC_SPACE_ID));
+    }
+
+    @Test
+    void addThenRemoveCancelsOut() {
+        Picture picture = picture(1L, "风景", 1024L, "[\"海\"]");
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta().add(picture).remove(picture);
+
+        assertTrue(spaceStatDelta.getSpaceStatList().isEmpty());
+        assertTrue(spaceStatDelta.getCategoryStatList().isEmpty());
+        assertTrue(spaceStatDelta.getTagCountMap().isEmpty());
+    }
+
+    @Test
+    void replaceWithNullFieldsIsUnchanged() {
+        Picture oldPicture = picture(1L, "风景", 1024L, "[\"海\"]");
+        // 与 updateById 一致，为空的字段视为未修改
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta().replace(oldPicture, new Picture());
+
+        assertTrue(spaceStatDelta.getSpaceStatList().isEmpty());
+        assertTrue(spaceStatDelta.getCategoryStatList().isEmpty());
+        assertTrue(spaceStatDelta.getTagCountMap().isEmpty());
+    }
+
+    @Test
+    void replaceCategoryMovesCategoryOnly() {
+        Picture oldPicture = picture(1L, "风景", 1024L, "[\"海\"]");
+        Picture newPicture = new Picture();
+        newPicture.setCategory("人像");
+
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta().replace(oldPicture, newPicture);
+
+        // 空间总数和体积不变
+        assertTrue(spaceStatDelta.getSpaceStatList().isEmpty());
+        Map<String, Long> categoryCountMap = new HashMap<>();
+        spaceStatDelta.getCategoryStatList().forEach(stat -> categoryCountMap.put(stat.getCategory(), stat.getTotalCount()));
+        assertEquals(-1L, categoryCountMap.get("风景"));
+        assertEquals(1L, categoryCountMap.get("人像"));
+        assertTrue(spaceStatDelta.getTagCountMap().isEmpty());
+    }
+
+    @Test
+    void replaceSizeMovesBucket() {
+        Picture oldPicture = picture(1L, "风景", 1024L, null);
+        Picture newPicture = new Picture();
+        newPicture.setPicSize(600 * 1024L);
+
+        SpaceStat spaceStat = single(new SpaceStatDelta().replace(oldPicture, newPicture).getSpaceStatList());
+
+        assertEquals(0L, spaceStat.getTotalCount());
+        assertEquals(600 * 1024L - 1024L, spaceStat.getTotalSize());
+        assertEquals(-1L, spaceStat.getSmallCount());
+        assertEquals(1L, spaceStat.getLargeCount());
+    }
+
+    @Test
+    void replaceTagsCountsDifference() {
+        Picture oldPicture = picture(1L, "风景", 1024L, "[\"海\",\"日落\"]");
+        Picture newPicture = new Picture();
+        newPicture.setTags("[\"海\",\"森林\"]");
+
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta().replace(oldPicture, newPicture);
+
+        assertTrue(spaceStatDelta.getSpaceStatList().isEmpty());
+        Map<String, Long> expected = new TreeMap<>();
+        expected.put("日落", -1L);
+        expected.put("森林", 1L);
+        assertEquals(Collections.singletonMap(1L, expected), spaceStatDelta.getTagCountMap());
+    }
+
+    @Test
+    void replaceSpaceMovesEverything() {
+        Picture oldPicture = picture(1L, "风景", 1024L, "[\"海\"]");
+        Picture newPicture = new Picture();
+        newPicture.setSpaceId(2L);
+
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta().replace(oldPicture, newPicture);
+
+        // 按空间 id 排序
+        List<SpaceStat> spaceStatList = spaceStatDelta.getSpaceStatList();
+        assertEquals(2, spaceStatList.size());
+        assertEquals(1L, spaceStatList.get(0).getSpaceId());
+        assertEquals(-1L, spaceStatList.get(0).getTotalCount());
+        assertEquals(2L, spaceStatList.get(1).getSpaceId());
+        assertEquals(1L, spaceStatList.get(1).getTotalCount());
+        assertEquals(-1L, spaceStatDelta.getTagCountMap().get(1L).get("海"));
+        assertEquals(1L, spaceStatDelta.getTagCountMap().get(2L).get("海"));
+    }
+
+    @Test
+    void invalidTagsAreIgnored() {
+        SpaceStatDelta spaceStatDelta = new SpaceStatDelta()
+                .add(picture(1L, null, 1L, "not json"))
+                .add(picture(1L, null, 1L, "[\"\",\" \"]"));
+
+        assertTrue(spaceStatDelta.getTagCountMap().isEmpty());
+        assertEquals(2L, single(spaceStatDelta.getSpaceStatList()).getTotalCount());
+    }
+
+    private static Picture picture(Long spaceId, String category, Long picSize, String tags) {
+        Picture picture = new Picture();
+        picture.setSpaceId(spaceId);
+        picture.setCategory(category);
+        picture.setPicSize(picSize);
+        picture.setTags(tags);
+        return picture;
+    }
+
+    private static <T> T single(List<T> list) {
+        assertEquals(1, list.size());
+        return list.get(0);
+    }
+
+    private static List<String> categoryOf(List<SpaceCategoryStat> categoryStatList) {
+        List<String> categoryList = new ArrayList<>();
+        categoryStatList.forEach(stat -> categoryList.add(stat.getCategory()));
+        return categoryList;
+    }
+}
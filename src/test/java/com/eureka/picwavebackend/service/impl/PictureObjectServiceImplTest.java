@@ -0,0 +1,333 @@
+package com.eureka.picwavebackend.service.impl;
+
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.eureka.picwavebackend.job.PictureCleanupTask;
+import com.eureka.picwavebackend.manager.storage.ObjectStorage;
+import com.eureka.picwavebackend.mapper.PictureMapper;
+import com.eureka.picwavebackend.mapper.PictureObjectMapper;
+import com.eureka.picwavebackend.mapper.PictureTagMapper;
+import com.eureka.picwavebackend.model.entity.Picture;
+import com.eureka.picwavebackend.model.entity.PictureObject;
+import com.eureka.picwavebackend.model.entity.PictureTag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在 H2（MySQL 模式）上执行 PictureObjectMapper、PictureMapper、PictureTagMapper 的真实 SQL，
+ * 覆盖引用计数、替换图片后清理旧文件、定时清理已删除图片三条路径
+ */
+class PictureObjectServiceImplTest {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private static final String OTHER_HASH = "60303ae22b998861bce3b28f33eec1be758a213c86c93c076dbe9f558c11c752";
+
+    private PictureObjectMapper pictureObjectMapper;
+
+    private PictureMapper pictureMapper;
+
+    private PictureTagMapper pictureTagMapper;
+
+    private PictureObjectServiceImpl pictureObjectService;
+
+    /**
+     * 记录被删除的存储文件
+     */
+    private final List<String> deletedKeyList = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 1、每个用例一个独立的内存库
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + IdUtil.fastSimpleUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("sql/h2_schema.sql")).execute(dataSource);
+        // 2、与 application.yml 相同的 MyBatis-Plus 配置
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(false);
+        GlobalConfig globalConfig = GlobalConfigUtils.defaults();
+        globalConfig.setBanner(false);
+        globalConfig.getDbConfig().setLogicDeleteField("isDelete");
+        globalConfig.getDbConfig().setLogicDeleteValue("1");
+        globalConfig.getDbConfig().setLogicNotDeleteValue("0");
+        MybatisSqlSessionFactoryBean sqlSessionFactoryBean = new MybatisSqlSessionFactoryBean();
+        sqlSessionFactoryBean.setDataSource(dataSource);
+        sqlSessionFactoryBean.setConfiguration(configuration);
+        sqlSessionFactoryBean.setGlobalConfig(globalConfig);
+        sqlSessionFactoryBean.setMapperLocations(new Resource[]{
+                new ClassPathResource("mapper/PictureObjectMapper.xml"),
+                new ClassPathResource("mapper/PictureMapper.xml"),
+                new ClassPathResource("mapper/PictureTagMapper.xml")});
+        SqlSessionTemplate sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactoryBean.getObject());
+        pictureObjectMapper = sqlSessionTemplate.getMapper(PictureObjectMapper.class);
+        pictureMapper = sqlSessionTemplate.getMapper(PictureMapper.class);
+        pictureTagMapper = sqlSessionTemplate.getMapper(PictureTagMapper.class);
+        // 3、服务
+        PictureObjectMapper mapper = pictureObjectMapper;
+        pictureObjectService = new PictureObjectServiceImpl() {
+            {
+                baseMapper = mapper;
+            }
+
+            @Override
+            public Class<PictureObject> getEntityClass() {
+                // 默认从 Spring 容器中的 Mapper 解析实体类型
+                return PictureObject.class;
+            }
+        };
+    }
+
+    @Test
+    void registerThenAcquireAndReleaseCountsReferences() {
+        assertTrue(pictureObjectService.register(pictureObject(HASH)));
+        assertEquals(1, refCount(HASH));
+
+        PictureObject acquired = pictureObjectService.acquire(HASH);
+        assertNotNull(acquired);
+        assertEquals("https://example.com/a.webp", acquired.getUrl());
+        assertEquals(2, refCount(HASH));
+
+        // 还有引用时不能删除文件
+        assertFalse(pictureObjectService.release(HASH));
+        assertEquals(1, refCount(HASH));
+        // 最后一个释放者删除记录，由其删除文件
+        assertTrue(pictureObjectService.release(HASH));
+        assertNull(selectObject(HASH));
+    }
+
+    @Test
+    void acquireMissingObjectReturnsNull() {
+        assertNull(pictureObjectService.acquire(HASH));
+        assertNull(pictureObjectService.acquire(null));
+        assertNull(pictureObjectService.acquire(" "));
+    }
+
+    @Test
+    void unreferencedObjectCannotBeAcquired() {
+        PictureObject pictureObject = pictureObject(HASH);
+        pictureObject.setRefCount(0);
+        pictureObjectMapper.insert(pictureObject);
+
+        // 引用数归零、即将被删除的对象不能再被引用，调用方需要重新上传
+        assertNull(pictureObjectService.acquire(HASH));
+        assertEquals(0, refCount(HASH));
+        // 归零后删除只发生一次
+        assertEquals(1, pictureObjectMapper.deleteUnreferenced(HASH));
+        assertEquals(0, pictureObjectMapper.deleteUnreferenced(HASH));
+    }
+
+    @Test
+    void duplicateRegisterReturnsFalse() {
+        assertTrue(pictureObjectService.register(pictureObject(HASH)));
+
+        // 唯一索引冲突转换为 DuplicateKeyException
+        assertFalse(pictureObjectService.register(pictureObject(HASH)));
+        assertEquals(1, refCount(HASH));
+    }
+
+    @Test
+    void releaseUnmanagedFileCanDelete() {
+        // 没有对象记录（去重之前上传的文件或没有摘要）时由调用方直接删除文件
+        assertTrue(pictureObjectService.release(HASH));
+        assertTrue(pictureObjectService.release(null));
+    }
+
+    @Test
+    void releaseMoreThanAcquiredNeverGoesNegative() {
+        pictureObjectService.register(pictureObject(HASH));
+        assertTrue(pictureObjectService.release(HASH));
+
+        // 记录已删除，重复释放视为不受管理的文件
+        assertTrue(pictureObjectService.release(HASH));
+        assertNull(selectObject(HASH));
+        // 条件更新不会把引用数减成负数
+        PictureObject pictureObject = pictureObject(OTHER_HASH);
+        pictureObject.setRefCount(0);
+        pictureObjectMapper.insert(pictureObject);
+        assertEquals(0, pictureObjectMapper.decrementRefCount(OTHER_HASH));
+        assertEquals(0, refCount(OTHER_HASH));
+    }
+
+    @Test
+    void updatePicHashOnlyFillsEmpty() {
+        pictureObjectService.register(pictureObject(HASH));
+
+        assertEquals(1, pictureObjectMapper.updatePicHash(HASH, 42L));
+        assertEquals(0, pictureObjectMapper.updatePicHash(HASH, 43L));
+        assertEquals(42L, selectObject(HASH).getPicHash());
+    }
+
+    @Test
+    void clearOldPictureKeepsSharedFile() {
+        // 两张图片共用一个存储对象
+        pictureObjectService.register(pictureObject(HASH));
+        pictureObjectService.acquire(HASH);
+        PictureServiceImpl pictureService = pictureService();
+
+        // 第一张替换后文件仍被引用，不删除
+        pictureService.clearOldPicture(picture(HASH));
+        assertTrue(deletedKeyList.isEmpty());
+        assertEquals(1, refCount(HASH));
+        // 第二张替换后没有引用，删除原图和缩略图
+        pictureService.clearOldPicture(picture(HASH));
+        assertEquals(Arrays.asList("public/a.webp", "public/a_thumbnail.webp"), deletedKeyList);
+        assertNull(selectObject(HASH));
+    }
+
+    @Test
+    void clearOldPictureDeletesUnmanagedFile() {
+        // 没有内容摘要的旧图片直接删除文件
+        pictureService().clearOldPicture(picture(null));
+
+        assertEquals(Arrays.asList("public/a.webp", "public/a_thumbnail.webp"), deletedKeyList);
+    }
+
+    @Test
+    void cleanupTaskReleasesReferencesOfDeletedPictures() {
+        // 1、HASH 被两张图片引用，OTHER_HASH 被一张图片引用
+        pictureObjectService.register(pictureObject(HASH));
+        pictureObjectService.acquire(HASH);
+        pictureObjectService.register(pictureObject(OTHER_HASH));
+        Picture sharedDeleted = insertPicture(HASH);
+        Picture sharedAlive = insertPicture(HASH);
+        Picture otherDeleted = insertPicture(OTHER_HASH);
+        insertPictureTag(sharedDeleted.getId(), 1L);
+        insertPictureTag(sharedAlive.getId(), 1L);
+        insertPictureTag(otherDeleted.getId(), 2L);
+        // 逻辑删除走全局配置
+        pictureMapper.deleteById(sharedDeleted.getId());
+        pictureMapper.deleteById(otherDeleted.getId());
+
+        new PictureCleanupTask(pictureMapper, pictureTagMapper, recordingObjectStorage(), pictureObjectService)
+                .cleanupDeletedPictures();
+
+        // 2、共用的文件保留，只删除没有引用的文件
+        assertEquals(1, refCount(HASH));
+        assertNull(selectObject(OTHER_HASH));
+        assertEquals(Arrays.asList("public/b.webp", "public/b_thumbnail.webp"), deletedKeyList);
+        // 3、已删除图片及其标签关联被物理删除，未删除的图片不受影响
+        assertTrue(pictureMapper.selectDeleted().isEmpty());
+        assertNotNull(pictureMapper.selectById(sharedAlive.getId()));
+        List<PictureTag> pictureTagList = pictureTagMapper.selectList(null);
+        assertEquals(1, pictureTagList.size());
+        assertEquals(sharedAlive.getId(), pictureTagList.get(0).getPictureId());
+        // 4、再次执行不会重复释放引用
+        new PictureCleanupTask(pictureMapper, pictureTagMapper, recordingObjectStorage(), pictureObjectService)
+                .cleanupDeletedPictures();
+        assertEquals(1, refCount(HASH));
+    }
+
+    private PictureServiceImpl pictureService() {
+        // clearOldPicture 只依赖对象存储和存储对象服务
+        return new PictureServiceImpl(null, null, null, recordingObjectStorage(), pictureObjectService,
+                null, null, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private PictureObject selectObject(String contentHash) {
+        return pictureObjectService.lambdaQuery().eq(PictureObject::getContentHash, contentHash).one();
+    }
+
+    private int refCount(String contentHash) {
+        PictureObject pictureObject = selectObject(contentHash);
+        assertNotNull(pictureObject);
+        return pictureObject.getRefCount();
+    }
+
+    private Picture insertPicture(String contentHash) {
+        Picture picture = picture(contentHash);
+        picture.setName("图片");
+        picture.setUserId(1L);
+        pictureMapper.insert(picture);
+        return picture;
+    }
+
+    private void insertPictureTag(Long pictureId, Long tagId) {
+        PictureTag pictureTag = new PictureTag();
+        pictureTag.setPictureId(pictureId);
+        pictureTag.setTagId(tagId);
+        pictureTagMapper.insert(pictureTag);
+    }
+
+    private static Picture picture(String contentHash) {
+        Picture picture = new Picture();
+        picture.setContentHash(contentHash);
+        picture.setUrl(HASH.equals(contentHash) || contentHash == null
+                ? "https://example.com/public/a.webp" : "https://example.com/public/b.webp");
+        picture.setThumbnailUrl(picture.getUrl().replace(".webp", "_thumbnail.webp"));
+        return picture;
+    }
+
+    private static PictureObject pictureObject(String contentHash) {
+        PictureObject pictureObject = new PictureObject();
+        pictureObject.setContentHash(contentHash);
+        pictureObject.setUrl("https://example.com/a.webp");
+        return pictureObject;
+    }
+
+    /**
+     * 只记录删除操作的对象存储
+     */
+    private ObjectStorage recordingObjectStorage() {
+        return new ObjectStorage() {
+            @Override
+            public void putObject(String key, InputStream inputStream, long contentLength) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public InputStream getObject(String key) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public InputStream getObject(String key, long offset, long length) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void deleteObject(String key) {
+                deletedKeyList.add(key);
+            }
+
+            @Override
+            public void deleteObjects(List<String> keyList) {
+                deletedKeyList.addAll(keyList);
+            }
+
+            @Override
+            public List<String> listObjects(String prefix) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void copyObject(String sourceKey, String targetKey) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public String getUrl(String key) {
+                return "https://example.com/" + key;
+            }
+
+            @Override
+            public String getKey(String url) {
+                return url.substring("https://example.com/".length());
+            }
+        };
+    }
+}
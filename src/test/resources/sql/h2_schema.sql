@@ -0,0 +1,46 @@
+-- 单元测试用表结构（H2 MySQL 模式），只保留测试涉及的字段，与 sql/create_table.sql 保持一致
+
+create table if not exists picture
+(
+    id           bigint                             not null primary key,
+    url          varchar(512)                       null,
+    thumbnailUrl varchar(512)                       null,
+    name         varchar(128)                       not null,
+    contentHash  char(64)                           null,
+    spaceId      bigint                             null,
+    reviewStatus int      default 0                 not null,
+    userId       bigint                             not null,
+    createTime   datetime default CURRENT_TIMESTAMP not null,
+    editTime     datetime default CURRENT_TIMESTAMP not null,
+    updateTime   datetime default CURRENT_TIMESTAMP not null,
+    isDelete     tinyint  default 0                 not null
+);
+
+create table if not exists picture_tag
+(
+    id         bigint auto_increment primary key,
+    pictureId  bigint                             not null,
+    tagId      bigint                             not null,
+    createTime datetime default CURRENT_TIMESTAMP not null,
+    constraint uk_pictureId_tagId unique (pictureId, tagId)
+);
+
+create table if not exists picture_object
+(
+    id           bigint auto_increment primary key,
+    contentHash  char(64)                           not null,
+    url          varchar(512)                       not null,
+    thumbnailUrl varchar(512)                       null,
+    picSize      bigint                             null,
+    picWidth     int                                null,
+    picHeight    int                                null,
+    picScale     double                             null,
+    picFormat    varchar(32)                        null,
+    picColor     varchar(16)                        null,
+    picPalette   varchar(256)                       null,
+    picHash      bigint                             null,
+    refCount     int      default 1                 not null,
+    createTime   datetime default CURRENT_TIMESTAMP not null,
+    updateTime   datetime default CURRENT_TIMESTAMP not null,
+    constraint uk_contentHash unique (contentHash)
+);